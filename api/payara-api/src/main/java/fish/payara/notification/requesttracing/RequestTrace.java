@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -283,6 +283,20 @@ public class RequestTrace implements Serializable, Comparable<RequestTrace> {
     public void addSpanLog(RequestTraceSpanLog spanLog) {
         spanLogs.add(spanLog);
     }
+
+    /**
+     * Removes all spans and logs and resets the trace to not being started, so that the instance can be reused for
+     * another trace.
+     */
+    public void clear() {
+        trace.clear();
+        spanLogs.clear();
+        started = false;
+        completed = false;
+        startTime = null;
+        endTime = null;
+        elapsedTime = 0;
+    }
     
     private void assignLogs() {
         for (RequestTraceSpanLog spanLog : spanLogs) {
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -170,12 +170,7 @@ public class RequestTraceSpan implements Serializable, Comparable<RequestTraceSp
      * @param value 
      */
     public void addSpanTag(String name, String value) {
-        if (value != null) {
-            // Escape any quotes
-            spanTags.put(name, value.replaceAll("\"", "\\\\\""));
-        } else {
-            spanTags.put(name, value);
-        }
+        spanTags.put(name, escapeQuotes(value));
     }
     
     /**
@@ -185,12 +180,15 @@ public class RequestTraceSpan implements Serializable, Comparable<RequestTraceSp
      * @param value
      */
     public void addSpanTag(Tag tag, String value) {
-        if (value != null) {
-            // Escape any quotes
-            spanTags.put(tag, value.replaceAll("\"", "\\\\\""));
-        } else {
-            spanTags.put(tag, value);
+        spanTags.put(tag, escapeQuotes(value));
+    }
+
+    private static String escapeQuotes(String value) {
+        // Most values contain no quotes, which spares creating a copy
+        if (value == null || value.indexOf('"') < 0) {
+            return value;
         }
+        return value.replace("\"", "\\\"");
     }
     
     public String getSpanTag(Object tag) {
@@ -0,0 +1,68 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.ha.common;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import org.glassfish.ha.store.api.BackingStoreException;
+
+/**
+ * Optional capability of a {@link org.glassfish.ha.store.api.BackingStore}
+ * that is able to save several entries in a single operation, for instance a
+ * single network round-trip for a replicated store.
+ * <p>
+ * Callers check for this interface with {@code instanceof} and fall back to
+ * saving the entries one by one when the store does not implement it.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the stored values
+ */
+public interface BatchBackingStore<K extends Serializable, V extends Serializable> {
+
+    /**
+     * Saves all the given entries, replacing any previously stored value.
+     *
+     * @param entries the entries to save
+     * @throws BackingStoreException if the entries could not be saved
+     */
+    void saveAll(Map<K, V> entries) throws BackingStoreException;
+
+}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2019] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2022] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.connectors;
 
@@ -87,6 +87,7 @@ public class ConnectorConnectionPool implements Serializable {
     private boolean pingDuringPoolCreation = false;
     private String poolDataStructureType;
     private String poolWaitQueue;
+    private String poolResizer;
     private String dataStructureParameters;
     private String resourceGatewayClass;
     private String resourceSelectionStrategyClass;
@@ -241,6 +242,7 @@ public class ConnectorConnectionPool implements Serializable {
         clone.setDataStructureParameters(getDataStructureParameters());
         clone.setPoolDataStructureType(getPoolDataStructureType());
         clone.setPoolWaitQueue(getPoolWaitQueue());
+        clone.setPoolResizer(getPoolResizer());
         clone.setLazyConnectionEnlist(isLazyConnectionEnlist());
 
         clone.setMaxConnectionUsage(getMaxConnectionUsage());
@@ -850,6 +852,14 @@ public class ConnectorConnectionPool implements Serializable {
         this.poolWaitQueue = poolWaitQueue;
     }
 
+    public String getPoolResizer() {
+        return poolResizer;
+    }
+
+    public void setPoolResizer(String poolResizer) {
+        this.poolResizer = poolResizer;
+    }
+
     public String getDataStructureParameters() {
         return dataStructureParameters;
     }
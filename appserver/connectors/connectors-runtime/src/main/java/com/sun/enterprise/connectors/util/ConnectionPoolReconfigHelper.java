@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2022] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.connectors.util;
 
@@ -134,6 +135,11 @@ public final class ConnectionPoolReconfigHelper {
             return ReconfigAction.RECREATE_POOL;
         }
 
+        if ((newCcp.getPoolResizer() == null) ? (oldCcp.getPoolResizer() != null)
+                : !newCcp.getPoolResizer().equals(oldCcp.getPoolResizer())) {
+            return ReconfigAction.RECREATE_POOL;
+        }
+
         if ((newCcp.getDataStructureParameters() != null) && (oldCcp.getDataStructureParameters() == null)) {
             return ReconfigAction.RECREATE_POOL;
         }
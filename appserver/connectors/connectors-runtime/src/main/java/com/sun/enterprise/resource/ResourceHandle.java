@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2022] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.resource;
 
@@ -51,6 +52,7 @@ import javax.resource.spi.ConnectionEventListener;
 import javax.security.auth.Subject;
 import javax.transaction.xa.XAResource;
 import javax.transaction.Transaction;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -78,7 +80,14 @@ public class ResourceHandle implements
     private int shareCount;   // sharing within a component (XA only)
     private boolean supportsXAResource = false;
 
-    private volatile boolean busy;
+    private static final int STATE_FREE = 0;
+    private static final int STATE_BUSY = 1;
+    private static final int STATE_REMOVED = 2;
+
+    private static final AtomicIntegerFieldUpdater<ResourceHandle> BUSY_STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(ResourceHandle.class, "busyState");
+
+    private volatile int busyState = STATE_FREE;
 
     private Subject subject = null;
 
@@ -381,11 +390,50 @@ public class ResourceHandle implements
         ConnectorRuntime.getRuntime().getPoolManager().resourceEnlisted(tran, this);
     }
 
+    /**
+     * Sets the busy flag of this handle. A handle that has been marked as removed stays removed.
+     *
+     * @param isBusy the new busy flag
+     */
     public void setBusy(boolean isBusy){
-        busy = isBusy;
+        int update = isBusy ? STATE_BUSY : STATE_FREE;
+        int current;
+        do {
+            current = busyState;
+            if (current == STATE_REMOVED) {
+                return;
+            }
+        } while (!BUSY_STATE_UPDATER.compareAndSet(this, current, update));
     }
 
     public boolean isBusy(){
-        return busy;
+        return busyState != STATE_FREE;
+    }
+
+    /**
+     * Atomically changes the busy flag of this handle if it currently holds the expected value.
+     * A handle that has been marked as removed is considered busy and can never be made free again.
+     *
+     * @param expect the expected busy flag
+     * @param update the new busy flag
+     * @return true if the flag was changed
+     */
+    public boolean compareAndSetBusy(boolean expect, boolean update) {
+        return BUSY_STATE_UPDATER.compareAndSet(this,
+                expect ? STATE_BUSY : STATE_FREE, update ? STATE_BUSY : STATE_FREE);
+    }
+
+    /**
+     * Marks this handle as removed from its pool, so that it can no longer be claimed
+     * by {@link #compareAndSetBusy(boolean, boolean)}.
+     *
+     * @return true if the handle was free at the time it was removed
+     */
+    public boolean markRemoved() {
+        return BUSY_STATE_UPDATER.getAndSet(this, STATE_REMOVED) == STATE_FREE;
+    }
+
+    public boolean isRemoved() {
+        return busyState == STATE_REMOVED;
     }
 }
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2022] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.resource.deployer;
 
@@ -533,6 +534,12 @@ public class ConnectorConnectionPoolDeployer extends AbstractConnectorResourceDe
                         _logger.fine("POOLWAITQUEUE");
                     }
 
+                } else if ("POOLRESIZER".equals(ep.getName().toUpperCase(locale))) {
+                    ccp.setPoolResizer(ep.getValue());
+                    if(_logger.isLoggable(Level.FINE)) {
+                        _logger.fine("POOLRESIZER");
+                    }
+
                 } else if ("DATASTRUCTUREPARAMETERS".equals(ep.getName().toUpperCase(locale))) {
                     ccp.setDataStructureParameters(ep.getValue());
                     if(_logger.isLoggable(Level.FINE)) {
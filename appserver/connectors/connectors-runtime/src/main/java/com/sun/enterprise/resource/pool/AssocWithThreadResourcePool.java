@@ -258,6 +258,31 @@ public class AssocWithThreadResourcePool extends ConnectionPool {
         return result;
     }
 
+    /**
+     * A resource handed over by a releasing thread is associated with the waiting thread,
+     * the same way as a resource returned by getUnenlistedResource.
+     */
+    @Override
+    protected ResourceHandle acceptHandedOffResource(ResourceHandle handle, ResourceAllocator alloc,
+                                                     ResourceSpec spec) throws PoolingException {
+        //It is possible that Resizer might have marked the resource for recycle
+        //and hence we should not use this resource.
+        synchronized (handle.lock) {
+            if (((AssocWithThreadResourceHandle) handle).isDirty()) {
+                if (ds.getAllResources().contains(handle)) {
+                    ds.removeResource(handle);
+                }
+                notifyWaitingThreads();
+                return null;
+            }
+        }
+        ResourceHandle result = super.acceptHandedOffResource(handle, alloc, spec);
+        if (localResource.get() == null) {
+            setInThreadLocal((AssocWithThreadResourceHandle) result);
+        }
+        return result;
+    }
+
     /**
      * return the resource back to pool only if it is not associated with the thread.
      * @param h ResourceHandle
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2019-2021] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2022] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.resource.pool;
 
@@ -53,7 +53,10 @@ import com.sun.enterprise.resource.allocator.ResourceAllocator;
 import com.sun.enterprise.resource.listener.PoolLifeCycleListener;
 import com.sun.enterprise.resource.pool.datastructure.DataStructure;
 import com.sun.enterprise.resource.pool.datastructure.DataStructureFactory;
+import com.sun.enterprise.resource.pool.resizer.AdaptiveResizer;
+import com.sun.enterprise.resource.pool.resizer.PoolDemandHistory;
 import com.sun.enterprise.resource.pool.resizer.Resizer;
+import com.sun.enterprise.resource.pool.waitqueue.HandoffPoolWaitQueue;
 import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueue;
 import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueueFactory;
 import com.sun.enterprise.transaction.api.JavaEETransaction;
@@ -67,6 +70,7 @@ import javax.resource.ResourceException;
 import javax.resource.spi.RetryableUnavailableException;
 import javax.transaction.Transaction;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.glassfish.api.admin.ServerEnvironment;
@@ -101,6 +105,9 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
     protected boolean preferValidateOverRecreate = false;
     // hold on to the resizer task so we can cancel/reschedule it.
     protected Resizer resizerTask;
+    // kept across resizer tasks, which are recreated whenever the resizer is rescheduled
+    private PoolDemandHistory demandHistory;
+    protected String resizerType;
 
 
     protected volatile boolean poolInitialized = false;
@@ -148,6 +155,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
 
     private boolean blocked = false;
     private final ThreadLocal<Long> resourceStartTime = new ThreadLocal<>();
+    private final LongAdder acquiredResourceCount = new LongAdder();
 
 
     public ConnectionPool(PoolInfo poolInfo, Hashtable env) throws PoolingException {
@@ -203,6 +211,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         dataStructureType = poolResource.getPoolDataStructureType();
         dataStructureParameters = poolResource.getDataStructureParameters();
         poolWaitQueueClass = poolResource.getPoolWaitQueue();
+        resizerType = poolResource.getPoolResizer();
         resourceSelectionStrategyClass = poolResource.getResourceSelectionStrategyClass();
         resourceGatewayClass = poolResource.getResourceGatewayClass();
         reconfigWaitTime = poolResource.getDynamicReconfigWaitTimeout();
@@ -268,13 +277,20 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
             timer = ConnectorRuntime.getRuntime().getTimer();
         }
 
-        timer.scheduleAtFixedRate(resizerTask, idletime, idletime);
+        long resizerPeriod = resizerTask.getRunPeriod(idletime);
+        timer.scheduleAtFixedRate(resizerTask, resizerPeriod, resizerPeriod);
         if (_logger.isLoggable(Level.FINEST)) {
             _logger.finest("scheduled resizer task");
         }
     }
 
     protected Resizer initializeResizer() {
+        if (AdaptiveResizer.TYPE.equalsIgnoreCase(resizerType)) {
+            if (demandHistory == null) {
+                demandHistory = AdaptiveResizer.createDemandHistory();
+            }
+            return new AdaptiveResizer(poolInfo, ds, this, this, preferValidateOverRecreate, demandHistory);
+        }
         return new Resizer(poolInfo, ds, this, this, preferValidateOverRecreate);
     }
 
@@ -372,6 +388,8 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         long elapsedWaitTime;
         long remainingWaitTime = 0;
         this.resourceStartTime.set(startTime);
+        // resource handed over by a releasing thread when using the handoff wait queue
+        ResourceHandle handedOff = null;
 
         while (true) {
             if (gateway.allowed()) {
@@ -385,14 +403,26 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                 //already obtained in the current transaction.
                 if (!blocked || (resourcesSet != null && resourcesSet.size() > 0)) {
                     try {
-                        result = internalGetResource(spec, alloc, txn);
+                        if (handedOff != null) {
+                            result = acceptHandedOffResource(handedOff, alloc, spec);
+                            handedOff = null;
+                        }
+                        if (result == null) {
+                            result = internalGetResource(spec, alloc, txn);
+                        }
                     } finally {
                         gateway.acquiredResource();
                     }
                 }
             }
+            if (handedOff != null) {
+                // could not be used by this request, make it available to others
+                returnResourceToPool(handedOff);
+                handedOff = null;
+            }
             if (result != null) {
                 // got one, return it
+                acquiredResourceCount.increment();
                 if (poolLifeCycleListener != null) {
                     poolLifeCycleListener.connectionAcquired(result.getId());
                     elapsedWaitTime = System.currentTimeMillis() - startTime;
@@ -416,7 +446,22 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                     }
                 }
 
-                if (!blocked) {
+                if (!blocked && waitQueue instanceof HandoffPoolWaitQueue) {
+                    //wait for a released resource to be handed over
+                    if (poolLifeCycleListener != null) {
+                        poolLifeCycleListener.connectionRequestQueued();
+                    }
+                    try {
+                        logFine("Resource Pool: getting on handoff wait queue");
+                        handedOff = ((HandoffPoolWaitQueue) waitQueue).awaitResource(remainingWaitTime);
+                    } catch (InterruptedException ex) {
+                        poolManagerTaskInterrupted(ex);
+                    } finally {
+                        if (poolLifeCycleListener != null) {
+                            poolLifeCycleListener.connectionRequestDequeued();
+                        }
+                    }
+                } else if (!blocked) {
                     //add to wait-queue
                     Object waitMonitor = new Object();
                     if (poolLifeCycleListener != null) {
@@ -505,6 +550,64 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         }
     }
 
+    /**
+     * Prepares a resource handed over by a releasing thread for use by the waiting request.
+     * The resource is checked the same way as a resource taken from the free list in
+     * {@link #getResourceFromPool(ResourceAllocator, ResourceSpec)}, including the creation
+     * of a new resource when validation fails and fail-all-connections is set.
+     * Overridden in AssocWithThreadResourcePool to associate the resource with the thread.
+     *
+     * @param handle resource handed over through the wait queue
+     * @param alloc  ResourceAllocator of the waiting request
+     * @param spec   ResourceSpec of the waiting request
+     * @return the resource marked as busy, or null if it cannot be used by this request
+     * @throws PoolingException if unable to create a new resource
+     */
+    protected ResourceHandle acceptHandedOffResource(ResourceHandle handle, ResourceAllocator alloc,
+                                                     ResourceSpec spec) throws PoolingException {
+        if (handle.hasConnectionErrorOccurred()) {
+            ds.removeResource(handle);
+            notifyWaitingThreads();
+            return null;
+        }
+        if (!matchConnection(handle, alloc) || handle.isShareable() != alloc.shareableWithinComponent()) {
+            returnResourceToPool(handle);
+            return null;
+        }
+        ResourceHandle result = handle;
+        if (!isConnectionValid(handle, alloc) || handle.hasConnectionErrorOccurred()) {
+            if (!failAllConnections) {
+                ds.removeResource(handle);
+                notifyWaitingThreads();
+                return null;
+            }
+            //no need to match since the resource is created with the allocator of caller.
+            result = createSingleResourceAndAdjustPool(alloc, spec);
+            if (result == null) {
+                return null;
+            }
+        }
+        setResourceStateToBusy(result);
+        if (maxConnectionUsage_ > 0) {
+            result.incrementUsageCount();
+        }
+        if (poolLifeCycleListener != null) {
+            poolLifeCycleListener.connectionUsed(result.getId());
+            poolLifeCycleListener.decrementNumConnFree();
+        }
+        return result;
+    }
+
+    /**
+     * Puts a handed over resource that could not be used back in the free list.
+     *
+     * @param handle resource handed over through the wait queue
+     */
+    private void returnResourceToPool(ResourceHandle handle) {
+        ds.returnResource(handle);
+        notifyWaitingThreads();
+    }
+
     /**
      * Overridden in AssocWithThreadResourcePool to fetch the resource
      * cached in the ThreadLocal
@@ -1080,13 +1183,17 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                     resourceHandle.getUsageCount() >= maxConnectionUsage_) {
                  performMaxConnectionUsageOperation(resourceHandle);
             } else {
-                // Put it back to the free collection.
-                ds.returnResource(resourceHandle);
                 //update the monitoring data
                 if (poolLifeCycleListener != null) {
                     poolLifeCycleListener.decrementConnectionUsed(resourceHandle.getId());
                     poolLifeCycleListener.incrementNumConnFree(false, steadyPoolSize);
                 }
+                // Hand it over to the oldest waiter, if any, else put it back to the free collection.
+                if (waitQueue instanceof HandoffPoolWaitQueue
+                        && ((HandoffPoolWaitQueue) waitQueue).offerResource(resourceHandle)) {
+                    return;
+                }
+                ds.returnResource(resourceHandle);
             }
             //for both the cases of free.add and maxConUsageOperation, a free resource is added.
             // Hence notify waiting threads
@@ -1237,6 +1344,13 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
 
 
     protected void notifyWaitingThreads() {
+        if (waitQueue instanceof HandoffPoolWaitQueue) {
+            // wake up the oldest waiter so that it retries, it updates the monitoring data itself
+            if (!((HandoffPoolWaitQueue) waitQueue).signalNext()) {
+                logFine(" No waiter to signal");
+            }
+            return;
+        }
         // notify the first thread in the waitqueue
         Object waitMonitor = null;
         synchronized (waitQueue) {
@@ -1596,6 +1710,10 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         return waitQueue.getQueueLength();
     }
 
+    public long getAcquiredResourceCount() {
+        return acquiredResourceCount.sum();
+    }
+
     public int getSteadyPoolSize() {
         return steadyPoolSize;
     }
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2022] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.resource.pool;
 
@@ -76,4 +77,10 @@ public interface PoolProperties {
      * @return wait queue length
      */
     int getWaitQueueLength();
+
+    /**
+     * gets the total number of resources handed out by the pool since it was created
+     * @return number of resources acquired from the pool
+     */
+    long getAcquiredResourceCount();
 }
@@ -0,0 +1,374 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.resource.pool.datastructure;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+import com.sun.logging.LogDomains;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lock-free datastructure for pool, modelled as a concurrent bag.
+ * <p>
+ * Resources are held in a copy-on-write array that is only replaced when resources are
+ * added or removed. Checkout claims a resource by atomically flipping its busy flag, first
+ * looking at the resources recently returned by the calling thread and then scanning the
+ * shared array from a random offset, so that concurrent threads rarely compete for the same
+ * slot. Neither checkout nor return take a lock or allocate once the per thread cache exists.
+ * <p>
+ * The datastructure parameters, if set, are interpreted as the number of resources each thread
+ * remembers for reuse. Removed resources are cleared from the caches of all threads, so that
+ * idle threads don't keep destroyed resources reachable.
+ */
+public class ConcurrentBagDataStructure implements DataStructure {
+
+    private static final int DEFAULT_THREAD_CACHE_SIZE = 4;
+    private static final ResourceHandle[] EMPTY = new ResourceHandle[0];
+
+    protected static final Logger _logger = LogDomains.getLogger(ConcurrentBagDataStructure.class, LogDomains.RSR_LOGGER);
+
+    private final ResourceHandler handler;
+    private final int threadCacheSize;
+    private final ThreadLocal<ThreadCache> threadCache;
+    // weak so that the caches of threads that ended are not kept
+    private final Set<ThreadCache> threadCaches = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private final Object resourcesLock = new Object();
+    private volatile ResourceHandle[] resources = EMPTY;
+
+    private final LongAdder freeCount = new LongAdder();
+    private final AtomicInteger remainingCapacity;
+    private volatile int maxSize;
+
+    public ConcurrentBagDataStructure(String parameters, int maxSize, ResourceHandler handler, String strategyClass) {
+        this.handler = handler;
+        this.maxSize = maxSize;
+        this.remainingCapacity = new AtomicInteger(maxSize);
+        this.threadCacheSize = parseThreadCacheSize(parameters);
+        this.threadCache = ThreadLocal.withInitial(() -> {
+            ThreadCache cache = new ThreadCache(threadCacheSize);
+            threadCaches.add(cache);
+            return cache;
+        });
+        if (_logger.isLoggable(Level.FINEST)) {
+            _logger.log(Level.FINEST, "Initialized ConcurrentBag DataStructure with thread cache size {0}", threadCacheSize);
+        }
+    }
+
+    private static int parseThreadCacheSize(String parameters) {
+        if (parameters != null && !parameters.trim().isEmpty()) {
+            try {
+                int size = Integer.parseInt(parameters.trim());
+                if (size >= 0) {
+                    return size;
+                }
+            } catch (NumberFormatException e) {
+                _logger.log(Level.WARNING, "Invalid ConcurrentBag DataStructure parameters [{0}], using defaults", parameters);
+            }
+        }
+        return DEFAULT_THREAD_CACHE_SIZE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMaxSize(int maxSize) {
+        synchronized (resourcesLock) {
+            int delta = maxSize - this.maxSize;
+            // remaining capacity might be negative after this, but its up to ConnectionPool to remove some of the
+            // resources before asking for new ones
+            remainingCapacity.addAndGet(delta);
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int addResource(ResourceAllocator allocator, int count) throws PoolingException {
+        int numResAdded = 0;
+        for (int i = 0; i < count && canGrow(); i++) {
+            try {
+                ResourceHandle handle = handler.createResource(allocator);
+                synchronized (resourcesLock) {
+                    ResourceHandle[] current = resources;
+                    ResourceHandle[] updated = Arrays.copyOf(current, current.length + 1);
+                    updated[current.length] = handle;
+                    resources = updated;
+                }
+                freeCount.increment();
+                numResAdded++;
+            } catch (Exception e) {
+                remainingCapacity.incrementAndGet();
+                throw new PoolingException(e.getMessage(), e);
+            }
+        }
+        return numResAdded;
+    }
+
+    private boolean canGrow() {
+        return remainingCapacity.getAndUpdate(x -> x > 0 ? x - 1 : x) > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResourceHandle getResource() {
+        if (threadCacheSize > 0) {
+            ThreadCache cache = threadCache.get();
+            ResourceHandle handle;
+            while ((handle = cache.poll()) != null) {
+                if (handle.compareAndSetBusy(false, true)) {
+                    freeCount.decrement();
+                    return handle;
+                }
+            }
+        }
+
+        ResourceHandle[] snapshot = resources;
+        int length = snapshot.length;
+        if (length == 0) {
+            return null;
+        }
+        int start = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            int index = start + i;
+            ResourceHandle handle = snapshot[index < length ? index : index - length];
+            if (handle.compareAndSetBusy(false, true)) {
+                freeCount.decrement();
+                return handle;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeResource(ResourceHandle resource) {
+        boolean removed = false;
+        synchronized (resourcesLock) {
+            ResourceHandle[] current = resources;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == resource) {
+                    // mark first so that stale snapshots and thread caches can no longer claim it
+                    if (resource.markRemoved()) {
+                        freeCount.decrement();
+                    }
+                    ResourceHandle[] updated = new ResourceHandle[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    resources = updated;
+                    removed = true;
+                    break;
+                }
+            }
+        }
+        if (removed) {
+            clearThreadCaches(resource);
+            remainingCapacity.incrementAndGet();
+            handler.deleteResource(resource);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void returnResource(ResourceHandle resource) {
+        // a resource that was removed, or that is already free, is not handed out again
+        if (resource.compareAndSetBusy(true, false)) {
+            freeCount.increment();
+            if (threadCacheSize > 0) {
+                ThreadCache cache = threadCache.get();
+                cache.offer(resource);
+                if (resource.isRemoved()) {
+                    // removed before it was cached, so possibly missed by clearThreadCaches
+                    cache.clear(resource);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getFreeListSize() {
+        return Math.max(0, freeCount.intValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeAll() {
+        ResourceHandle[] removedResources;
+        synchronized (resourcesLock) {
+            removedResources = resources;
+            for (ResourceHandle resourceHandle : removedResources) {
+                if (resourceHandle.markRemoved()) {
+                    freeCount.decrement();
+                }
+            }
+            resources = EMPTY;
+            remainingCapacity.set(maxSize);
+        }
+        clearThreadCaches(null);
+        for (ResourceHandle resourceHandle : removedResources) {
+            handler.deleteResource(resourceHandle);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getResourcesSize() {
+        return resources.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArrayList<ResourceHandle> getAllResources() {
+        return new ArrayList<>(Arrays.asList(resources));
+    }
+
+    /**
+     * Removes a resource from the caches of all threads.
+     *
+     * @param resource the removed resource, or null to clear the caches entirely
+     */
+    private void clearThreadCaches(ResourceHandle resource) {
+        if (threadCacheSize == 0) {
+            return;
+        }
+        synchronized (threadCaches) {
+            for (ThreadCache cache : threadCaches) {
+                cache.clear(resource);
+            }
+        }
+    }
+
+    ThreadCache getThreadCache() {
+        return threadCache.get();
+    }
+
+    /**
+     * Bounded LIFO of the resources most recently returned by a thread, kept in a ring so that
+     * the oldest entry is overwritten once full. Entries may be stale, as another thread can
+     * claim the same resource from the shared array in the meantime, so every entry is
+     * re-claimed through its busy flag before use.
+     * <p>
+     * Only the owning thread adds and takes entries, other threads only clear them.
+     */
+    static final class ThreadCache {
+
+        private final AtomicReferenceArray<ResourceHandle> entries;
+        private int top;
+        private int size;
+
+        ThreadCache(int capacity) {
+            entries = new AtomicReferenceArray<>(capacity);
+        }
+
+        ResourceHandle poll() {
+            while (size > 0) {
+                ResourceHandle handle = entries.getAndSet(top, null);
+                top = top == 0 ? entries.length() - 1 : top - 1;
+                size--;
+                if (handle != null) {
+                    return handle;
+                }
+            }
+            return null;
+        }
+
+        void offer(ResourceHandle handle) {
+            top = top == entries.length() - 1 ? 0 : top + 1;
+            entries.set(top, handle);
+            if (size < entries.length()) {
+                size++;
+            }
+        }
+
+        /**
+         * @param handle the resource to clear, or null to clear all resources
+         */
+        void clear(ResourceHandle handle) {
+            for (int i = 0; i < entries.length(); i++) {
+                if (handle == null) {
+                    entries.set(i, null);
+                } else {
+                    entries.compareAndSet(i, handle, null);
+                }
+            }
+        }
+
+        boolean contains(ResourceHandle handle) {
+            for (int i = 0; i < entries.length(); i++) {
+                if (entries.get(i) == handle) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
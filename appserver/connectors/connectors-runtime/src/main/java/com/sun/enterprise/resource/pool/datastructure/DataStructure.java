@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2022] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.resource.pool.datastructure;
 
@@ -56,6 +57,7 @@ public interface DataStructure {
     String DS_TYPE_DEFAULT = "LIST";
     String DS_TYPE_CIRCULAR_LIST = "CIRCULAR_LIST";
     String DS_TYPE_PARTITIONED = "PARTITIONED";
+    String DS_TYPE_CONCURRENT_BAG = "CONCURRENT_BAG";
 
     /**
      * Set maxSize based on the new max pool size set on the connection pool 
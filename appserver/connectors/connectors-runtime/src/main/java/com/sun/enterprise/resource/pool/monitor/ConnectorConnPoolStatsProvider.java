@@ -38,21 +38,25 @@
  * holder.
  *
 */
-// Portions Copyright [2016-2019] [Payara Foundation]
+// Portions Copyright [2016-2022] [Payara Foundation]
 
 package com.sun.enterprise.resource.pool.monitor;
 
 import com.sun.enterprise.connectors.ConnectorRuntime;
 import com.sun.enterprise.resource.pool.PoolLifeCycleListenerRegistry;
 import com.sun.enterprise.resource.pool.PoolStatus;
+import com.sun.enterprise.resource.pool.ResourcePool;
+import com.sun.enterprise.resource.pool.waitqueue.HandoffPoolWaitQueue;
 import org.glassfish.external.probe.provider.annotations.ProbeListener;
 import org.glassfish.external.probe.provider.annotations.ProbeParam;
 import org.glassfish.external.statistics.CountStatistic;
 import org.glassfish.external.statistics.RangeStatistic;
+import org.glassfish.external.statistics.StringStatistic;
 import org.glassfish.external.statistics.annotations.Reset;
 import org.glassfish.external.statistics.impl.CountStatisticImpl;
 import org.glassfish.external.statistics.impl.RangeStatisticImpl;
 import org.glassfish.external.statistics.impl.StatisticImpl;
+import org.glassfish.external.statistics.impl.StringStatisticImpl;
 import org.glassfish.gmbal.AMXMetadata;
 import org.glassfish.gmbal.Description;
 import org.glassfish.gmbal.ManagedAttribute;
@@ -141,6 +145,12 @@ public class ConnectorConnPoolStatsProvider {
     private CountStatisticImpl waitQueueLength = new CountStatisticImpl(
             "WaitQueueLength", StatisticImpl.UNIT_COUNT,
             "Number of connection requests in the queue waiting to be serviced.");
+    private StringStatisticImpl connRequestWaitTimeHistogram = new StringStatisticImpl(
+            "ConnRequestWaitTimeHistogram", "String",
+            "Distribution of the time in milliseconds connection requests spent in the handoff wait queue.");
+    private StringStatisticImpl waitQueueLengthHistogram = new StringStatisticImpl(
+            "WaitQueueLengthHistogram", "String",
+            "Distribution of the handoff wait queue length seen by connection requests when they were queued.");
     private static final String JCA_PROBE_LISTENER = "glassfish:jca:connection-pool:";
 
     public ConnectorConnPoolStatsProvider(PoolInfo poolInfo, Logger logger) {
@@ -483,6 +493,19 @@ public class ConnectorConnPoolStatsProvider {
         averageConnWaitTime.reset();
         totalConnRequestWaitTime.reset();
         waitQueueLength.reset();
+        HandoffPoolWaitQueue handoffWaitQueue = getHandoffWaitQueue();
+        if (handoffWaitQueue != null) {
+            handoffWaitQueue.getWaitTimeHistogram().reset();
+            handoffWaitQueue.getQueueDepthHistogram().reset();
+        }
+    }
+
+    private HandoffPoolWaitQueue getHandoffWaitQueue() {
+        ResourcePool pool = ConnectorRuntime.getRuntime().getPoolManager().getPool(poolInfo);
+        if (pool != null && pool.getPoolWaitQueue() instanceof HandoffPoolWaitQueue) {
+            return (HandoffPoolWaitQueue) pool.getPoolWaitQueue();
+        }
+        return null;
     }
 
     /**
@@ -710,4 +733,20 @@ public class ConnectorConnPoolStatsProvider {
     public CountStatistic getWaitQueueLength() {
         return waitQueueLength;
     }
+
+    @ManagedAttribute(id="connrequestwaittimehistogram")
+    public StringStatistic getConnRequestWaitTimeHistogram() {
+        HandoffPoolWaitQueue handoffWaitQueue = getHandoffWaitQueue();
+        connRequestWaitTimeHistogram.setCurrent(
+                handoffWaitQueue != null ? handoffWaitQueue.getWaitTimeHistogram().toString() : "");
+        return connRequestWaitTimeHistogram;
+    }
+
+    @ManagedAttribute(id="waitqueuelengthhistogram")
+    public StringStatistic getWaitQueueLengthHistogram() {
+        HandoffPoolWaitQueue handoffWaitQueue = getHandoffWaitQueue();
+        waitQueueLengthHistogram.setCurrent(
+                handoffWaitQueue != null ? handoffWaitQueue.getQueueDepthHistogram().toString() : "");
+        return waitQueueLengthHistogram;
+    }
 }
@@ -0,0 +1,193 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.resource.pool.resizer;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.pool.PoolProperties;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+import com.sun.enterprise.resource.pool.datastructure.DataStructure;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Resizer that, on top of the idle timeout based clean up done by {@link Resizer}, samples the
+ * demand on the pool and creates connections in the background ahead of the predicted demand,
+ * so that a burst of requests after a lull does not pay the connection creation latency.
+ * <p>
+ * The resizer runs every {@value #SAMPLE_INTERVAL_SECONDS} seconds. The prediction combines the
+ * recent peak demand and checkout rate trend with the peak demand seen at the same time of day,
+ * see {@link PoolDemandHistory}. The pool is never grown above its max pool size, and is not
+ * scaled down, nor are its idle resources removed, below the steady pool size or the predicted
+ * demand.
+ * <p>
+ * Enabled through the {@code PoolResizer} pool property set to {@value #TYPE}.
+ */
+public class AdaptiveResizer extends Resizer {
+
+    public static final String TYPE = "ADAPTIVE";
+
+    static final long SAMPLE_INTERVAL_SECONDS = 10;
+    private static final long SAMPLE_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(SAMPLE_INTERVAL_SECONDS);
+    // five minutes of samples
+    private static final int WINDOW_SIZE = 30;
+    private static final int LOOK_AHEAD_MINUTES = 5;
+
+    private final PoolDemandHistory history;
+    private long lastSampleTime;
+    private long lastAcquiredCount;
+    private long lastResizeTime;
+    private volatile int predictedDemand;
+
+    /**
+     * @param history demand history of the pool, kept by the pool across resizer instances so that
+     *                rescheduling the resizer after a flush or a reconfiguration does not lose it
+     * @see #createDemandHistory()
+     */
+    public AdaptiveResizer(PoolInfo poolInfo, DataStructure dataStructure, PoolProperties pp,
+            ResourceHandler handler, boolean preferValidateOverRecreate, PoolDemandHistory history) {
+        super(poolInfo, dataStructure, pp, handler, preferValidateOverRecreate);
+        this.history = history;
+        lastSampleTime = System.currentTimeMillis();
+        lastResizeTime = lastSampleTime;
+        lastAcquiredCount = pp.getAcquiredResourceCount();
+        synchronized (history) {
+            predictedDemand = history.predictDemand(lastSampleTime, LOOK_AHEAD_MINUTES);
+        }
+    }
+
+    /**
+     * @return an empty demand history to be kept by a pool using this resizer
+     */
+    public static PoolDemandHistory createDemandHistory() {
+        return new PoolDemandHistory(WINDOW_SIZE);
+    }
+
+    @Override
+    public long getRunPeriod(long idleTimeout) {
+        return Math.min(idleTimeout, SAMPLE_INTERVAL_MILLIS);
+    }
+
+    @Override
+    public void run() {
+        try {
+            long now = System.currentTimeMillis();
+            sampleDemand(now);
+            if (now - lastResizeTime >= pool.getIdleTimeout()) {
+                lastResizeTime = now;
+                super.run();
+            }
+            preWarm();
+        } catch (Exception ex) {
+            Object[] params = new Object[]{poolInfo, ex.getMessage()};
+            _logger.log(Level.WARNING, "resource_pool.resize_pool_error", params);
+        }
+    }
+
+    private void sampleDemand(long now) {
+        long acquiredCount = pool.getAcquiredResourceCount();
+        long elapsed = Math.max(1, now - lastSampleTime);
+        double checkoutRate = (acquiredCount - lastAcquiredCount) * 1000.0 / elapsed;
+        lastAcquiredCount = acquiredCount;
+        lastSampleTime = now;
+
+        int inUse = Math.max(0, dataStructure.getResourcesSize() - dataStructure.getFreeListSize());
+        // a cancelled resizer of the same pool may still be running
+        synchronized (history) {
+            history.record(now, inUse + pool.getWaitQueueLength(), checkoutRate);
+            predictedDemand = history.predictDemand(now, LOOK_AHEAD_MINUTES);
+        }
+    }
+
+    /**
+     * Creates resources, at most resize-quantity at a time, until the pool can serve the
+     * predicted demand from its free resources.
+     */
+    private void preWarm() {
+        int target = Math.min(pool.getMaxPoolSize(), Math.max(pool.getSteadyPoolSize(), predictedDemand));
+        int toCreate = target - dataStructure.getResourcesSize();
+        if (pool.getResizeQuantity() > 0) {
+            toCreate = Math.min(toCreate, pool.getResizeQuantity());
+        }
+        if (toCreate > 0) {
+            debug("Pre-warming " + toCreate + " resources for pool [ " + poolInfo + " ], predicted demand : "
+                    + predictedDemand);
+        }
+        for (int i = 0; i < toCreate; i++) {
+            try {
+                handler.createResourceAndAddToPool();
+            } catch (PoolingException ex) {
+                Object[] params = new Object[]{poolInfo, ex.getMessage()};
+                _logger.log(Level.WARNING, "resource_pool.resize_pool_error", params);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Scale down pool by a <code>size &lt;= pool-resize-quantity</code>, keeping enough resources
+     * for the predicted demand.
+     *
+     * @param forced            scale-down only when forced
+     * @param scaleDownQuantity no. of resources to remove
+     */
+    @Override
+    protected void scaleDownPool(int scaleDownQuantity, boolean forced) {
+        int removable = dataStructure.getResourcesSize() - Math.max(pool.getSteadyPoolSize(), predictedDemand);
+        super.scaleDownPool(Math.min(scaleDownQuantity, Math.max(0, removable)), forced);
+    }
+
+    /**
+     * Idle resources are kept while the pool is not larger than the predicted demand, so that
+     * they are not destroyed only to be pre-warmed again at the next sample.
+     */
+    @Override
+    protected int getMinimumIdleRemovalPoolSize() {
+        return Math.max(pool.getSteadyPoolSize(), predictedDemand);
+    }
+
+    /**
+     * @return the demand predicted at the last sample
+     */
+    public int getPredictedDemand() {
+        return predictedDemand;
+    }
+}
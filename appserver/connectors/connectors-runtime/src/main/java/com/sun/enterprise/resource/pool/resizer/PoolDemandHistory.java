@@ -0,0 +1,163 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.resource.pool.resizer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the demand on a pool, as the number of resources in use plus the number
+ * of waiting requests, over two horizons:
+ * <ul>
+ * <li>a sliding window of the most recent samples together with the checkout rate seen in
+ * each of them, used to follow the current trend;</li>
+ * <li>the peak demand of each minute of the day, used to anticipate recurring peaks.</li>
+ * </ul>
+ * The peak of a minute of the day is averaged with the peaks of the previous days so that a
+ * single spike fades out, and it is forgotten altogether when that minute has not been sampled
+ * for {@value #DAILY_PEAK_MAX_AGE_DAYS} days.
+ * The history is kept by the pool, so that it survives the resizer being rescheduled.
+ * Not thread safe, callers synchronize on the history.
+ */
+public class PoolDemandHistory {
+
+    private static final long SLOT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int SLOTS_PER_DAY = (int) (TimeUnit.DAYS.toMillis(1) / SLOT_MILLIS);
+    // weight of the latest day in the peak of a minute of the day
+    private static final double DAILY_PEAK_WEIGHT = 0.5;
+    static final int DAILY_PEAK_MAX_AGE_DAYS = 7;
+    private static final long DAILY_PEAK_MAX_AGE_SLOTS = (long) DAILY_PEAK_MAX_AGE_DAYS * SLOTS_PER_DAY;
+
+    private final int[] windowDemand;
+    private final double[] windowRate;
+    private int windowIndex;
+    private int windowCount;
+
+    private final int[] dailyPeaks = new int[SLOTS_PER_DAY];
+    // slot each daily peak was last recorded in, -1 if never
+    private final long[] dailyPeakSlot = new long[SLOTS_PER_DAY];
+    private long currentSlot = -1;
+    private int currentSlotPeak;
+
+    PoolDemandHistory(int windowSize) {
+        windowDemand = new int[windowSize];
+        windowRate = new double[windowSize];
+        Arrays.fill(dailyPeakSlot, -1L);
+    }
+
+    /**
+     * Records a demand sample.
+     *
+     * @param timeMillis   time of the sample
+     * @param demand       resources in use plus waiting requests
+     * @param checkoutRate resources acquired per second since the previous sample
+     */
+    void record(long timeMillis, int demand, double checkoutRate) {
+        windowDemand[windowIndex] = demand;
+        windowRate[windowIndex] = checkoutRate;
+        windowIndex = (windowIndex + 1) % windowDemand.length;
+        if (windowCount < windowDemand.length) {
+            windowCount++;
+        }
+
+        long slot = timeMillis / SLOT_MILLIS;
+        if (slot != currentSlot) {
+            commitCurrentSlot();
+            currentSlot = slot;
+            currentSlotPeak = 0;
+        }
+        currentSlotPeak = Math.max(currentSlotPeak, demand);
+    }
+
+    private void commitCurrentSlot() {
+        if (currentSlot >= 0) {
+            int index = (int) (currentSlot % SLOTS_PER_DAY);
+            if (isDailyPeakKnown(index, currentSlot)) {
+                dailyPeaks[index] = (int) Math.ceil(
+                        dailyPeaks[index] * (1 - DAILY_PEAK_WEIGHT) + currentSlotPeak * DAILY_PEAK_WEIGHT);
+            } else {
+                dailyPeaks[index] = currentSlotPeak;
+            }
+            dailyPeakSlot[index] = currentSlot;
+        }
+    }
+
+    private boolean isDailyPeakKnown(int index, long slot) {
+        return dailyPeakSlot[index] >= 0 && slot - dailyPeakSlot[index] <= DAILY_PEAK_MAX_AGE_SLOTS;
+    }
+
+    /**
+     * Predicts the peak demand over the coming minutes. The prediction is the larger of
+     * the recent peak, scaled up when the checkout rate is growing, and the peak seen at the
+     * same time of day in the previous days, averaged over the days.
+     *
+     * @param timeMillis     current time
+     * @param lookAheadSlots number of minutes to look ahead
+     * @return predicted demand
+     */
+    int predictDemand(long timeMillis, int lookAheadSlots) {
+        if (windowCount == 0) {
+            return 0;
+        }
+        int recentPeak = 0;
+        double rateSum = 0;
+        for (int i = 0; i < windowCount; i++) {
+            recentPeak = Math.max(recentPeak, windowDemand[i]);
+            rateSum += windowRate[i];
+        }
+        double averageRate = rateSum / windowCount;
+        double lastRate = windowRate[(windowIndex + windowDemand.length - 1) % windowDemand.length];
+        int trendPeak = recentPeak;
+        if (averageRate > 0 && lastRate > averageRate) {
+            // demand is growing, extrapolate but never more than doubling it
+            trendPeak = (int) Math.ceil(recentPeak * Math.min(2.0, lastRate / averageRate));
+        }
+
+        int seasonalPeak = 0;
+        long slot = timeMillis / SLOT_MILLIS;
+        for (int i = 1; i <= lookAheadSlots; i++) {
+            int index = (int) ((slot + i) % SLOTS_PER_DAY);
+            if (isDailyPeakKnown(index, slot)) {
+                seasonalPeak = Math.max(seasonalPeak, dailyPeaks[index]);
+            }
+        }
+        return Math.max(trendPeak, seasonalPeak);
+    }
+}
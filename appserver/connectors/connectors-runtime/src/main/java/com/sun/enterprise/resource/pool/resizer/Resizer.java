@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2019] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2022] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.resource.pool.resizer;
 
@@ -92,6 +92,16 @@ public class
         this.preferValidateOverRecreate = preferValidateOverRecreate;
     }
 
+    /**
+     * Returns the period at which this resizer is to be scheduled.
+     *
+     * @param idleTimeout idle timeout of the pool in milliseconds
+     * @return period in milliseconds
+     */
+    public long getRunPeriod(long idleTimeout) {
+        return idleTimeout;
+    }
+
     public void run() {
         debug("Resizer for pool " + poolInfo);
         try {
@@ -198,7 +208,13 @@ public class
                 } else {
                     boolean isResourceEligibleForRemoval = 
                             isResourceEligibleForRemoval(h, validConnectionsCounter);
-                    if(!isResourceEligibleForRemoval) {
+                    if (isResourceEligibleForRemoval
+                            && dataStructure.getResourcesSize() <= getMinimumIdleRemovalPoolSize()) {
+                        //keep it, only validate it as the pool is at its floor
+                        validConnectionsCounter++;
+                        resourcesToValidate.add(h.toString());
+                        activeResources.add(h);
+                    } else if(!isResourceEligibleForRemoval) {
                         //preferValidateOverrecreate true and connection is valid within SPS
                         validConnectionsCounter++;
                         idleConnKeptInSteadyCounter++;
@@ -243,6 +259,16 @@ public class
         return noOfResourcesRemoved;
     }
 
+    /**
+     * Pool size below which idle-timed-out resources are no longer removed, they are only
+     * validated. No floor by default.
+     *
+     * @return minimum number of resources idle removal leaves in the pool
+     */
+    protected int getMinimumIdleRemovalPoolSize() {
+        return 0;
+    }
+
     /**
      * Removes invalid resource handles in the pool while resizing the pool.
      * Uses the Connector 1.5 spec 6.5.3.4 optional RA feature to obtain
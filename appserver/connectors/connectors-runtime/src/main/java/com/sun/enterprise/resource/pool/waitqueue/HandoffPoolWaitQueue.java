@@ -0,0 +1,283 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.resource.pool.waitqueue;
+
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.logging.LogDomains;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fair wait queue for the connection pool that hands a released resource directly to the
+ * oldest waiting request instead of waking it up to compete for the pool again.
+ * <p>
+ * Waiters are served in FIFO order and each waiter honours its own remaining wait time; a waiter
+ * whose deadline has passed is skipped by the releasing thread. A single waiter is woken per
+ * released resource, which avoids the thundering herd of waiters re-scanning an exhausted pool.
+ * <p>
+ * The queue also records a histogram of the queue depth seen by new waiters and of the time
+ * spent waiting, which are exposed through the pool monitoring stats providers.
+ */
+public class HandoffPoolWaitQueue implements PoolWaitQueue {
+
+    private static final long[] WAIT_TIME_BUCKETS_MILLIS = {0, 1, 5, 10, 50, 100, 500, 1000, 5000, 10000};
+    private static final long[] QUEUE_DEPTH_BUCKETS = {0, 1, 2, 5, 10, 20, 50, 100, 500};
+
+    protected final static Logger _logger = LogDomains.getLogger(HandoffPoolWaitQueue.class, LogDomains.RSR_LOGGER);
+
+    private final ConcurrentLinkedDeque<Object> queue = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger length = new AtomicInteger();
+
+    private final WaitQueueHistogram waitTimeHistogram = new WaitQueueHistogram(WAIT_TIME_BUCKETS_MILLIS);
+    private final WaitQueueHistogram queueDepthHistogram = new WaitQueueHistogram(QUEUE_DEPTH_BUCKETS);
+
+    public HandoffPoolWaitQueue() {
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "Initializing handoff Pool Wait Queue");
+        }
+    }
+
+    /**
+     * Waits for a resource to be handed over by a releasing thread.
+     *
+     * @param timeoutMillis maximum time to wait, 0 to wait until handed over or signalled
+     * @return the resource handed over, or null if the wait timed out or the waiter was signalled
+     * to retry getting a resource from the pool
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public ResourceHandle awaitResource(long timeoutMillis) throws InterruptedException {
+        long start = System.nanoTime();
+        Waiter waiter = new Waiter(Thread.currentThread(),
+                timeoutMillis > 0 ? start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0);
+        queueDepthHistogram.record(length.get());
+        queue.offerLast(waiter);
+        length.incrementAndGet();
+
+        boolean interrupted = false;
+        try {
+            while (waiter.state == Waiter.WAITING) {
+                if (waiter.deadline == 0) {
+                    LockSupport.park(this);
+                } else {
+                    long remaining = waiter.deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                }
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                    break;
+                }
+            }
+            if (waiter.cancel()) {
+                if (queue.remove(waiter)) {
+                    length.decrementAndGet();
+                }
+                if (interrupted) {
+                    throw new InterruptedException();
+                }
+                return null;
+            }
+            if (interrupted) {
+                // a resource was handed over concurrently, keep it and preserve the interrupt
+                Thread.currentThread().interrupt();
+            }
+            return waiter.handle;
+        } finally {
+            waitTimeHistogram.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Hands the resource over to the oldest waiter whose wait time has not expired.
+     *
+     * @param handle the resource being released
+     * @return true if a waiter took the resource, false if it has to be returned to the pool
+     */
+    public boolean offerResource(ResourceHandle handle) {
+        Object head;
+        while ((head = queue.pollFirst()) != null) {
+            length.decrementAndGet();
+            if (head instanceof Waiter) {
+                Waiter waiter = (Waiter) head;
+                if (waiter.isExpired()) {
+                    // let it time out without handing it a resource it can no longer use
+                    waiter.signal();
+                } else if (waiter.handOff(handle)) {
+                    return true;
+                }
+            } else {
+                notifyMonitor(head);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wakes up the oldest waiter without a resource, so that it retries getting one from the pool.
+     *
+     * @return true if a waiter was woken up
+     */
+    public boolean signalNext() {
+        Object head;
+        while ((head = queue.pollFirst()) != null) {
+            length.decrementAndGet();
+            if (head instanceof Waiter) {
+                if (((Waiter) head).signal()) {
+                    return true;
+                }
+            } else {
+                notifyMonitor(head);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void notifyMonitor(Object waitMonitor) {
+        synchronized (waitMonitor) {
+            waitMonitor.notifyAll();
+        }
+    }
+
+    public WaitQueueHistogram getWaitTimeHistogram() {
+        return waitTimeHistogram;
+    }
+
+    public WaitQueueHistogram getQueueDepthHistogram() {
+        return queueDepthHistogram;
+    }
+
+    @Override
+    public int getQueueLength() {
+        return length.get();
+    }
+
+    @Override
+    public void addToQueue(Object waitMonitor) {
+        queue.offerLast(waitMonitor);
+        length.incrementAndGet();
+    }
+
+    @Override
+    public boolean removeFromQueue(Object o) {
+        boolean removed = queue.remove(o);
+        if (removed) {
+            length.decrementAndGet();
+        }
+        return removed;
+    }
+
+    @Override
+    public Object remove() {
+        Object result = queue.pollFirst();
+        if (result == null) {
+            throw new NoSuchElementException();
+        }
+        length.decrementAndGet();
+        return result;
+    }
+
+    @Override
+    public Object peek() {
+        return queue.peekFirst();
+    }
+
+    @Override
+    public Collection getQueueContents() {
+        return queue;
+    }
+
+    private static final class Waiter {
+
+        static final int WAITING = 0;
+        static final int HANDED_OFF = 1;
+        static final int SIGNALLED = 2;
+        static final int CANCELLED = 3;
+
+        private static final AtomicIntegerFieldUpdater<Waiter> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(Waiter.class, "state");
+
+        final Thread thread;
+        final long deadline;
+        volatile int state = WAITING;
+        volatile ResourceHandle handle;
+
+        Waiter(Thread thread, long deadline) {
+            this.thread = thread;
+            this.deadline = deadline;
+        }
+
+        boolean isExpired() {
+            return deadline != 0 && deadline - System.nanoTime() <= 0;
+        }
+
+        boolean handOff(ResourceHandle resource) {
+            handle = resource;
+            if (STATE_UPDATER.compareAndSet(this, WAITING, HANDED_OFF)) {
+                LockSupport.unpark(thread);
+                return true;
+            }
+            handle = null;
+            return false;
+        }
+
+        boolean signal() {
+            if (STATE_UPDATER.compareAndSet(this, WAITING, SIGNALLED)) {
+                LockSupport.unpark(thread);
+                return true;
+            }
+            return false;
+        }
+
+        boolean cancel() {
+            return STATE_UPDATER.compareAndSet(this, WAITING, CANCELLED);
+        }
+    }
+}
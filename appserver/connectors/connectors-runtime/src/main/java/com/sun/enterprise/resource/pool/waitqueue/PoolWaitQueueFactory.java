@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2022] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.resource.pool.waitqueue;
 
@@ -61,7 +62,12 @@ public class PoolWaitQueueFactory {
         PoolWaitQueue waitQueue;
 
         if (className != null) {
-            waitQueue = initializeCustomWaitQueueInPrivilegedMode(className);
+            if (className.equalsIgnoreCase(PoolWaitQueue.HANDOFF_WAIT_QUEUE)
+                    || className.equals(HandoffPoolWaitQueue.class.getName())) {
+                waitQueue = new HandoffPoolWaitQueue();
+            } else {
+                waitQueue = initializeCustomWaitQueueInPrivilegedMode(className);
+            }
         } else {
             waitQueue = new DefaultPoolWaitQueue();
             debug("Initializing Default Pool Wait Queue");
@@ -0,0 +1,109 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.resource.pool.waitqueue;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed bucket histogram used to track wait queue depth and wait time.
+ * Recording is lock free and does not allocate.
+ */
+public class WaitQueueHistogram {
+
+    private final long[] upperBounds;
+    private final LongAdder[] counts;
+
+    /**
+     * @param upperBounds inclusive upper bounds of the buckets, in ascending order. An overflow bucket
+     *                    is added for values above the last bound.
+     */
+    public WaitQueueHistogram(long... upperBounds) {
+        if (upperBounds.length == 0) {
+            throw new IllegalArgumentException("At least one bucket bound is required");
+        }
+        this.upperBounds = upperBounds.clone();
+        this.counts = new LongAdder[upperBounds.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        int bucket = 0;
+        while (bucket < upperBounds.length && value > upperBounds[bucket]) {
+            bucket++;
+        }
+        counts[bucket].increment();
+    }
+
+    public long[] getUpperBounds() {
+        return upperBounds.clone();
+    }
+
+    /**
+     * @return the number of recorded values per bucket, the last element being the overflow bucket
+     */
+    public long[] getCounts() {
+        long[] result = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            result[i] = counts[i].sum();
+        }
+        return result;
+    }
+
+    public void reset() {
+        for (LongAdder count : counts) {
+            count.reset();
+        }
+    }
+
+    /**
+     * Renders the histogram as a list of {@code <=bound:count} pairs followed by the overflow bucket.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < upperBounds.length; i++) {
+            sb.append("<=").append(upperBounds[i]).append(':').append(counts[i].sum()).append(", ");
+        }
+        sb.append('>').append(upperBounds[upperBounds.length - 1]).append(':').append(counts[upperBounds.length].sum());
+        return sb.toString();
+    }
+}
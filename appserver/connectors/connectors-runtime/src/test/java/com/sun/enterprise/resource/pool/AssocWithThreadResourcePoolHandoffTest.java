@@ -0,0 +1,130 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.resource.pool;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.connectors.ConnectorConnectionPool;
+import com.sun.enterprise.resource.AssocWithThreadResourceHandle;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.ResourceSpec;
+import com.sun.enterprise.resource.ResourceState;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueue;
+import java.util.Hashtable;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that resources handed over through the handoff wait queue are associated with the
+ * waiting thread by {@link AssocWithThreadResourcePool}.
+ */
+public class AssocWithThreadResourcePoolHandoffTest {
+
+    private final ResourceAllocator allocator = mock(ResourceAllocator.class);
+    private final ResourceSpec spec = new ResourceSpec("jdbc/test", ResourceSpec.JNDI_NAME);
+    private AssocWithThreadResourcePool pool;
+
+    @Before
+    public void createPool() throws PoolingException {
+        when(allocator.shareableWithinComponent()).thenReturn(true);
+        pool = new TestPool(new PoolInfo("test-pool"));
+    }
+
+    @Test
+    public void handedOffResourceIsAssociatedWithWaitingThread() throws PoolingException {
+        AssocWithThreadResourceHandle handle = createHandle();
+
+        ResourceHandle accepted = pool.acceptHandedOffResource(handle, allocator, spec);
+
+        assertSame(handle, accepted);
+        assertTrue(handle.getResourceState().isBusy());
+        assertTrue(handle.isAssociated());
+        assertEquals(Thread.currentThread().getId(), handle.getThreadId());
+    }
+
+    @Test
+    public void dirtyHandedOffResourceIsNotUsed() throws PoolingException {
+        AssocWithThreadResourceHandle handle = createHandle();
+        handle.setDirty();
+
+        assertNull(pool.acceptHandedOffResource(handle, allocator, spec));
+        assertFalse(handle.getResourceState().isBusy());
+        assertFalse(handle.isAssociated());
+    }
+
+    private AssocWithThreadResourceHandle createHandle() {
+        AssocWithThreadResourceHandle handle = new AssocWithThreadResourceHandle(new Object(), spec, allocator, null);
+        handle.setResourceState(new ResourceState());
+        return handle;
+    }
+
+    private static class TestPool extends AssocWithThreadResourcePool {
+
+        TestPool(PoolInfo poolInfo) throws PoolingException {
+            super(poolInfo, new Hashtable());
+        }
+
+        @Override
+        protected ConnectorConnectionPool getPoolConfigurationFromJndi(Hashtable env) {
+            ConnectorConnectionPool poolResource = new ConnectorConnectionPool(poolInfo);
+            poolResource.setSteadyPoolSize("0");
+            poolResource.setMaxPoolSize("1");
+            poolResource.setPoolResizeQuantity("1");
+            poolResource.setIdleTimeoutInSeconds("0");
+            poolResource.setMaxWaitTimeInMillis("1000");
+            poolResource.setPoolWaitQueue(PoolWaitQueue.HANDOFF_WAIT_QUEUE);
+            poolResource.setMaxConnectionUsage(ConnectorConnectionPool.DEFAULT_MAX_CONNECTION_USAGE);
+            poolResource.setConCreationRetryAttempts(ConnectorConnectionPool.DEFAULT_CON_CREATION_RETRY_ATTEMPTS);
+            poolResource.setConCreationRetryInterval(ConnectorConnectionPool.DEFAULT_CON_CREATION_RETRY_INTERVAL);
+            poolResource.setValidateAtmostOncePeriod(ConnectorConnectionPool.DEFAULT_VALIDATE_ATMOST_ONCE_PERIOD);
+            poolResource.setConnectionLeakTracingTimeout(ConnectorConnectionPool.DEFAULT_LEAK_TIMEOUT);
+            return poolResource;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.resource.pool.datastructure;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.ResourceSpec;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.resource.ResourceException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentBagDataStructureTest {
+
+    private final TestResourceHandler handler = new TestResourceHandler();
+
+    private ConcurrentBagDataStructure dataStructure(String parameters, int resources) throws PoolingException {
+        ConcurrentBagDataStructure dataStructure = new ConcurrentBagDataStructure(parameters, resources, handler, null);
+        assertEquals(resources, dataStructure.addResource(null, resources));
+        return dataStructure;
+    }
+
+    @Test
+    public void resourcesAreOnlyHandedOutOnce() throws PoolingException {
+        ConcurrentBagDataStructure dataStructure = dataStructure(null, 3);
+        Set<ResourceHandle> handedOut = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            handedOut.add(dataStructure.getResource());
+        }
+        assertEquals(3, handedOut.size());
+        assertFalse(handedOut.contains(null));
+        assertNull(dataStructure.getResource());
+        assertEquals(0, dataStructure.getFreeListSize());
+
+        ResourceHandle returned = handedOut.iterator().next();
+        dataStructure.returnResource(returned);
+        assertEquals(1, dataStructure.getFreeListSize());
+        assertSame(returned, dataStructure.getResource());
+    }
+
+    @Test
+    public void poolDoesNotGrowBeyondMaxSize() throws PoolingException {
+        ConcurrentBagDataStructure dataStructure = dataStructure(null, 2);
+
+        assertEquals(0, dataStructure.addResource(null, 1));
+        assertEquals(2, dataStructure.getResourcesSize());
+    }
+
+    @Test
+    public void resourceReturnedByThreadIsHandedOutToItFirst() throws PoolingException {
+        ConcurrentBagDataStructure dataStructure = dataStructure(null, 64);
+        ResourceHandle first = dataStructure.getResource();
+        ResourceHandle second = dataStructure.getResource();
+        dataStructure.returnResource(first);
+        dataStructure.returnResource(second);
+
+        assertSame(second, dataStructure.getResource());
+        assertSame(first, dataStructure.getResource());
+    }
+
+    @Test
+    public void resourcesAreHandedOutWithoutThreadCache() throws PoolingException {
+        ConcurrentBagDataStructure dataStructure = dataStructure("0", 2);
+        ResourceHandle handle = dataStructure.getResource();
+        assertNotNull(handle);
+        dataStructure.returnResource(handle);
+
+        assertEquals(2, dataStructure.getFreeListSize());
+        assertNotNull(dataStructure.getResource());
+        assertNotNull(dataStructure.getResource());
+        assertNull(dataStructure.getResource());
+    }
+
+    @Test
+    public void removedBusyResourceIsNotRevivedByItsReturn() throws PoolingException {
+        ConcurrentBagDataStructure dataStructure = dataStructure(null, 1);
+        ResourceHandle handle = dataStructure.getResource();
+        dataStructure.removeResource(handle);
+        dataStructure.returnResource(handle);
+
+        assertTrue(handle.isRemoved());
+        assertEquals(0, dataStructure.getFreeListSize());
+        assertEquals(0, dataStructure.getResourcesSize());
+        assertNull(dataStructure.getResource());
+        assertTrue(handler.deleted.contains(handle));
+    }
+
+    @Test
+    public void removedFreeResourceIsNotHandedOutFromThreadCache() throws PoolingException {
+        ConcurrentBagDataStructure dataStructure = dataStructure(null, 1);
+        ResourceHandle handle = dataStructure.getResource();
+        dataStructure.returnResource(handle);
+        assertTrue(dataStructure.getThreadCache().contains(handle));
+
+        dataStructure.removeResource(handle);
+        assertFalse(dataStructure.getThreadCache().contains(handle));
+        assertEquals(0, dataStructure.getFreeListSize());
+        assertNull(dataStructure.getResource());
+    }
+
+    @Test
+    public void removedResourceIsClearedFromCachesOfOtherThreads() throws Exception {
+        ConcurrentBagDataStructure dataStructure = dataStructure(null, 2);
+        AtomicReference<ResourceHandle> returned = new AtomicReference<>();
+        AtomicReference<ConcurrentBagDataStructure.ThreadCache> cache = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            ResourceHandle handle = dataStructure.getResource();
+            dataStructure.returnResource(handle);
+            returned.set(handle);
+            cache.set(dataStructure.getThreadCache());
+        });
+        thread.start();
+        thread.join();
+        assertTrue(cache.get().contains(returned.get()));
+
+        dataStructure.removeResource(returned.get());
+        assertFalse(cache.get().contains(returned.get()));
+    }
+
+    @Test
+    public void removeAllClearsThreadCaches() throws PoolingException {
+        ConcurrentBagDataStructure dataStructure = dataStructure(null, 2);
+        ResourceHandle handle = dataStructure.getResource();
+        dataStructure.returnResource(handle);
+
+        dataStructure.removeAll();
+        assertFalse(dataStructure.getThreadCache().contains(handle));
+        assertEquals(0, dataStructure.getResourcesSize());
+        assertEquals(0, dataStructure.getFreeListSize());
+        assertEquals(2, handler.deleted.size());
+    }
+
+    @Test
+    public void concurrentGetReturnAndRemoveNeverShareOrReviveResources() throws Exception {
+        int poolSize = 8;
+        int threadCount = 8;
+        int iterations = 20_000;
+        ConcurrentBagDataStructure dataStructure = dataStructure("2", poolSize);
+        Map<ResourceHandle, AtomicBoolean> inUse = new ConcurrentHashMap<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            boolean removing = i == 0;
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < iterations; j++) {
+                    ResourceHandle handle = dataStructure.getResource();
+                    if (handle == null) {
+                        continue;
+                    }
+                    AtomicBoolean used = inUse.computeIfAbsent(handle, h -> new AtomicBoolean());
+                    if (!used.compareAndSet(false, true) || handle.isRemoved()) {
+                        failed.set(true);
+                    }
+                    if (removing && ThreadLocalRandom.current().nextInt(10) == 0) {
+                        dataStructure.removeResource(handle);
+                        dataStructure.returnResource(handle);
+                        try {
+                            dataStructure.addResource(null, 1);
+                        } catch (PoolingException e) {
+                            failed.set(true);
+                        }
+                    } else {
+                        used.set(false);
+                        dataStructure.returnResource(handle);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertFalse(failed.get());
+        assertEquals(poolSize, dataStructure.getResourcesSize());
+        assertEquals(poolSize, dataStructure.getFreeListSize());
+        for (ResourceHandle handle : dataStructure.getAllResources()) {
+            assertFalse(handle.isRemoved());
+            assertFalse(handler.deleted.contains(handle));
+        }
+    }
+
+    private static final class TestResourceHandler implements ResourceHandler {
+
+        private final ResourceSpec spec = new ResourceSpec("jdbc/test", ResourceSpec.JNDI_NAME);
+        private final Set<ResourceHandle> deleted = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void deleteResource(ResourceHandle resourceHandle) {
+            deleted.add(resourceHandle);
+        }
+
+        @Override
+        public ResourceHandle createResource(ResourceAllocator allocator) {
+            return new ResourceHandle(new Object(), spec, allocator, null);
+        }
+
+        @Override
+        public void createResourceAndAddToPool() {
+        }
+
+        @Override
+        public Set getInvalidConnections(Set connections) throws ResourceException {
+            return new HashSet<>();
+        }
+
+        @Override
+        public void invalidConnectionDetected(ResourceHandle h) {
+        }
+    }
+}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2017-2018] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2017-2022] [Payara Foundation and/or its affiliates]
 
 package org.glassfish.ejb.config;
 
@@ -338,12 +338,16 @@ public interface EjbContainer extends ConfigBeanProxy, PropertyBag, ConfigExtens
      * nru
      *     policy tries to pick 'not recently used' instances and is a
      *     pseudo-random selection process.
+     * segmented
+     *     picks not recently and not frequently accessed instances from
+     *     independently locked segments of the cache, for beans under high
+     *     concurrent load.
      *
      * @return possible object is
      *         {@link String }
      */
     @Attribute (defaultValue="nru")
-    @Pattern(regexp="(nru|fifo|lru)")
+    @Pattern(regexp="(nru|fifo|lru|segmented)")
     String getVictimSelectionPolicy();
 
     /**
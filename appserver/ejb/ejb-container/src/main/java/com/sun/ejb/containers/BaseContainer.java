@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2021] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.containers;
 
@@ -275,6 +275,13 @@ public abstract class BaseContainer implements Container, EjbContainerFacade, Ja
 
     protected static final String SINGLETON_BEAN_POOL_PROP = "singleton-bean-pool";
 
+    /**
+     * glassfish-ejb-jar.xml enterprise-beans property selecting the
+     * {@link com.sun.ejb.containers.util.pool.StripedPool} for the stateless
+     * session and message-driven bean pools of the module.
+     */
+    protected static final String STRIPED_BEAN_POOL_PROP = "striped-bean-pool";
+
     protected ClassLoader loader = null;
     protected Class<?> ejbClass = null;
     protected Class sfsbSerializedClass = null;
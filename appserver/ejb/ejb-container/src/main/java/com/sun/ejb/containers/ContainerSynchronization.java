@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.containers;
 
@@ -262,7 +263,10 @@ final class ContainerSynchronization implements Synchronization
             if (ejbContainerAvailability != null) {
                 sfsbHaPersistenceTypeFromConfig = ejbContainerAvailability.getSfsbStorePoolName();
             }
-            sfsbTxCoordinator = new SFSBTxCheckpointCoordinator(sfsbHaPersistenceTypeFromConfig);
+            boolean batchedCheckpoint = Boolean.parseBoolean(ejbContainerUtilImpl.getEjbContainer()
+                    .getPropertyValue(SFSBTxCheckpointCoordinator.BATCHED_CHECKPOINT_PROP));
+            sfsbTxCoordinator = new SFSBTxCheckpointCoordinator(sfsbHaPersistenceTypeFromConfig,
+                    batchedCheckpoint);
         }
 
         sfsbTxCoordinator.registerContext(sessionCtx);
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2020] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2022] [Payara Foundation and/or its affiliates]
 package com.sun.ejb.containers;
 
 import java.io.Serializable;
@@ -75,6 +75,7 @@ import org.glassfish.ejb.deployment.descriptor.EjbDescriptor;
 import org.glassfish.ejb.deployment.descriptor.ScheduledTimerDescriptor;
 import org.glassfish.server.ServerEnvironmentImpl;
 import com.sun.ejb.PersistentTimerService;
+import com.sun.ejb.containers.util.TimerWheel;
 import fish.payara.nucleus.requesttracing.RequestTracingService;
 import fish.payara.notification.requesttracing.RequestTraceSpan;
 import fish.payara.nucleus.healthcheck.stuck.StuckThreadsStore;
@@ -116,7 +117,7 @@ public abstract class EJBTimerService {
     // A cache of timer info for all timers *owned* by this server instance. 
     protected TimerCache timerCache_;
 
-    private boolean shutdown_;
+    private volatile boolean shutdown_;
     
     private RequestTracingService requestTracing;
     private StuckThreadsStore stuckThreadsStore;
@@ -161,6 +162,13 @@ public abstract class EJBTimerService {
     private static final String RESCHEDULE_FAILED_TIMER = "reschedule-failed-timer";
     private boolean rescheduleFailedTimer = false;
 
+    // Schedule timer expirations on a hierarchical timer wheel rather than the
+    // JDK timer, which scales better with a large number of timers
+    private static final String TIMER_WHEEL = "timer-wheel";
+    private static final String TIMER_WHEEL_TICK_IN_MILLIS = "timer-wheel-tick-in-millis";
+    private static final long DEFAULT_TIMER_WHEEL_TICK_IN_MILLIS = 10;
+    private TimerWheel timerWheel;
+
     private static final Object LOCK = new Object();
 
     // Flag that allows to load EJBTimerService on the 1st access and
@@ -474,6 +482,13 @@ public abstract class EJBTimerService {
 
                 rescheduleFailedTimer = Boolean.valueOf(ejbt.getPropertyValue(RESCHEDULE_FAILED_TIMER));
 
+                if (Boolean.parseBoolean(ejbt.getPropertyValue(TIMER_WHEEL))) {
+                    valString = ejbt.getPropertyValue(TIMER_WHEEL_TICK_IN_MILLIS);
+                    val = (valString != null) ? Long.parseLong(valString) : -1;
+                    timerWheel = new TimerWheel("EJB Timer Wheel",
+                            val > 0 ? val : DEFAULT_TIMER_WHEEL_TICK_IN_MILLIS);
+                }
+
                 // Load confing listener
                 ejbContainerUtil.getServices().getService(EJBTimerServiceConfigListener.class);
             }
@@ -486,7 +501,8 @@ public abstract class EJBTimerService {
         logger.log(Level.FINE, "EJB Timer Service properties : " +
                    "min delivery interval = " + getMinimumDeliveryInterval() +
                    "\nmax redeliveries = " + maxRedeliveries_ +
-                   "\nredelivery interval = " + getRedeliveryInterval());
+                   "\nredelivery interval = " + getRedeliveryInterval() +
+                   "\ntimer wheel = " + (timerWheel != null));
     }
 
     synchronized void timedObjectCount() {
@@ -539,6 +555,9 @@ public abstract class EJBTimerService {
     private void shutdown() {
         // Set flag to prevent any new timer expirations.
         shutdown_ = true;
+        if (timerWheel != null) {
+            timerWheel.stop();
+        }
     }
 
     /**
@@ -639,8 +658,20 @@ public abstract class EJBTimerService {
                     timerState.scheduled(timerTask);
                 }
 
-                java.util.Timer jdkTimer = ejbContainerUtil.getTimer();
-                jdkTimer.schedule(timerTask, timerExpiration);            
+                try {
+                    if (timerWheel != null) {
+                        timerTask.scheduleOn(timerWheel);
+                    } else {
+                        java.util.Timer jdkTimer = ejbContainerUtil.getTimer();
+                        jdkTimer.schedule(timerTask, timerExpiration);
+                    }
+                } catch (IllegalStateException ise) {
+                    if (!shutdown_) {
+                        throw ise;
+                    }
+                    // the timer was stopped by the shutdown of the timer service
+                    logger.log(Level.FINE, "Timer service shut down, not scheduling " + timerId);
+                }
             }
         } else {
             
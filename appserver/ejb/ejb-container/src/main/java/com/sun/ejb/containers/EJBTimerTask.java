@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.containers;
 
@@ -49,6 +50,7 @@ import java.util.TimerTask;
 
 import javax.ejb.Timer;
 
+import com.sun.ejb.containers.util.TimerWheel;
 import com.sun.logging.LogDomains;
 
 /*
@@ -61,6 +63,7 @@ public class EJBTimerTask extends TimerTask {
     private Date timeout_;
     private TimerPrimaryKey timerId_;
     private EJBTimerService timerService_;
+    private volatile TimerWheel.Timeout wheelTimeout_;
 
     EJBTimerTask(Date timeout, TimerPrimaryKey timerId, 
                  EJBTimerService timerService)
@@ -79,5 +82,21 @@ public class EJBTimerTask extends TimerTask {
         return timeout_;
     }
 
+    /**
+     * Schedules this task on the given timer wheel instead of a JDK timer.
+     */
+    void scheduleOn(TimerWheel timerWheel) {
+        wheelTimeout_ = timerWheel.schedule(this, timeout_);
+    }
+
+    @Override
+    public boolean cancel() {
+        TimerWheel.Timeout wheelTimeout = wheelTimeout_;
+        if (wheelTimeout != null) {
+            return wheelTimeout.cancel();
+        }
+        return super.cancel();
+    }
+
 } 
 
@@ -37,18 +37,28 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.containers;
 
 import com.sun.ejb.EjbInvocation;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import org.glassfish.ejb.config.EjbContainer;
+import org.glassfish.hk2.api.PreDestroy;
 import org.jvnet.hk2.annotations.Service;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import com.sun.ejb.Container;
+import com.sun.enterprise.deployment.Application;
+import com.sun.enterprise.deployment.xml.RuntimeTagNames;
 import com.sun.logging.LogDomains;
+import fish.payara.monitoring.collect.MonitoringData;
+import fish.payara.monitoring.collect.MonitoringDataCollector;
+import fish.payara.monitoring.collect.MonitoringDataSource;
 import java.lang.reflect.Method;
 import javax.ejb.EJBException;
 
@@ -56,10 +66,35 @@ import javax.ejb.EJBException;
  * @author Mahesh Kannan
  */
 @Service
-public class EjbAsyncInvocationManager {
+public class EjbAsyncInvocationManager implements MonitoringDataSource, PreDestroy {
     private static final Logger _logger = LogDomains.getLogger(EjbAsyncInvocationManager.class, LogDomains.EJB_LOGGER);
 
+    /**
+     * ejb-container property selecting the executor asynchronous invocations
+     * are dispatched on, one of {@value #THREAD_POOL_EXECUTOR},
+     * {@value #FORK_JOIN_EXECUTOR} or {@value #VIRTUAL_THREADS_EXECUTOR}.
+     */
+    public static final String ASYNC_EXECUTOR_PROP = "async-executor";
+
+    /** Default, the shared EJB thread pool executor */
+    public static final String THREAD_POOL_EXECUTOR = "thread-pool";
+
+    /** A dedicated work-stealing pool sized by the thread-pool max size */
+    public static final String FORK_JOIN_EXECUTOR = "fork-join";
+
+    /** A thread per invocation, where the JVM supports virtual threads */
+    public static final String VIRTUAL_THREADS_EXECUTOR = "virtual-threads";
+
+    private static final String ASYNC_THREAD_NAME_PREFIX = "ejb-async-";
+
     private AtomicLong invCounter = new AtomicLong();
+
+    // Executor used instead of the EJB thread pool, null unless configured
+    private volatile ExecutorService asyncExecutor;
+    private volatile boolean asyncExecutorInitialized;
+
+    // Queue statistics of asynchronous invocations per application
+    private final ConcurrentHashMap<String, AsyncQueueStats> queueStats = new ConcurrentHashMap<>();
     
     // Map of Remote Future<> tasks.
     private ConcurrentHashMap<Long, EjbFutureTask> remoteTaskMap =
@@ -142,8 +177,267 @@ public class EjbAsyncInvocationManager {
         // before authorization.
         futureTask.getEjbAsyncTask().initialize(asyncInv);
         
-        EjbContainerUtil ejbContainerUtil = EjbContainerUtilImpl.getInstance();
-        return ejbContainerUtil.getThreadPoolExecutor(null).submit(futureTask.getEjbAsyncTask());
+        // The future task is executed as is so the caller's Future is the one
+        // completed, same as ThreadPoolExecutor.submit via EjbThreadPoolExecutor.newTaskFor
+        ExecutorService executor = asyncExecutor();
+        TrackedTask trackedTask = track(getApplicationName(asyncInv), futureTask,
+                !(executor instanceof EjbThreadPoolExecutor));
+        try {
+            executor.execute(trackedTask);
+        } catch (RejectedExecutionException e) {
+            trackedTask.rejected();
+            throw e;
+        }
+        return futureTask;
+    }
+
+    /**
+     * Wraps the task of an asynchronous invocation to record it in the queue
+     * statistics of its application. Lock free unless the statistics are
+     * missing or were just dropped, as this is done for every invocation.
+     */
+    TrackedTask track(String applicationName, Runnable task, boolean clearThreadState) {
+        while (true) {
+            AsyncQueueStats stats = queueStats.get(applicationName);
+            if (stats == null) {
+                stats = queueStats.computeIfAbsent(applicationName, name -> new AsyncQueueStats());
+            }
+            if (stats.enqueue()) {
+                return new TrackedTask(task, stats, clearThreadState);
+            }
+            // dropped while being looked up
+            queueStats.remove(applicationName, stats);
+        }
+    }
+
+    AsyncQueueStats getQueueStats(String applicationName) {
+        return queueStats.get(applicationName);
+    }
+
+    private ExecutorService asyncExecutor() {
+        if (!asyncExecutorInitialized) {
+            synchronized (this) {
+                if (!asyncExecutorInitialized) {
+                    asyncExecutor = createAsyncExecutor(EjbContainerUtilImpl.getInstance().getEjbContainer());
+                    asyncExecutorInitialized = true;
+                }
+            }
+        }
+        ExecutorService executor = asyncExecutor;
+        return executor != null ? executor : EjbContainerUtilImpl.getInstance().getThreadPoolExecutor(null);
+    }
+
+    /**
+     * @param ejbContainer the ejb-container configuration
+     * @return the configured executor, or null to use the EJB thread pool
+     */
+    static ExecutorService createAsyncExecutor(EjbContainer ejbContainer) {
+        String type = ejbContainer.getPropertyValue(ASYNC_EXECUTOR_PROP, THREAD_POOL_EXECUTOR);
+        if (VIRTUAL_THREADS_EXECUTOR.equals(type)) {
+            ExecutorService executor = newVirtualThreadExecutor();
+            if (executor != null) {
+                _logger.log(Level.INFO, "Asynchronous EJB invocations run on virtual threads");
+                return executor;
+            }
+            _logger.log(Level.WARNING, "Virtual threads are not supported by this JVM, "
+                    + "asynchronous EJB invocations use a fork-join pool instead");
+            type = FORK_JOIN_EXECUTOR;
+        }
+        if (FORK_JOIN_EXECUTOR.equals(type)) {
+            int parallelism = getThreadMaxPoolSize(ejbContainer);
+            _logger.log(Level.INFO, "Asynchronous EJB invocations run on a fork-join pool of parallelism {0}",
+                    parallelism);
+            ForkJoinWorkerThreadFactory factory = pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName(ASYNC_THREAD_NAME_PREFIX + thread.getPoolIndex());
+                thread.setContextClassLoader(null);
+                return thread;
+            };
+            // asyncMode for FIFO processing of the submitted invocations
+            return new ForkJoinPool(parallelism, factory, null, true);
+        }
+        if (!THREAD_POOL_EXECUTOR.equals(type)) {
+            _logger.log(Level.WARNING, "Unknown {0} value {1}, using the EJB thread pool",
+                    new Object[] { ASYNC_EXECUTOR_PROP, type });
+        }
+        return null;
+    }
+
+    private static int getThreadMaxPoolSize(EjbContainer ejbContainer) {
+        String val = ejbContainer.getPropertyValue(RuntimeTagNames.THREAD_MAX_POOL_SIZE);
+        if (val == null) {
+            return EjbContainer.DEFAULT_THREAD_MAX_POOL_SIZE;
+        }
+        int maxPoolSize;
+        try {
+            maxPoolSize = Integer.parseInt(val.trim());
+        } catch (NumberFormatException e) {
+            _logger.log(Level.WARNING, "Invalid Max Pool Size {0}. Resetting to {1}",
+                    new Object[] { val, EjbContainer.DEFAULT_THREAD_MAX_POOL_SIZE });
+            return EjbContainer.DEFAULT_THREAD_MAX_POOL_SIZE;
+        }
+        if (maxPoolSize < 1) {
+            _logger.log(Level.WARNING, "Max Pool Size configured to be less than 1. Resetting to 1");
+            maxPoolSize = 1;
+        }
+        return maxPoolSize;
+    }
+
+    /**
+     * Looked up reflectively as virtual threads only exist from JDK 21 on.
+     *
+     * @return a thread per task executor using virtual threads, or null if not supported
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            _logger.log(Level.FINE, "Could not create virtual thread executor", e);
+            return null;
+        }
+    }
+
+    private static String getApplicationName(EjbInvocation inv) {
+        Application application = ((BaseContainer) inv.container).getEjbDescriptor().getApplication();
+        String name = application == null ? null : application.getRegistrationName();
+        return name == null ? "unknown" : name;
+    }
+
+    @Override
+    @MonitoringData(ns = "ejb")
+    public void collect(MonitoringDataCollector collector) {
+        for (Map.Entry<String, AsyncQueueStats> entry : queueStats.entrySet()) {
+            AsyncQueueStats stats = entry.getValue();
+            long started = stats.started.getAndSet(0L);
+            long waitTime = stats.waitTime.getAndSet(0L);
+            long rejected = stats.rejected.getAndSet(0L);
+            int queued = Math.max(stats.queued.get(), 0);
+            collector.group(entry.getKey())
+                .collect("AsyncQueueDepth", queued)
+                .collect("AsyncStartedCount", started)
+                .collect("AsyncAvgWaitTime", started == 0L ? 0L : waitTime / started)
+                .collect("AsyncMaxWaitTime", stats.maxWaitTime.getAndSet(0L))
+                .collect("AsyncRejectedCount", rejected);
+            dropIfIdle(entry.getKey());
+        }
+    }
+
+    /**
+     * Drops the statistics of an application that had no invocations since
+     * they were last collected, so that undeployed applications don't linger.
+     * Once retired no invocation is counted on the statistics anymore, so any
+     * count recorded since they were checked is moved on to new statistics.
+     */
+    void dropIfIdle(String applicationName) {
+        AsyncQueueStats stats = queueStats.get(applicationName);
+        if (stats == null || !stats.isIdle() || !stats.retire()) {
+            return;
+        }
+        queueStats.remove(applicationName, stats);
+        if (!stats.isIdle()) {
+            queueStats.computeIfAbsent(applicationName, name -> new AsyncQueueStats()).add(stats);
+        }
+    }
+
+    @Override
+    public void preDestroy() {
+        ExecutorService executor = asyncExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Counts of one application's asynchronous invocations. Times in milliseconds,
+     * counters are reset each time they are collected. Atomic rather than adders
+     * so that a reset never loses a count added concurrently.
+     */
+    static final class AsyncQueueStats {
+        private static final int RETIRED = -1;
+
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicLong started = new AtomicLong();
+        final AtomicLong waitTime = new AtomicLong();
+        final AtomicLong maxWaitTime = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+
+        /**
+         * A task updates its counts before it stops being queued, so once
+         * nothing is queued all its counts are seen here.
+         */
+        boolean isIdle() {
+            return queued.get() <= 0 && started.get() == 0 && waitTime.get() == 0
+                    && maxWaitTime.get() == 0 && rejected.get() == 0;
+        }
+
+        /**
+         * @return false if the statistics were retired, and the invocation has
+         *         to be counted on new ones
+         */
+        boolean enqueue() {
+            int current;
+            do {
+                current = queued.get();
+                if (current == RETIRED) {
+                    return false;
+                }
+            } while (!queued.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        /**
+         * @return true if nothing was queued, so the statistics were retired
+         */
+        boolean retire() {
+            return queued.compareAndSet(0, RETIRED);
+        }
+
+        void add(AsyncQueueStats retired) {
+            started.addAndGet(retired.started.getAndSet(0L));
+            waitTime.addAndGet(retired.waitTime.getAndSet(0L));
+            maxWaitTime.accumulateAndGet(retired.maxWaitTime.getAndSet(0L), Math::max);
+            rejected.addAndGet(retired.rejected.getAndSet(0L));
+        }
+    }
+
+    /**
+     * Runs the future task of an invocation recording how long it waited to be started.
+     */
+    static final class TrackedTask implements Runnable {
+
+        private final Runnable task;
+        private final AsyncQueueStats stats;
+        private final boolean clearThreadState;
+        private final long submitted;
+
+        TrackedTask(Runnable task, AsyncQueueStats stats, boolean clearThreadState) {
+            this.task = task;
+            this.stats = stats;
+            this.clearThreadState = clearThreadState;
+            this.submitted = System.currentTimeMillis();
+        }
+
+        void rejected() {
+            stats.rejected.incrementAndGet();
+            stats.queued.decrementAndGet();
+        }
+
+        @Override
+        public void run() {
+            long waited = System.currentTimeMillis() - submitted;
+            stats.started.incrementAndGet();
+            stats.waitTime.addAndGet(waited);
+            stats.maxWaitTime.accumulateAndGet(waited, Math::max);
+            stats.queued.decrementAndGet();
+            try {
+                task.run();
+            } finally {
+                if (clearThreadState) {
+                    // EjbThreadPoolExecutor does this in afterExecute
+                    EjbThreadPoolExecutor.clearThreadState();
+                }
+            }
+        }
     }
 
     public void cleanupContainerTasks(Container container) {
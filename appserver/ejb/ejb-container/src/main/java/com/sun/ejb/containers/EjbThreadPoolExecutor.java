@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2019] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2022] [Payara Foundation and/or its affiliates]
 package com.sun.ejb.containers;
 
 import com.sun.enterprise.deployment.xml.RuntimeTagNames;
@@ -88,6 +88,14 @@ public class EjbThreadPoolExecutor extends ThreadPoolExecutor {
     @Override
     protected void afterExecute(Runnable r, Throwable t) {
         super.afterExecute(r, t);
+        clearThreadState();
+    }
+
+    /**
+     * Clears any transaction left over by a task on the current thread, as
+     * well as its context class loader.
+     */
+    static void clearThreadState() {
         final Logger logger = EjbContainerUtilImpl.getLogger();
         try {
             final JavaEETransactionManager tm = EjbContainerUtilImpl.getInstance().getTransactionManager();
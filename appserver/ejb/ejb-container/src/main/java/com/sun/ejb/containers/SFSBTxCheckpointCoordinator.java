@@ -37,21 +37,35 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.containers;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import java.util.logging.*;
 
+import com.sun.enterprise.util.Utility;
 import com.sun.logging.*;
+import org.glassfish.ha.common.BatchBackingStore;
 import org.glassfish.ha.store.api.BackingStore;
 import org.glassfish.ha.store.api.BackingStoreException;
 import org.glassfish.ha.store.util.SimpleMetadata;
 
 /**
  * A class to checkpoint HA enabled SFSBs as a single transactional unit.
+ * <p>
+ * In batched mode the passivated beans are serialized in parallel, and
+ * all the states belonging to the same backing store are written with a
+ * single operation when the store is a {@link BatchBackingStore}.
  *
  * @author Mahesh Kannan
  */
@@ -60,12 +74,32 @@ public class SFSBTxCheckpointCoordinator {
     private static final Logger _logger =
             LogDomains.getLogger(SFSBTxCheckpointCoordinator.class, LogDomains.EJB_LOGGER);
 
+    /**
+     * ejb-container property enabling the batched checkpoint mode.
+     */
+    static final String BATCHED_CHECKPOINT_PROP = "sfsb-batched-checkpoint";
+
     private String haStoreType;
 
+    private final boolean batched;
+
+    // runs serialization tasks in batched mode, the ejb container thread pool unless set
+    private Executor serializationExecutor;
+
     private ArrayList ctxList = new ArrayList();
 
     SFSBTxCheckpointCoordinator(String haStoreType) {
+        this(haStoreType, false);
+    }
+
+    SFSBTxCheckpointCoordinator(String haStoreType, boolean batched) {
+        this(haStoreType, batched, null);
+    }
+
+    SFSBTxCheckpointCoordinator(String haStoreType, boolean batched, Executor serializationExecutor) {
         this.haStoreType = haStoreType;
+        this.batched = batched;
+        this.serializationExecutor = serializationExecutor;
     }
 
     void registerContext(SessionContextImpl ctx) {
@@ -76,22 +110,33 @@ public class SFSBTxCheckpointCoordinator {
         SessionContextImpl[] contexts = (SessionContextImpl[]) ctxList.toArray(
                 new SessionContextImpl[ctxList.size()]);
         int size = contexts.length;
-        ArrayList<StoreAndBeanState> states = new ArrayList<StoreAndBeanState>(size);
+
+        if (batched) {
+            doBatchedTxCheckpoint(contexts);
+        } else {
+            doSequentialTxCheckpoint(contexts);
+        }
 
         for (int i = 0; i < size; i++) {
             SessionContextImpl ctx = contexts[i];
             StatefulSessionContainer container =
                     (StatefulSessionContainer) ctx.getContainer();
-            SimpleMetadata beanState = container.getSFSBBeanState(ctx);
-            if (beanState != null) {
-                states.add(new StoreAndBeanState((Serializable) ctx.getInstanceKey(),
-                        container.getBackingStore(), beanState, !ctx.existsInStore()));
+            container.txCheckpointCompleted(ctx);
+        }
+    }
+
+    private void doSequentialTxCheckpoint(SessionContextImpl[] contexts) {
+        int size = contexts.length;
+        ArrayList<StoreAndBeanState> states = new ArrayList<StoreAndBeanState>(size);
+
+        for (int i = 0; i < size; i++) {
+            StoreAndBeanState state = getBeanState(contexts[i]);
+            if (state != null) {
+                states.add(state);
             }
         }
 
         if (states.size() > 0) {
-            StoreAndBeanState[] beanStates = states.toArray(new StoreAndBeanState[states.size()]);
-
             try {
                 for (StoreAndBeanState st : states) {
                     st.store.save(st.key, st.state, st.isNew);
@@ -104,25 +149,184 @@ public class SFSBTxCheckpointCoordinator {
                         th);
             }
         }
+    }
+
+    private void doBatchedTxCheckpoint(SessionContextImpl[] contexts) {
+        long startTime = System.currentTimeMillis();
+        StoreAndBeanState[] states = getBeanStates(contexts);
+
+        // group the states per store
+        Map<BackingStore<Serializable, SimpleMetadata>, List<StoreAndBeanState>> statesPerStore =
+                new IdentityHashMap<>();
+        int stateCount = 0;
+        long totalSize = 0;
+        for (StoreAndBeanState st : states) {
+            if (st != null) {
+                statesPerStore.computeIfAbsent(st.store, store -> new ArrayList<>()).add(st);
+                stateCount++;
+                totalSize += st.state.getState().length;
+            }
+        }
+
+        for (Map.Entry<BackingStore<Serializable, SimpleMetadata>, List<StoreAndBeanState>> entry
+                : statesPerStore.entrySet()) {
+            BackingStore<Serializable, SimpleMetadata> store = entry.getKey();
+            List<StoreAndBeanState> storeStates = entry.getValue();
+            boolean success = false;
+            try {
+                if (store instanceof BatchBackingStore && storeStates.size() > 1) {
+                    Map<Serializable, SimpleMetadata> values = new LinkedHashMap<>();
+                    for (StoreAndBeanState st : storeStates) {
+                        values.put(st.key, st.state);
+                    }
+                    ((BatchBackingStore<Serializable, SimpleMetadata>) store).saveAll(values);
+                } else {
+                    for (StoreAndBeanState st : storeStates) {
+                        store.save(st.key, st.state, st.isNew);
+                    }
+                }
+                success = true;
+            } catch (BackingStoreException sfsbEx) {
+                _logger.log(Level.WARNING, "Exception during checkpointSave",
+                        sfsbEx);
+            } catch (Throwable th) {
+                _logger.log(Level.WARNING, "Exception during checkpointSave",
+                        th);
+            }
+
+            long timeSpent = System.currentTimeMillis() - startTime;
+            for (StoreAndBeanState st : storeStates) {
+                st.container.txCheckpointStored(st.state, success, timeSpent);
+            }
+        }
 
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "Batched checkpoint of " + stateCount + " SFSBs to "
+                    + statesPerStore.size() + " store(s); bytes: " + totalSize
+                    + "; time: " + (System.currentTimeMillis() - startTime) + " ms");
+        }
+    }
+
+    /**
+     * Gets the states of the given contexts. The PrePassivate and PostActivate
+     * callbacks of the beans run on the calling thread, within the transaction
+     * being completed and the caller's security context, only the serialization
+     * of the passivated beans is spread over worker threads of the ejb container
+     * thread pool when there is more than one context. The calling thread takes
+     * its share of the contexts too, so it never waits on a worker that did not
+     * get the chance to run.
+     */
+    private StoreAndBeanState[] getBeanStates(SessionContextImpl[] contexts) {
+        int size = contexts.length;
+        StoreAndBeanState[] states = new StoreAndBeanState[size];
+        boolean[] prepared = new boolean[size];
+        int preparedCount = 0;
         for (int i = 0; i < size; i++) {
-            SessionContextImpl ctx = contexts[i];
-            StatefulSessionContainer container =
-                    (StatefulSessionContainer) ctx.getContainer();
-            container.txCheckpointCompleted(ctx);
+            prepared[i] = getContainer(contexts[i]).prepareSFSBBeanState(contexts[i]);
+            if (prepared[i]) {
+                preparedCount++;
+            }
         }
+
+        AtomicInteger nextIndex = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(size);
+        Runnable serializer = () -> {
+            int i;
+            while ((i = nextIndex.getAndIncrement()) < size) {
+                try {
+                    if (prepared[i]) {
+                        states[i] = serializeBeanState(contexts[i]);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+
+        int helpers = Math.min(preparedCount, Runtime.getRuntime().availableProcessors()) - 1;
+        for (int i = 0; i < helpers; i++) {
+            try {
+                getSerializationExecutor().execute(serializer);
+            } catch (Exception ex) {
+                // the calling thread serializes whatever is left
+                _logger.log(Level.FINE, "Unable to add checkpoint serialization task", ex);
+                break;
+            }
+        }
+
+        serializer.run();
+        // the workers still hold some of the contexts, so wait for them even
+        // if interrupted, and restore the interrupt status afterwards
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (prepared[i] && !getContainer(contexts[i]).completeSFSBBeanState(contexts[i], states[i] != null)) {
+                states[i] = null;
+            }
+        }
+        return states;
+    }
+
+    private Executor getSerializationExecutor() {
+        if (serializationExecutor == null) {
+            serializationExecutor = EjbContainerUtilImpl.getInstance()::addWork;
+        }
+        return serializationExecutor;
+    }
+
+    private StoreAndBeanState serializeBeanState(SessionContextImpl ctx) {
+        StatefulSessionContainer container = getContainer(ctx);
+        // worker threads need the class loader of the bean's application
+        ClassLoader previousClassLoader = Utility.setContextClassLoader(container.getClassLoader());
+        try {
+            SimpleMetadata beanState = container.serializeSFSBBeanState(ctx);
+            if (beanState == null) {
+                return null;
+            }
+            return new StoreAndBeanState((Serializable) ctx.getInstanceKey(), container,
+                    container.getBackingStore(), beanState, !ctx.existsInStore());
+        } finally {
+            Utility.setContextClassLoader(previousClassLoader);
+        }
+    }
+
+    private StoreAndBeanState getBeanState(SessionContextImpl ctx) {
+        StatefulSessionContainer container = getContainer(ctx);
+        SimpleMetadata beanState = container.getSFSBBeanState(ctx);
+        if (beanState == null) {
+            return null;
+        }
+        return new StoreAndBeanState((Serializable) ctx.getInstanceKey(), container,
+                container.getBackingStore(), beanState, !ctx.existsInStore());
+    }
+
+    private static StatefulSessionContainer getContainer(SessionContextImpl ctx) {
+        return (StatefulSessionContainer) ctx.getContainer();
     }
 
     private static final class StoreAndBeanState {
         Serializable key;
+        StatefulSessionContainer container;
         BackingStore<Serializable, SimpleMetadata> store;
         SimpleMetadata state;
         boolean isNew;
 
-        StoreAndBeanState(Serializable key,
+        StoreAndBeanState(Serializable key, StatefulSessionContainer container,
                           BackingStore<Serializable, SimpleMetadata> store, SimpleMetadata state,
                           boolean isNew) {
             this.key = key;
+            this.container = container;
             this.store = store;
             this.state = state;
             this.isNew = isNew;
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2019] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.containers;
 
@@ -93,6 +93,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimerTask;
@@ -2019,6 +2020,110 @@ public final class StatefulSessionContainer
         return simpleMetadata;
     }
 
+    /**
+     * First step of checkpointing a bean in a batched transaction checkpoint,
+     * calls its PrePassivate callbacks. Like {@link #completeSFSBBeanState}
+     * it is to be called on the thread completing the transaction, only
+     * {@link #serializeSFSBBeanState} may be called on another thread.
+     *
+     * @param sc the context of the bean
+     * @return true if the state of the bean is to be serialized, false if the
+     * bean is not checkpointed or was destroyed
+     */
+    boolean prepareSFSBBeanState(SessionContextImpl sc) {
+        if (containerState != CONTAINER_STARTED && containerState != CONTAINER_STOPPED) {
+            _logger.log(Level.FINE, () -> "prepareSFSBBeanState() returning because containerState: " + containerState);
+            return false;
+        }
+        if (sc.getState() == BeanState.DESTROYED) {
+            return false;
+        }
+        if (!callCheckpointCallback(sc, prePassivateInvInfo, CallbackType.PRE_PASSIVATE)) {
+            destroyAfterCheckpointError(sc);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Serializes the state of a bean prepared by {@link #prepareSFSBBeanState}.
+     * Runs no bean callbacks, so it may be called on a thread other than the
+     * one completing the transaction.
+     *
+     * @param sc the context of the bean
+     * @return the state of the bean, null if it could not be serialized
+     */
+    SimpleMetadata serializeSFSBBeanState(SessionContextImpl sc) {
+        SimpleMetadata simpleMetadata = null;
+        EjbInvocation ejbInv = createEjbInvocation(sc.getEJB(), sc);
+        invocationManager.preInvoke(ejbInv);
+        try {
+            synchronized (sc) {
+                sc.setLastPersistedAt(System.currentTimeMillis());
+                long newCtxVersion = sc.incrementAndGetVersion();
+                byte[] serializedState = serializeContext(sc);
+                simpleMetadata = new SimpleMetadata(//
+                    sc.getVersion(), System.currentTimeMillis(), removalGracePeriodInSeconds * 1000L,
+                    serializedState);
+                simpleMetadata.setVersion(newCtxVersion);
+            }
+        } catch (java.io.NotSerializableException serEx) {
+            _logger.log(Level.WARNING, ERROR_DURING_CHECKPOINT_3PARAMs,
+                new Object[] {ejbDescriptor.getName(), sc.getInstanceKey(), serEx});
+            _logger.log(Level.FINE, "sfsb checkpoint error. Key: " + sc.getInstanceKey(), serEx);
+        } catch (Throwable ex) {
+            _logger.log(Level.WARNING, SFSB_CHECKPOINT_ERROR_NAME, new Object[] {ejbDescriptor.getName()});
+            _logger.log(Level.WARNING, SFSB_CHECKPOINT_ERROR_KEY, new Object[] {sc.getInstanceKey(), ex});
+        } finally {
+            invocationManager.postInvoke(ejbInv);
+        }
+        return simpleMetadata;
+    }
+
+    /**
+     * Last step of checkpointing a bean in a batched transaction checkpoint,
+     * calls its PostActivate callbacks, or destroys the bean if its state
+     * could not be serialized.
+     *
+     * @param sc the context of the bean
+     * @param serialized whether {@link #serializeSFSBBeanState} succeeded
+     * @return true if the bean is still alive
+     */
+    boolean completeSFSBBeanState(SessionContextImpl sc, boolean serialized) {
+        if (!serialized || !callCheckpointCallback(sc, postActivateInvInfo, CallbackType.POST_ACTIVATE)) {
+            destroyAfterCheckpointError(sc);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean callCheckpointCallback(SessionContextImpl sc, InvocationInfo invInfo, CallbackType callbackType) {
+        EjbInvocation ejbInv = createEjbInvocation(sc.getEJB(), sc);
+        invocationManager.preInvoke(ejbInv);
+        boolean needToDoPostInvokeTx = false;
+        synchronized (sc) {
+            try {
+                needToDoPostInvokeTx = callLifecycleCallbackInTxIfUsed(ejbInv, sc, invInfo, callbackType);
+                return true;
+            } catch (Throwable ex) {
+                _logger.log(Level.WARNING, SFSB_CHECKPOINT_ERROR_NAME, new Object[] {ejbDescriptor.getName()});
+                _logger.log(Level.WARNING, SFSB_CHECKPOINT_ERROR_KEY, new Object[] {sc.getInstanceKey(), ex});
+                return false;
+            } finally {
+                invocationManager.postInvoke(ejbInv);
+                completeLifecycleCallbackTxIfUsed(ejbInv, sc, needToDoPostInvokeTx);
+            }
+        }
+    }
+
+    private void destroyAfterCheckpointError(SessionContextImpl sc) {
+        try {
+            forceDestroyBean(sc);
+        } catch (Exception e) {
+            _logger.log(Level.FINE, "error destroying bean", e);
+        }
+    }
+
     void txCheckpointCompleted(SessionContextImpl sc) {
         if (sc.getState() != BeanState.DESTROYED) {
             //We did persist this ctx in the store
@@ -2028,6 +2133,25 @@ public final class StatefulSessionContainer
         }
     }
 
+    /**
+     * Records the outcome of saving the state of a bean as part of a batched
+     * transaction checkpoint.
+     *
+     * @param beanState the state that was saved
+     * @param success whether the state was saved
+     * @param timeSpent time in milliseconds between the start of the
+     * checkpoint and the state being saved
+     */
+    void txCheckpointStored(SimpleMetadata beanState, boolean success, long timeSpent) {
+        if ((sfsbStoreMonitor != null) && sfsbStoreMonitor.isMonitoringOn()) {
+            sfsbStoreMonitor.incrementCheckpointCount(success);
+            if (success) {
+                sfsbStoreMonitor.setCheckpointSize(beanState.getState().length);
+                sfsbStoreMonitor.setCheckpointTime(timeSpent);
+            }
+        }
+    }
+
     private void callEjbAfterCompletion(SessionContextImpl context, boolean status) {
         if (afterCompletionMethod == null) {
             return;
@@ -2914,19 +3038,38 @@ public final class StatefulSessionContainer
                     };
                     AccessController.doPrivileged(action);
                 }
-                ComponentContext ctx = null;
+                ArrayList<ComponentContext> batch = new ArrayList<>(passivationBatchCount);
 
                 do {
+                    // take a whole batch per lock acquisition, most recently
+                    // trimmed candidates first
                     synchronized (asyncTaskSemaphore) {
                         int sz = passivationCandidates.size();
-                        if (sz > 0) {
-                            ctx = (ComponentContext)
-                                    passivationCandidates.remove(sz - 1);
-                        } else {
+                        if (sz == 0) {
                             return;
                         }
+                        List<?> tail = passivationCandidates.subList(Math.max(0, sz - passivationBatchCount), sz);
+                        for (int i = tail.size() - 1; i >= 0; i--) {
+                            batch.add((ComponentContext) tail.get(i));
+                        }
+                        tail.clear();
+                    }
+                    // the batch is no longer in the candidates, so a failing
+                    // bean must not keep the rest of it from being passivated.
+                    // Each bean is still saved on its own rather than with a
+                    // BatchBackingStore.saveAll for the batch: passivating a
+                    // bean holds its context lock from the PrePassivate
+                    // callback until it is unlinked from the cache, and on a
+                    // failed save the bean is activated again, which a single
+                    // store operation for several beans cannot report per bean
+                    for (ComponentContext ctx : batch) {
+                        try {
+                            passivateEJB(ctx);
+                        } catch (Throwable th) {
+                            _logger.log(Level.WARNING, "Error passivating SFSB " + ejbDescriptor.getName(), th);
+                        }
                     }
-                    passivateEJB(ctx);
+                    batch.clear();
                 } while (true);
 
             } catch (Throwable th) {
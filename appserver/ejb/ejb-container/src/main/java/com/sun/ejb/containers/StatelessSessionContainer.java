@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2019] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.containers;
 
@@ -47,6 +47,7 @@ import com.sun.ejb.containers.util.pool.AbstractPool;
 import com.sun.ejb.containers.util.pool.BlockingPool;
 import com.sun.ejb.containers.util.pool.NonBlockingPool;
 import com.sun.ejb.containers.util.pool.ObjectFactory;
+import com.sun.ejb.containers.util.pool.StripedPool;
 import com.sun.ejb.monitoring.stats.EjbMonitoringStatsProvider;
 import com.sun.ejb.monitoring.stats.EjbPoolStatsProvider;
 import com.sun.ejb.monitoring.stats.StatelessSessionBeanStatsProvider;
@@ -231,11 +232,17 @@ public class StatelessSessionContainer extends BaseContainer {
 
         poolProp = new PoolProperties(ejbContainer, beanPoolDes);
         String val = ejbDescriptor.getEjbBundleDescriptor().getEnterpriseBeansProperty(SINGLETON_BEAN_POOL_PROP);
+        String striped = ejbDescriptor.getEjbBundleDescriptor().getEnterpriseBeansProperty(STRIPED_BEAN_POOL_PROP);
         if (poolProp.maxWaitTimeInMillis != -1) {
             pool = new BlockingPool( //
                 getContainerId(), ejbDescriptor.getName(), sessionCtxFactory, //
                 poolProp.steadyPoolSize, poolProp.poolResizeQuantity, poolProp.maxPoolSize, //
                 poolProp.poolIdleTimeoutInSeconds, loader, Boolean.parseBoolean(val), poolProp.maxWaitTimeInMillis);
+        } else if (Boolean.parseBoolean(striped) && !Boolean.parseBoolean(val)) {
+            pool = new StripedPool( //
+                getContainerId(), ejbDescriptor.getName(), sessionCtxFactory, //
+                poolProp.steadyPoolSize, poolProp.poolResizeQuantity, poolProp.maxPoolSize, //
+                poolProp.poolIdleTimeoutInSeconds, loader);
         } else {
             pool = new NonBlockingPool( //
                 getContainerId(), ejbDescriptor.getName(), sessionCtxFactory, //
@@ -0,0 +1,379 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.ejb.containers.util;
+
+import com.sun.logging.LogDomains;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hierarchical timing wheel scheduling a large number of one-shot tasks.
+ * <p>
+ * Unlike {@link java.util.Timer}, whose queue is a binary heap, scheduling
+ * and cancelling a task are constant time operations: the calling thread only
+ * pushes the task on a lock-free stack, and the single worker thread of the
+ * wheel links it into the slot matching its expiration. The wheel has
+ * {@value #LEVELS} levels of {@value #WHEEL_SIZE} slots, each slot of a level
+ * covering a whole revolution of the level below. The worker advances one
+ * tick at a time, moving the tasks of the higher level slots down as their
+ * time comes, and runs all the tasks of an expired slot in one pass.
+ * <p>
+ * Tasks never run before their expiration time, and run at most one tick
+ * after it. They run on the worker thread, so they should only hand the
+ * actual work over to another thread.
+ */
+public class TimerWheel {
+
+    private static final Logger _logger = LogDomains.getLogger(TimerWheel.class, LogDomains.EJB_LOGGER);
+
+    private static final int WHEEL_BITS = 9;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Slot[][] wheels = new Slot[LEVELS][WHEEL_SIZE];
+    // lock-free stacks of the timeouts to link and unlink, drained by the worker
+    private final AtomicReference<Timeout> pendingTimeouts = new AtomicReference<>();
+    private final AtomicReference<Timeout> cancelledTimeouts = new AtomicReference<>();
+    private final Object idleLock = new Object();
+    private final Thread worker;
+
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    // only accessed by the worker thread
+    private long currentTick;
+    private int linkedCount;
+
+    /**
+     * Creates a wheel and starts its worker thread.
+     *
+     * @param name name of the worker thread
+     * @param tickMillis duration of a tick, which is the precision of the
+     * wheel, in milliseconds
+     */
+    public TimerWheel(String name, long tickMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive: " + tickMillis);
+        }
+        this.tickMillis = tickMillis;
+        for (Slot[] wheel : wheels) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheel[i] = new Slot();
+            }
+        }
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        // the wheel outlives the applications, do not hold on to their class loader
+        worker.setContextClassLoader(TimerWheel.class.getClassLoader());
+        worker.start();
+    }
+
+    /**
+     * Schedules a task to run once at the given time.
+     *
+     * @param task the task to run
+     * @param expiration the time to run the task at
+     * @return handle to cancel the task
+     */
+    public Timeout schedule(Runnable task, Date expiration) {
+        return schedule(task, expiration.getTime());
+    }
+
+    /**
+     * Schedules a task to run once at the given time.
+     *
+     * @param task the task to run
+     * @param expirationMillis the time to run the task at, in milliseconds
+     * since the epoch
+     * @return handle to cancel the task
+     */
+    public Timeout schedule(Runnable task, long expirationMillis) {
+        if (!running) {
+            throw new IllegalStateException("Timer wheel already stopped");
+        }
+        // round up, a task never runs before its expiration
+        Timeout timeout = new Timeout(this, task, (expirationMillis + tickMillis - 1) / tickMillis);
+        Timeout head;
+        do {
+            head = pendingTimeouts.get();
+            timeout.nextPending = head;
+        } while (!pendingTimeouts.compareAndSet(head, timeout));
+        if (idle) {
+            synchronized (idleLock) {
+                idleLock.notify();
+            }
+        }
+        return timeout;
+    }
+
+    /**
+     * Stops the worker thread. Tasks that did not run yet are discarded.
+     */
+    public void stop() {
+        running = false;
+        synchronized (idleLock) {
+            idleLock.notify();
+        }
+        worker.interrupt();
+    }
+
+    private void run() {
+        currentTick = System.currentTimeMillis() / tickMillis;
+        while (running) {
+            try {
+                linkPendingTimeouts();
+                long nowTick = System.currentTimeMillis() / tickMillis;
+                if (linkedCount == 0) {
+                    // nothing to move down or expire, jump straight to now
+                    currentTick = Math.max(currentTick, nowTick);
+                    awaitTimeouts();
+                    continue;
+                }
+                while (currentTick < nowTick && running) {
+                    currentTick++;
+                    advance(currentTick);
+                }
+                long sleepMillis = (currentTick + 1) * tickMillis - System.currentTimeMillis();
+                if (sleepMillis > 0) {
+                    Thread.sleep(sleepMillis);
+                }
+            } catch (InterruptedException ie) {
+                // stop() interrupts the worker, the loop checks running
+            } catch (Throwable th) {
+                _logger.log(Level.WARNING, "Unexpected error in timer wheel " + worker.getName(), th);
+            }
+        }
+    }
+
+    private void awaitTimeouts() throws InterruptedException {
+        synchronized (idleLock) {
+            idle = true;
+            try {
+                while (running && pendingTimeouts.get() == null) {
+                    idleLock.wait();
+                }
+            } finally {
+                idle = false;
+            }
+        }
+    }
+
+
+    private void linkPendingTimeouts() {
+        Timeout timeout = cancelledTimeouts.getAndSet(null);
+        while (timeout != null) {
+            Timeout next = timeout.nextCancelled;
+            timeout.nextCancelled = null;
+            if (timeout.slot != null) {
+                timeout.slot.remove(timeout);
+                linkedCount--;
+            }
+            timeout = next;
+        }
+        timeout = pendingTimeouts.getAndSet(null);
+        while (timeout != null) {
+            Timeout next = timeout.nextPending;
+            timeout.nextPending = null;
+            if (!timeout.isCancelled()) {
+                link(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void link(Timeout timeout) {
+        long delta = timeout.expirationTick - currentTick;
+        if (delta <= 0) {
+            expire(timeout);
+            return;
+        }
+        int level = 0;
+        long range = WHEEL_SIZE;
+        while (delta >= range && level < LEVELS - 1) {
+            level++;
+            range <<= WHEEL_BITS;
+        }
+        // beyond the range of the wheel, park the timeout in the furthest slot,
+        // it gets linked again with its actual expiration when the slot is reached
+        long tick = delta < range ? timeout.expirationTick : currentTick + range - 1;
+        wheels[level][(int) (tick >>> (level * WHEEL_BITS)) & WHEEL_MASK].add(timeout);
+        linkedCount++;
+    }
+
+    private void advance(long tick) {
+        // find the levels whose slot changes on this tick, and move their
+        // timeouts down, highest level first
+        int level = 0;
+        while (level < LEVELS - 1 && ((tick >>> (level * WHEEL_BITS)) & WHEEL_MASK) == 0) {
+            level++;
+        }
+        for (; level > 0; level--) {
+            Timeout timeout = detach(wheels[level][(int) (tick >>> (level * WHEEL_BITS)) & WHEEL_MASK]);
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.next = null;
+                link(timeout);
+                timeout = next;
+            }
+        }
+        Timeout timeout = detach(wheels[0][(int) tick & WHEEL_MASK]);
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            expire(timeout);
+            timeout = next;
+        }
+    }
+
+    private Timeout detach(Slot slot) {
+        Timeout head = slot.head;
+        slot.head = null;
+        for (Timeout timeout = head; timeout != null; timeout = timeout.next) {
+            timeout.slot = null;
+            timeout.prev = null;
+            linkedCount--;
+        }
+        return head;
+    }
+
+    private void expire(Timeout timeout) {
+        if (Timeout.STATE.compareAndSet(timeout, Timeout.PENDING, Timeout.EXPIRED)) {
+            try {
+                timeout.task.run();
+            } catch (Throwable th) {
+                _logger.log(Level.WARNING, "Exception running timer task " + timeout.task, th);
+            }
+        }
+    }
+
+    /**
+     * Handle of a task scheduled on a {@link TimerWheel}.
+     */
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final long expirationTick;
+        private volatile int state = PENDING;
+
+        // links in the stacks of pending and cancelled timeouts, a timeout
+        // cancelled before being linked is in both
+        private Timeout nextPending;
+        private Timeout nextCancelled;
+
+        // only accessed by the worker thread
+        private Slot slot;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimerWheel wheel, Runnable task, long expirationTick) {
+            this.wheel = wheel;
+            this.task = task;
+            this.expirationTick = expirationTick;
+        }
+
+        /**
+         * Cancels the task, unless it already ran or was already cancelled.
+         *
+         * @return true if this call cancelled the task
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            Timeout head;
+            do {
+                head = wheel.cancelledTimeouts.get();
+                nextCancelled = head;
+            } while (!wheel.cancelledTimeouts.compareAndSet(head, this));
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+    }
+
+    private static final class Slot {
+
+        private Timeout head;
+
+        void add(Timeout timeout) {
+            timeout.slot = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.slot = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+    }
+}
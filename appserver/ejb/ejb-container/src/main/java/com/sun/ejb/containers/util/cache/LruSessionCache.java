@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.containers.util.cache;
 
@@ -313,8 +314,9 @@ public class LruSessionCache
 	}*/
         try {
             value = getStateFromStore(sessionKey, container);
-            newItem = new LruSessionCacheItem(hashCode, sessionKey,
-                    value, -1, CACHE_ITEM_LOADING);
+            newItem = (LruSessionCacheItem) createItem(hashCode, sessionKey,
+                    value, -1);
+            newItem.cacheItemState = CACHE_ITEM_LOADING;
             newItem.setNext( buckets[index] );
             buckets[index] = newItem;
 
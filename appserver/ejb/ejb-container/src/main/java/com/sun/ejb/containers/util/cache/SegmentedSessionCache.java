@@ -0,0 +1,378 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.ejb.containers.util.cache;
+
+import com.sun.appserv.util.cache.CacheListener;
+import com.sun.ejb.spi.container.SFSBContainerCallback;
+import com.sun.ejb.spi.container.StatefulEJBContext;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stateful session bean cache that splits its eviction list into independent
+ * segments.
+ * <p>
+ * Every cache item belongs to the segment its hash code maps to, and each
+ * segment keeps its own list guarded by its own lock, so adding and removing
+ * beans for different sessions do not contend on the cache wide monitor used
+ * by {@link LruSessionCache}. Accessing a bean takes no list lock at all: it
+ * only bumps a small access frequency counter on the item. Victims are picked
+ * from the tail of a segment with a frequency aware second chance policy, an
+ * item that was accessed since it was last looked at has its frequency
+ * decremented and is moved back to the head instead of being evicted.
+ * <p>
+ * Evicted beans are always handed to the cache listeners, that is to the
+ * container which passivates them in batches on its own worker threads,
+ * rather than being passivated on the thread that caused the eviction.
+ */
+public class SegmentedSessionCache
+    extends LruSessionCache
+{
+
+    private static final int MAX_FREQUENCY = 3;
+    private static final int MAX_SEGMENTS = 64;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final AtomicInteger victimsAccessed = new AtomicInteger();
+
+    public SegmentedSessionCache(String cacheName,
+                                 SFSBContainerCallback container,
+                                 int cacheIdleTime, int removalTime) {
+        this(cacheName, container, cacheIdleTime, removalTime,
+                2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    SegmentedSessionCache(String cacheName,
+                          SFSBContainerCallback container,
+                          int cacheIdleTime, int removalTime,
+                          int wantedSegments) {
+        super("Segmented-" + cacheName, container, cacheIdleTime, removalTime);
+
+        int segmentCount = 1;
+        int wanted = Math.min(wantedSegments, MAX_SEGMENTS);
+        while (segmentCount < wanted) {
+            segmentCount <<= 1;
+        }
+        this.segmentMask = segmentCount - 1;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    private Segment segmentFor(CacheItem item) {
+        return segments[segmentIndex(item.getHashCode())];
+    }
+
+    private int segmentIndex(int hashCode) {
+        // the low bits select the bucket already, mix in the high ones
+        return (hashCode ^ (hashCode >>> 16)) & segmentMask;
+    }
+
+    int getSegmentCount() {
+        return segments.length;
+    }
+
+    int getSegmentIndex(Object sessionKey) {
+        return segmentIndex(hash(sessionKey));
+    }
+
+    int getSegmentSize(int index) {
+        return segments[index].size;
+    }
+
+    @Override
+    protected CacheItem createItem(int hashCode, Object sessionKey,
+            Object value, int size)
+    {
+        return new SegmentedCacheItem(hashCode, sessionKey, value, size);
+    }
+
+    @Override
+    protected CacheItem itemAdded(CacheItem item) {
+        SegmentedCacheItem sc = (SegmentedCacheItem) item;
+        sc.frequency = 0;
+        Segment segment = segmentFor(sc);
+        synchronized (segment) {
+            segment.linkFirst(sc);
+        }
+        if (!isThresholdReached()) {
+            return null;
+        }
+        return selectVictim(sc);
+    }
+
+    /**
+     * Picks a victim from the fullest segment, so that a segment that only
+     * holds a few frequently accessed beans is not drained because the beans
+     * added lately happened to hash to it. The other segments are only looked
+     * at when the fullest one has no item besides the new one.
+     */
+    private CacheItem selectVictim(SegmentedCacheItem added) {
+        Segment fullest = segments[0];
+        for (Segment segment : segments) {
+            if (segment.size > fullest.size) {
+                fullest = segment;
+            }
+        }
+        SegmentedCacheItem victim = evict(fullest, added);
+        for (int i = 0; victim == null && i <= segmentMask; i++) {
+            if (segments[i] != fullest) {
+                victim = evict(segments[i], added);
+            }
+        }
+        if (victim != null) {
+            synchronized (this) {
+                trimCount++;
+            }
+        }
+        return victim;
+    }
+
+    private static SegmentedCacheItem evict(Segment segment, SegmentedCacheItem added) {
+        synchronized (segment) {
+            return segment.evict(added);
+        }
+    }
+
+    @Override
+    protected void itemAccessed(CacheItem item) {
+        SegmentedCacheItem sc = (SegmentedCacheItem) item;
+        if (!sc.isTrimmed()) {
+            int frequency = sc.frequency;
+            if (frequency < MAX_FREQUENCY) {
+                // racy increment, a lost update only costs some precision
+                sc.frequency = frequency + 1;
+            }
+            return;
+        }
+
+        Segment segment = segmentFor(sc);
+        synchronized (segment) {
+            if (!sc.isTrimmed()) {
+                return;
+            }
+            sc.setTrimmed(false);
+            segment.linkFirst(sc);
+        }
+        victimsAccessed.incrementAndGet();
+        if (isThresholdReached()) {
+            CacheItem overflow = selectVictim(sc);
+            if (overflow != null) {
+                trimItem(overflow);
+            }
+        }
+    }
+
+    @Override
+    protected void itemRefreshed(CacheItem item, int oldSize) {
+        itemAccessed(item);
+    }
+
+    @Override
+    protected void itemRemoved(CacheItem item) {
+        SegmentedCacheItem sc = (SegmentedCacheItem) item;
+        Segment segment = segmentFor(sc);
+        synchronized (segment) {
+            // trimmed items have already been unlinked
+            if (!sc.isTrimmed()) {
+                segment.unlink(sc);
+            }
+        }
+    }
+
+    /**
+     * Hands the trimmed item to the listeners. Unlike {@link LruSessionCache}
+     * beans past their removal timeout are not passivated inline either, the
+     * container checks {@link #eligibleForRemovalFromCache} when it processes
+     * the trimmed bean asynchronously.
+     */
+    @Override
+    protected void trimItem(CacheItem item) {
+        for (int i = 0; i < listeners.size(); i++) {
+            CacheListener listener = (CacheListener) listeners.get(i);
+            listener.trimEvent(item.getKey(), item.getValue());
+        }
+    }
+
+    @Override
+    public void trimTimedoutItems(int maxCount) {
+        // segments are not ordered by access time, scan the whole cache
+        trimUnSortedTimedoutItems(maxCount);
+    }
+
+    @Override
+    public Iterator values() {
+        List<Object> valueList = new ArrayList<>();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (LruCacheItem item = segment.head; item != null; item = item.getLNext()) {
+                    if (item.getValue() != null) {
+                        valueList.add(item.getValue());
+                    }
+                }
+            }
+        }
+        return valueList.iterator();
+    }
+
+    @Override
+    public void shutdown() {
+        List<StatefulEJBContext> valueList = new ArrayList<>();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                LruCacheItem item = segment.head;
+                while (item != null) {
+                    LruCacheItem next = item.getLNext();
+                    item.setTrimmed(true);
+                    item.setLPrev(null);
+                    item.setLNext(null);
+                    if (item.getValue() != null) {
+                        valueList.add((StatefulEJBContext) item.getValue());
+                    }
+                    item = next;
+                }
+                segment.head = segment.tail = null;
+                segment.size = 0;
+            }
+        }
+
+        for (StatefulEJBContext ctx : valueList) {
+            container.passivateEJB(ctx);
+        }
+    }
+
+    @Override
+    public int getNumVictimsAccessed() {
+        return victimsAccessed.get();
+    }
+
+    /**
+     * One segment of the eviction list, most recently added item first.
+     * All methods are called with the segment lock held.
+     */
+    private static final class Segment {
+
+        private LruCacheItem head;
+        private LruCacheItem tail;
+        // read without the lock when looking for the fullest segment
+        private volatile int size;
+
+        private void linkFirst(LruCacheItem item) {
+            item.setLPrev(null);
+            item.setLNext(head);
+            if (head != null) {
+                head.setLPrev(item);
+            } else {
+                tail = item;
+            }
+            head = item;
+            size++;
+        }
+
+        private void unlink(LruCacheItem item) {
+            LruCacheItem prev = item.getLPrev();
+            LruCacheItem next = item.getLNext();
+            if (prev != null) {
+                prev.setLNext(next);
+            } else if (head == item) {
+                head = next;
+            } else {
+                // not linked into this segment
+                return;
+            }
+            if (next != null) {
+                next.setLPrev(prev);
+            } else {
+                tail = prev;
+            }
+            item.setLPrev(null);
+            item.setLNext(null);
+            size--;
+        }
+
+        /**
+         * Second chance walk from the tail: frequently accessed items are
+         * moved back to the head with a lower frequency, the first item
+         * without recent accesses is unlinked, marked trimmed and returned.
+         */
+        private SegmentedCacheItem evict(SegmentedCacheItem protectedItem) {
+            int budget = size * (MAX_FREQUENCY + 1);
+            while (budget-- > 0 && tail != null) {
+                SegmentedCacheItem candidate = (SegmentedCacheItem) tail;
+                if (candidate == protectedItem) {
+                    if (size == 1) {
+                        return null;
+                    }
+                    unlink(candidate);
+                    linkFirst(candidate);
+                    continue;
+                }
+                if (candidate.frequency > 0) {
+                    candidate.frequency--;
+                    unlink(candidate);
+                    linkFirst(candidate);
+                    continue;
+                }
+                unlink(candidate);
+                candidate.setTrimmed(true);
+                return candidate;
+            }
+            return null;
+        }
+    }
+
+    protected static class SegmentedCacheItem
+        extends LruSessionCacheItem
+    {
+
+        protected volatile int frequency;
+
+        protected SegmentedCacheItem(int hashCode, Object key, Object value,
+                               int size)
+        {
+            super(hashCode, key, value, size);
+        }
+    }
+}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2019] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2022] [Payara Foundation and/or its affiliates]
 
 /**
  * <BR> <I>$Source: /cvs/glassfish/appserv-core/src/java/com/sun/ejb/containers/util/pool/AbstractPool.java,v $</I>
@@ -201,9 +201,9 @@ public abstract class AbstractPool
     //Methods on EJBPoolStatsProvider
     public void appendStats(StringBuilder sbuf) {
 	sbuf.append("[Pool: ")
-	    .append("SZ=").append(list.size()).append("; ")
-	    .append("CC=").append(createdCount).append("; ")
-	    .append("DC=").append(destroyedCount).append("; ")
+	    .append("SZ=").append(getSize()).append("; ")
+	    .append("CC=").append(getCreatedCount()).append("; ")
+	    .append("DC=").append(getDestroyedCount()).append("; ")
 	    .append("WC=").append(waitCount).append("; ")
 	    .append("MSG=0");
 	if (configData != null) {
@@ -217,7 +217,7 @@ public abstract class AbstractPool
     }
 
     public int getNumBeansInPool() {
-	return list.size();
+	return getSize();
     }
 
     public int getNumThreadsWaiting() {
@@ -225,20 +225,20 @@ public abstract class AbstractPool
     }
 
     public int getTotalBeansCreated() {
-	return createdCount;
+	return getCreatedCount();
     }
 
     public int getTotalBeansDestroyed() {
-	return destroyedCount;
+	return getDestroyedCount();
     }
 
     public String getAllMonitoredAttrbuteValues() {
         StringBuilder sbuf = new StringBuilder();
         synchronized (list) {
-            sbuf.append("createdCount=").append(createdCount).append(";")
-                .append("destroyedCount=").append(destroyedCount).append(";")
+            sbuf.append("createdCount=").append(getCreatedCount()).append(";")
+                .append("destroyedCount=").append(getDestroyedCount()).append(";")
                 .append("waitCount=").append(waitCount).append(";")
-                .append("size=").append(list.size()).append(";");
+                .append("size=").append(getSize()).append(";");
         }
         sbuf.append("maxPoolSize=").append(maxPoolSize).append(";");
         return sbuf.toString();
@@ -251,12 +251,12 @@ public abstract class AbstractPool
         else
             sbuf.append(":POOL");
 
-        sbuf.append("[FP=").append(poolSuccess).append(",")
-            .append("TC=").append(createdCount).append(",")
-            .append("TD=").append(destroyedCount).append(",")
+        sbuf.append("[FP=").append(getPoolSuccess()).append(",")
+            .append("TC=").append(getCreatedCount()).append(",")
+            .append("TD=").append(getDestroyedCount()).append(",")
 			.append("PR=").append(poolReturned).append(",")
             .append("TW=").append(waitCount).append(",")
-            .append("CS=").append(list.size()).append(",")
+            .append("CS=").append(getSize()).append(",")
             .append("MS=").append(maxPoolSize);
 
         return sbuf.toString();
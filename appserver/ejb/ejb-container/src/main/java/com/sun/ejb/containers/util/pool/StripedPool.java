@@ -0,0 +1,517 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.ejb.containers.util.pool;
+
+import com.sun.ejb.containers.EJBContextImpl;
+import com.sun.ejb.containers.EjbContainerUtilImpl;
+import com.sun.enterprise.util.Utility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+
+/**
+ * Non blocking pool that does not serialise its callers on a single monitor.
+ * <p>
+ * Free objects are kept in a small array of stripes, one object per stripe,
+ * a thread always looking at the stripe its id maps to first. Objects that
+ * do not fit into a stripe go to a lock free shared overflow deque. Taking
+ * and returning an object under contention therefore is a single atomic
+ * swap in the common case, instead of entering the {@code synchronized (list)}
+ * block of {@link NonBlockingPool}.
+ * <p>
+ * The pool otherwise behaves like {@link NonBlockingPool}: it creates an
+ * object when none is free, never holds more than {@code maxPoolSize} free
+ * objects, refills itself up to {@code steadyPoolSize} in the background and
+ * periodically destroys objects that have been idle for longer than
+ * {@code idleTimeoutInSeconds}. The single instance pool mode of
+ * {@link NonBlockingPool} is not supported.
+ */
+public class StripedPool
+    extends AbstractPool
+{
+
+    /**
+     * Distance in array slots between two stripes, so that every stripe sits
+     * on its own cache line.
+     */
+    private static final int STRIPE_PADDING = 16;
+    private static final int MAX_STRIPES = 64;
+
+    private final AtomicReferenceArray<Object> stripes;
+    private final int stripeMask;
+    private final ConcurrentLinkedDeque<Object> overflow = new ConcurrentLinkedDeque<>();
+
+    private final AtomicInteger freeCount = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger destroyed = new AtomicInteger();
+    private final AtomicInteger success = new AtomicInteger();
+
+    private final AtomicBoolean addedResizeTask = new AtomicBoolean();
+    private final AtomicBoolean addedIdleBeanWork = new AtomicBoolean();
+    private final AtomicBoolean inResizing = new AtomicBoolean();
+    private final boolean maintainSteadySize;
+    private TimerTask poolTimerTask;
+
+    // Set to true after close().  Prevents race condition
+    // of async resize task kicking in after close().
+    private volatile boolean poolClosed = false;
+
+    public StripedPool(long beanId, String poolName, ObjectFactory factory,
+        int steadyPoolSize, int resizeQuantity,
+        int maxPoolSize, int idleTimeoutInSeconds,
+        ClassLoader loader)
+    {
+        this.poolName = poolName;
+        this.beanId = beanId;
+        this.factory = factory;
+        this.steadyPoolSize = (steadyPoolSize <= 0) ? 0 : steadyPoolSize;
+        this.resizeQuantity = (resizeQuantity <= 0) ? 0 : resizeQuantity;
+        this.maxPoolSize = (maxPoolSize <= 0)
+            ? Integer.MAX_VALUE : maxPoolSize;
+        this.steadyPoolSize = Math.min(this.steadyPoolSize, this.maxPoolSize);
+        this.idleTimeoutInSeconds =
+            (idleTimeoutInSeconds <= 0) ? 0 : idleTimeoutInSeconds;
+        this.containerClassLoader = loader;
+        this.maintainSteadySize = this.steadyPoolSize > 0;
+
+        int stripeCount = 1;
+        int wanted = Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES);
+        while (stripeCount < wanted) {
+            stripeCount <<= 1;
+        }
+        this.stripeMask = stripeCount - 1;
+        this.stripes = new AtomicReferenceArray<>(stripeCount * STRIPE_PADDING);
+
+        if ((this.idleTimeoutInSeconds > 0) && (this.resizeQuantity > 0)) {
+            try {
+                this.poolTimerTask = new PoolResizeTimerTask();
+                EjbContainerUtilImpl.getInstance().getTimer().scheduleAtFixedRate
+                    (poolTimerTask, idleTimeoutInSeconds*1000L,
+                     idleTimeoutInSeconds*1000L);
+                if(_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE, "[Pool-{0}]: Added PoolResizeTimerTask...", poolName);
+                }
+            } catch (Throwable th) {
+                _logger.log(Level.WARNING,"[Pool-" +
+                            poolName + "]: Could not add"
+                            + " PoolTimerTask. Continuing anyway...", th);
+            }
+        }
+    }
+
+    @Override
+    public Object getObject(Object param)
+    {
+        Object obj = takeFree();
+        if (obj != null) {
+            success.incrementAndGet();
+            if (maintainSteadySize && freeCount.get() < steadyPoolSize) {
+                addResizeTaskForImmediateExecution();
+            }
+            return obj;
+        }
+
+        if (maintainSteadySize) {
+            addResizeTaskForImmediateExecution();
+        }
+        poolProbeNotifier.ejbObjectAddedEvent(beanId, appName, modName, ejbName);
+        created.incrementAndGet();
+        try {
+            return factory.create(param);
+        } catch (RuntimeException th) {
+            poolProbeNotifier.ejbObjectAddFailedEvent(beanId, appName, modName, ejbName);
+            created.decrementAndGet();
+            throw th;
+        }
+    }
+
+    /**
+     * Return an object back to the pool. An object that is obtained through
+     *	getObject() must always be returned back to the pool using either
+     *	returnObject(obj) or through destroyObject(obj).
+     * @param object
+     */
+    @Override
+    public void returnObject(Object object) {
+        if (!poolClosed && offerFree(object)) {
+            return;
+        }
+        destroyObject(object);
+    }
+
+    /**
+     * Destroys an Object. Note that applications should not ignore
+     * the reference to the object that they got from getObject(). An object
+     * that is obtained through getObject() must always be returned back to
+     * the pool using either returnObject(obj) or through destroyObject(obj).
+     * This method tells that the object should be destroyed and cannot
+     * be reused.
+     * @param object Object to be destroyed.
+     */
+    @Override
+    public void destroyObject(Object object) {
+        poolProbeNotifier.ejbObjectDestroyedEvent(beanId, appName, modName, ejbName);
+        destroyed.incrementAndGet();
+        ObjectFactory objectFactory = factory;
+        if (objectFactory == null) {
+            return;
+        }
+        try {
+            objectFactory.destroy(object);
+        } catch (Exception ex) {
+            _logger.log(Level.FINE, "exception in destroyObject", ex);
+        }
+    }
+
+    private int homeStripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) & stripeMask;
+    }
+
+    private Object takeFree() {
+        if (freeCount.get() <= 0) {
+            return null;
+        }
+        int home = homeStripe();
+        Object obj = stripes.getAndSet(home * STRIPE_PADDING, null);
+        if (obj == null) {
+            obj = overflow.pollFirst();
+        }
+        for (int i = 1; obj == null && i <= stripeMask && freeCount.get() > 0; i++) {
+            obj = stripes.getAndSet(((home + i) & stripeMask) * STRIPE_PADDING, null);
+        }
+        if (obj != null) {
+            freeCount.decrementAndGet();
+        }
+        return obj;
+    }
+
+    private boolean offerFree(Object object) {
+        if (freeCount.incrementAndGet() > maxPoolSize) {
+            freeCount.decrementAndGet();
+            return false;
+        }
+        if (!stripes.compareAndSet(homeStripe() * STRIPE_PADDING, null, object)) {
+            overflow.offerFirst(object);
+        }
+        if (poolClosed) {
+            // close() may have drained the pool before the object was added
+            destroyFree();
+        }
+        return true;
+    }
+
+    /**
+     * Destroys all free objects, which is only done once the pool is closed.
+     */
+    private void destroyFree() {
+        Object obj;
+        while ((obj = takeFree()) != null) {
+            try {
+                destroyObject(obj);
+            } catch (Throwable th) {
+                _logger.log(Level.WARNING,
+                        "[Pool-"+poolName+"]: Error while destroying", th);
+            }
+        }
+    }
+
+    private void addResizeTaskForImmediateExecution() {
+        if (!addedResizeTask.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            EjbContainerUtilImpl.getInstance().addWork(new ReSizeWork());
+            if(_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE, "[Pool-{0}]: Added PoolResizeTimerTask...", poolName);
+            }
+        } catch (Exception ex) {
+            addedResizeTask.set(false);
+            _logger.log(Level.WARNING,
+                        "[Pool-"+poolName+"]: Cannot perform "
+                        + " pool resize task", ex);
+        }
+    }
+
+    /**
+    * Preload the pool with objects.
+    * @param count the number of objects to be added.
+    */
+    protected void preload(int count) {
+        for (int i = 0; i < count && !poolClosed; i++) {
+            Object obj;
+            try {
+                obj = factory.create(null);
+            } catch (Exception ex) {
+                //Need not throw this exception up since we are pre-populating
+                return;
+            }
+            created.incrementAndGet();
+            if (!offerFree(obj)) {
+                destroyObject(obj);
+                return;
+            }
+        }
+    }
+
+    /**
+    * Close the pool
+    */
+    @Override
+    public void close() {
+        if (poolClosed) {
+            return;
+        }
+        poolClosed = true;
+        if (poolTimerTask != null) {
+            try {
+                poolTimerTask.cancel();
+            } catch (Throwable th) {
+                //Can safely ignore this!!
+            }
+        }
+
+        if(_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "[Pool-{0}]: Destroying {1} beans from the pool...", new Object[]{poolName, freeCount.get()});
+        }
+
+        // since we're calling into ejb code, we need to set context
+        // class loader
+        ClassLoader origLoader =
+            Utility.setContextClassLoader(containerClassLoader);
+        try {
+            destroyFree();
+            unregisterProbeProvider();
+        } finally {
+            Utility.setContextClassLoader(origLoader);
+        }
+
+        // the factory is kept, objects still in use are destroyed when they are returned
+        this.poolTimerTask         = null;
+        this.containerClassLoader  = null;
+    }
+
+    @Override
+    protected void removeIdleObjects() {
+    }
+
+    protected void doResize() {
+        if (poolClosed || !inResizing.compareAndSet(false, true)) {
+            return;
+        }
+
+        ClassLoader previousClassLoader =
+            Utility.setContextClassLoader(containerClassLoader);
+        try {
+            int curSize = freeCount.get();
+            if (curSize > steadyPoolSize) {
+                if ((idleTimeoutInSeconds > 0) && (resizeQuantity > 0)) {
+                    removeIdle(Math.min(resizeQuantity, curSize - steadyPoolSize));
+                }
+            } else if (curSize < steadyPoolSize && maintainSteadySize) {
+                int populateCount = steadyPoolSize - curSize;
+                if (resizeQuantity > 0) {
+                    // grow in whole resize quantities, as NonBlockingPool does
+                    populateCount = ((populateCount + resizeQuantity - 1) / resizeQuantity) * resizeQuantity;
+                }
+                preload(Math.min(populateCount, maxPoolSize - curSize));
+            }
+        } catch (Throwable th) {
+            _logger.log(Level.WARNING,
+                        "[Pool-"+poolName+"]: Exception during reSize", th);
+        } finally {
+            inResizing.set(false);
+            if (poolClosed) {
+                // objects put back by removeIdle() after close() drained the pool
+                destroyFree();
+            }
+            Utility.setContextClassLoader(previousClassLoader);
+        }
+
+        if(_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "[Pool-{0}]: Resize completed at: {1}; after reSize: {2}",
+                    new Object[]{poolName, new java.util.Date(), getAllAttrValues()});
+        }
+    }
+
+    /**
+     * Destroys up to the given number of free objects that have not been used
+     * within the idle timeout. Most recently returned objects are pushed to
+     * the head of the overflow deque, so the oldest ones are taken from its
+     * tail before the stripes are looked at.
+     */
+    private void removeIdle(int victimCount) {
+        long allowedIdleTime = System.currentTimeMillis() -
+            idleTimeoutInSeconds*1000L;
+        List<Object> removeList = new ArrayList<>(victimCount);
+        while (removeList.size() < victimCount) {
+            Object obj = overflow.pollLast();
+            if (obj == null) {
+                break;
+            }
+            if (!isIdle(obj, allowedIdleTime)) {
+                overflow.offerLast(obj);
+                break;
+            }
+            freeCount.decrementAndGet();
+            removeList.add(obj);
+        }
+        for (int i = 0; i <= stripeMask && removeList.size() < victimCount; i++) {
+            Object obj = stripes.getAndSet(i * STRIPE_PADDING, null);
+            if (obj == null) {
+                continue;
+            }
+            if (isIdle(obj, allowedIdleTime)) {
+                freeCount.decrementAndGet();
+                removeList.add(obj);
+            } else if (!stripes.compareAndSet(i * STRIPE_PADDING, null, obj)) {
+                overflow.offerFirst(obj);
+            }
+        }
+        if(_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE,
+                        "[Pool-{0}]: Resize:: reducing " + " pool size by: {1}", new Object[]{poolName, removeList.size()});
+        }
+        for (Object obj : removeList) {
+            destroyObject(obj);
+        }
+    }
+
+    private static boolean isIdle(Object obj, long allowedIdleTime) {
+        return !(obj instanceof EJBContextImpl)
+            || ((EJBContextImpl) obj).getLastTimeUsed() <= allowedIdleTime;
+    }
+
+    @Override
+    public int getCreatedCount() {
+        return created.get();
+    }
+
+    @Override
+    public int getDestroyedCount() {
+        return destroyed.get();
+    }
+
+    @Override
+    public int getPoolSuccess() {
+        return success.get();
+    }
+
+    @Override
+    public int getSize() {
+        return freeCount.get();
+    }
+
+    @Override
+    public String getAllMonitoredAttrbuteValues() {
+        StringBuilder sbuf = new StringBuilder();
+        sbuf.append("createdCount=").append(getCreatedCount()).append(";")
+            .append("destroyedCount=").append(getDestroyedCount()).append(";")
+            .append("waitCount=").append(waitCount).append(";")
+            .append("size=").append(getSize()).append(";")
+            .append("maxPoolSize=").append(maxPoolSize).append(";");
+        return sbuf.toString();
+    }
+
+    @Override
+    public String getAllAttrValues() {
+        StringBuilder sbuf = new StringBuilder("[Pool-"+poolName+"] ");
+        sbuf.append("CC=").append(getCreatedCount()).append("; ")
+            .append("DC=").append(getDestroyedCount()).append("; ")
+            .append("CS=").append(getSize()).append("; ")
+            .append("SS=").append(steadyPoolSize).append("; ")
+            .append("MS=").append(maxPoolSize).append(";");
+        return sbuf.toString();
+    }
+
+    private class ReSizeWork
+        implements Runnable
+    {
+        @Override
+        public void run() {
+            try {
+                doResize();
+            } catch (Exception ex) {
+                _logger.log(Level.WARNING,
+                    "[Pool-"+poolName+"]: Exception during reSize", ex);
+            } finally {
+                addedResizeTask.set(false);
+            }
+        }
+    }
+
+    private class IdleBeanWork
+        implements Runnable
+    {
+        @Override
+        public void run() {
+            try {
+                doResize();
+            } finally {
+                addedIdleBeanWork.set(false);
+            }
+        }
+    }
+
+    private class PoolResizeTimerTask
+        extends TimerTask
+    {
+        @Override
+        public void run() {
+            if (!addedIdleBeanWork.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                EjbContainerUtilImpl.getInstance().addWork(new IdleBeanWork());
+            } catch (Exception ex) {
+                addedIdleBeanWork.set(false);
+                _logger.log(Level.WARNING,
+                            "[Pool-"+poolName+"]: Cannot perform "
+                            + " pool idle bean cleanup", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.ejb.containers;
+
+import com.sun.ejb.containers.EjbAsyncInvocationManager.AsyncQueueStats;
+import com.sun.ejb.containers.EjbAsyncInvocationManager.TrackedTask;
+import com.sun.enterprise.deployment.xml.RuntimeTagNames;
+import fish.payara.monitoring.collect.MonitoringDataCollector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.glassfish.ejb.config.EjbContainer;
+import org.junit.Test;
+import org.mockito.stubbing.Answer;
+
+import static com.sun.ejb.containers.EjbAsyncInvocationManager.ASYNC_EXECUTOR_PROP;
+import static com.sun.ejb.containers.EjbAsyncInvocationManager.FORK_JOIN_EXECUTOR;
+import static com.sun.ejb.containers.EjbAsyncInvocationManager.THREAD_POOL_EXECUTOR;
+import static com.sun.ejb.containers.EjbAsyncInvocationManager.VIRTUAL_THREADS_EXECUTOR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class EjbAsyncInvocationManagerTest {
+
+    private final EjbAsyncInvocationManager manager = new EjbAsyncInvocationManager();
+
+    private static EjbContainer ejbContainer(String executor, String threadMaxPoolSize) {
+        EjbContainer ejbContainer = mock(EjbContainer.class);
+        when(ejbContainer.getPropertyValue(ASYNC_EXECUTOR_PROP, THREAD_POOL_EXECUTOR)).thenReturn(executor);
+        when(ejbContainer.getPropertyValue(RuntimeTagNames.THREAD_MAX_POOL_SIZE)).thenReturn(threadMaxPoolSize);
+        return ejbContainer;
+    }
+
+    private static int forkJoinParallelism(String threadMaxPoolSize) {
+        ExecutorService executor = EjbAsyncInvocationManager.createAsyncExecutor(
+                ejbContainer(FORK_JOIN_EXECUTOR, threadMaxPoolSize));
+        try {
+            assertTrue(executor instanceof ForkJoinPool);
+            return ((ForkJoinPool) executor).getParallelism();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void threadPoolIsUsedByDefault() {
+        assertNull(EjbAsyncInvocationManager.createAsyncExecutor(ejbContainer(THREAD_POOL_EXECUTOR, null)));
+    }
+
+    @Test
+    public void unknownExecutorFallsBackToThreadPool() {
+        assertNull(EjbAsyncInvocationManager.createAsyncExecutor(ejbContainer("unknown", null)));
+    }
+
+    @Test
+    public void forkJoinPoolIsSizedByThreadMaxPoolSize() {
+        assertEquals(4, forkJoinParallelism(" 4 "));
+        assertEquals(EjbContainer.DEFAULT_THREAD_MAX_POOL_SIZE, forkJoinParallelism(null));
+    }
+
+    @Test
+    public void invalidThreadMaxPoolSizeIsReset() {
+        assertEquals(EjbContainer.DEFAULT_THREAD_MAX_POOL_SIZE, forkJoinParallelism("many"));
+        assertEquals(1, forkJoinParallelism("0"));
+    }
+
+    @Test
+    public void virtualThreadsFallBackToForkJoinPoolWhereNotSupported() throws Exception {
+        ExecutorService executor = EjbAsyncInvocationManager.createAsyncExecutor(
+                ejbContainer(VIRTUAL_THREADS_EXECUTOR, "2"));
+        try {
+            assertNotNull(executor);
+            boolean virtualThreadsSupported;
+            try {
+                Thread.class.getMethod("isVirtual");
+                virtualThreadsSupported = true;
+            } catch (NoSuchMethodException e) {
+                virtualThreadsSupported = false;
+            }
+            assertEquals(!virtualThreadsSupported, executor instanceof ForkJoinPool);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void queuedTaskIsCountedUntilItStarts() {
+        AtomicBoolean ran = new AtomicBoolean();
+        TrackedTask task = manager.track("app", () -> ran.set(true), false);
+        AsyncQueueStats stats = manager.getQueueStats("app");
+        assertEquals(1, stats.queued.get());
+        assertEquals(0, stats.started.get());
+
+        task.run();
+        assertTrue(ran.get());
+        assertEquals(0, stats.queued.get());
+        assertEquals(1, stats.started.get());
+    }
+
+    @Test
+    public void rejectedTaskIsNoLongerQueued() {
+        TrackedTask task = manager.track("app", () -> { }, false);
+        task.rejected();
+        AsyncQueueStats stats = manager.getQueueStats("app");
+        assertEquals(0, stats.queued.get());
+        assertEquals(1, stats.rejected.get());
+    }
+
+    @Test
+    public void statsAreSharedPerApplication() {
+        manager.track("app", () -> { }, false);
+        AsyncQueueStats stats = manager.getQueueStats("app");
+        manager.track("app", () -> { }, false);
+        manager.track("other", () -> { }, false);
+        assertSame(stats, manager.getQueueStats("app"));
+        assertEquals(2, stats.queued.get());
+        assertNotSame(stats, manager.getQueueStats("other"));
+    }
+
+    @Test
+    public void onlyIdleStatsAreDropped() {
+        TrackedTask task = manager.track("app", () -> { }, false);
+        manager.dropIfIdle("app");
+        AsyncQueueStats stats = manager.getQueueStats("app");
+        assertNotNull(stats);
+
+        task.run();
+        manager.dropIfIdle("app");
+        assertSame(stats, manager.getQueueStats("app"));
+
+        manager.collect(collector(new AtomicLong()));
+        assertNull(manager.getQueueStats("app"));
+    }
+
+    @Test
+    public void retiredStatsAreReplaced() {
+        manager.track("app", () -> { }, false).run();
+        manager.collect(collector(new AtomicLong()));
+        manager.track("app", () -> { }, false).run();
+        AsyncQueueStats stats = manager.getQueueStats("app");
+        stats.started.set(0L);
+        stats.waitTime.set(0L);
+        stats.maxWaitTime.set(0L);
+        assertTrue(stats.retire());
+
+        manager.track("app", () -> { }, false);
+        AsyncQueueStats replaced = manager.getQueueStats("app");
+        assertNotSame(stats, replaced);
+        assertEquals(1, replaced.queued.get());
+    }
+
+    @Test
+    public void noInvocationIsLostWhenIdleStatsAreDropped() throws InterruptedException {
+        int threadCount = 4;
+        int invocations = 20_000;
+        AtomicLong collected = new AtomicLong();
+        MonitoringDataCollector collector = collector(collected);
+        AtomicBoolean submitting = new AtomicBoolean(true);
+        Thread collecting = new Thread(() -> {
+            while (submitting.get()) {
+                manager.collect(collector);
+            }
+        });
+        collecting.start();
+        AtomicInteger ran = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < invocations; j++) {
+                    manager.track("app", ran::incrementAndGet, false).run();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        submitting.set(false);
+        collecting.join();
+        manager.collect(collector);
+        assertEquals(threadCount * invocations, ran.get());
+        assertEquals(threadCount * invocations, collected.get());
+    }
+
+    /**
+     * Creates a collector adding up the started counts collected.
+     */
+    private static MonitoringDataCollector collector(AtomicLong started) {
+        Answer<Object> answer = invocation -> {
+            Object[] args = invocation.getArguments();
+            if ("collect".equals(invocation.getMethod().getName())
+                    && "AsyncStartedCount".equals(String.valueOf(args[0]))) {
+                started.addAndGet(((Number) args[1]).longValue());
+            }
+            return invocation.getMethod().getReturnType() == MonitoringDataCollector.class
+                    ? invocation.getMock()
+                    : RETURNS_DEFAULTS.answer(invocation);
+        };
+        return mock(MonitoringDataCollector.class, withSettings().stubOnly().defaultAnswer(answer));
+    }
+}
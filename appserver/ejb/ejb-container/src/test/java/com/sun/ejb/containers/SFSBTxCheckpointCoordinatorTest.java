@@ -0,0 +1,180 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.ejb.containers;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.glassfish.ha.common.BatchBackingStore;
+import org.glassfish.ha.store.api.BackingStore;
+import org.glassfish.ha.store.util.SimpleMetadata;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class SFSBTxCheckpointCoordinatorTest {
+
+    private static final int BEAN_COUNT = 8;
+
+    private ExecutorService executor;
+    private StatefulSessionContainer container;
+    private BackingStore<Serializable, SimpleMetadata> store;
+    private SessionContextImpl[] contexts;
+    private Set<Thread> callbackThreads;
+    private Set<Thread> serializationThreads;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void createBeans() {
+        executor = Executors.newFixedThreadPool(3);
+        container = mock(StatefulSessionContainer.class);
+        store = mock(BackingStore.class, withSettings().extraInterfaces(BatchBackingStore.class));
+        when(container.getBackingStore()).thenReturn(store);
+        callbackThreads = ConcurrentHashMap.newKeySet();
+        serializationThreads = ConcurrentHashMap.newKeySet();
+        contexts = new SessionContextImpl[BEAN_COUNT];
+        for (int i = 0; i < BEAN_COUNT; i++) {
+            SessionContextImpl ctx = mock(SessionContextImpl.class);
+            when(ctx.getContainer()).thenReturn(container);
+            when(ctx.getInstanceKey()).thenReturn("bean-" + i);
+            when(container.prepareSFSBBeanState(ctx)).thenAnswer(invocation -> {
+                callbackThreads.add(Thread.currentThread());
+                return true;
+            });
+            when(container.serializeSFSBBeanState(ctx)).thenAnswer(invocation -> {
+                serializationThreads.add(Thread.currentThread());
+                return new SimpleMetadata(1L, System.currentTimeMillis(), 0L, new byte[] { (byte) BEAN_COUNT });
+            });
+            when(container.completeSFSBBeanState(eq(ctx), anyBoolean())).thenAnswer(invocation -> {
+                callbackThreads.add(Thread.currentThread());
+                return invocation.getArgument(1);
+            });
+            contexts[i] = ctx;
+        }
+    }
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    private SFSBTxCheckpointCoordinator createCoordinator() {
+        SFSBTxCheckpointCoordinator coordinator = new SFSBTxCheckpointCoordinator("hazelcast", true, executor);
+        for (SessionContextImpl ctx : contexts) {
+            coordinator.registerContext(ctx);
+        }
+        return coordinator;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void statesAreSavedWithSingleBatchOperation() throws Exception {
+        createCoordinator().doTxCheckpoint();
+
+        ArgumentCaptor<Map<Serializable, SimpleMetadata>> saved = ArgumentCaptor.forClass(Map.class);
+        verify((BatchBackingStore<Serializable, SimpleMetadata>) store).saveAll(saved.capture());
+        assertEquals(BEAN_COUNT, saved.getValue().size());
+        for (int i = 0; i < BEAN_COUNT; i++) {
+            assertTrue(saved.getValue().containsKey("bean-" + i));
+        }
+        verify(store, never()).save(any(), any(), anyBoolean());
+        verify(container, times(BEAN_COUNT)).txCheckpointStored(any(SimpleMetadata.class), eq(true), anyLong());
+        for (SessionContextImpl ctx : contexts) {
+            verify(container).txCheckpointCompleted(ctx);
+        }
+    }
+
+    @Test
+    public void lifecycleCallbacksRunOnCallingThread() {
+        createCoordinator().doTxCheckpoint();
+
+        assertEquals(Collections.singleton(Thread.currentThread()), callbackThreads);
+        for (SessionContextImpl ctx : contexts) {
+            verify(container).prepareSFSBBeanState(ctx);
+            verify(container).serializeSFSBBeanState(ctx);
+            verify(container).completeSFSBBeanState(ctx, true);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void beansFailingToSerializeAreNotSaved() throws Exception {
+        SessionContextImpl failing = contexts[3];
+        when(container.serializeSFSBBeanState(failing)).thenReturn(null);
+
+        createCoordinator().doTxCheckpoint();
+
+        verify(container).completeSFSBBeanState(failing, false);
+        ArgumentCaptor<Map<Serializable, SimpleMetadata>> saved = ArgumentCaptor.forClass(Map.class);
+        verify((BatchBackingStore<Serializable, SimpleMetadata>) store).saveAll(saved.capture());
+        assertEquals(BEAN_COUNT - 1, saved.getValue().size());
+        assertFalse(saved.getValue().containsKey("bean-3"));
+    }
+
+    @Test
+    public void beansNotPreparedAreNotSerialized() {
+        SessionContextImpl destroyed = contexts[5];
+        when(container.prepareSFSBBeanState(destroyed)).thenReturn(false);
+
+        createCoordinator().doTxCheckpoint();
+
+        verify(container, never()).serializeSFSBBeanState(destroyed);
+        verify(container, never()).completeSFSBBeanState(eq(destroyed), anyBoolean());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.ejb.containers.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimerWheelTest {
+
+    private TimerWheel timerWheel;
+
+    @Before
+    public void createTimerWheel() {
+        timerWheel = new TimerWheel("test timer wheel", 5);
+    }
+
+    @After
+    public void stopTimerWheel() {
+        timerWheel.stop();
+    }
+
+    @Test
+    public void tasksRunNotBeforeTheirExpiration() throws Exception {
+        int taskCount = 1000;
+        CountDownLatch done = new CountDownLatch(taskCount);
+        AtomicLong earlyRuns = new AtomicLong();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < taskCount; i++) {
+            // spread over more than a revolution of the first level of the wheel
+            long expiration = now + (i * 7) % 3000;
+            timerWheel.schedule(() -> {
+                if (System.currentTimeMillis() < expiration) {
+                    earlyRuns.incrementAndGet();
+                }
+                done.countDown();
+            }, expiration);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(0, earlyRuns.get());
+    }
+
+    @Test
+    public void expiredTaskRunsRightAway() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        timerWheel.schedule(done::countDown, System.currentTimeMillis() - 1000);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancelledTaskDoesNotRun() throws Exception {
+        AtomicBoolean cancelledRan = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        long expiration = System.currentTimeMillis() + 100;
+        TimerWheel.Timeout timeout = timerWheel.schedule(() -> cancelledRan.set(true), expiration);
+        timerWheel.schedule(done::countDown, expiration + 50);
+
+        assertTrue(timeout.cancel());
+        assertFalse("A task can only be cancelled once", timeout.cancel());
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(cancelledRan.get());
+        assertTrue(timeout.isCancelled());
+    }
+
+    @Test
+    public void taskCannotBeCancelledOnceRun() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        TimerWheel.Timeout timeout = timerWheel.schedule(done::countDown, System.currentTimeMillis() + 20);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertFalse(timeout.cancel());
+    }
+}
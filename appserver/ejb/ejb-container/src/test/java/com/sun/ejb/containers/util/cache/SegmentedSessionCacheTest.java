@@ -0,0 +1,228 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.ejb.containers.util.cache;
+
+import com.sun.ejb.spi.container.SFSBContainerCallback;
+import com.sun.ejb.spi.container.StatefulEJBContext;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SegmentedSessionCacheTest {
+
+    private SFSBContainerCallback container;
+    private List<Object> trimmedKeys;
+
+    @Before
+    public void createContainer() {
+        container = mock(SFSBContainerCallback.class);
+        trimmedKeys = new ArrayList<>();
+    }
+
+    private SegmentedSessionCache createCache(int segments, int maxEntries) {
+        SegmentedSessionCache cache = new SegmentedSessionCache("test", container, 0, 0, segments);
+        // with a load factor of 1 beans are trimmed once more than maxEntries + 1 are cached
+        cache.init(maxEntries, 1.0f, null);
+        cache.addCacheListener((key, value) -> trimmedKeys.add(key));
+        return cache;
+    }
+
+    private static StatefulEJBContext bean() {
+        return mock(StatefulEJBContext.class);
+    }
+
+    private static int sizeOfSegments(SegmentedSessionCache cache) {
+        int size = 0;
+        for (int i = 0; i < cache.getSegmentCount(); i++) {
+            size += cache.getSegmentSize(i);
+        }
+        return size;
+    }
+
+    @Test
+    public void beansAreSpreadOverTheSegmentsTheirKeysMapTo() {
+        SegmentedSessionCache cache = createCache(4, 1000);
+        assertEquals(4, cache.getSegmentCount());
+        int[] expectedSizes = new int[4];
+        for (int i = 0; i < 200; i++) {
+            String key = "session-" + i;
+            cache.put(key, bean());
+            expectedSizes[cache.getSegmentIndex(key)]++;
+        }
+        for (int i = 0; i < 4; i++) {
+            assertTrue("segment " + i + " is empty", expectedSizes[i] > 0);
+            assertEquals(expectedSizes[i], cache.getSegmentSize(i));
+        }
+        assertTrue(trimmedKeys.isEmpty());
+    }
+
+    @Test
+    public void segmentCountIsAPowerOfTwo() {
+        assertEquals(1, createCache(1, 10).getSegmentCount());
+        assertEquals(8, createCache(5, 10).getSegmentCount());
+        assertEquals(64, createCache(1000, 10).getSegmentCount());
+    }
+
+    @Test
+    public void leastRecentlyAddedBeanWithoutAccessIsTrimmed() {
+        SegmentedSessionCache cache = createCache(1, 3);
+        for (int i = 0; i < 5; i++) {
+            cache.put("session-" + i, bean());
+        }
+        assertTrue(trimmedKeys.isEmpty());
+        // accessed beans get a second chance
+        cache.get("session-0");
+
+        cache.put("session-5", bean());
+
+        assertEquals(asList("session-1"), trimmedKeys);
+        assertEquals(5, sizeOfSegments(cache));
+    }
+
+    @Test
+    public void victimIsTakenFromTheFullestSegment() {
+        SegmentedSessionCache cache = createCache(2, 10);
+        int added = 0;
+        for (int i = 0; added < 12; i++) {
+            String key = "session-" + i;
+            // fill segment 0 only, so segment 1 stays empty
+            if (cache.getSegmentIndex(key) == 0) {
+                cache.put(key, bean());
+                added++;
+            }
+        }
+        String other = null;
+        for (int i = 0; other == null; i++) {
+            if (cache.getSegmentIndex("other-" + i) == 1) {
+                other = "other-" + i;
+            }
+        }
+
+        cache.put(other, bean());
+
+        assertEquals(1, trimmedKeys.size());
+        assertEquals(0, cache.getSegmentIndex(trimmedKeys.get(0)));
+        assertEquals(11, cache.getSegmentSize(0));
+        assertEquals(1, cache.getSegmentSize(1));
+    }
+
+    @Test
+    public void trimmedBeansAreHandedToListenersNotPassivatedInline() {
+        SegmentedSessionCache cache = new SegmentedSessionCache("test", container, 1, 1, 1);
+        cache.init(3, 1.0f, null);
+        cache.addCacheListener((key, value) -> trimmedKeys.add(key));
+        for (int i = 0; i < 6; i++) {
+            StatefulEJBContext ctx = bean();
+            // idle for longer than the removal timeout
+            when(ctx.getLastAccessTime()).thenReturn(0L);
+            cache.put("session-" + i, ctx);
+        }
+
+        assertEquals(asList("session-0"), trimmedKeys);
+        verify(container, never()).passivateEJB(any(StatefulEJBContext.class));
+    }
+
+    @Test
+    public void accessingTrimmedBeanLinksItAgain() {
+        SegmentedSessionCache cache = createCache(1, 3);
+        for (int i = 0; i < 6; i++) {
+            cache.put("session-" + i, bean());
+        }
+        assertEquals(asList("session-0"), trimmedKeys);
+
+        cache.get("session-0");
+
+        assertEquals(1, cache.getNumVictimsAccessed());
+        // relinking it overflows the cache again
+        assertEquals(asList("session-0", "session-1"), trimmedKeys);
+        assertEquals(5, sizeOfSegments(cache));
+    }
+
+    @Test
+    public void removedBeansAreUnlinked() {
+        SegmentedSessionCache cache = createCache(4, 100);
+        StatefulEJBContext kept = bean();
+        cache.put("removed", bean());
+        cache.put("kept", kept);
+
+        cache.remove("removed");
+
+        assertEquals(1, sizeOfSegments(cache));
+        Iterator<?> values = cache.values();
+        assertTrue(values.hasNext());
+        assertEquals(kept, values.next());
+        assertFalse(values.hasNext());
+    }
+
+    @Test
+    public void shutdownPassivatesAllBeansNotTrimmed() {
+        SegmentedSessionCache cache = createCache(2, 3);
+        List<StatefulEJBContext> beans = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            StatefulEJBContext ctx = bean();
+            beans.add(ctx);
+            cache.put("session-" + i, ctx);
+        }
+        assertEquals(1, trimmedKeys.size());
+
+        cache.shutdown();
+
+        for (int i = 0; i < beans.size(); i++) {
+            if (trimmedKeys.contains("session-" + i)) {
+                verify(container, never()).passivateEJB(beans.get(i));
+            } else {
+                verify(container).passivateEJB(beans.get(i));
+            }
+        }
+        assertEquals(0, sizeOfSegments(cache));
+    }
+}
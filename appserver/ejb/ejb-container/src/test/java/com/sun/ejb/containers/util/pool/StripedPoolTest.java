@@ -0,0 +1,243 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.ejb.containers.util.pool;
+
+import com.sun.ejb.monitoring.probes.EjbPoolProbeProvider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the free object handling of {@link StripedPool}.
+ */
+public class StripedPoolTest {
+
+    private final CountingFactory factory = new CountingFactory();
+    private StripedPool pool;
+
+    @After
+    public void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private StripedPool createPool(int steadyPoolSize, int resizeQuantity, int maxPoolSize, int idleTimeoutInSeconds) {
+        pool = new StripedPool(1L, "test", factory, steadyPoolSize, resizeQuantity, maxPoolSize,
+                idleTimeoutInSeconds, getClass().getClassLoader());
+        pool.poolProbeNotifier = new EjbPoolProbeProvider();
+        return pool;
+    }
+
+    @Test
+    public void objectIsCreatedWhenNoneIsFree() {
+        createPool(0, 0, 10, 0);
+        Object first = pool.getObject(null);
+        Object second = pool.getObject(null);
+        assertNotSame(first, second);
+        assertEquals(2, pool.getCreatedCount());
+        assertEquals(0, pool.getPoolSuccess());
+    }
+
+    @Test
+    public void returnedObjectIsReusedByTheSameThread() {
+        createPool(0, 0, 10, 0);
+        Object obj = pool.getObject(null);
+        pool.returnObject(obj);
+        assertEquals(1, pool.getSize());
+        assertSame(obj, pool.getObject(null));
+        assertEquals(0, pool.getSize());
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(1, pool.getPoolSuccess());
+    }
+
+    @Test
+    public void objectsBeyondTheHomeStripeAreReused() {
+        createPool(0, 0, 10, 0);
+        List<Object> objects = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            objects.add(pool.getObject(null));
+        }
+        for (Object obj : objects) {
+            pool.returnObject(obj);
+        }
+        assertEquals(5, pool.getSize());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(objects.contains(pool.getObject(null)));
+        }
+        assertEquals(0, pool.getSize());
+        assertEquals(5, pool.getCreatedCount());
+    }
+
+    @Test
+    public void objectReturnedByOneThreadIsStolenByAnother() throws InterruptedException {
+        createPool(0, 0, 10, 0);
+        Object[] returned = new Object[1];
+        Thread returner = new Thread(() -> {
+            returned[0] = pool.getObject(null);
+            pool.returnObject(returned[0]);
+        });
+        returner.start();
+        returner.join();
+        assertEquals(1, pool.getSize());
+        assertSame(returned[0], pool.getObject(null));
+        assertEquals(1, pool.getCreatedCount());
+    }
+
+    @Test
+    public void objectsBeyondMaxPoolSizeAreDestroyed() {
+        createPool(0, 0, 2, 0);
+        List<Object> objects = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            objects.add(pool.getObject(null));
+        }
+        for (Object obj : objects) {
+            pool.returnObject(obj);
+        }
+        assertEquals(2, pool.getSize());
+        assertEquals(1, pool.getDestroyedCount());
+        assertEquals(1, factory.destroyed.size());
+        assertTrue(factory.destroyed.contains(objects.get(2)));
+    }
+
+    @Test
+    public void resizeRefillsUpToSteadyPoolSize() {
+        createPool(3, 2, 10, 0);
+        pool.doResize();
+        // grows in whole resize quantities
+        assertEquals(4, pool.getSize());
+        assertEquals(4, pool.getCreatedCount());
+    }
+
+    @Test
+    public void resizeDestroysIdleObjectsDownToSteadyPoolSize() {
+        createPool(1, 2, 10, 60);
+        List<Object> objects = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            objects.add(pool.getObject(null));
+        }
+        for (Object obj : objects) {
+            pool.returnObject(obj);
+        }
+        pool.doResize();
+        assertEquals(3, pool.getSize());
+        pool.doResize();
+        assertEquals(1, pool.getSize());
+        pool.doResize();
+        assertEquals(1, pool.getSize());
+        assertEquals(4, factory.destroyed.size());
+    }
+
+    @Test
+    public void closeDestroysFreeObjects() {
+        createPool(0, 0, 10, 0);
+        Object first = pool.getObject(null);
+        Object second = pool.getObject(null);
+        pool.returnObject(first);
+        pool.returnObject(second);
+        pool.close();
+        assertEquals(0, pool.getSize());
+        assertEquals(2, factory.destroyed.size());
+    }
+
+    @Test
+    public void objectReturnedAfterCloseIsDestroyed() {
+        createPool(0, 0, 10, 0);
+        Object obj = pool.getObject(null);
+        pool.close();
+        pool.returnObject(obj);
+        assertEquals(0, pool.getSize());
+        assertTrue(factory.destroyed.contains(obj));
+    }
+
+    @Test
+    public void objectsReturnedWhileClosingAreAllDestroyed() throws InterruptedException {
+        createPool(0, 0, 1000, 0);
+        int threadCount = 8;
+        CountDownLatch started = new CountDownLatch(threadCount);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(() -> {
+                started.countDown();
+                for (int j = 0; j < 10_000; j++) {
+                    pool.returnObject(pool.getObject(null));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        started.await();
+        pool.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, pool.getSize());
+        assertEquals(factory.created.get(), factory.destroyed.size());
+    }
+
+    private static final class CountingFactory implements ObjectFactory {
+
+        private final AtomicInteger created = new AtomicInteger();
+        private final Set<Object> destroyed = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public Object create(Object param) {
+            created.incrementAndGet();
+            return new Object();
+        }
+
+        @Override
+        public void destroy(Object object) {
+            assertNotNull(object);
+            destroyed.add(object);
+        }
+    }
+}
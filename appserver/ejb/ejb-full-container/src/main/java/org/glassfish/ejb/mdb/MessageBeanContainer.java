@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2017-2021] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2017-2022] [Payara Foundation and/or its affiliates]
 package org.glassfish.ejb.mdb;
 
 import com.sun.appserv.connectors.internal.api.ConnectorRuntime;
@@ -50,6 +50,7 @@ import com.sun.ejb.containers.EJBContextImpl.BeanState;
 import com.sun.ejb.containers.util.pool.AbstractPool;
 import com.sun.ejb.containers.util.pool.NonBlockingPool;
 import com.sun.ejb.containers.util.pool.ObjectFactory;
+import com.sun.ejb.containers.util.pool.StripedPool;
 import com.sun.ejb.monitoring.stats.EjbMonitoringStatsProvider;
 import com.sun.ejb.monitoring.stats.EjbPoolStatsProvider;
 import com.sun.ejb.spi.container.OptionalLocalInterfaceProvider;
@@ -340,12 +341,21 @@ public final class MessageBeanContainer extends BaseContainer implements Message
         // on message bean resources independent of the pool.
         ObjectFactory objFactory = new MessageBeanContextFactory();
                 String val = descriptor.getEjbBundleDescriptor().getEnterpriseBeansProperty(SINGLETON_BEAN_POOL_PROP);
-        messageBeanPool_ = new NonBlockingPool(getContainerId(), appEJBName_, objFactory,
-                beanPoolDesc_.getSteadyPoolSize(), beanPoolDesc_
-                        .getPoolResizeQuantity(), beanPoolDesc_
-                        .getMaxPoolSize(), beanPoolDesc_
-                        .getPoolIdleTimeoutInSeconds(), loader,
-                                                Boolean.parseBoolean(val));
+        String striped = descriptor.getEjbBundleDescriptor().getEnterpriseBeansProperty(STRIPED_BEAN_POOL_PROP);
+        if (Boolean.parseBoolean(striped) && !Boolean.parseBoolean(val)) {
+            messageBeanPool_ = new StripedPool(getContainerId(), appEJBName_, objFactory,
+                    beanPoolDesc_.getSteadyPoolSize(), beanPoolDesc_
+                            .getPoolResizeQuantity(), beanPoolDesc_
+                            .getMaxPoolSize(), beanPoolDesc_
+                            .getPoolIdleTimeoutInSeconds(), loader);
+        } else {
+            messageBeanPool_ = new NonBlockingPool(getContainerId(), appEJBName_, objFactory,
+                    beanPoolDesc_.getSteadyPoolSize(), beanPoolDesc_
+                            .getPoolResizeQuantity(), beanPoolDesc_
+                            .getMaxPoolSize(), beanPoolDesc_
+                            .getPoolIdleTimeoutInSeconds(), loader,
+                                                    Boolean.parseBoolean(val));
+        }
     }
 
     protected static int stringToInt(String val, String appName, Logger logger) {
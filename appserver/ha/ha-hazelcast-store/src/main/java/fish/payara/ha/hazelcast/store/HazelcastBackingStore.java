@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,11 +40,13 @@
 package fish.payara.ha.hazelcast.store;
 
 import fish.payara.nucleus.store.ClusteredStore;
+import org.glassfish.ha.common.BatchBackingStore;
 import org.glassfish.ha.store.api.BackingStore;
 import org.glassfish.ha.store.api.BackingStoreException;
 import org.glassfish.ha.store.api.BackingStoreFactory;
 
 import java.io.Serializable;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -53,7 +55,7 @@ import java.util.logging.Logger;
  * @author steve
  */
 public class HazelcastBackingStore<K extends Serializable, V extends Serializable>
-        extends BackingStore<K, V> {
+        extends BackingStore<K, V> implements BatchBackingStore<K, V> {
 
     private final BackingStoreFactory factory;
     private final String storeName;
@@ -91,6 +93,12 @@ public class HazelcastBackingStore<K extends Serializable, V extends Serializabl
         return instanceName;
     }
 
+    @Override
+    public void saveAll(Map<K, V> entries) throws BackingStoreException {
+        init();
+        clusteredStore.setAll(storeName, entries);
+    }
+
     @Override
     public void remove(K k) throws BackingStoreException {
         init();
@@ -0,0 +1,168 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.jdbc.admin.cli;
+
+import com.sun.appserv.connectors.internal.api.ConnectorsUtil;
+import com.sun.enterprise.config.serverbeans.Resources;
+import com.sun.enterprise.util.ColumnFormatter;
+import com.sun.enterprise.util.LocalStringManagerImpl;
+import com.sun.enterprise.util.SystemPropertyConstants;
+import org.glassfish.api.ActionReport;
+import org.glassfish.api.I18n;
+import org.glassfish.api.Param;
+import org.glassfish.api.admin.AdminCommand;
+import org.glassfish.api.admin.AdminCommandContext;
+import org.glassfish.api.admin.CommandLock;
+import org.glassfish.api.admin.ExecuteOn;
+import org.glassfish.api.admin.RestEndpoint;
+import org.glassfish.api.admin.RestEndpoints;
+import org.glassfish.api.admin.RuntimeType;
+import org.glassfish.api.admin.ServerEnvironment;
+import org.glassfish.config.support.CommandTarget;
+import org.glassfish.config.support.TargetType;
+import org.glassfish.external.statistics.CountStatistic;
+import org.glassfish.external.statistics.ListStatistic;
+import org.glassfish.external.statistics.Statistic;
+import org.glassfish.flashlight.MonitoringRuntimeDataRegistry;
+import org.glassfish.flashlight.datatree.TreeNode;
+import org.glassfish.hk2.api.PerLookup;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+import org.jvnet.hk2.annotations.Optional;
+import org.jvnet.hk2.annotations.Service;
+
+import javax.inject.Inject;
+
+/**
+ * Lists the top SQL fingerprints of a JDBC connection pool, ordered by total
+ * execution time, number of executions or maximum execution time.
+ * <p>
+ * The statistics are those gathered by the pool's monitoring, so SQL tracing
+ * has to be active on the pool (for instance through a frequent or slow sql
+ * statistics setting) and JDBC connection pool monitoring enabled.
+ */
+@TargetType(value={CommandTarget.DAS, CommandTarget.STANDALONE_INSTANCE, CommandTarget.CLUSTER, CommandTarget.CLUSTERED_INSTANCE})
+@Service(name="list-jdbc-top-queries")
+@PerLookup
+@CommandLock(CommandLock.LockType.NONE)
+@ExecuteOn(value={RuntimeType.INSTANCE})
+@I18n("list.jdbc.top.queries")
+@RestEndpoints({
+    @RestEndpoint(configBean=Resources.class,
+        opType=RestEndpoint.OpType.GET,
+        path="list-jdbc-top-queries",
+        description="List the top SQL queries of a JDBC Connection Pool")
+})
+public class ListJdbcTopQueries implements AdminCommand {
+
+    final private static LocalStringManagerImpl localStrings = new LocalStringManagerImpl(ListJdbcTopQueries.class);
+
+    private static final String[] OUTPUT_HEADERS = {"VALUE", "SUMMARY", "SQL"};
+
+    @Param(name = "poolName", primary = true)
+    private String poolName;
+
+    @Param(name = "appname", optional = true)
+    private String applicationName;
+
+    @Param(name = "modulename", optional = true)
+    private String moduleName;
+
+    @Param(optional = true, acceptableValues = "totaltime,count,maxtime", defaultValue = "totaltime")
+    private String orderBy;
+
+    // Selects the instances the command is executed on, each lists its own statistics
+    @Param(optional = true, defaultValue = SystemPropertyConstants.DEFAULT_SERVER_INSTANCE_NAME)
+    private String target;
+
+    @Inject
+    private ServerEnvironment environment;
+
+    @Inject
+    @Optional
+    private MonitoringRuntimeDataRegistry mrdr;
+
+    @Override
+    public void execute(AdminCommandContext context) {
+        final ActionReport report = context.getActionReport();
+
+        ListStatistic topQueries = getTopQueries();
+        if (topQueries == null) {
+            report.setMessage(localStrings.getLocalString("list.jdbc.top.queries.nodata",
+                    "No SQL statistics available for JDBC connection pool {0}. Make sure monitoring of JDBC connection pools and SQL tracing are enabled.",
+                    poolName));
+            report.setActionExitCode(ActionReport.ExitCode.WARNING);
+            return;
+        }
+
+        ColumnFormatter formatter = new ColumnFormatter(OUTPUT_HEADERS);
+        for (Statistic statistic : topQueries.getStatistics()) {
+            if (statistic instanceof CountStatistic) {
+                formatter.addRow(new Object[] {
+                    ((CountStatistic) statistic).getCount(),
+                    statistic.getDescription(),
+                    statistic.getName()
+                });
+            }
+        }
+        report.setMessage(formatter.toString());
+        report.setActionExitCode(ActionReport.ExitCode.SUCCESS);
+    }
+
+    private ListStatistic getTopQueries() {
+        if (mrdr == null) {
+            return null;
+        }
+        // the monitoring tree of an instance is rooted at the instance name
+        TreeNode node = mrdr.get(environment.getInstanceName());
+        // application and module scoped pools are monitored below their application
+        PoolInfo poolInfo = new PoolInfo(poolName, applicationName, moduleName);
+        String path = ConnectorsUtil.getPoolMonitoringSubTreeRoot(poolInfo, true) + "/topsqlby" + orderBy;
+        for (String child : path.split("/")) {
+            if (node != null && !child.isEmpty()) {
+                node = node.getChild(child);
+            }
+        }
+        if (node == null) {
+            return null;
+        }
+        Object value = node.getValue();
+        return value instanceof ListStatistic ? (ListStatistic) value : null;
+    }
+}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.gjc.monitoring;
 
@@ -64,11 +64,36 @@ public interface JdbcRAConstants {
      */
     public static final String STATEMENT_CACHE_MISS = "statementCacheMissEvent";
 
+    /**
+     * Represents the statement cache eviction monitoring event.
+     */
+    public static final String STATEMENT_CACHE_EVICTION = "statementCacheEvictionEvent";
+
+    /**
+     * Represents the pool wide shared statement cache hit monitoring event.
+     */
+    public static final String SHARED_STATEMENT_CACHE_HIT = "sharedStatementCacheHitEvent";
+
+    /**
+     * Represents the pool wide shared statement cache miss monitoring event.
+     */
+    public static final String SHARED_STATEMENT_CACHE_MISS = "sharedStatementCacheMissEvent";
+
+    /**
+     * Represents the pool wide shared statement cache eviction monitoring event.
+     */
+    public static final String SHARED_STATEMENT_CACHE_EVICTION = "sharedStatementCacheEvictionEvent";
+
     /**
      * Represents caching of sql query event.
      */
     public static final String TRACE_SQL = "traceSQLEvent";
 
+    /**
+     * Represents caching of a batch of executions of a normalized sql query event.
+     */
+    public static final String TRACE_SQL_BATCH = "traceSQLBatchEvent";
+
     public static final String POTENTIAL_STATEMENT_LEAK = "potentialStatementLeakEvent";
     
     /**
@@ -38,14 +38,17 @@
  * holder.
  */
 
-// Portions Copyright [2016-2018] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.gjc.monitoring;
 
 import com.sun.gjc.util.SQLTrace;
+import com.sun.gjc.util.SQLTraceAggregate;
 import fish.payara.jdbc.stats.FrequentSQLTraceCache;
 import fish.payara.jdbc.stats.SlowSqlTrace;
 import fish.payara.jdbc.stats.SlowSqlTraceCache;
+import fish.payara.jdbc.stats.SqlFingerprint;
+import fish.payara.jdbc.stats.SqlFingerprintCache;
 import java.util.List;
 import org.glassfish.external.probe.provider.annotations.ProbeListener;
 import org.glassfish.external.probe.provider.annotations.ProbeParam;
@@ -84,6 +87,22 @@ public class JdbcStatsProvider {
             "NumStatementCacheMiss", StatisticImpl.UNIT_COUNT,
             "The total number of Statement Cache misses.");
 
+    private CountStatisticImpl numStatementCacheEviction = new CountStatisticImpl(
+            "NumStatementCacheEviction", StatisticImpl.UNIT_COUNT,
+            "The total number of statements evicted from full Statement Caches.");
+
+    private CountStatisticImpl numSharedStatementCacheHit = new CountStatisticImpl(
+            "NumSharedStatementCacheHit", StatisticImpl.UNIT_COUNT,
+            "The total number of pool wide Shared Statement Cache hits.");
+
+    private CountStatisticImpl numSharedStatementCacheMiss = new CountStatisticImpl(
+            "NumSharedStatementCacheMiss", StatisticImpl.UNIT_COUNT,
+            "The total number of pool wide Shared Statement Cache misses.");
+
+    private CountStatisticImpl numSharedStatementCacheEviction = new CountStatisticImpl(
+            "NumSharedStatementCacheEviction", StatisticImpl.UNIT_COUNT,
+            "The total number of statements evicted from the pool wide Shared Statement Cache.");
+
     private CountStatisticImpl numPotentialStatementLeak = new CountStatisticImpl(
             "NumPotentialStatementLeak", StatisticImpl.UNIT_COUNT,
             "The total number of potential Statement leaks");
@@ -91,6 +110,7 @@ public class JdbcStatsProvider {
     private PoolInfo poolInfo;
     private FrequentSQLTraceCache freqSqlTraceCache;
     private SlowSqlTraceCache slowSqlTraceCache;
+    private SqlFingerprintCache sqlFingerprintCache;
 
     public JdbcStatsProvider(String poolName, String appName, String moduleName, int sqlTraceCacheSize,
             long timeToKeepQueries) {
@@ -98,6 +118,7 @@ public class JdbcStatsProvider {
         if(sqlTraceCacheSize > 0) {
             this.freqSqlTraceCache = new FrequentSQLTraceCache(poolName, sqlTraceCacheSize, timeToKeepQueries);
             this.slowSqlTraceCache = new SlowSqlTraceCache(poolName, sqlTraceCacheSize, timeToKeepQueries);
+            this.sqlFingerprintCache = new SqlFingerprintCache(poolName, sqlTraceCacheSize, timeToKeepQueries, 10000);
         }
     }
     
@@ -107,6 +128,7 @@ public class JdbcStatsProvider {
         if(sqlTraceCacheSize > 0) {
             this.freqSqlTraceCache = new FrequentSQLTraceCache(poolName, sqlTraceCacheSize, timeToKeepQueries, maxStoredEntries);
             this.slowSqlTraceCache = new SlowSqlTraceCache(poolName, sqlTraceCacheSize, timeToKeepQueries);
+            this.sqlFingerprintCache = new SqlFingerprintCache(poolName, sqlTraceCacheSize, timeToKeepQueries, maxStoredEntries);
         }
     }
 
@@ -142,6 +164,72 @@ public class JdbcStatsProvider {
         }
     }
 
+    /**
+     * Whenever a statement is evicted from a full statement cache, increment
+     * numStatementCacheEviction count.
+     * @param poolName JdbcConnectionPool that has got a statement cache eviction event.
+     */
+    @ProbeListener(JdbcRAConstants.STATEMENT_CACHE_DOTTED_NAME + JdbcRAConstants.STATEMENT_CACHE_EVICTION)
+    public void statementCacheEvictionEvent(@ProbeParam("poolName") String poolName,
+                                            @ProbeParam("appName") String appName,
+                                            @ProbeParam("moduleName") String moduleName
+                                            ) {
+
+        PoolInfo poolInfo = new PoolInfo(poolName, appName, moduleName);
+        if(this.poolInfo.equals(poolInfo)){
+            numStatementCacheEviction.increment();
+        }
+    }
+
+    /**
+     * Whenever the shared statement cache is hit, increment numSharedStatementCacheHit count.
+     * @param poolName JdbcConnectionPool that has got a shared statement cache hit event.
+     */
+    @ProbeListener(JdbcRAConstants.STATEMENT_CACHE_DOTTED_NAME + JdbcRAConstants.SHARED_STATEMENT_CACHE_HIT)
+    public void sharedStatementCacheHitEvent(@ProbeParam("poolName") String poolName,
+                                             @ProbeParam("appName") String appName,
+                                             @ProbeParam("moduleName") String moduleName
+                                             ) {
+
+        PoolInfo poolInfo = new PoolInfo(poolName, appName, moduleName);
+        if(this.poolInfo.equals(poolInfo)){
+            numSharedStatementCacheHit.increment();
+        }
+    }
+
+    /**
+     * Whenever a shared statement cache miss happens, increment numSharedStatementCacheMiss count.
+     * @param poolName JdbcConnectionPool that has got a shared statement cache miss event.
+     */
+    @ProbeListener(JdbcRAConstants.STATEMENT_CACHE_DOTTED_NAME + JdbcRAConstants.SHARED_STATEMENT_CACHE_MISS)
+    public void sharedStatementCacheMissEvent(@ProbeParam("poolName") String poolName,
+                                              @ProbeParam("appName") String appName,
+                                              @ProbeParam("moduleName") String moduleName
+                                              ) {
+
+        PoolInfo poolInfo = new PoolInfo(poolName, appName, moduleName);
+        if(this.poolInfo.equals(poolInfo)){
+            numSharedStatementCacheMiss.increment();
+        }
+    }
+
+    /**
+     * Whenever a statement is evicted from the shared statement cache, increment
+     * numSharedStatementCacheEviction count.
+     * @param poolName JdbcConnectionPool that has got a shared statement cache eviction event.
+     */
+    @ProbeListener(JdbcRAConstants.STATEMENT_CACHE_DOTTED_NAME + JdbcRAConstants.SHARED_STATEMENT_CACHE_EVICTION)
+    public void sharedStatementCacheEvictionEvent(@ProbeParam("poolName") String poolName,
+                                                  @ProbeParam("appName") String appName,
+                                                  @ProbeParam("moduleName") String moduleName
+                                                  ) {
+
+        PoolInfo poolInfo = new PoolInfo(poolName, appName, moduleName);
+        if(this.poolInfo.equals(poolInfo)){
+            numSharedStatementCacheEviction.increment();
+        }
+    }
+
     /**
      * Whenever a sql statement that is traced is to be cache for monitoring
      * purpose, the SQLTrace object is created for the specified sql and
@@ -177,6 +265,51 @@ public class JdbcStatsProvider {
                 SQLTrace cacheObj = new SlowSqlTrace(sql, 1, System.currentTimeMillis(), executionTime);
                 slowSqlTraceCache.checkAndUpdateCache(cacheObj);
             }
+
+            if (sqlFingerprintCache != null && sql != null) {
+                sqlFingerprintCache.checkAndUpdateCache(new SqlFingerprint(SQLTraceAggregate.normalize(sql), 1,
+                        System.currentTimeMillis(), executionTime, executionTime));
+            }
+        }
+    }
+
+    /**
+     * Whenever the asynchronous sql trace pipeline has aggregated a batch of
+     * executions of a normalized sql query, the frequently used and slowest
+     * sql queries are updated in bulk.
+     *
+     * @param poolName
+     * @param appName
+     * @param moduleName
+     * @param sql
+     * @param numExecutions
+     * @param totalExecutionTime
+     * @param maxExecutionTime
+     */
+    @ProbeListener(JdbcRAConstants.SQL_TRACING_DOTTED_NAME + JdbcRAConstants.TRACE_SQL_BATCH)
+    public void traceSQLBatchEvent(
+                                   @ProbeParam("poolName") String poolName,
+                                   @ProbeParam("appName") String appName,
+                                   @ProbeParam("moduleName") String moduleName,
+                                   @ProbeParam("sql") String sql,
+                                   @ProbeParam("numExecutions") int numExecutions,
+                                   @ProbeParam("totalExecutionTime") long totalExecutionTime,
+                                   @ProbeParam("maxExecutionTime") long maxExecutionTime) {
+
+        PoolInfo poolInfo = new PoolInfo(poolName, appName, moduleName);
+        if (this.poolInfo.equals(poolInfo) && sql != null) {
+            long now = System.currentTimeMillis();
+            if (freqSqlTraceCache != null) {
+                freqSqlTraceCache.checkAndUpdateCache(new SQLTrace(sql, numExecutions, now));
+            }
+            if (slowSqlTraceCache != null) {
+                slowSqlTraceCache.checkAndUpdateCache(new SlowSqlTrace(sql, numExecutions, now, maxExecutionTime));
+            }
+            if (sqlFingerprintCache != null) {
+                // the sql of a batch is already normalized
+                sqlFingerprintCache.checkAndUpdateCache(new SqlFingerprint(sql, numExecutions, now,
+                        totalExecutionTime, maxExecutionTime));
+            }
         }
     }
 
@@ -207,6 +340,26 @@ public class JdbcStatsProvider {
         return numStatementCacheMiss;
     }
 
+    @ManagedAttribute(id="numstatementcacheeviction")
+    public CountStatistic getNumStatementCacheEviction() {
+        return numStatementCacheEviction;
+    }
+
+    @ManagedAttribute(id="numsharedstatementcachehit")
+    public CountStatistic getNumSharedStatementCacheHit() {
+        return numSharedStatementCacheHit;
+    }
+
+    @ManagedAttribute(id="numsharedstatementcachemiss")
+    public CountStatistic getNumSharedStatementCacheMiss() {
+        return numSharedStatementCacheMiss;
+    }
+
+    @ManagedAttribute(id="numsharedstatementcacheeviction")
+    public CountStatistic getNumSharedStatementCacheEviction() {
+        return numSharedStatementCacheEviction;
+    }
+
     @ManagedAttribute(id="frequsedsqlqueries")
     public ListStatistic getfreqUsedSqlQueries() {
         if (freqSqlTraceCache != null) {
@@ -242,6 +395,51 @@ public class JdbcStatsProvider {
         return slowSqlQueries;
     }
 
+    @ManagedAttribute(id = "topsqlbytotaltime")
+    public ListStatistic getTopSqlByTotalTime() {
+        List<SqlFingerprint> fingerprints = sqlFingerprintCache == null ? null : sqlFingerprintCache.getTopByTotalTime();
+        return toListStatistic("TopSqlByTotalTime", "SQL fingerprints with the most total execution time",
+                fingerprints, StatisticImpl.UNIT_MILLISECOND, FingerprintValue.TOTAL_TIME);
+    }
+
+    @ManagedAttribute(id = "topsqlbycount")
+    public ListStatistic getTopSqlByCount() {
+        List<SqlFingerprint> fingerprints = sqlFingerprintCache == null ? null : sqlFingerprintCache.getTopByCount();
+        return toListStatistic("TopSqlByCount", "Most frequently executed SQL fingerprints",
+                fingerprints, StatisticImpl.UNIT_COUNT, FingerprintValue.COUNT);
+    }
+
+    @ManagedAttribute(id = "topsqlbymaxtime")
+    public ListStatistic getTopSqlByMaxTime() {
+        List<SqlFingerprint> fingerprints = sqlFingerprintCache == null ? null : sqlFingerprintCache.getTopByMaxTime();
+        return toListStatistic("TopSqlByMaxTime", "SQL fingerprints with the slowest execution time",
+                fingerprints, StatisticImpl.UNIT_MILLISECOND, FingerprintValue.MAX_TIME);
+    }
+
+    private enum FingerprintValue { TOTAL_TIME, COUNT, MAX_TIME }
+
+    private static ListStatistic toListStatistic(String name, String description,
+            List<SqlFingerprint> fingerprints, String unit, FingerprintValue value) {
+        ListStatisticImpl statistic = new ListStatisticImpl(name, "List", description);
+        if (fingerprints != null) {
+            for (SqlFingerprint fingerprint : fingerprints) {
+                CountStatisticImpl stat = new CountStatisticImpl(fingerprint.getQueryName(), unit, fingerprint.getSummary());
+                switch (value) {
+                    case TOTAL_TIME:
+                        stat.setCount(fingerprint.getTotalExecutionTime());
+                        break;
+                    case MAX_TIME:
+                        stat.setCount(fingerprint.getMaxExecutionTime());
+                        break;
+                    default:
+                        stat.setCount(fingerprint.getNumExecutions());
+                }
+                statistic.add(stat);
+            }
+        }
+        return statistic;
+    }
+
     @ManagedAttribute(id="numpotentialstatementleak")
     public CountStatistic getNumPotentialStatementLeak() {
         return numPotentialStatementLeak;
@@ -255,6 +453,14 @@ public class JdbcStatsProvider {
         return freqSqlTraceCache;
     }
     
+    /**
+     * Get the SqlFingerprintCache associated with this stats provider.
+     * @return SqlFingerprintCache The SqlFingerprintCache associated with this stats provider
+     */
+    public SqlFingerprintCache getSqlFingerprintCache() {
+        return sqlFingerprintCache;
+    }
+
     /**
      * Get the SlowSqlTraceCache associated with this stats provider.
      * @return SlowSqlTraceCache The SlowSqlTraceCache associated with this stats provider
@@ -38,7 +38,7 @@
  * holder.
  */
 
-// Portions Copyright [2016] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.gjc.monitoring;
 
@@ -73,4 +73,28 @@ public class SQLTraceProbeProvider {
             @ProbeParam("executionTime") long executionTime) {
 
     }
+
+    /**
+     * Emits probe event/notification that the given connection pool
+     * <code>poolName</code>has got a batch of executions of a normalized
+     * sql query to cache, aggregated by the asynchronous sql trace pipeline
+     *
+     * @param poolName for which sql query should be cached
+     * @param appName
+     * @param moduleName
+     * @param sql normalized sql query that should be cached
+     * @param numExecutions number of executions in the batch
+     * @param totalExecutionTime total execution time of the batch
+     * @param maxExecutionTime slowest execution time of the batch
+     */
+    @Probe(name=JdbcRAConstants.TRACE_SQL_BATCH)
+    public void traceSQLBatchEvent(@ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName,
+            @ProbeParam("sql") String sql,
+            @ProbeParam("numExecutions") int numExecutions,
+            @ProbeParam("totalExecutionTime") long totalExecutionTime,
+            @ProbeParam("maxExecutionTime") long maxExecutionTime) {
+
+    }
 }
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.gjc.monitoring;
 
@@ -83,4 +84,60 @@ public class StatementCacheProbeProvider {
 
     }
 
+    /**
+     * Emits probe event/notification that the given connection pool
+     * <code>poolName</code>has evicted a statement from a full statement cache
+     *
+     * @param poolName for which statement cache eviction occurred
+     */
+    @Probe(name=JdbcRAConstants.STATEMENT_CACHE_EVICTION)
+    public void statementCacheEvictionEvent(@ProbeParam("poolName") String poolName,
+                                            @ProbeParam("appName") String appName,
+                                            @ProbeParam("moduleName") String moduleName
+                                            ) {
+
+    }
+
+    /**
+     * Emits probe event/notification that the given connection pool
+     * <code>poolName</code>has got a shared statement cache hit event
+     *
+     * @param poolName for which shared statement cache hit occurred
+     */
+    @Probe(name=JdbcRAConstants.SHARED_STATEMENT_CACHE_HIT)
+    public void sharedStatementCacheHitEvent(@ProbeParam("poolName") String poolName,
+                                             @ProbeParam("appName") String appName,
+                                             @ProbeParam("moduleName") String moduleName
+                                             ) {
+
+    }
+
+    /**
+     * Emits probe event/notification that the given connection pool
+     * <code>poolName</code>has got a shared statement cache miss event
+     *
+     * @param poolName for which shared statement cache miss occurred
+     */
+    @Probe(name=JdbcRAConstants.SHARED_STATEMENT_CACHE_MISS)
+    public void sharedStatementCacheMissEvent(@ProbeParam("poolName") String poolName,
+                                              @ProbeParam("appName") String appName,
+                                              @ProbeParam("moduleName") String moduleName
+                                              ) {
+
+    }
+
+    /**
+     * Emits probe event/notification that the given connection pool
+     * <code>poolName</code>has evicted a statement from its shared statement cache
+     *
+     * @param poolName for which shared statement cache eviction occurred
+     */
+    @Probe(name=JdbcRAConstants.SHARED_STATEMENT_CACHE_EVICTION)
+    public void sharedStatementCacheEvictionEvent(@ProbeParam("poolName") String poolName,
+                                                  @ProbeParam("appName") String appName,
+                                                  @ProbeParam("moduleName") String moduleName
+                                                  ) {
+
+    }
+
 }
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2017-2020] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2017-2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.gjc.spi;
 
@@ -46,6 +46,8 @@ import com.sun.enterprise.util.i18n.StringManager;
 import com.sun.gjc.common.DataSourceObjectBuilder;
 import com.sun.gjc.common.DataSourceSpec;
 import com.sun.gjc.monitoring.JdbcStatsProvider;
+import com.sun.gjc.spi.base.datastructure.SharedStatementCache;
+import com.sun.gjc.util.AsyncSQLTraceProcessor;
 import com.sun.gjc.util.SQLTraceDelegator;
 import com.sun.gjc.util.SQLTraceLogger;
 import com.sun.gjc.util.SecurityUtils;
@@ -107,6 +109,9 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
     protected boolean isLazyCm_;
     private int statementCacheSize = 0;
     private String statementCacheType = null;
+    private int sharedStatementCacheSize = 0;
+    private int sqlTraceBufferSize = AsyncSQLTraceProcessor.DEFAULT_BUFFER_SIZE;
+    private volatile SharedStatementCache sharedStatementCache;
     private long statementLeakTimeout = 0;
     private boolean statementLeakReclaim = false;
 
@@ -576,7 +581,7 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
         
         if(sqlTraceListeners != null && !sqlTraceListeners.equals("null")) {
             if (sqlTraceDelegator == null) {
-                sqlTraceDelegator = new SQLTraceDelegator(getPoolName(), getApplicationName(), getModuleName());
+                sqlTraceDelegator = new SQLTraceDelegator(getPoolName(), getApplicationName(), getModuleName(), sqlTraceBufferSize);
             }
             StringTokenizer st = new StringTokenizer(sqlTraceListeners, delimiter);
             while (st.hasMoreTokens()) {
@@ -680,6 +685,7 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
                     msg, e);
             throw rae;
         }
+        mc.warmUpStatementCache();
     }
 
     private void detectStatementCachingSupport() {
@@ -1053,6 +1059,51 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
         return spec.getDetail(DataSourceSpec.STATEMENTCACHESIZE);
     }
 
+    public void setSharedStatementCacheSize(String value) {
+        spec.setDetail(DataSourceSpec.SHAREDSTATEMENTCACHESIZE, value);
+        if (value != null) {
+            try {
+                sharedStatementCacheSize = Integer.parseInt(value);
+                if (_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE, "Shared StatementCaching Size : " + sharedStatementCacheSize);
+                }
+            } catch (NumberFormatException nfe) {
+                if (_logger.isLoggable(Level.FINE)) {
+                    _logger.fine("Exception while setting SharedStatementCacheSize : " + nfe.getMessage());
+                }
+                //ignore
+            }
+        }
+    }
+
+    public String getSharedStatementCacheSize() {
+        return spec.getDetail(DataSourceSpec.SHAREDSTATEMENTCACHESIZE);
+    }
+
+    /**
+     * Returns the pool wide statement cache layer shared by the connections
+     * created by this factory.
+     *
+     * @return SharedStatementCache, or null when statement caching or the
+     * shared statement cache is not enabled
+     */
+    public SharedStatementCache getSharedStatementCache() {
+        if (statementCacheSize <= 0 || sharedStatementCacheSize <= 0) {
+            return null;
+        }
+        SharedStatementCache cache = sharedStatementCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = sharedStatementCache;
+                if (cache == null) {
+                    cache = new SharedStatementCache(getPoolInfo(), sharedStatementCacheSize);
+                    sharedStatementCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
     public void setStatementLeakTimeoutInSeconds(String value){
         spec.setDetail(DataSourceSpec.STATEMENTLEAKTIMEOUTINSECONDS, value);
         detectStatementLeakSupport();
@@ -1202,7 +1253,7 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
         double threshold = Double.parseDouble(seconds);
         if (threshold > 0) {
             if (sqlTraceDelegator == null) {
-                sqlTraceDelegator = new SQLTraceDelegator(getPoolName(), getApplicationName(), getModuleName());
+                sqlTraceDelegator = new SQLTraceDelegator(getPoolName(), getApplicationName(), getModuleName(), sqlTraceBufferSize);
             }
         }
     }
@@ -1215,12 +1266,39 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
         spec.setDetail(DataSourceSpec.LOGJDBCCALLS, enabled);
         if (Boolean.valueOf(enabled)) {
             if (sqlTraceDelegator == null) {
-                sqlTraceDelegator = new SQLTraceDelegator(getPoolName(), getApplicationName(), getModuleName());
+                sqlTraceDelegator = new SQLTraceDelegator(getPoolName(), getApplicationName(), getModuleName(), sqlTraceBufferSize);
             }
             sqlTraceDelegator.registerSQLTraceListener(new SQLTraceLogger());
         }
     }
     
+    /**
+     * Sets the number of sql trace records the asynchronous sql trace pipeline
+     * can buffer, 0 to process the sql trace records on the calling thread.
+     *
+     * @param value buffer size
+     */
+    public void setSqlTraceBufferSize(String value) {
+        spec.setDetail(DataSourceSpec.SQLTRACEBUFFERSIZE, value);
+        if (value != null) {
+            try {
+                sqlTraceBufferSize = Integer.parseInt(value);
+            } catch (NumberFormatException nfe) {
+                if (_logger.isLoggable(Level.FINE)) {
+                    _logger.fine("Exception while setting SqlTraceBufferSize : " + nfe.getMessage());
+                }
+                //ignore
+            }
+            if (sqlTraceDelegator != null) {
+                sqlTraceDelegator.setTraceBufferSize(sqlTraceBufferSize);
+            }
+        }
+    }
+
+    public String getSqlTraceBufferSize() {
+        return spec.getDetail(DataSourceSpec.SQLTRACEBUFFERSIZE);
+    }
+
     public String getLogJdbcCalls() {
          return spec.getDetail(DataSourceSpec.LOGJDBCCALLS);       
     }
@@ -1521,6 +1599,15 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
                 Timer timer = ((com.sun.gjc.spi.ResourceAdapterImpl) ra).getTimer();
                 jdbcStatsProvider.getSlowSqlTraceCache().scheduleTimerTask(timer);
             }
+
+            if (jdbcStatsProvider.getSqlFingerprintCache() != null) {
+                if (_logger.isLoggable(Level.FINEST)) {
+                    _logger.finest("Scheduling timer task for sql fingerprint caching");
+                }
+
+                Timer timer = ((com.sun.gjc.spi.ResourceAdapterImpl) ra).getTimer();
+                jdbcStatsProvider.getSqlFingerprintCache().scheduleTimerTask(timer);
+            }
             
             if(_logger.isLoggable(Level.FINEST)) {
                 _logger.finest("Registered JDBCRA Stats Provider");
@@ -1533,6 +1620,13 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
         if(_logger.isLoggable(Level.FINEST)) {
             _logger.finest("MCF Destroyed");
         }
+        if (sharedStatementCache != null) {
+            sharedStatementCache.clearCache();
+            sharedStatementCache = null;
+        }
+        if (sqlTraceDelegator != null) {
+            sqlTraceDelegator.close();
+        }
         if(jdbcStatsProvider != null) {
             if(jdbcStatsProvider.getFreqSqlTraceCache() != null) {
                 if(_logger.isLoggable(Level.FINEST)) {
@@ -1547,6 +1641,13 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
                 }
                 jdbcStatsProvider.getSlowSqlTraceCache().cancelTimerTask();
             }
+
+            if (jdbcStatsProvider.getSqlFingerprintCache() != null) {
+                if (_logger.isLoggable(Level.FINEST)) {
+                    _logger.finest("Canceling timer task for sql fingerprint caching");
+                }
+                jdbcStatsProvider.getSqlFingerprintCache().cancelTimerTask();
+            }
             
             StatsProviderManager.unregister(jdbcStatsProvider);
             jdbcStatsProvider = null;
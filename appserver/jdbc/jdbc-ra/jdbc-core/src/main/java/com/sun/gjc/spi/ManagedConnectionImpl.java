@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2018] [Payara Foundation and/or its affiliates.]
+// Portions Copyright [2016-2022] [Payara Foundation and/or its affiliates.]
 
 package com.sun.gjc.spi;
 
@@ -51,6 +51,7 @@ import com.sun.gjc.common.DataSourceObjectBuilder;
 import com.sun.gjc.spi.base.*;
 import com.sun.gjc.spi.base.datastructure.Cache;
 import com.sun.gjc.spi.base.datastructure.CacheFactory;
+import com.sun.gjc.spi.base.datastructure.SharedStatementCache;
 import com.sun.gjc.util.SQLTraceDelegator;
 import com.sun.gjc.util.StatementLeakDetector;
 import com.sun.logging.LogDomains;
@@ -68,6 +69,7 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -143,6 +145,12 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
     private int cacheSize;
     private String cacheType;
     private boolean statementCaching;
+    private SharedStatementCache sharedStatementCache;
+    /**
+     * Upper bound of the statements prepared when warming up the statement
+     * cache of a new connection.
+     */
+    private static final int MAX_STATEMENT_CACHE_WARM_UP = 32;
     private long stmtLeakTimeout;
     private boolean stmtLeakReclaim;
     private boolean statementLeakTracing;
@@ -284,6 +292,9 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
             try {
                 statementCache = CacheFactory.getDataStructure(poolInfo, cacheType, cacheSize);
                 statementCaching = true;
+                if (mcf instanceof ManagedConnectionFactoryImpl) {
+                    sharedStatementCache = ((ManagedConnectionFactoryImpl) mcf).getSharedStatementCache();
+                }
             } catch (ResourceException ex) {
                 _logger.severe(ex.getMessage());
             }
@@ -512,8 +523,9 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
         if (sqlTraceDelegator == null) {
             if ((requestTracing != null && requestTracing.isRequestTracingEnabled())
                     || (isSlowQueryLoggingEnabled())) {
+                // only carries listeners bound to the calling thread, so no asynchronous pipeline
                 sqlTraceDelegator = new SQLTraceDelegator(spiMCF.getPoolName(),
-                        spiMCF.getApplicationName(), spiMCF.getModuleName());
+                        spiMCF.getApplicationName(), spiMCF.getModuleName(), 0);
             }
         }
 
@@ -1043,6 +1055,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
         if (statementCaching) {
             CacheObjectKey key = new CacheObjectKey(sql, 
                     CacheObjectKey.PREPARED_STATEMENT, resultSetType, resultSetConcurrency);
+            key = useSharedStatementCache(key);
             //TODO-SC should a null check be done for statementCache?
             //TODO-SC refactor this method.
             PreparedStatementWrapper ps = 
@@ -1088,6 +1101,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
             CacheObjectKey key = new CacheObjectKey(sql, 
                     CacheObjectKey.PREPARED_STATEMENT, resultSetType, 
                     resultSetConcurrency, resultSetHoldability);
+            key = useSharedStatementCache(key);
             //TODO-SC should a null check be done for statementCache?
             PreparedStatementWrapper ps = 
                     (PreparedStatementWrapper) 
@@ -1131,6 +1145,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
         if (statementCaching) {
             CacheObjectKey key = new CacheObjectKey(sql, 
                     CacheObjectKey.PREPARED_STATEMENT, columnNames);
+            key = useSharedStatementCache(key);
             //TODO-SC should a null check be done for statementCache?
             PreparedStatementWrapper ps = 
                     (PreparedStatementWrapper) 
@@ -1171,6 +1186,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
         if (statementCaching) {
             CacheObjectKey key = new CacheObjectKey(sql, 
                     CacheObjectKey.PREPARED_STATEMENT, columnIndexes);
+            key = useSharedStatementCache(key);
             //TODO-SC should a null check be done for statementCache?
             PreparedStatementWrapper ps = 
                     (PreparedStatementWrapper) 
@@ -1211,6 +1227,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
         if (statementCaching) {
             CacheObjectKey key = new CacheObjectKey(sql, 
                     CacheObjectKey.PREPARED_STATEMENT, autoGeneratedKeys);
+            key = useSharedStatementCache(key);
             //TODO-SC should a null check be done for statementCache?
             PreparedStatementWrapper ps = 
                     (PreparedStatementWrapper) 
@@ -1252,6 +1269,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
             //Adding the sql as well as the Statement type "CS" to the CacheObjectKey object
             CacheObjectKey key = new CacheObjectKey(sql, 
                     CacheObjectKey.CALLABLE_STATEMENT, resultSetType, resultSetConcurrency);
+            key = useSharedStatementCache(key);
             CallableStatementWrapper cs = 
                     (CallableStatementWrapper) 
                     statementCache.checkAndUpdateCache(key);
@@ -1297,6 +1315,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
             CacheObjectKey key = new CacheObjectKey(sql, 
                     CacheObjectKey.CALLABLE_STATEMENT, resultSetType, 
                     resultSetConcurrency, resultSetHoldability);
+            key = useSharedStatementCache(key);
             CallableStatementWrapper cs = 
                     (CallableStatementWrapper) 
                     statementCache.checkAndUpdateCache(key);
@@ -1335,6 +1354,94 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
                     resultSetConcurrency, resultSetHoldability, false);
     }
     
+    /**
+     * Records the use of the statement in the pool wide shared statement cache.
+     *
+     * @param key key of the statement being prepared
+     * @return canonical key of the statement to be used for the statement cache
+     */
+    private CacheObjectKey useSharedStatementCache(CacheObjectKey key) {
+        if (sharedStatementCache == null) {
+            return key;
+        }
+        return sharedStatementCache.recordUse(key);
+    }
+
+    /**
+     * Warms up the statement cache of this newly created connection with the
+     * hottest statements of the pool, so that they are not prepared within
+     * the first application requests using the connection.
+     * <p>
+     * Called by the managed connection factory once the connection has been
+     * validated, the number of statements prepared is bounded by
+     * {@link #MAX_STATEMENT_CACHE_WARM_UP}.
+     */
+    void warmUpStatementCache() {
+        if (sharedStatementCache == null || statementCache.getSize() > 0) {
+            return;
+        }
+        List<CacheObjectKey> keys = sharedStatementCache.getHottestKeys(
+                Math.min(cacheSize, MAX_STATEMENT_CACHE_WARM_UP));
+        if (keys.isEmpty()) {
+            return;
+        }
+        ConnectionWrapper conWrapper;
+        try {
+            ManagedConnectionFactoryImpl spiMCF = (ManagedConnectionFactoryImpl) mcf;
+            ConnectionHolder holder = spiMCF.getJdbcObjectsFactory().getConnection(
+                    getActualConnection(), this, null, true, null);
+            if (!(holder instanceof ConnectionWrapper)) {
+                return;
+            }
+            conWrapper = (ConnectionWrapper) holder;
+        } catch (ResourceException re) {
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE, "Unable to warm up statement cache", re);
+            }
+            return;
+        }
+        for (CacheObjectKey key : keys) {
+            try {
+                PreparedStatementWrapper ps = prepareWarmUpStatement(conWrapper, key);
+                statementCache.addToCache(key, ps, false);
+            } catch (SQLException sqle) {
+                //Warm up is best effort, the statement will be prepared on demand
+                if (_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE, "Unable to warm up statement cache with : " + key.getSql(), sqle);
+                }
+                sharedStatementCache.remove(key);
+            }
+        }
+    }
+
+    private PreparedStatementWrapper prepareWarmUpStatement(ConnectionWrapper conWrapper,
+            CacheObjectKey key) throws SQLException {
+        String sql = key.getSql();
+        if (CacheObjectKey.CALLABLE_STATEMENT.equals(key.getStatementType())) {
+            if (key.getResultSetHoldability() != 0) {
+                return conWrapper.callableCachedStatement(sql, key.getResultSetType(),
+                        key.getResultSetConcurrency(), key.getResultSetHoldability(), true);
+            }
+            return conWrapper.callableCachedStatement(sql, key.getResultSetType(),
+                    key.getResultSetConcurrency(), true);
+        }
+        if (key.getColumnNames() != null) {
+            return conWrapper.prepareCachedStatement(sql, key.getColumnNames(), true);
+        }
+        if (key.getColumnIndexes() != null) {
+            return conWrapper.prepareCachedStatement(sql, key.getColumnIndexes(), true);
+        }
+        if (key.getAutoGeneratedKeys() != 0) {
+            return conWrapper.prepareCachedStatement(sql, key.getAutoGeneratedKeys(), true);
+        }
+        if (key.getResultSetHoldability() != 0) {
+            return conWrapper.prepareCachedStatement(sql, key.getResultSetType(),
+                    key.getResultSetConcurrency(), key.getResultSetHoldability(), true);
+        }
+        return conWrapper.prepareCachedStatement(sql, key.getResultSetType(),
+                key.getResultSetConcurrency(), true);
+    }
+
     boolean isFree(PreparedStatementWrapper cachedps) {
         return !cachedps.isBusy();
     }
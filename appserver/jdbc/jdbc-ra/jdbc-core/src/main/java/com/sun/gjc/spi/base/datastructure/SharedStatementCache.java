@@ -0,0 +1,222 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.gjc.spi.base.datastructure;
+
+import com.sun.gjc.monitoring.StatementCacheProbeProvider;
+import com.sun.gjc.spi.base.CacheObjectKey;
+import com.sun.logging.LogDomains;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool wide statement cache layer shared by all the physical connections of
+ * a connection pool.
+ * <p>
+ * Physical statements belong to the connection that prepared them and cannot
+ * be handed to another connection, so this cache keeps the statement metadata
+ * instead: one canonical {@link CacheObjectKey} per distinct statement
+ * (sql text, statement type and result set type/concurrency) together with
+ * its pool wide usage count. The per connection caches store the canonical
+ * key rather than their own copy, and a newly created connection uses the
+ * hottest keys to prepare its statements up front, so that the warm-up of the
+ * statement cache survives connections being recycled.
+ * <p>
+ * The number of keys is bounded by the configured size, least recently used
+ * keys being evicted first. Recording a use does not lock the cache, as it
+ * happens on every statement prepared by any connection of the pool.
+ */
+public class SharedStatementCache {
+
+    protected static final Logger _logger = LogDomains.getLogger(SharedStatementCache.class, LogDomains.RSR_LOGGER);
+
+    private final ConcurrentHashMap<CacheObjectKey, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final PoolInfo poolInfo;
+    private StatementCacheProbeProvider probeProvider;
+
+    public SharedStatementCache(PoolInfo poolInfo, int maxSize) {
+        this.poolInfo = poolInfo;
+        this.maxSize = maxSize;
+        try {
+            probeProvider = new StatementCacheProbeProvider();
+        } catch (Exception ex) {
+            _logger.log(Level.FINE, "Unable to create statement cache probe provider", ex);
+        }
+    }
+
+    /**
+     * Records one use of the statement identified by the given key.
+     *
+     * @param key key of the statement being prepared
+     * @return the canonical key instance for the statement, which is the
+     * given key itself when the statement was not known to the pool yet
+     */
+    public CacheObjectKey recordUse(CacheObjectKey key) {
+        Entry entry = entries.get(key);
+        boolean hit = entry != null;
+        if (!hit) {
+            Entry created = new Entry(key);
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null) {
+                entry = created;
+                evictIfFull();
+            } else {
+                // another connection recorded the statement first
+                hit = true;
+            }
+        }
+        entry.uses.increment();
+        entry.lastUsed = System.nanoTime();
+        if (probeProvider != null) {
+            if (hit) {
+                probeProvider.sharedStatementCacheHitEvent(poolInfo.getName(),
+                        poolInfo.getApplicationName(), poolInfo.getModuleName());
+            } else {
+                probeProvider.sharedStatementCacheMissEvent(poolInfo.getName(),
+                        poolInfo.getApplicationName(), poolInfo.getModuleName());
+            }
+        }
+        return entry.key;
+    }
+
+    /**
+     * Evicts the least recently used keys while the cache holds more keys than
+     * its maximum size. Only called when a new key was added, so the scan does
+     * not happen for the statements already known to the pool.
+     */
+    private void evictIfFull() {
+        while (entries.size() > maxSize) {
+            Entry eldest = null;
+            for (Entry entry : entries.values()) {
+                if (eldest == null || entry.lastUsed - eldest.lastUsed < 0) {
+                    eldest = entry;
+                }
+            }
+            if (eldest == null || !entries.remove(eldest.key, eldest)) {
+                continue;
+            }
+            if (_logger.isLoggable(Level.FINEST)) {
+                _logger.finest("Shared statement cache eviction : " + eldest.key.getSql());
+            }
+            if (probeProvider != null) {
+                probeProvider.sharedStatementCacheEvictionEvent(poolInfo.getName(),
+                        poolInfo.getApplicationName(), poolInfo.getModuleName());
+            }
+        }
+    }
+
+    /**
+     * Returns the most used statement keys of the pool, most used first.
+     *
+     * @param limit maximum number of keys to return
+     * @return list of canonical keys
+     */
+    public List<CacheObjectKey> getHottestKeys(int limit) {
+        List<Usage> snapshot = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            snapshot.add(new Usage(entry.key, entry.uses.sum()));
+        }
+        Collections.sort(snapshot, USES_DESCENDING);
+        List<CacheObjectKey> result = new ArrayList<>(Math.min(limit, snapshot.size()));
+        Iterator<Usage> iterator = snapshot.iterator();
+        while (iterator.hasNext() && result.size() < limit) {
+            result.add(iterator.next().key);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the given statement from the shared cache, for instance when the
+     * statement turned out to be invalid.
+     *
+     * @param key key of the statement
+     */
+    public void remove(CacheObjectKey key) {
+        entries.remove(key);
+    }
+
+    public void clearCache() {
+        entries.clear();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private static final Comparator<Usage> USES_DESCENDING = new Comparator<Usage>() {
+        @Override
+        public int compare(Usage first, Usage second) {
+            return Long.compare(second.uses, first.uses);
+        }
+    };
+
+    private static final class Entry {
+        private final CacheObjectKey key;
+        private final LongAdder uses = new LongAdder();
+        private volatile long lastUsed = System.nanoTime();
+
+        private Entry(CacheObjectKey key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Usage {
+        private final CacheObjectKey key;
+        private final long uses;
+
+        private Usage(CacheObjectKey key, long uses) {
+            this.key = key;
+            this.uses = uses;
+        }
+    }
+}
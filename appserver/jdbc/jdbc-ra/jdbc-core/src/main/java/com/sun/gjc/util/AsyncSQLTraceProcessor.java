@@ -0,0 +1,214 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.gjc.util;
+
+import com.sun.logging.LogDomains;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.api.jdbc.SQLTraceRecord;
+
+/**
+ * Asynchronous sql trace pipeline of a {@link SQLTraceDelegator}.
+ * <p>
+ * The threads executing the JDBC calls only enqueue a compact copy of the trace
+ * record, without the arguments of the call other than its sql, into a
+ * {@link SQLTraceRingBuffer}. A background consumer, shared by all the pools,
+ * periodically drains the buffer, notifies the {@link AsyncSQLTraceListener}s
+ * and aggregates the traced statements by normalized sql, so that the
+ * monitoring statistics are updated once per statement and batch rather than
+ * once per execution.
+ */
+public class AsyncSQLTraceProcessor {
+
+    public static final int DEFAULT_BUFFER_SIZE = 4096;
+    private static final long DRAIN_INTERVAL_MILLIS = 250;
+
+    private static final Logger logger = LogDomains.getLogger(SQLTraceLogger.class, LogDomains.SQL_TRACE_LOGGER);
+
+    private static ScheduledExecutorService consumer;
+    private static int consumerUsers;
+
+    private final SQLTraceDelegator delegator;
+    private final SQLTraceRingBuffer buffer;
+    private final Map<String, SQLTraceAggregate> aggregates = new HashMap<>();
+    private final DrainTask drainTask;
+
+    public AsyncSQLTraceProcessor(SQLTraceDelegator delegator, int bufferSize) {
+        this.delegator = delegator;
+        this.buffer = new SQLTraceRingBuffer(bufferSize);
+        this.drainTask = new DrainTask(this);
+        drainTask.scheduled = acquireConsumer().scheduleWithFixedDelay(drainTask,
+                DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the consumer shared by the pipelines, starting it for the first one.
+     * Each call has to be matched by a call to {@link #releaseConsumer()}.
+     */
+    private static synchronized ScheduledExecutorService acquireConsumer() {
+        if (consumer == null) {
+            consumer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "payara-sql-trace-consumer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        consumerUsers++;
+        return consumer;
+    }
+
+    /**
+     * Shuts the shared consumer down once the last pipeline using it stopped.
+     */
+    private static synchronized void releaseConsumer() {
+        if (--consumerUsers == 0) {
+            consumer.shutdown();
+            consumer = null;
+        }
+    }
+
+    static synchronized boolean isConsumerRunning() {
+        return consumer != null;
+    }
+
+    /**
+     * Enqueues a trace record for the background consumer. Never blocks, the
+     * record being dropped if the consumer cannot keep up.
+     *
+     * @param record the sql trace record
+     */
+    public void offer(SQLTraceRecord record) {
+        buffer.offer(record);
+    }
+
+    /**
+     * Drains the pending trace records and publishes the aggregated statistics.
+     */
+    synchronized void drain() {
+        int drained;
+        do {
+            drained = buffer.drain(this::process, buffer.getCapacity());
+        } while (drained == buffer.getCapacity());
+
+        if (!aggregates.isEmpty()) {
+            for (SQLTraceAggregate aggregate : aggregates.values()) {
+                delegator.publishAggregate(aggregate);
+            }
+            aggregates.clear();
+        }
+
+        long dropped = buffer.getAndResetDropped();
+        if (dropped > 0 && logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "SQL trace buffer full, {0} trace records dropped", dropped);
+        }
+    }
+
+    private void process(SQLTraceRecord record) {
+        delegator.notifyAsyncListeners(record);
+        String sql = delegator.getTracedSql(record);
+        if (sql != null) {
+            String normalizedSql = SQLTraceAggregate.normalize(sql);
+            SQLTraceAggregate aggregate = aggregates.get(normalizedSql);
+            if (aggregate == null) {
+                aggregate = new SQLTraceAggregate(normalizedSql);
+                aggregates.put(normalizedSql, aggregate);
+            }
+            aggregate.add(record.getExecutionTime());
+        }
+    }
+
+    /**
+     * Stops the background processing of this pipeline, after draining the
+     * records still pending.
+     */
+    public void close() {
+        drainTask.cancel();
+        drain();
+    }
+
+    /**
+     * Only weakly refers to the processor, so that a pipeline which has not been
+     * closed does not stay scheduled once its delegator is gone: the task then
+     * cancels its own schedule. Releases the shared consumer once cancelled.
+     */
+    private static final class DrainTask implements Runnable {
+
+        private final WeakReference<AsyncSQLTraceProcessor> processor;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        // set right after scheduling, before the first run
+        private volatile ScheduledFuture<?> scheduled;
+
+        private DrainTask(AsyncSQLTraceProcessor processor) {
+            this.processor = new WeakReference<>(processor);
+        }
+
+        @Override
+        public void run() {
+            AsyncSQLTraceProcessor current = processor.get();
+            if (current == null) {
+                cancel();
+                return;
+            }
+            try {
+                current.drain();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "SQL trace consumer failed to process trace records", e);
+            }
+        }
+
+        private void cancel() {
+            if (cancelled.compareAndSet(false, true)) {
+                ScheduledFuture<?> future = scheduled;
+                if (future != null) {
+                    future.cancel(false);
+                }
+                releaseConsumer();
+            }
+        }
+    }
+}
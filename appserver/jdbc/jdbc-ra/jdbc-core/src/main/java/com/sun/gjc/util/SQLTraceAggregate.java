@@ -0,0 +1,173 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.gjc.util;
+
+import java.util.Arrays;
+
+/**
+ * Aggregated execution statistics of one normalized sql statement, collected
+ * by the background sql trace consumer over one batch of trace records.
+ */
+public class SQLTraceAggregate {
+
+    private final String sql;
+    private int count;
+    private long totalExecutionTime;
+    private long maxExecutionTime;
+    private long[] executionTimes = new long[8];
+
+    public SQLTraceAggregate(String sql) {
+        this.sql = sql;
+    }
+
+    public void add(long executionTime) {
+        if (count == executionTimes.length) {
+            executionTimes = Arrays.copyOf(executionTimes, count * 2);
+        }
+        executionTimes[count++] = executionTime;
+        totalExecutionTime += executionTime;
+        if (executionTime > maxExecutionTime) {
+            maxExecutionTime = executionTime;
+        }
+    }
+
+    /**
+     * @return the normalized sql
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getTotalExecutionTime() {
+        return totalExecutionTime;
+    }
+
+    public long getMaxExecutionTime() {
+        return maxExecutionTime;
+    }
+
+    /**
+     * Returns the 99th percentile of the execution times of the batch.
+     *
+     * @return execution time in milliseconds
+     */
+    public long getP99ExecutionTime() {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(executionTimes, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(count * 0.99) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", total=" + totalExecutionTime + "ms, max=" + maxExecutionTime
+                + "ms, p99=" + getP99ExecutionTime() + "ms, sql=" + sql;
+    }
+
+    /**
+     * Normalizes a sql statement so that executions of the same statement with
+     * different literal values are aggregated together: string and numeric
+     * literals are replaced by <code>?</code> and whitespace is collapsed.
+     *
+     * @param sql the sql statement
+     * @return the normalized sql
+     */
+    public static String normalize(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        int length = sql.length();
+        StringBuilder normalized = new StringBuilder(length);
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+                i++;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'') {
+                // string literal, '' being an escaped quote
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                normalized.append('?');
+                i++;
+            } else if (Character.isDigit(c) && !isIdentifierPart(normalized)) {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                normalized.append('?');
+            } else {
+                normalized.append(c);
+                i++;
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isIdentifierPart(StringBuilder normalized) {
+        if (normalized.length() == 0) {
+            return false;
+        }
+        char previous = normalized.charAt(normalized.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$' || previous == '"';
+    }
+}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-//Portions Copyright [2017] [Payara Foundation and/or its affiliates]
+//Portions Copyright [2017-2022] [Payara Foundation and/or its affiliates]
 
 package com.sun.gjc.util;
 
@@ -69,16 +69,54 @@ public class SQLTraceDelegator implements SQLTraceListener {
     private static final Logger logger = LogDomains.getLogger(SQLTraceLogger.class, LogDomains.SQL_TRACE_LOGGER);
 
     private SQLTraceProbeProvider probeProvider = null;
+    private volatile AsyncSQLTraceProcessor asyncProcessor;
 
     public SQLTraceProbeProvider getProbeProvider() {
         return probeProvider;
     }
 
     public SQLTraceDelegator(String poolName, String appName, String moduleName) {
+        this(poolName, appName, moduleName, AsyncSQLTraceProcessor.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param poolName
+     * @param appName
+     * @param moduleName
+     * @param traceBufferSize size of the buffer of the asynchronous sql trace
+     * pipeline, 0 to process the trace records synchronously
+     */
+    public SQLTraceDelegator(String poolName, String appName, String moduleName, int traceBufferSize) {
         this.poolName = poolName;
         this.appName = appName;
         this.moduleName = moduleName;
         probeProvider = new SQLTraceProbeProvider();
+        setTraceBufferSize(traceBufferSize);
+    }
+
+    /**
+     * Sets the size of the buffer of the asynchronous sql trace pipeline,
+     * switching to synchronous processing of the trace records if 0.
+     *
+     * @param traceBufferSize number of trace records the buffer can hold
+     */
+    public synchronized void setTraceBufferSize(int traceBufferSize) {
+        AsyncSQLTraceProcessor previous = asyncProcessor;
+        asyncProcessor = traceBufferSize > 0 ? new AsyncSQLTraceProcessor(this, traceBufferSize) : null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Stops the asynchronous sql trace pipeline, if any, after processing the
+     * trace records still pending.
+     */
+    public synchronized void close() {
+        if (asyncProcessor != null) {
+            asyncProcessor.close();
+            asyncProcessor = null;
+        }
     }
 
     public void setPoolName(String poolName) {
@@ -133,35 +171,83 @@ public class SQLTraceDelegator implements SQLTraceListener {
     public void sqlTrace(SQLTraceRecord record) {
         if (record != null) {
             record.setPoolName(poolName);
+            AsyncSQLTraceProcessor processor = asyncProcessor;
             if (sqlTraceListeners != null) {
                 for (SQLTraceListener listener : sqlTraceListeners.values()) {
-                    try {
-                        listener.sqlTrace(record);
-                    } catch (Throwable t) { // don't let a broken listener break the JDBC calls
-                        logger.log(Level.WARNING, "SQL Trace Listener threw exception", t);
+                    if (processor != null && listener instanceof AsyncSQLTraceListener) {
+                        // notified by the background consumer
+                        continue;
                     }
+                    notifyListener(listener, record);
                 }
             }
 
-            String methodName = record.getMethodName();
-            //Check if the method name is one in which sql query is used
-            if (isMethodValidForCaching(methodName)) {
-                Object[] params = record.getParams();
-                if (params != null && params.length > 0) {
-                    String sqlQuery = null;
-                    for (Object param : params) {
-                        if (param instanceof String) {
-                            sqlQuery = param.toString();
-                        }
-                        break;
-                    }
-                    if (sqlQuery != null) {
-                        probeProvider.traceSQLEvent(poolName, appName, moduleName, sqlQuery, record.getExecutionTime());
-                    }
+            if (processor != null) {
+                processor.offer(record);
+            } else {
+                String sqlQuery = getTracedSql(record);
+                if (sqlQuery != null) {
+                    probeProvider.traceSQLEvent(poolName, appName, moduleName, sqlQuery, record.getExecutionTime());
                 }
             }
         }
     }
+
+    /**
+     * Notifies the asynchronous listeners of a trace record, called by the
+     * background sql trace consumer.
+     *
+     * @param record the sql trace record
+     */
+    void notifyAsyncListeners(SQLTraceRecord record) {
+        if (sqlTraceListeners != null) {
+            for (SQLTraceListener listener : sqlTraceListeners.values()) {
+                if (listener instanceof AsyncSQLTraceListener) {
+                    notifyListener(listener, record);
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes the statistics of a normalized sql statement aggregated by the
+     * background sql trace consumer.
+     *
+     * @param aggregate the aggregated statistics
+     */
+    void publishAggregate(SQLTraceAggregate aggregate) {
+        probeProvider.traceSQLBatchEvent(poolName, appName, moduleName, aggregate.getSql(),
+                aggregate.getCount(), aggregate.getTotalExecutionTime(), aggregate.getMaxExecutionTime());
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "SQL trace summary for pool {0} : {1}", new Object[]{poolName, aggregate});
+        }
+    }
+
+    private void notifyListener(SQLTraceListener listener, SQLTraceRecord record) {
+        try {
+            listener.sqlTrace(record);
+        } catch (Throwable t) { // don't let a broken listener break the JDBC calls
+            logger.log(Level.WARNING, "SQL Trace Listener threw exception", t);
+        }
+    }
+
+    /**
+     * Returns the sql query of a trace record, if the record is for a method in
+     * which a sql query is used.
+     *
+     * @param record the sql trace record
+     * @return the sql query, or null
+     */
+    String getTracedSql(SQLTraceRecord record) {
+        //Check if the method name is one in which sql query is used
+        if (isMethodValidForCaching(record.getMethodName())) {
+            Object[] params = record.getParams();
+            if (params != null && params.length > 0 && params[0] instanceof String) {
+                return (String) params[0];
+            }
+        }
+        return null;
+    }
     
     /**
      * Check if the method name from the sql trace record can be used to retrieve a
@@ -0,0 +1,201 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.gjc.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.glassfish.api.jdbc.SQLTraceRecord;
+
+/**
+ * Bounded lock-free ring buffer used to hand sql trace records over from the
+ * threads executing the JDBC calls to the background sql trace consumer.
+ * <p>
+ * Any number of threads may offer records concurrently, claiming a slot with
+ * a single CAS, while a single consumer drains them. The slots are allocated
+ * up front, so offering a record does not allocate. When the buffer is full
+ * the record is dropped rather than blocking the JDBC call.
+ * <p>
+ * A slot only keeps a compact copy of the record: the pool name, the class and
+ * method names, the sql of the call, the timing and the thread. The other
+ * arguments of the JDBC call, which may be LOBs or streams, are not retained,
+ * and the drained records only carry the sql as their single parameter.
+ */
+public class SQLTraceRingBuffer {
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private long head;
+
+    /**
+     * @param requestedCapacity number of slots, rounded up to the next power of two
+     */
+    public SQLTraceRingBuffer(int requestedCapacity) {
+        int capacity = 1;
+        while (capacity < requestedCapacity) {
+            capacity <<= 1;
+        }
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot(i);
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds a record to the buffer.
+     *
+     * @param record the sql trace record
+     * @return false if the buffer is full and the record has been dropped
+     */
+    public boolean offer(SQLTraceRecord record) {
+        long position = tail.get();
+        while (true) {
+            Slot slot = slots[(int) (position & mask)];
+            long difference = slot.sequence - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slot.copyFrom(record);
+                    // publishes the record to the consumer
+                    slot.sequence = position + 1;
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.increment();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Drains the available records, in the order they were offered. Must only
+     * be called by one thread at a time.
+     *
+     * @param consumer receives the drained records
+     * @param maxRecords maximum number of records to drain
+     * @return number of records drained
+     */
+    public int drain(Consumer<SQLTraceRecord> consumer, int maxRecords) {
+        int drained = 0;
+        while (drained < maxRecords) {
+            Slot slot = slots[(int) (head & mask)];
+            if (slot.sequence != head + 1) {
+                break;
+            }
+            SQLTraceRecord record = slot.toRecord();
+            // hands the slot back to the producers for the next lap
+            slot.sequence = head + slots.length;
+            head++;
+            drained++;
+            consumer.accept(record);
+        }
+        return drained;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the number of records dropped since the last call, because the
+     * buffer was full.
+     *
+     * @return number of dropped records
+     */
+    public long getAndResetDropped() {
+        return dropped.sumThenReset();
+    }
+
+    private static final class Slot {
+        private volatile long sequence;
+        private String poolName;
+        private String className;
+        private String methodName;
+        private String sql;
+        private long timeStamp;
+        private long executionTime;
+        private String threadName;
+        private long threadID;
+
+        private Slot(long sequence) {
+            this.sequence = sequence;
+        }
+
+        private void copyFrom(SQLTraceRecord record) {
+            poolName = record.getPoolName();
+            className = record.getClassName();
+            methodName = record.getMethodName();
+            Object[] params = record.getParams();
+            sql = params != null && params.length > 0 && params[0] instanceof String ? (String) params[0] : null;
+            timeStamp = record.getTimeStamp();
+            executionTime = record.getExecutionTime();
+            threadName = record.getThreadName();
+            threadID = record.getThreadID();
+        }
+
+        /**
+         * Creates the record held by this slot and releases the references of the slot.
+         */
+        private SQLTraceRecord toRecord() {
+            SQLTraceRecord record = new SQLTraceRecord();
+            record.setPoolName(poolName);
+            record.setClassName(className);
+            record.setMethodName(methodName);
+            if (sql != null) {
+                record.setParams(new Object[]{sql});
+            }
+            record.setTimeStamp(timeStamp);
+            record.setExecutionTime(executionTime);
+            record.setThreadName(threadName);
+            record.setThreadID(threadID);
+            poolName = null;
+            className = null;
+            methodName = null;
+            sql = null;
+            threadName = null;
+            return record;
+        }
+    }
+}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2018] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2022] [Payara Foundation and/or its affiliates]
 
 package fish.payara.jdbc.stats;
 
@@ -72,8 +72,8 @@ public class FrequentSQLTraceCache extends SQLTraceCache {
     /**
      * Request for adding a sql query in the form of SQLTrace to this cache.
      * If the query is already found
-     * in the list, the number of times it is executed is incremented by one
-     * along with the timestamp.
+     * in the list, the number of times it is executed is incremented by the
+     * number of executions of the given trace along with the timestamp.
      * If the query is a new one, it is added to the list.
      * 
      * @param cacheObj
@@ -84,7 +84,7 @@ public class FrequentSQLTraceCache extends SQLTraceCache {
             SQLTrace trace = cache.get(cacheObj.getQueryName());
             if (trace != null) {
                 //If already found in the cache
-                trace.setNumExecutions(trace.getNumExecutions() + 1);
+                trace.setNumExecutions(trace.getNumExecutions() + cacheObj.getNumExecutions());
                 trace.setLastUsageTime(System.currentTimeMillis());
             } else {
                 if (cache.size() < maxStoredEntries){
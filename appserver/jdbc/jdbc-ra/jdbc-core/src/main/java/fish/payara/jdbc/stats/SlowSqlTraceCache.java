@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2018 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -57,8 +57,8 @@ public class SlowSqlTraceCache extends SQLTraceCache {
     
     /**
      * Request for adding a sql query in the form of SlowSqlTrace to this cache.
-     * If the query is already found in the list, the number of times it is executed is incremented by one
-     * along with the timestamp. If its slowest execution time has also increased, this is updated.
+     * If the query is already found in the list, the number of times it is executed is incremented by the
+     * number of executions of the given trace along with the timestamp. If its slowest execution time has also increased, this is updated.
      * If the query is a new one, it is added to the list.
      * 
      * @param sqlTrace
@@ -72,7 +72,7 @@ public class SlowSqlTraceCache extends SQLTraceCache {
 
             if (storedSlowSqlTrace != null) {
                 //If already found in the cache
-                storedSlowSqlTrace.setNumExecutions(storedSlowSqlTrace.getNumExecutions() + 1);
+                storedSlowSqlTrace.setNumExecutions(storedSlowSqlTrace.getNumExecutions() + slowSqlTrace.getNumExecutions());
                 storedSlowSqlTrace.setLastUsageTime(System.currentTimeMillis());
                 
                 long newExecutionTime = slowSqlTrace.getSlowestExecutionTime();
@@ -0,0 +1,135 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.jdbc.stats;
+
+import com.sun.gjc.util.SQLTrace;
+import java.util.Comparator;
+
+/**
+ * Execution statistics of a sql fingerprint, the normalized form of a sql
+ * statement with its literal values stripped.
+ */
+public class SqlFingerprint extends SQLTrace {
+
+    private long totalExecutionTime;
+    private long maxExecutionTime;
+
+    public SqlFingerprint(String fingerprint, int numExecutions, long time, long totalExecutionTime,
+            long maxExecutionTime) {
+        super(fingerprint, numExecutions, time);
+        this.totalExecutionTime = totalExecutionTime;
+        this.maxExecutionTime = maxExecutionTime;
+    }
+
+    /**
+     * Gets the total execution time of all the executions of this fingerprint
+     * @return The total execution time in milliseconds
+     */
+    public long getTotalExecutionTime() {
+        return totalExecutionTime;
+    }
+
+    public void setTotalExecutionTime(long totalExecutionTime) {
+        this.totalExecutionTime = totalExecutionTime;
+    }
+
+    /**
+     * Gets the slowest execution time of this fingerprint
+     * @return The slowest execution time in milliseconds
+     */
+    public long getMaxExecutionTime() {
+        return maxExecutionTime;
+    }
+
+    public void setMaxExecutionTime(long maxExecutionTime) {
+        this.maxExecutionTime = maxExecutionTime;
+    }
+
+    /**
+     * Adds the executions of another trace of the same fingerprint.
+     * @param other The executions to add
+     */
+    public synchronized void merge(SqlFingerprint other) {
+        setNumExecutions(getNumExecutions() + other.getNumExecutions());
+        setLastUsageTime(Math.max(getLastUsageTime(), other.getLastUsageTime()));
+        totalExecutionTime += other.totalExecutionTime;
+        if (other.maxExecutionTime > maxExecutionTime) {
+            maxExecutionTime = other.maxExecutionTime;
+        }
+    }
+
+    /**
+     * Returns a copy of this fingerprint, consistent even if executions are
+     * being merged concurrently.
+     * @return The copy
+     */
+    public synchronized SqlFingerprint snapshot() {
+        return new SqlFingerprint(getQueryName(), getNumExecutions(), getLastUsageTime(),
+                totalExecutionTime, maxExecutionTime);
+    }
+
+    /**
+     * Returns the description of the statistics of this fingerprint, used for
+     * monitoring.
+     * @return The description
+     */
+    public String getSummary() {
+        return "Executions: " + getNumExecutions() + ", Total time: " + totalExecutionTime
+                + "ms, Max time: " + maxExecutionTime + "ms";
+    }
+
+    // Comparator that orders based on the total execution time, the slowest first.
+    public static final Comparator<SqlFingerprint> TOTAL_TIME_COMPARATOR = new Comparator<SqlFingerprint>() {
+        @Override
+        public int compare(SqlFingerprint fingerprint1, SqlFingerprint fingerprint2) {
+            int compare = Long.compare(fingerprint2.getTotalExecutionTime(), fingerprint1.getTotalExecutionTime());
+            return compare != 0 ? compare : SQLTraceFrequencyComparator.compare(fingerprint1, fingerprint2);
+        }
+    };
+
+    // Comparator that orders based on the slowest execution time, the slowest first.
+    public static final Comparator<SqlFingerprint> MAX_TIME_COMPARATOR = new Comparator<SqlFingerprint>() {
+        @Override
+        public int compare(SqlFingerprint fingerprint1, SqlFingerprint fingerprint2) {
+            int compare = Long.compare(fingerprint2.getMaxExecutionTime(), fingerprint1.getMaxExecutionTime());
+            return compare != 0 ? compare : SQLTraceFrequencyComparator.compare(fingerprint1, fingerprint2);
+        }
+    };
+}
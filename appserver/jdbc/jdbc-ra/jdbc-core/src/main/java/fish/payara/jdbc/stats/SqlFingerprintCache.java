@@ -0,0 +1,161 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.jdbc.stats;
+
+import com.sun.gjc.util.SQLTrace;
+import com.sun.gjc.util.SQLTraceCache;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+
+/**
+ * Maintains the execution statistics of the sql fingerprints of a pool, so
+ * that the top queries by total time, number of executions and slowest
+ * execution can be reported.
+ * <p>
+ * Memory is bounded: at most maxStoredEntries fingerprints are stored, and a
+ * purge only keeps the fingerprints that are in the top numTopQueriesToReport
+ * of at least one of the three orderings.
+ */
+public class SqlFingerprintCache extends SQLTraceCache {
+
+    protected long maxStoredEntries = 10000;
+
+    public SqlFingerprintCache(String poolName, int numToReport, long timeToKeepQueries, long maxStoredEntries) {
+        super(poolName, numToReport, timeToKeepQueries);
+        this.maxStoredEntries = maxStoredEntries;
+    }
+
+    /**
+     * Request for adding the executions of a sql fingerprint to this cache.
+     * If the fingerprint is already found in the list, the executions are added
+     * to its statistics, otherwise it is added to the list.
+     *
+     * @param sqlTrace a SqlFingerprint
+     */
+    @Override
+    public void checkAndUpdateCache(SQLTrace sqlTrace) {
+        if (sqlTrace != null) {
+            SqlFingerprint fingerprint = (SqlFingerprint) sqlTrace;
+            SqlFingerprint stored = (SqlFingerprint) cache.get(fingerprint.getQueryName());
+            if (stored == null) {
+                if (cache.size() >= maxStoredEntries) {
+                    purgeEntries();
+                }
+                if (cache.size() < maxStoredEntries) {
+                    stored = (SqlFingerprint) cache.putIfAbsent(fingerprint.getQueryName(), fingerprint);
+                    if (stored == null) {
+                        return;
+                    }
+                } else {
+                    if (_logger.isLoggable(Level.CONFIG)) {
+                        _logger.log(Level.CONFIG, "SQL Fingerprint Cache full, {0} not stored.", fingerprint.getQueryName());
+                    }
+                    return;
+                }
+            }
+            stored.merge(fingerprint);
+        }
+    }
+
+    /**
+     * Entries are removed from the list unless they are in the top
+     * numTopQueriesToReport by total time, number of executions or slowest
+     * execution.
+     */
+    @Override
+    public void purgeEntries() {
+        if (cache.size() <= numTopQueriesToReport) {
+            return;
+        }
+        Set<String> retained = new HashSet<>();
+        for (SqlFingerprint fingerprint : getTopByTotalTime()) {
+            retained.add(fingerprint.getQueryName());
+        }
+        for (SqlFingerprint fingerprint : getTopByCount()) {
+            retained.add(fingerprint.getQueryName());
+        }
+        for (SqlFingerprint fingerprint : getTopByMaxTime()) {
+            retained.add(fingerprint.getQueryName());
+        }
+        cache.keySet().retainAll(retained);
+    }
+
+    /**
+     * Returns the top fingerprints by total execution time.
+     * @return List of fingerprints, the one with the most time spent first
+     */
+    public List<SqlFingerprint> getTopByTotalTime() {
+        return getTop(SqlFingerprint.TOTAL_TIME_COMPARATOR);
+    }
+
+    /**
+     * Returns the top fingerprints by number of executions.
+     * @return List of fingerprints, the most executed first
+     */
+    public List<SqlFingerprint> getTopByCount() {
+        return getTop(SQLTrace.SQLTraceFrequencyComparator);
+    }
+
+    /**
+     * Returns the top fingerprints by slowest execution.
+     * @return List of fingerprints, the one with the slowest execution first
+     */
+    public List<SqlFingerprint> getTopByMaxTime() {
+        return getTop(SqlFingerprint.MAX_TIME_COMPARATOR);
+    }
+
+    private List<SqlFingerprint> getTop(Comparator<? super SqlFingerprint> comparator) {
+        List<SqlFingerprint> fingerprints = new ArrayList<>(cache.size());
+        for (SQLTrace trace : cache.values()) {
+            // sorting copies, as the stored fingerprints may be updated meanwhile
+            fingerprints.add(((SqlFingerprint) trace).snapshot());
+        }
+        Collections.sort(fingerprints, comparator);
+        if (fingerprints.size() > numTopQueriesToReport) {
+            return new ArrayList<>(fingerprints.subList(0, numTopQueriesToReport));
+        }
+        return fingerprints;
+    }
+}
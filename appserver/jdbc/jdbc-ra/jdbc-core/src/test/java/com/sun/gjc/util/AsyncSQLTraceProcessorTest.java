@@ -0,0 +1,106 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.gjc.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.glassfish.api.jdbc.SQLTraceListener;
+import org.glassfish.api.jdbc.SQLTraceRecord;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncSQLTraceProcessorTest {
+
+    private static SQLTraceRecord record() {
+        SQLTraceRecord record = new SQLTraceRecord();
+        record.setMethodName("executeQuery");
+        record.setParams(new Object[]{"SELECT * FROM T WHERE ID = ?", 1});
+        return record;
+    }
+
+    @Test
+    public void consumerIsShutDownWithTheLastPipeline() {
+        SQLTraceDelegator first = new SQLTraceDelegator("pool", "app", "module", 16);
+        SQLTraceDelegator second = new SQLTraceDelegator("other", "app", "module", 16);
+        assertTrue(AsyncSQLTraceProcessor.isConsumerRunning());
+
+        first.close();
+        assertTrue(AsyncSQLTraceProcessor.isConsumerRunning());
+        second.close();
+        assertFalse(AsyncSQLTraceProcessor.isConsumerRunning());
+
+        SQLTraceDelegator restarted = new SQLTraceDelegator("pool", "app", "module", 16);
+        assertTrue(AsyncSQLTraceProcessor.isConsumerRunning());
+        restarted.setTraceBufferSize(0);
+        assertFalse(AsyncSQLTraceProcessor.isConsumerRunning());
+    }
+
+    @Test
+    public void onlyAsyncListenersAreNotifiedByTheConsumer() {
+        List<SQLTraceRecord> notified = new ArrayList<>();
+        List<SQLTraceRecord> notifiedAsync = new ArrayList<>();
+        SQLTraceDelegator delegator = new SQLTraceDelegator("pool", "app", "module", 16);
+        delegator.registerSQLTraceListener(new SQLTraceListener() {
+            @Override
+            public void sqlTrace(SQLTraceRecord record) {
+                notified.add(record);
+            }
+        });
+        delegator.registerSQLTraceListener(new AsyncSQLTraceListener() {
+            @Override
+            public void sqlTrace(SQLTraceRecord record) {
+                notifiedAsync.add(record);
+            }
+        });
+        delegator.registerSQLTraceListener(new SQLTraceLogger());
+
+        delegator.sqlTrace(record());
+        assertEquals(1, notified.size());
+        assertArrayEquals(new Object[]{"SELECT * FROM T WHERE ID = ?", 1}, notified.get(0).getParams());
+
+        delegator.close();
+        assertEquals(1, notifiedAsync.size());
+        assertArrayEquals(new Object[]{"SELECT * FROM T WHERE ID = ?"}, notifiedAsync.get(0).getParams());
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.gjc.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.glassfish.api.jdbc.SQLTraceRecord;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SQLTraceRingBufferTest {
+
+    private static SQLTraceRecord record(long id) {
+        SQLTraceRecord record = new SQLTraceRecord();
+        record.setMethodName("executeQuery");
+        record.setParams(new Object[]{"SELECT " + id});
+        record.setExecutionTime(id);
+        return record;
+    }
+
+    private static List<SQLTraceRecord> drainAll(SQLTraceRingBuffer buffer) {
+        List<SQLTraceRecord> result = new ArrayList<>();
+        buffer.drain(result::add, Integer.MAX_VALUE);
+        return result;
+    }
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(1, new SQLTraceRingBuffer(1).getCapacity());
+        assertEquals(8, new SQLTraceRingBuffer(5).getCapacity());
+        assertEquals(16, new SQLTraceRingBuffer(16).getCapacity());
+    }
+
+    @Test
+    public void recordsAreDrainedInOrder() {
+        SQLTraceRingBuffer buffer = new SQLTraceRingBuffer(4);
+        for (long i = 0; i < 3; i++) {
+            assertTrue(buffer.offer(record(i)));
+        }
+
+        List<SQLTraceRecord> drained = drainAll(buffer);
+        assertEquals(3, drained.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, drained.get(i).getExecutionTime());
+        }
+        assertTrue(drainAll(buffer).isEmpty());
+    }
+
+    @Test
+    public void drainIsLimitedToMaxRecords() {
+        SQLTraceRingBuffer buffer = new SQLTraceRingBuffer(4);
+        for (long i = 0; i < 4; i++) {
+            buffer.offer(record(i));
+        }
+        List<SQLTraceRecord> drained = new ArrayList<>();
+
+        assertEquals(3, buffer.drain(drained::add, 3));
+        assertEquals(1, buffer.drain(drained::add, 3));
+        assertEquals(3, drained.get(3).getExecutionTime());
+    }
+
+    @Test
+    public void recordsAreDroppedWhenFull() {
+        SQLTraceRingBuffer buffer = new SQLTraceRingBuffer(2);
+        assertTrue(buffer.offer(record(0)));
+        assertTrue(buffer.offer(record(1)));
+        assertFalse(buffer.offer(record(2)));
+        assertFalse(buffer.offer(record(3)));
+
+        assertEquals(2, buffer.getAndResetDropped());
+        assertEquals(0, buffer.getAndResetDropped());
+        assertEquals(2, drainAll(buffer).size());
+    }
+
+    @Test
+    public void slotsAreReusedOnceDrained() {
+        SQLTraceRingBuffer buffer = new SQLTraceRingBuffer(2);
+        for (long lap = 0; lap < 5; lap++) {
+            assertTrue(buffer.offer(record(lap * 2)));
+            assertTrue(buffer.offer(record(lap * 2 + 1)));
+            List<SQLTraceRecord> drained = drainAll(buffer);
+            assertEquals(2, drained.size());
+            assertEquals(lap * 2, drained.get(0).getExecutionTime());
+            assertEquals(lap * 2 + 1, drained.get(1).getExecutionTime());
+        }
+        assertEquals(0, buffer.getAndResetDropped());
+    }
+
+    @Test
+    public void onlySqlOfTheCallIsKept() {
+        SQLTraceRingBuffer buffer = new SQLTraceRingBuffer(2);
+        SQLTraceRecord withSql = record(0);
+        withSql.setParams(new Object[]{"SELECT 1", new byte[1024]});
+        SQLTraceRecord withoutSql = record(1);
+        withoutSql.setMethodName("setInt");
+        withoutSql.setParams(new Object[]{1, 2});
+        buffer.offer(withSql);
+        buffer.offer(withoutSql);
+
+        List<SQLTraceRecord> drained = drainAll(buffer);
+        assertEquals("executeQuery", drained.get(0).getMethodName());
+        assertArrayEquals(new Object[]{"SELECT 1"}, drained.get(0).getParams());
+        assertEquals("setInt", drained.get(1).getMethodName());
+        assertNull(drained.get(1).getParams());
+    }
+
+    @Test
+    public void concurrentlyOfferedRecordsAreEitherDrainedOnceOrCountedAsDropped() throws InterruptedException {
+        int producerCount = 4;
+        int recordsPerProducer = 50_000;
+        SQLTraceRingBuffer buffer = new SQLTraceRingBuffer(64);
+        AtomicLong ids = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < producerCount; i++) {
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < recordsPerProducer; j++) {
+                    buffer.offer(record(ids.getAndIncrement()));
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        Set<Long> drained = new HashSet<>();
+        AtomicBoolean duplicate = new AtomicBoolean();
+        AtomicBoolean producing = new AtomicBoolean(true);
+        Thread consumer = new Thread(() -> {
+            while (producing.get()) {
+                buffer.drain(record -> duplicate.compareAndSet(false, !drained.add(record.getExecutionTime())),
+                        buffer.getCapacity());
+            }
+        });
+        consumer.start();
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        producing.set(false);
+        consumer.join();
+        buffer.drain(record -> duplicate.compareAndSet(false, !drained.add(record.getExecutionTime())),
+                Integer.MAX_VALUE);
+
+        assertFalse(duplicate.get());
+        assertEquals((long) producerCount * recordsPerProducer, drained.size() + buffer.getAndResetDropped());
+    }
+}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2020] [Payara Foundation and/or affiliates]
+// Portions Copyright [2016-2022] [Payara Foundation and/or affiliates]
 
 package org.glassfish.jdbc.deployer;
 
@@ -504,6 +504,10 @@ public class JdbcConnectionPoolDeployer implements ResourceDeployer {
                     conConnPool.setPoolWaitQueue(rp.getValue());
                     logFine("POOLWAITQUEUE");
 
+                } else if ("POOLRESIZER".equals(name.toUpperCase(locale))) {
+                    conConnPool.setPoolResizer(rp.getValue());
+                    logFine("POOLRESIZER");
+
                 } else if ("DATASTRUCTUREPARAMETERS".equals(name.toUpperCase(locale))) {
                     conConnPool.setDataStructureParameters(rp.getValue());
                     logFine("DATASTRUCTUREPARAMETERS");
@@ -550,6 +554,16 @@ public class JdbcConnectionPoolDeployer implements ResourceDeployer {
                     propList.add(new ConnectorConfigProperty("MaxCacheSize",
                             rp.getValue(), "MaxCacheSize", "java.lang.String"));
                     
+                } else if ("SHAREDSTATEMENTCACHESIZE".equals(name.toUpperCase(Locale.getDefault())) || "SHARED-STATEMENT-CACHE-SIZE".equals(name.toUpperCase(Locale.getDefault()))) {
+
+                    propList.add(new ConnectorConfigProperty("SharedStatementCacheSize",
+                            rp.getValue(), "SharedStatementCacheSize", "java.lang.String"));
+
+                } else if ("SQLTRACEBUFFERSIZE".equals(name.toUpperCase(Locale.getDefault())) || "SQL-TRACE-BUFFER-SIZE".equals(name.toUpperCase(Locale.getDefault()))) {
+
+                    propList.add(new ConnectorConfigProperty("SqlTraceBufferSize",
+                            rp.getValue(), "SqlTraceBufferSize", "java.lang.String"));
+
                 } else if (mcfConPropKeys.containsKey(name.toUpperCase(Locale.getDefault()))) {
 
                     propList.add(new ConnectorConfigProperty(
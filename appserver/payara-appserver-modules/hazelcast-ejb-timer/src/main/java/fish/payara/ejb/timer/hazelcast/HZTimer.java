@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2017 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -53,6 +53,7 @@ public class HZTimer implements Serializable {
 
     private final TimerPrimaryKey key;
     private String hzMemberName;
+    private String takenOverFrom;
     private String ownerId;
     private final long containerId;
     private long applicationId;
@@ -98,6 +99,18 @@ public class HZTimer implements Serializable {
         this.hzMemberName = serverName;
     }
 
+    /**
+     * Returns the server the timer was assigned away from when that server
+     * left the cluster, until the timer is restored by its new server.
+     */
+    String getTakenOverFrom() {
+        return takenOverFrom;
+    }
+
+    void setTakenOverFrom(String serverName) {
+        this.takenOverFrom = serverName;
+    }
+
     public TimerPrimaryKey getKey() {
         return key;
     }
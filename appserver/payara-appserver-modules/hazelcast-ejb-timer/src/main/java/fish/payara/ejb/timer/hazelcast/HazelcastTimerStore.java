@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2021 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -39,6 +39,7 @@
  */
 package fish.payara.ejb.timer.hazelcast;
 
+import com.hazelcast.cluster.Member;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.map.IMap;
 import com.hazelcast.cp.lock.FencedLock;
@@ -62,6 +63,7 @@ import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -70,6 +72,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.ejb.EJBException;
@@ -91,12 +94,18 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
     private static final String EJB_TIMER_CACHE_NAME = "HZEjbTmerCache";
     private static final String EJB_TIMER_CONTAINER_CACHE_NAME = "HZEjbTmerContainerCache";
     private static final String EJB_TIMER_APPLICAION_CACHE_NAME = "HZEjbTmerApplicationCache";
+    private static final String EJB_TIMER_MEMBER_CACHE_NAME = "HZEjbTmerMemberCache";
+    private static final String EJB_TIMER_MEMBER_CONTAINER_CACHE_NAME = "HZEjbTmerMemberContainerCache";
 
     private final IMap<String, HZTimer> pkCache;
     private final IMap<Long, Set<TimerPrimaryKey>> containerCache;
     private final IMap<Long, Set<TimerPrimaryKey>> applicationCache;
+    private final IMap<String, UUID> memberCache;
+    private final IMap<String, Set<Long>> memberContainerCache;
+    private final Set<Long> startedContainers = new HashSet<>();
     private final String serverName;
     private final HazelcastInstance hazelcast;
+    private final HazelcastCore core;
 
     private static final Logger logger = LogDomains.getLogger(HazelcastTimerStore.class, LogDomains.EJB_LOGGER);
 
@@ -118,10 +127,16 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
             throw new Exception("Hazelcast MUST be enabled when using the HazelcastTimerStore");
         }
         hazelcast = core.getInstance();
+        this.core = core;
         pkCache = hazelcast.getMap(EJB_TIMER_CACHE_NAME);
         containerCache = hazelcast.getMap(EJB_TIMER_CONTAINER_CACHE_NAME);
         applicationCache = hazelcast.getMap(EJB_TIMER_APPLICAION_CACHE_NAME);
-        serverName = core.getAttribute(core.getInstance().getCluster().getLocalMember().getUuid(), HazelcastCore.INSTANCE_ATTRIBUTE);
+        memberCache = hazelcast.getMap(EJB_TIMER_MEMBER_CACHE_NAME);
+        memberContainerCache = hazelcast.getMap(EJB_TIMER_MEMBER_CONTAINER_CACHE_NAME);
+        UUID localMemberUuid = core.getInstance().getCluster().getLocalMember().getUuid();
+        serverName = core.getAttribute(localMemberUuid, HazelcastCore.INSTANCE_ATTRIBUTE);
+        // register this server as able to take over the timers of servers leaving the cluster
+        memberCache.put(serverName, localMemberUuid);
         this.ownerIdOfThisServer_ = serverName;
         this.domainName_ = core.getInstance().getConfig().getClusterName();
         super.enableRescheduleTimers();
@@ -600,6 +615,7 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
     protected Map<TimerPrimaryKey, Method> recoverAndCreateSchedules(long containerId, long applicationId, Map<Method, List<ScheduledTimerDescriptor>> schedules, boolean deploy) {
         Map<TimerPrimaryKey, Method> result = new HashMap<>();
         boolean lostCluster = false;
+        registerContainer(containerId, true);
         Set<HZTimer> activeTimers = new HashSet<>();
 
         // get all timers for this container
@@ -746,6 +762,7 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
 
     @Override
     protected void stopTimers(long containerId) {
+        registerContainer(containerId, false);
         super.stopTimers(containerId);
         stopTimers(containerCache.get(containerId));
     }
@@ -1174,25 +1191,72 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
         //do nothing
     }
 
+    /**
+     * Takes over the timers of the servers that left the cluster.
+     * <p>
+     * Rather than the first server to handle the event taking over all the
+     * timers, that server spreads them over all the servers running the timer
+     * store, and every server then restores the timers assigned to it as it
+     * handles the event in turn. Timers assigned by another server are marked
+     * with the server they were taken over from, so that only those are
+     * restored, rather than every timer of this server not restored yet.
+     * <p>
+     * Servers only register as running the timer store once they created it,
+     * so whether the server owning a timer left is decided by the instance
+     * names of the cluster members instead.
+     * <p>
+     * Timers are only assigned to servers that started their container, as
+     * servers of other deployment groups would never restore them.
+     */
     @Override
     public void memberRemoved(MemberEvent event) {
         FencedLock hazelcastLock = hazelcast.getCPSubsystem().getLock("EJB-TIMER-LOCK");
         hazelcastLock.lock();
         try {
-            Collection<HZTimer> allTimers = pkCache.values();
-            Collection<HZTimer> removedTimers = new HashSet<>();
-            for (HZTimer timer : allTimers) {
-                if (timer.getMemberName().equals(event.getServer())) {
-                    removedTimers.add(timer);
+            List<String> liveServers = getLiveTimerServers();
+            Map<String, Set<Long>> memberContainers = new HashMap<>(memberContainerCache);
+            Set<String> clusterServers = getClusterServers(hazelcast.getCluster().getMembers(), core,
+                    event.getServer());
+            Collection<HZTimer> timersToRestore = new HashSet<>();
+            int reassigned = 0;
+            for (HZTimer timer : pkCache.values()) {
+                TimerPrimaryKey timerId = timer.getKey();
+                if (isOrphaned(timer.getMemberName(), clusterServers)) {
+                    List<String> candidates = getServersRunning(timer.getContainerId(), liveServers,
+                            memberContainers);
+                    if (candidates.isEmpty()) {
+                        // no server is known to run its container, so every server
+                        // claims it in turn if it can restore it, as before
+                        if (getContainer(timer.getContainerId()) != null) {
+                            timersToRestore.add(timer);
+                        }
+                        continue;
+                    }
+                    String assignedServer = assignServer(timerId, candidates);
+                    if (assignedServer.equals(serverName)) {
+                        timersToRestore.add(timer);
+                    } else {
+                        timer.setTakenOverFrom(timer.getMemberName());
+                        timer.setMemberName(assignedServer);
+                        pkCache.put(timerId.getTimerId(), timer);
+                        reassigned++;
+                    }
+                } else if (timer.getMemberName().equals(serverName) && timer.getTakenOverFrom() != null
+                        && isOrphaned(timer.getTakenOverFrom(), clusterServers) && getTimerState(timerId) == null) {
+                    // assigned to this server by another server handling the event
+                    timersToRestore.add(timer);
                 }
             }
 
-
-
-            if (!removedTimers.isEmpty()) {
+            if (reassigned > 0) {
+                logger.log(Level.INFO, "Assigned {0} timers of servers that left the cluster to other servers",
+                        reassigned);
+            }
+            if (!timersToRestore.isEmpty()) {
                 logger.log(Level.INFO, "==> Restoring Timers ... ");
-                Collection<HZTimer> restored = _restoreTimers(removedTimers);
+                Collection<HZTimer> restored = _restoreTimers(timersToRestore);
                 for (HZTimer timer : restored) {
+                    timer.setTakenOverFrom(null);
                     pkCache.put(timer.getKey().getTimerId(), timer);
                 }
                 logger.log(Level.INFO, "<== ... Timers Restored.");
@@ -1202,6 +1266,108 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
         }
     }
 
+    /**
+     * Returns the names of the servers of the cluster running the timer store,
+     * sorted so that every server assigns the timers the same way.
+     */
+    private List<String> getLiveTimerServers() {
+        Set<UUID> memberUuids = new HashSet<>();
+        for (Member member : hazelcast.getCluster().getMembers()) {
+            memberUuids.add(member.getUuid());
+        }
+        List<String> result = new ArrayList<>();
+        for (Entry<String, UUID> entry : memberCache.entrySet()) {
+            if (memberUuids.contains(entry.getValue())) {
+                result.add(entry.getKey());
+            } else {
+                memberCache.remove(entry.getKey(), entry.getValue());
+                memberContainerCache.remove(entry.getKey());
+            }
+        }
+        if (!result.contains(serverName)) {
+            result.add(serverName);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns the instance names of the members of the cluster.
+     *
+     * @param members        the members of the cluster
+     * @param core           provides the instance names of the members
+     * @param departedServer the name of the server that left the cluster, not
+     *                       included even if its member is still listed
+     * @return the names of the servers in the cluster
+     */
+    static Set<String> getClusterServers(Collection<Member> members, HazelcastCore core, String departedServer) {
+        Set<String> result = new HashSet<>();
+        for (Member member : members) {
+            String name = core.getAttribute(member.getUuid(), HazelcastCore.INSTANCE_ATTRIBUTE);
+            if (name != null) {
+                result.add(name);
+            }
+        }
+        if (departedServer != null) {
+            result.remove(departedServer);
+        }
+        return result;
+    }
+
+    /**
+     * @param owner          the name of the server owning a timer
+     * @param clusterServers the names of the servers in the cluster
+     * @return true if the timers of the owner have to be taken over as it is
+     *         no longer part of the cluster
+     */
+    static boolean isOrphaned(String owner, Set<String> clusterServers) {
+        return !clusterServers.contains(owner);
+    }
+
+    /**
+     * Registers whether the timers of a container can be restored by this server.
+     *
+     * @param containerId the id of the container
+     * @param started     true if the container was started, false if it was stopped
+     */
+    private synchronized void registerContainer(long containerId, boolean started) {
+        boolean changed = started ? startedContainers.add(containerId) : startedContainers.remove(containerId);
+        if (changed) {
+            // only this server writes its entry
+            memberContainerCache.put(serverName, new HashSet<>(startedContainers));
+        }
+    }
+
+    /**
+     * @param containerId      the id of the container of a timer
+     * @param servers          the names of the servers running the timer store
+     * @param memberContainers the ids of the containers started by each server
+     * @return the servers that started the container, in the order given
+     */
+    static List<String> getServersRunning(long containerId, List<String> servers,
+            Map<String, Set<Long>> memberContainers) {
+        List<String> result = new ArrayList<>();
+        for (String server : servers) {
+            Set<Long> containerIds = memberContainers.get(server);
+            if (containerIds != null && containerIds.contains(containerId)) {
+                result.add(server);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Assigns a timer to one of the given servers, spreading the timers
+     * evenly across them.
+     *
+     * @param timerId the id of the timer
+     * @param servers the names of the servers, in the same order on every server
+     * @return the name of the server the timer is assigned to
+     */
+    static String assignServer(TimerPrimaryKey timerId, List<String> servers) {
+        return servers.get(Math.floorMod(timerId.getTimerId().hashCode(), servers.size()));
+    }
+
     /**
      * Remove all local timers that are no longer owned by this instance.
      */
@@ -0,0 +1,89 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.ejb.timer.hazelcast;
+
+import com.sun.ejb.containers.TimerPrimaryKey;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HazelcastTimerStoreAssignServerTest {
+  private final List<String> servers = asList("a", "b", "c");
+
+  @Test
+  public void timerShallBeAssignedToTheSameServerEveryTime() {
+    TimerPrimaryKey timerId = new TimerPrimaryKey("1@@1656000000000@@server@@domain1");
+
+    assertEquals(HazelcastTimerStore.assignServer(timerId, servers),
+        HazelcastTimerStore.assignServer(timerId, asList("a", "b", "c")));
+  }
+
+  @Test
+  public void singleServerShallGetAllTimers() {
+    for (int i = 0; i < 100; i++) {
+      assertEquals("a", HazelcastTimerStore.assignServer(new TimerPrimaryKey(i + "@@1656000000000@@server@@domain1"),
+          asList("a")));
+    }
+  }
+
+  @Test
+  public void timersShallBeSpreadAcrossAllServers() {
+    Map<String, Integer> counts = new HashMap<>();
+    int timerCount = 3000;
+    for (int i = 0; i < timerCount; i++) {
+      String server = HazelcastTimerStore.assignServer(new TimerPrimaryKey(i + "@@1656000000000@@server@@domain1"),
+          servers);
+      counts.merge(server, 1, Integer::sum);
+    }
+
+    assertEquals(servers.size(), counts.size());
+    for (int count : counts.values()) {
+      assertTrue("Timers are expected to be spread evenly but got " + counts, count > timerCount / servers.size() / 2);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.ejb.timer.hazelcast;
+
+import com.hazelcast.cluster.Member;
+import com.sun.ejb.containers.TimerPrimaryKey;
+import fish.payara.nucleus.hazelcast.HazelcastCore;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HazelcastTimerStoreTakeOverTest {
+  @Mock
+  private HazelcastCore core;
+
+  @Mock
+  private Member memberA, memberB;
+
+  @Before
+  public void setUpMembers() {
+    UUID uuidA = UUID.randomUUID();
+    UUID uuidB = UUID.randomUUID();
+    when(memberA.getUuid()).thenReturn(uuidA);
+    when(memberB.getUuid()).thenReturn(uuidB);
+    when(core.getAttribute(uuidA, HazelcastCore.INSTANCE_ATTRIBUTE)).thenReturn("a");
+    when(core.getAttribute(uuidB, HazelcastCore.INSTANCE_ATTRIBUTE)).thenReturn("b");
+  }
+
+  @Test
+  public void timersOfServersInTheClusterShallNotBeTakenOver() {
+    // b has not created the timer store yet, so it is unknown to the store but still in the cluster
+    Set<String> clusterServers = HazelcastTimerStore.getClusterServers(asList(memberA, memberB), core, "c");
+
+    assertFalse(HazelcastTimerStore.isOrphaned("a", clusterServers));
+    assertFalse(HazelcastTimerStore.isOrphaned("b", clusterServers));
+  }
+
+  @Test
+  public void timersOfServersThatLeftTheClusterShallBeTakenOver() {
+    Set<String> clusterServers = HazelcastTimerStore.getClusterServers(asList(memberA, memberB), core, "c");
+
+    assertTrue(HazelcastTimerStore.isOrphaned("c", clusterServers));
+    assertTrue("Servers that left before are taken over as well", HazelcastTimerStore.isOrphaned("d", clusterServers));
+  }
+
+  @Test
+  public void departedServerShallBeTakenOverEvenIfItsMemberIsStillListed() {
+    Set<String> clusterServers = HazelcastTimerStore.getClusterServers(asList(memberA, memberB), core, "b");
+
+    assertEquals(1, clusterServers.size());
+    assertTrue(HazelcastTimerStore.isOrphaned("b", clusterServers));
+  }
+
+  @Test
+  public void timersShallOnlyBeAssignedToServersThatStartedTheirContainer() {
+    // the application is deployed on b and c but not on a
+    Map<String, Set<Long>> memberContainers = new HashMap<>();
+    memberContainers.put("a", singleton(2L));
+    memberContainers.put("b", new HashSet<>(asList(1L, 2L)));
+    memberContainers.put("c", singleton(1L));
+    List<String> candidates = HazelcastTimerStore.getServersRunning(1L, asList("a", "b", "c"), memberContainers);
+
+    assertEquals(asList("b", "c"), candidates);
+    Set<String> assigned = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      assigned.add(HazelcastTimerStore.assignServer(new TimerPrimaryKey("timer-" + i), candidates));
+    }
+    assertEquals(new HashSet<>(asList("b", "c")), assigned);
+  }
+
+  @Test
+  public void timersOfContainersNotStartedAnywhereShallNotBeAssigned() {
+    Map<String, Set<Long>> memberContainers = new HashMap<>();
+    memberContainers.put("a", singleton(2L));
+
+    assertTrue(HazelcastTimerStore.getServersRunning(1L, asList("a", "b"), memberContainers).isEmpty());
+  }
+}
@@ -39,6 +39,7 @@
  */
 package fish.payara.microprofile.config.cdi;
 
+import fish.payara.microprofile.config.cdi.model.ConfigPropertyModel;
 import fish.payara.nucleus.microprofile.config.spi.PayaraConfig;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
@@ -84,13 +85,14 @@ public class ConfigCdiExtension implements Extension {
         if (property != null) {
             // see if we can resolve the injection point in the future
             try {
+                // not bound to the member, as the producer serving the injection point might resolve it differently
                 Type t = pip.getInjectionPoint().getType();
                 if (Class.class.isInstance(pip.getInjectionPoint().getType())) {
-                    ConfigPropertyProducer.getGenericProperty(pip.getInjectionPoint());
+                    ConfigPropertyProducer.getGenericPropertyFromModel(new ConfigPropertyModel(pip.getInjectionPoint()));
                 } else if (t instanceof ParameterizedType) {
                     Class rawClazz = (Class) ((ParameterizedType) t).getRawType();
                     if (rawClazz != Provider.class && rawClazz != Optional.class) {
-                        ConfigPropertyProducer.getGenericProperty(pip.getInjectionPoint());
+                        ConfigPropertyProducer.getGenericPropertyFromModel(new ConfigPropertyModel(pip.getInjectionPoint()));
                     }
                 }
             } catch (Throwable de) {
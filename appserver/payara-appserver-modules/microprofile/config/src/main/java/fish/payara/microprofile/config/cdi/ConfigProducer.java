@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -39,15 +39,22 @@
  */
 package fish.payara.microprofile.config.cdi;
 
+import static fish.payara.microprofile.config.cdi.ConfigPropertyProducer.copyOfMutable;
+import static fish.payara.microprofile.config.cdi.ConfigPropertyProducer.getBinding;
+import static fish.payara.microprofile.config.cdi.ConfigPropertyProducer.getHandleKey;
+import static fish.payara.microprofile.config.cdi.ConfigPropertyProducer.supplierOf;
+
+import fish.payara.nucleus.microprofile.config.spi.ConfigValueHandle;
 import fish.payara.nucleus.microprofile.config.spi.ConfigValueResolver;
 import fish.payara.nucleus.microprofile.config.spi.InjectedPayaraConfig;
+import fish.payara.nucleus.microprofile.config.spi.PayaraConfig;
 import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import javax.annotation.PostConstruct;
@@ -93,19 +100,20 @@ public class ConfigProducer {
     @Produces
     @ConfigProperty
     public <T> Set<T> getSetProperty(InjectionPoint ip) {
-        ConfigProperty property = ip.getAnnotated().getAnnotation(ConfigProperty.class);
         Config config = ConfigProvider.getConfig();
-        Type type = ip.getType();
-        if (type instanceof ParameterizedType) {
-         // it is an List, get the element type of the List
-            @SuppressWarnings("unchecked")
-            Class<T> elementType = (Class<T>) ((ParameterizedType) type).getActualTypeArguments()[0];
-            String defaultValue = property.defaultValue();
-            return config.getValue(property.name(), ConfigValueResolver.class)
-                    .throwOnMissingProperty(defaultValue == null)
-                    .throwOnFailedConversion()
-                    .withDefault(defaultValue)
-                    .asSet(elementType);
+        if (ip.getType() instanceof ParameterizedType) {
+            Supplier<Set<T>> handle = getHandle(config, ip, property -> {
+                // it is an Set, get the element type of the Set
+                @SuppressWarnings("unchecked")
+                Class<T> elementType = (Class<T>) ((ParameterizedType) ip.getType()).getActualTypeArguments()[0];
+                String defaultValue = property.defaultValue();
+                return () -> config.getValue(property.name(), ConfigValueResolver.class)
+                        .throwOnMissingProperty(defaultValue == null)
+                        .throwOnFailedConversion()
+                        .withDefault(defaultValue)
+                        .asSet(elementType);
+            });
+            return copyOfMutable(handle.get());
         }
         return new HashSet<>();
     }
@@ -119,19 +127,20 @@ public class ConfigProducer {
     @Produces
     @ConfigProperty
     public <T> List<T> getListProperty(InjectionPoint ip) {
-        ConfigProperty property = ip.getAnnotated().getAnnotation(ConfigProperty.class);
         Config config = ConfigProvider.getConfig();
-        Type type = ip.getType();
-        if (type instanceof ParameterizedType) {
-            // it is an List, get the element type of the List
-            @SuppressWarnings("unchecked")
-            Class<T> elementType = (Class<T>) ((ParameterizedType) type).getActualTypeArguments()[0];
-            String defaultValue = property.defaultValue();
-            return config.getValue(property.name(), ConfigValueResolver.class)
-                    .throwOnMissingProperty(defaultValue == null)
-                    .throwOnFailedConversion()
-                    .withDefault(defaultValue)
-                    .asList(elementType);
+        if (ip.getType() instanceof ParameterizedType) {
+            Supplier<List<T>> handle = getHandle(config, ip, property -> {
+                // it is an List, get the element type of the List
+                @SuppressWarnings("unchecked")
+                Class<T> elementType = (Class<T>) ((ParameterizedType) ip.getType()).getActualTypeArguments()[0];
+                String defaultValue = property.defaultValue();
+                return () -> config.getValue(property.name(), ConfigValueResolver.class)
+                        .throwOnMissingProperty(defaultValue == null)
+                        .throwOnFailedConversion()
+                        .withDefault(defaultValue)
+                        .asList(elementType);
+            });
+            return copyOfMutable(handle.get());
         }
         return new ArrayList<>();
     }
@@ -146,21 +155,21 @@ public class ConfigProducer {
     @Produces
     @ConfigProperty
     public <T> Optional<T> getOptionalProperty(InjectionPoint ip) {
-        ConfigProperty property = ip.getAnnotated().getAnnotation(ConfigProperty.class);
         Config config = ConfigProvider.getConfig();
 
-        Type type = ip.getType();
-        if (type instanceof ParameterizedType) {
-            // it is an Optional
-            // get the class of the generic parameterized Optional
-            @SuppressWarnings("unchecked")
-            Class<T> valueType = (Class<T>) ((ParameterizedType) type).getActualTypeArguments()[0];
-
-            String defaultValue = property.defaultValue();
-            return config.getValue(property.name(), ConfigValueResolver.class)
-                    .throwOnFailedConversion()
-                    .withDefault(defaultValue)
-                    .as(valueType);
+        if (ip.getType() instanceof ParameterizedType) {
+            Supplier<Optional<T>> handle = getHandle(config, ip, property -> {
+                // it is an Optional
+                // get the class of the generic parameterized Optional
+                @SuppressWarnings("unchecked")
+                Class<T> valueType = (Class<T>) ((ParameterizedType) ip.getType()).getActualTypeArguments()[0];
+                String defaultValue = property.defaultValue();
+                return () -> config.getValue(property.name(), ConfigValueResolver.class)
+                        .throwOnFailedConversion()
+                        .withDefault(defaultValue)
+                        .as(valueType);
+            });
+            return handle.get();
         }
         return Optional.empty();
     }
@@ -175,24 +184,54 @@ public class ConfigProducer {
     @Produces
     @ConfigProperty
     public <T> Supplier<T> getPropertySupplier(InjectionPoint ip) {
-        ConfigProperty property = ip.getAnnotated().getAnnotation(ConfigProperty.class);
         Config config = ConfigProvider.getConfig();
 
-        Type type = ip.getType();
-        if (type instanceof ParameterizedType) {
-            // it is an Optional
-            // get the class of the generic parameterized Optional
-            @SuppressWarnings("unchecked")
-            Class<T> valueType = (Class<T>) ((ParameterizedType) type).getActualTypeArguments()[0];
-
-            String defaultValue = property.defaultValue();
-            return config.getValue(property.name(), ConfigValueResolver.class)
-                    .throwOnFailedConversion()
-                    .withDefault(defaultValue)
-                    .asSupplier(valueType);
+        if (ip.getType() instanceof ParameterizedType) {
+            Supplier<T> handle = getHandle(config, ip, property -> {
+                // it is a Supplier
+                // get the class of the generic parameterized Supplier
+                @SuppressWarnings("unchecked")
+                Class<T> valueType = (Class<T>) ((ParameterizedType) ip.getType()).getActualTypeArguments()[0];
+                String defaultValue = property.defaultValue();
+                return config.getValue(property.name(), ConfigValueResolver.class)
+                        .throwOnFailedConversion()
+                        .withDefault(defaultValue)
+                        .asSupplier(valueType);
+            });
+            return supplierOf(handle);
         }
 
         // Should never be called
         return () -> null;
     }
+
+    /**
+     * Returns the {@link ConfigValueHandle} bound to the member of the injection point, so that injecting the value
+     * again neither reads the annotation nor resolves or converts the value unless its property changed. Without a
+     * {@link PayaraConfig} the returned supplier resolves the value each time.
+     *
+     * @param resolverFactory creates the resolver of the value for the {@link ConfigProperty} of the injection point,
+     *                        only called when the handle is created
+     */
+    private static <T> Supplier<T> getHandle(Config config, InjectionPoint ip,
+            Function<ConfigProperty, Supplier<T>> resolverFactory) {
+        if (!(config instanceof PayaraConfig)) {
+            return resolverFactory.apply(ip.getAnnotated().getAnnotation(ConfigProperty.class));
+        }
+        PayaraConfig payaraConfig = (PayaraConfig) config;
+        Object binding = getBinding(ip);
+        if (binding != null) {
+            return payaraConfig.getValueHandle(binding, key -> createHandle(payaraConfig, ip, resolverFactory));
+        }
+        ConfigProperty property = ip.getAnnotated().getAnnotation(ConfigProperty.class);
+        return payaraConfig.getValueHandle(
+                getHandleKey(ConfigProducer.class, property.name(), ip.getType(), property.defaultValue()),
+                key -> createHandle(payaraConfig, ip, resolverFactory));
+    }
+
+    private static <T> ConfigValueHandle<T> createHandle(PayaraConfig config, InjectionPoint ip,
+            Function<ConfigProperty, Supplier<T>> resolverFactory) {
+        ConfigProperty property = ip.getAnnotated().getAnnotation(ConfigProperty.class);
+        return config.createValueHandle(property.name(), resolverFactory.apply(property));
+    }
 }
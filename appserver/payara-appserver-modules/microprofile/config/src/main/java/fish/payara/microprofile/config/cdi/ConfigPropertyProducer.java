@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,12 +40,18 @@
 package fish.payara.microprofile.config.cdi;
 
 import fish.payara.microprofile.config.cdi.model.ConfigPropertyModel;
+import fish.payara.nucleus.microprofile.config.spi.ConfigValueHandle;
 import fish.payara.nucleus.microprofile.config.spi.ConfigValueResolver;
+import fish.payara.nucleus.microprofile.config.spi.PayaraConfig;
 
 import static fish.payara.nucleus.microprofile.config.spi.ConfigValueResolver.ElementPolicy.FAIL;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalDouble;
@@ -55,6 +61,10 @@ import java.util.Set;
 import java.util.function.Supplier;
 
 import javax.enterprise.context.Dependent;
+import javax.enterprise.inject.spi.Annotated;
+import javax.enterprise.inject.spi.AnnotatedField;
+import javax.enterprise.inject.spi.AnnotatedParameter;
+import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.DeploymentException;
 import javax.enterprise.inject.spi.InjectionPoint;
 
@@ -80,14 +90,46 @@ public class ConfigPropertyProducer {
     @ConfigProperty
     @Dependent
     public static final Object getGenericProperty(InjectionPoint ip) {
-        ConfigPropertyModel property = new ConfigPropertyModel(ip);
-        return getGenericPropertyFromModel(property);
+        Config config = ConfigProvider.getConfig();
+        Object binding = getBinding(ip);
+        if (binding == null || !(config instanceof PayaraConfig)) {
+            return getGenericPropertyFromModel(new ConfigPropertyModel(ip));
+        }
+        ConfigValueHandle<Object> handle = ((PayaraConfig) config).getValueHandle(binding,
+                key -> createHandle((PayaraConfig) config, new ConfigPropertyModel(ip)));
+        return readHandle(ip.getType(), handle);
     }
 
     public static final Object getGenericPropertyFromModel(ConfigPropertyModel property) {
-        Object result = null;
-        
         Config config = ConfigProvider.getConfig();
+        if (!(config instanceof PayaraConfig)) {
+            return resolveProperty(config, property);
+        }
+        Type type = property.getInjectionPoint().getType();
+        String key = getHandleKey(ConfigPropertyProducer.class, property.getName(), type, property.getDefaultValue());
+        ConfigValueHandle<Object> handle = ((PayaraConfig) config).getValueHandle(key,
+                k -> createHandle((PayaraConfig) config, property));
+        return readHandle(type, handle);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConfigValueHandle<Object> createHandle(PayaraConfig config, ConfigPropertyModel property) {
+        if (isSupplier(property.getInjectionPoint().getType())) {
+            return config.createValueHandle(property.getName(), (Supplier<Object>) resolveProperty(config, property));
+        }
+        return config.createValueHandle(property.getName(), () -> resolveProperty(config, property));
+    }
+
+    private static Object readHandle(Type type, ConfigValueHandle<Object> handle) {
+        return isSupplier(type) ? supplierOf(handle) : copyOfMutable(handle.get());
+    }
+
+    private static boolean isSupplier(Type type) {
+        return type instanceof ParameterizedType && Supplier.class.equals(((ParameterizedType) type).getRawType());
+    }
+
+    private static Object resolveProperty(Config config, ConfigPropertyModel property) {
+        Object result = null;
 
         String name = property.getName();
 
@@ -163,6 +205,68 @@ public class ConfigPropertyProducer {
         return result;
     }
 
+    /**
+     * Creates the key of the {@link ConfigValueHandle} of a value that is not injected into a member, like the fields
+     * of {@link org.eclipse.microprofile.config.inject.ConfigProperties} beans. Producers resolving values differently
+     * must use their own keys.
+     */
+    static String getHandleKey(Class<?> producer, String name, Type type, String defaultValue) {
+        return producer.getSimpleName() + ":" + name + ":" + type.getTypeName() + ":" + defaultValue;
+    }
+
+    /**
+     * Returns the key the {@link ConfigValueHandle} of an injection point is bound to, so that injecting the value
+     * again only needs the handle of the member instead of modelling the injection point. Members derive their property
+     * name from the bean class if the name is not given, so members inherited by several beans are bound per bean.
+     * Each member is served by a single producer, so the key does not have to include it.
+     *
+     * @return the key, or null if the injection point is a programmatic lookup that is modelled on each call
+     */
+    static Object getBinding(InjectionPoint ip) {
+        Annotated annotated = ip.getAnnotated();
+        if (annotated == null || !annotated.isAnnotationPresent(ConfigProperty.class)) {
+            return null;
+        }
+        Object member;
+        if (annotated instanceof AnnotatedField) {
+            member = ((AnnotatedField<?>) annotated).getJavaMember();
+        } else if (annotated instanceof AnnotatedParameter) {
+            member = ((AnnotatedParameter<?>) annotated).getJavaParameter();
+        } else {
+            return null;
+        }
+        Bean<?> bean = ip.getBean();
+        return bean == null ? member : new SimpleImmutableEntry<>(bean.getBeanClass(), member);
+    }
+
+    /**
+     * Returns a {@link Supplier} reading the value held by the given handle. Mutable values are copied as they are
+     * shared by all injection points.
+     */
+    static <T> Supplier<T> supplierOf(Supplier<T> handle) {
+        return () -> copyOfMutable(handle.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T copyOfMutable(T value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+            System.arraycopy(value, 0, copy, 0, length);
+            return (T) copy;
+        }
+        if (value instanceof List) {
+            return (T) new ArrayList<>((List<?>) value);
+        }
+        if (value instanceof Set) {
+            return (T) new HashSet<>((Set<?>) value);
+        }
+        return value;
+    }
+
     private static Class<?> getElementTypeFrom(ParameterizedType collectionType) {
         Type elementType = collectionType.getActualTypeArguments()[0];
         if (!(elementType instanceof Class)) {
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2019 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2019-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -90,6 +90,9 @@ public interface FaultToleranceMetrics {
                     : new String[] {"fallback", "notDefined"};
             register(MetricType.COUNTER, "ft.invocations.total", new String[][]{
                 {"result", "valueReturned", "exceptionThrown"}, fallbackTag});
+            if (policy.isAsynchronous()) {
+                registerVendor(MetricType.HISTOGRAM, "ft.asynchronous.waitingDuration");
+            }
             if (policy.isRetryPresent()) {
                 List<String> retryResultTag = new ArrayList<>(asList("retryResult", "valueReturned", "exceptionNotRetryable"));
                 if (policy.retry.isMaxRetriesSet()) {
@@ -115,6 +118,8 @@ public interface FaultToleranceMetrics {
                 register("ft.circuitbreaker.state.total", MetricUnits.NANOSECONDS, state::nanosHalfOpen, "state", "halfOpen");
                 register("ft.circuitbreaker.state.total", MetricUnits.NANOSECONDS, state::nanosClosed, "state", "closed");
                 register(MetricType.COUNTER, "ft.circuitbreaker.opened.total");
+                registerVendor(MetricType.HISTOGRAM, "ft.circuitbreaker.transitionDuration", new String[][] {
+                    {"state", "open", "halfOpen", "closed"}});
             }
             if (policy.isBulkheadPresent()) {
                 register(MetricType.COUNTER, "ft.bulkhead.calls.total", new String[][] {
@@ -152,6 +157,20 @@ public interface FaultToleranceMetrics {
         //NOOP
     }
 
+    /**
+     * Registration of metrics that are not defined by the Fault Tolerance specification:
+     *
+     * Same as {@link #register(MetricType, String, String[]...)} but in the vendor scope, so that the spec owned
+     * {@code ft.} metrics of the base scope stay as defined by the specification.
+     *
+     * @param type {@link MetricType#COUNTER} (assumes no unit) or {@link MetricType#HISTOGRAM} (assumes {@link MetricUnits#NANOSECONDS})
+     * @param metric name of the metric(s)
+     * @param tags tag name and possible values
+     */
+    default void registerVendor(MetricType type, String metric, String[]... tags) {
+        //NOOP
+    }
+
     /**
      * Gauge registration:
      *
@@ -223,6 +242,19 @@ public interface FaultToleranceMetrics {
     }
 
 
+    /*
+     * @Asynchronous
+     */
+
+    /**
+     * Histogram of the time asynchronous executions of the method spent waiting to be run
+     *
+     * @param nanos Nanoseconds
+     */
+    default void addAsynchronousWaitingDuration(long nanos) {
+        addToHistogram("ft.asynchronous.waitingDuration", nanos);
+    }
+
     /*
      * @Retry
      */
@@ -365,6 +397,27 @@ public interface FaultToleranceMetrics {
         incrementCounter("ft.circuitbreaker.opened.total");
     }
 
+    /**
+     * Histogram of the time the circuit breaker spent in a state before it transitioned to another state
+     *
+     * @param state the state the circuit breaker left
+     * @param nanos Nanoseconds
+     */
+    default void addCircuitbreakerTransitionDuration(CircuitBreakerState.CircuitState state, long nanos) {
+        String stateTag;
+        switch (state) {
+        case OPEN:
+            stateTag = "open";
+            break;
+        case HALF_OPEN:
+            stateTag = "halfOpen";
+            break;
+        default:
+            stateTag = "closed";
+        }
+        addToHistogram("ft.circuitbreaker.transitionDuration", nanos, new Tag("state", stateTag));
+    }
+
     /*
      * @Bulkhead
      */
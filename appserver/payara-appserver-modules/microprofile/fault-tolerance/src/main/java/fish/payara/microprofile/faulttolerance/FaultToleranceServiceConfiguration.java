@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -60,4 +60,27 @@ public interface FaultToleranceServiceConfiguration extends ConfigExtension {
     public String getManagedScheduledExecutorService();
     public void setManagedScheduledExecutorService(String managedScheduledExecutorServiceName);
 
+    /**
+     * @return the maximum number of asynchronous executions of a single method running concurrently, zero for no limit
+     */
+    @Attribute(defaultValue = "0", dataType = Integer.class)
+    public String getMaxConcurrentAsynchronousExecutions();
+    public void setMaxConcurrentAsynchronousExecutions(String maxConcurrentAsynchronousExecutions);
+
+    /**
+     * @return the maximum number of asynchronous executions of a single method waiting for a running one to complete
+     * when {@link #getMaxConcurrentAsynchronousExecutions()} is limited
+     */
+    @Attribute(defaultValue = "1000", dataType = Integer.class)
+    public String getMaxQueuedAsynchronousExecutions();
+    public void setMaxQueuedAsynchronousExecutions(String maxQueuedAsynchronousExecutions);
+
+    /**
+     * @return true if asynchronous executions should run on virtual threads when supported by the JDK instead of the
+     * managed executor service
+     */
+    @Attribute(defaultValue = "false", dataType = Boolean.class)
+    public String getVirtualThreadsEnabled();
+    public void setVirtualThreadsEnabled(String virtualThreadsEnabled);
+
 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -80,7 +80,10 @@ public class GetFaultToleranceConfigurationCommand implements AdminCommand {
 
     private final String OUTPUT_HEADERS[] = {
         "Managed Executor Service Name",
-        "Managed Scheduled Executor Service Name"
+        "Managed Scheduled Executor Service Name",
+        "Max Concurrent Asynchronous Executions",
+        "Max Queued Asynchronous Executions",
+        "Virtual Threads Enabled"
     };
 
     @Inject
@@ -105,7 +108,10 @@ public class GetFaultToleranceConfigurationCommand implements AdminCommand {
         ColumnFormatter columnFormatter = new ColumnFormatter(OUTPUT_HEADERS);
         Object[] outputValues = {
             config.getManagedExecutorService(),
-            config.getManagedScheduledExecutorService()
+            config.getManagedScheduledExecutorService(),
+            config.getMaxConcurrentAsynchronousExecutions(),
+            config.getMaxQueuedAsynchronousExecutions(),
+            config.getVirtualThreadsEnabled()
         };
         columnFormatter.addRow(outputValues);
 
@@ -114,6 +120,9 @@ public class GetFaultToleranceConfigurationCommand implements AdminCommand {
         Map<String, Object> extraPropertiesMap = new HashMap<>();
         extraPropertiesMap.put("managedExecutorServiceName", config.getManagedExecutorService());
         extraPropertiesMap.put("managedScheduledExecutorServiceName", config.getManagedScheduledExecutorService());
+        extraPropertiesMap.put("maxConcurrentAsynchronousExecutions", config.getMaxConcurrentAsynchronousExecutions());
+        extraPropertiesMap.put("maxQueuedAsynchronousExecutions", config.getMaxQueuedAsynchronousExecutions());
+        extraPropertiesMap.put("virtualThreadsEnabled", config.getVirtualThreadsEnabled());
         Properties extraProperties = new Properties();
         extraProperties.put("faultToleranceConfiguration", extraPropertiesMap);
         acc.getActionReport().setExtraProperties(extraProperties);
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -92,6 +92,15 @@ public class SetFaultToleranceConfigurationCommand implements AdminCommand {
     @Param(optional = true, alias = "managedscheduledexecutorservicename")
     private String managedScheduledExecutorServiceName;
 
+    @Param(optional = true, alias = "maxconcurrentasynchronousexecutions")
+    private Integer maxConcurrentAsynchronousExecutions;
+
+    @Param(optional = true, alias = "maxqueuedasynchronousexecutions")
+    private Integer maxQueuedAsynchronousExecutions;
+
+    @Param(optional = true, alias = "virtualthreadsenabled")
+    private Boolean virtualThreadsEnabled;
+
     @Param(optional = true, defaultValue = "server-config")
     private String target;
 
@@ -120,6 +129,15 @@ public class SetFaultToleranceConfigurationCommand implements AdminCommand {
                         && validateManagedScheduledExecutor(managedScheduledExecutorServiceName, report)) {
                     configProxy.setManagedScheduledExecutorService(managedScheduledExecutorServiceName);
                 }
+                if (maxConcurrentAsynchronousExecutions != null) {
+                    configProxy.setMaxConcurrentAsynchronousExecutions(maxConcurrentAsynchronousExecutions.toString());
+                }
+                if (maxQueuedAsynchronousExecutions != null) {
+                    configProxy.setMaxQueuedAsynchronousExecutions(maxQueuedAsynchronousExecutions.toString());
+                }
+                if (virtualThreadsEnabled != null) {
+                    configProxy.setVirtualThreadsEnabled(virtualThreadsEnabled.toString());
+                }
                 return null;
             }, faultToleranceServiceConfiguration);
         } catch (TransactionFailure ex) {
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2019-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2019-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -71,6 +71,7 @@ import fish.payara.microprofile.faulttolerance.FaultToleranceMethodContext.Async
 import fish.payara.microprofile.faulttolerance.FaultToleranceService;
 import fish.payara.microprofile.faulttolerance.FaultToleranceMetrics;
 import fish.payara.microprofile.faulttolerance.state.CircuitBreakerState;
+import fish.payara.microprofile.faulttolerance.state.CircuitBreakerState.CircuitState;
 
 /**
  * The {@link FaultTolerancePolicy} describes the effective aggregated policies to use for a particular {@link Method}
@@ -463,14 +464,18 @@ public final class FaultTolerancePolicy implements Serializable {
                 if (circuitBreaker.isFailure(ex)) {
                     invocation.metrics.incrementCircuitbreakerCallsFailedTotal();
                     logger.log(Level.FINE, "Exception causes CircuitBreaker to transit: half-open => open");
-                    openCircuit(invocation, state);
+                    openCircuit(invocation, state, CircuitState.HALF_OPEN);
                 } else {
                     invocation.metrics.incrementCircuitbreakerCallsSucceededTotal();
                 }
                 throw ex;
             }
-            if (state.halfOpenSuccessfulClosedCircuit(circuitBreaker.successThreshold)) {
-                logger.log(Level.FINE, "Success threshold causes CircuitBreaker to transit: half-open => closed");
+            if (state.incrementHalfOpenSuccessfulResultCounter() == circuitBreaker.successThreshold) {
+                long nanosHalfOpen = state.transition(CircuitState.HALF_OPEN, CircuitState.CLOSED);
+                if (nanosHalfOpen >= 0L) {
+                    logger.log(Level.FINE, "Success threshold causes CircuitBreaker to transit: half-open => closed");
+                    invocation.metrics.addCircuitbreakerTransitionDuration(CircuitState.HALF_OPEN, nanosHalfOpen);
+                }
             }
             invocation.metrics.incrementCircuitbreakerCallsSucceededTotal();
             return resultValue;
@@ -492,7 +497,7 @@ public final class FaultTolerancePolicy implements Serializable {
             }
             if (state.isOverFailureThreshold()) {
                 logger.log(Level.FINE, "Failure threshold causes CircuitBreaker to transit: closed => open");
-                openCircuit(invocation, state);
+                openCircuit(invocation, state, CircuitState.CLOSED);
             }
             if (failedOn != null) {
                 rethrow(failedOn);
@@ -502,13 +507,31 @@ public final class FaultTolerancePolicy implements Serializable {
         }
     }
 
-    private void openCircuit(FaultToleranceInvocation invocation, CircuitBreakerState state) throws Exception {
-        invocation.metrics.incrementCircuitbreakerOpenedTotal();
-        state.open();
+    /**
+     * Opens the circuit unless another invocation already did so concurrently in which case this other invocation
+     * also takes care of the transition to half-open.
+     */
+    private void openCircuit(FaultToleranceInvocation invocation, CircuitBreakerState state, CircuitState from)
+            throws Exception {
+        long nanosInPreviousState = state.transition(from, CircuitState.OPEN);
+        if (nanosInPreviousState < 0L) {
+            return;
+        }
+        FaultToleranceMetrics metrics = invocation.metrics;
+        metrics.incrementCircuitbreakerOpenedTotal();
+        metrics.addCircuitbreakerTransitionDuration(from, nanosInPreviousState);
         if (circuitBreaker.delay == 0L) {
-            state.halfOpen();
+            halfOpenCircuit(metrics, state);
         } else {
-            invocation.context.runDelayed(circuitBreaker.delay, state::halfOpen);
+            invocation.context.runDelayed(circuitBreaker.delay, () -> halfOpenCircuit(metrics, state));
+        }
+    }
+
+    private static void halfOpenCircuit(FaultToleranceMetrics metrics, CircuitBreakerState state) {
+        logger.log(Level.FINE, "Setting CircuitBreaker state to half open");
+        long nanosOpen = state.transition(CircuitState.OPEN, CircuitState.HALF_OPEN);
+        if (nanosOpen >= 0L) {
+            metrics.addCircuitbreakerTransitionDuration(CircuitState.OPEN, nanosOpen);
         }
     }
 
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -47,7 +47,6 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
@@ -96,7 +95,7 @@ public final class FaultToleranceMethodContextImpl implements FaultToleranceMeth
         final RequestContextController requestContext;
         final FaultToleranceRequestTracing requestTracing;
         final FaultToleranceMetrics metrics;
-        final ExecutorService asyncExecution;
+        final MethodExecutor asyncExecution;
         final ScheduledExecutorService delayedExecution;
         final AtomicReference<CircuitBreakerState> circuitBreakerState = new AtomicReference<>();
         final AtomicReference<BlockingQueue<Thread>> concurrentExecutions = new AtomicReference<>();
@@ -105,7 +104,7 @@ public final class FaultToleranceMethodContextImpl implements FaultToleranceMeth
         final AtomicLong lastUsed = new AtomicLong(currentTimeMillis());
 
         FaultToleranceMethodState(RequestContextController requestContext, FaultToleranceRequestTracing requestTracing,
-                                  FaultToleranceMetrics metrics, ExecutorService asyncExecution,
+                                  FaultToleranceMetrics metrics, MethodExecutor asyncExecution,
                                   ScheduledExecutorService delayedExecution) {
             this.requestContext = requestContext;
             this.requestTracing = requestTracing;
@@ -128,8 +127,8 @@ public final class FaultToleranceMethodContextImpl implements FaultToleranceMeth
         return appName;
     }
 
-    public FaultToleranceMethodContextImpl(RequestContextController requestContext, FaultToleranceRequestTracing requestTracing, FaultToleranceMetrics metrics,
-                                           ExecutorService asyncExecution, ScheduledExecutorService delayedExecution, String appName) {
+    FaultToleranceMethodContextImpl(RequestContextController requestContext, FaultToleranceRequestTracing requestTracing, FaultToleranceMetrics metrics,
+                                           MethodExecutor asyncExecution, ScheduledExecutorService delayedExecution, String appName) {
         this(new FaultToleranceMethodState(requestContext, requestTracing, metrics, asyncExecution, delayedExecution
         ), appName, null, null);
     }
@@ -244,7 +243,18 @@ public final class FaultToleranceMethodContextImpl implements FaultToleranceMeth
                 }
             }
         };
-        shared.asyncExecution.submit(completionTask);
+        FaultToleranceMetrics metrics = getMetrics();
+        shared.asyncExecution.execute(completionTask, metrics::addAsynchronousWaitingDuration, ex -> {
+            asyncResult.setExceptionThrown(true);
+            asyncResult.completeExceptionally(ex);
+        });
+    }
+
+    /**
+     * @return the number of asynchronous executions of the method that wait for a running one to complete
+     */
+    int getQueuedAsynchronousExecutions() {
+        return shared.asyncExecution.getQueued();
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017-2021 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -62,6 +62,8 @@ import org.jvnet.hk2.annotations.ContractsProvided;
 import org.jvnet.hk2.annotations.Service;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.concurrent.ContextService;
 import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.concurrent.ManagedScheduledExecutorService;
 import javax.enterprise.context.control.RequestContextController;
@@ -106,8 +108,12 @@ public class FaultToleranceServiceImpl
 
     private final ConcurrentMap<MethodKey, FaultToleranceMethodContextImpl> contextByMethod = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, BindableFaultToleranceConfig> configByAppName = new ConcurrentHashMap<>();
-    private ExecutorService asyncExecutorService;
+    private Executor asyncExecutorService;
+    // only set when asynchronous executions run on virtual threads, as it is not managed by the server
+    private ExecutorService virtualThreadExecutorService;
     private ScheduledExecutorService delayExecutorService;
+    private int maxConcurrentAsynchronousExecutions;
+    private int maxQueuedAsynchronousExecutions;
 
     @PostConstruct
     public void postConstruct() {
@@ -119,11 +125,47 @@ public class FaultToleranceServiceImpl
             InitialContext context = new InitialContext();
             asyncExecutorService = (ManagedExecutorService) context.lookup(config.getManagedExecutorService());
             delayExecutorService = (ManagedScheduledExecutorService) context.lookup(config.getManagedScheduledExecutorService());
+            maxConcurrentAsynchronousExecutions = Integer.parseInt(config.getMaxConcurrentAsynchronousExecutions());
+            maxQueuedAsynchronousExecutions = Integer.parseInt(config.getMaxQueuedAsynchronousExecutions());
+            if (Boolean.parseBoolean(config.getVirtualThreadsEnabled())) {
+                ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+                if (virtualThreads == null) {
+                    logger.log(Level.WARNING, "Virtual threads are not supported by this JDK, using {0} for asynchronous executions.",
+                            config.getManagedExecutorService());
+                } else {
+                    virtualThreadExecutorService = virtualThreads;
+                    // virtual threads are not managed so the invocation context needs to be propagated explicitly
+                    ContextService contextService = (ContextService) context.lookup("java:comp/DefaultContextService");
+                    asyncExecutorService = task -> virtualThreads.execute(contextService.createContextualProxy(task, Runnable.class));
+                }
+            }
         } catch (NamingException namingException) {
             throw new RuntimeException("Error initialising Fault Tolerance Service: could not perform lookup for configured managed-executor-service or managed-scheduled-executor-service.", namingException);
         }
     }
 
+    @PreDestroy
+    public void preDestroy() {
+        if (virtualThreadExecutorService != null) {
+            virtualThreadExecutorService.shutdown();
+            virtualThreadExecutorService = null;
+        }
+    }
+
+    /**
+     * Virtual threads are only available on newer JDKs which is why the factory method is resolved reflectively.
+     *
+     * @return a new {@link ExecutorService} running each task on a new virtual thread, or null if not supported
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            logger.log(Level.FINE, "Virtual threads not available", ex);
+            return null;
+        }
+    }
+
     @Override
     public void event(Event<?> event) {
         if (event.is(Deployment.APPLICATION_UNLOADED)) {
@@ -146,6 +188,7 @@ public class FaultToleranceServiceImpl
                 collectBulkheadSemaphores(methodCollector, concurrentExecutions, context.getQueuingOrRunningPopulation());
             }
             collectCircuitBreakerState(methodCollector, context.getState());
+            methodCollector.collect("AsynchronousQueuePopulation", methodEntry.getValue().getQueuedAsynchronousExecutions());
         }
     }
 
@@ -238,19 +281,33 @@ public class FaultToleranceServiceImpl
     public FaultToleranceMethodContext getMethodContext(InvocationContext context, FaultTolerancePolicy policy,
             RequestContextController requestContextController) {
         return contextByMethod.computeIfAbsent(new MethodKey(context),
-                methodKey -> createMethodContext(methodKey, context, requestContextController)).boundTo(context, policy);
+                methodKey -> createMethodContext(methodKey, context, policy, requestContextController)).boundTo(context, policy);
     }
 
     private FaultToleranceMethodContextImpl createMethodContext(MethodKey methodKey, InvocationContext context,
-            RequestContextController requestContextController) {
+            FaultTolerancePolicy policy, RequestContextController requestContextController) {
         MetricsService.MetricsContext metricsContext = getMetricsContext();
         MetricRegistry metricRegistry = metricsContext != null ? metricsContext.getBaseRegistry() : null;
         String appName = metricsContext != null ? metricsContext.getName() : "";
         FaultToleranceMetrics metrics = metricRegistry == null
                 ? FaultToleranceMetrics.DISABLED
-                : new MethodFaultToleranceMetrics(metricRegistry, FaultToleranceUtils.getCanonicalMethodName(context));
+                : new MethodFaultToleranceMetrics(metricRegistry, metricsContext.getVendorRegistry(),
+                        FaultToleranceUtils.getCanonicalMethodName(context));
         logger.log(Level.FINE, "Creating FT method context for {0}", methodKey);
-        return new FaultToleranceMethodContextImpl(requestContextController, this, metrics, asyncExecutorService,
-                delayExecutorService, appName);
+        return new FaultToleranceMethodContextImpl(requestContextController, this, metrics,
+                createMethodExecutor(policy), delayExecutorService, appName);
+    }
+
+    /**
+     * Each method gets its own {@link MethodExecutor} so that a method with many asynchronous executions cannot occupy
+     * all threads of the shared executor. The limit never is lower than what the method's bulkhead admits as the
+     * bulkhead semantics are applied as part of the execution.
+     */
+    private MethodExecutor createMethodExecutor(FaultTolerancePolicy policy) {
+        int maxConcurrency = maxConcurrentAsynchronousExecutions;
+        if (maxConcurrency > 0 && policy.isBulkheadPresent()) {
+            maxConcurrency = Math.max(maxConcurrency, policy.bulkhead.value + policy.bulkhead.waitingTaskQueue);
+        }
+        return new MethodExecutor(asyncExecutorService, maxConcurrency, maxQueuedAsynchronousExecutions);
     }
 }
@@ -0,0 +1,189 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.faulttolerance.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@link MethodExecutor} runs the asynchronous executions of a single FT annotated method on a shared
+ * {@link Executor} while limiting the number of executions of that method running concurrently. Executions beyond the
+ * limit wait in a bounded queue owned by the method and are dispatched as running executions complete, so that they
+ * do not occupy threads of the shared {@link Executor} while waiting and one method cannot starve all others.
+ *
+ * Admission is non-blocking: an execution is either accepted or rejected with a {@link RejectedExecutionException}
+ * right away. Should the shared {@link Executor} reject an execution that was queued before it gets notified via
+ * the callback given on submission.
+ */
+final class MethodExecutor {
+
+    private static final Logger logger = Logger.getLogger(MethodExecutor.class.getName());
+
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final int maxPopulation;
+    private final Queue<QueuedExecution> queue = new ConcurrentLinkedQueue<>();
+    /**
+     * Number of executions that are either queued or running.
+     */
+    private final AtomicInteger population = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+
+    /**
+     * @param executor the shared {@link Executor} that runs the executions
+     * @param maxConcurrency maximum number of executions running concurrently, zero or less for no limit
+     * @param maxQueued maximum number of executions waiting for a running execution to complete
+     */
+    MethodExecutor(Executor executor, int maxConcurrency, int maxQueued) {
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.maxPopulation = maxConcurrency + Math.max(0, maxQueued);
+    }
+
+    /**
+     * Runs the given task asynchronously.
+     *
+     * @param task the operation to run
+     * @param waitingDuration receives the nanoseconds the task waited before it started running
+     * @param rejected receives the exception in case the task was queued but then was not accepted by the shared
+     *                 {@link Executor}
+     * @throws RejectedExecutionException in case the queue of the method is full or, when the method has no limit,
+     *                                    the shared {@link Executor} did not accept the task
+     */
+    void execute(Runnable task, LongConsumer waitingDuration, Consumer<RejectedExecutionException> rejected)
+            throws RejectedExecutionException {
+        QueuedExecution execution = new QueuedExecution(task, waitingDuration, rejected);
+        if (maxConcurrency <= 0) {
+            executor.execute(execution);
+            return;
+        }
+        int currentPopulation;
+        do {
+            currentPopulation = population.get();
+            if (currentPopulation >= maxPopulation) {
+                throw new RejectedExecutionException("No free execution or queue space.");
+            }
+        } while (!population.compareAndSet(currentPopulation, currentPopulation + 1));
+        queue.add(execution);
+        dispatch();
+    }
+
+    /**
+     * @return the number of executions waiting to run
+     */
+    int getQueued() {
+        return maxConcurrency <= 0 ? 0 : Math.max(0, population.get() - running.get());
+    }
+
+    /**
+     * @return the number of executions running
+     */
+    int getRunning() {
+        return running.get();
+    }
+
+    private void dispatch() {
+        while (true) {
+            int currentlyRunning = running.get();
+            if (currentlyRunning >= maxConcurrency) {
+                return; // a running execution will dispatch on completion
+            }
+            if (!running.compareAndSet(currentlyRunning, currentlyRunning + 1)) {
+                continue;
+            }
+            QueuedExecution next = queue.poll();
+            if (next == null) {
+                running.decrementAndGet();
+                if (queue.isEmpty()) {
+                    return;
+                }
+                continue; // added concurrently after poll but before the slot was released
+            }
+            try {
+                executor.execute(() -> runAndDispatch(next));
+            } catch (RejectedExecutionException ex) {
+                running.decrementAndGet();
+                population.decrementAndGet();
+                next.rejected.accept(ex);
+            }
+        }
+    }
+
+    private void runAndDispatch(QueuedExecution execution) {
+        try {
+            execution.run();
+        } finally {
+            running.decrementAndGet();
+            population.decrementAndGet();
+            try {
+                dispatch();
+            } catch (RuntimeException ex) {
+                logger.log(Level.WARNING, "Failed to dispatch queued asynchronous execution.", ex);
+            }
+        }
+    }
+
+    private static final class QueuedExecution implements Runnable {
+
+        private final Runnable task;
+        private final LongConsumer waitingDuration;
+        private final Consumer<RejectedExecutionException> rejected;
+        private final long queuedSince = System.nanoTime();
+
+        QueuedExecution(Runnable task, LongConsumer waitingDuration, Consumer<RejectedExecutionException> rejected) {
+            this.task = task;
+            this.waitingDuration = waitingDuration;
+            this.rejected = rejected;
+        }
+
+        @Override
+        public void run() {
+            waitingDuration.accept(Math.max(1, System.nanoTime() - queuedSince));
+            task.run();
+        }
+    }
+}
@@ -70,6 +70,7 @@ import fish.payara.microprofile.faulttolerance.policy.FaultTolerancePolicy;
 public final class MethodFaultToleranceMetrics implements FaultToleranceMetrics {
 
     private final MetricRegistry registry;
+    private final MetricRegistry vendorRegistry;
     /**
      * This is "cached" as soon as an instance is bound using the
      * {@link #FaultToleranceMetricsFactory(MetricRegistry, String)} constructor.
@@ -81,14 +82,21 @@ public final class MethodFaultToleranceMetrics implements FaultToleranceMetrics
     private FallbackUsage fallbackUsage;
     private boolean retried;
 
-    public MethodFaultToleranceMetrics(MetricRegistry registry, String canonicalMethodName) {
-        this(registry, canonicalMethodName, FallbackUsage.notDefined, new AtomicBoolean(), new ConcurrentHashMap<>(),
-                new ConcurrentHashMap<>());
+    /**
+     * @param registry the base scope registry of the spec defined metrics
+     * @param vendorRegistry the vendor scope registry of the metrics not defined by the specification
+     * @param canonicalMethodName the name of the method used as {@code method} tag
+     */
+    public MethodFaultToleranceMetrics(MetricRegistry registry, MetricRegistry vendorRegistry, String canonicalMethodName) {
+        this(registry, vendorRegistry, canonicalMethodName, FallbackUsage.notDefined, new AtomicBoolean(),
+                new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
     }
 
-    private MethodFaultToleranceMetrics(MetricRegistry registry, String canonicalMethodName, FallbackUsage fallbackUsage,
-            AtomicBoolean registered, Map<MetricID, Counter> countersByMetricID, Map<MetricID, Histogram> histogramsByMetricID) {
+    private MethodFaultToleranceMetrics(MetricRegistry registry, MetricRegistry vendorRegistry, String canonicalMethodName,
+            FallbackUsage fallbackUsage, AtomicBoolean registered, Map<MetricID, Counter> countersByMetricID,
+            Map<MetricID, Histogram> histogramsByMetricID) {
         this.registry = registry;
+        this.vendorRegistry = vendorRegistry;
         this.canonicalMethodName = canonicalMethodName;
         this.fallbackUsage = fallbackUsage;
         this.registered = registered;
@@ -107,7 +115,7 @@ public final class MethodFaultToleranceMetrics implements FaultToleranceMetrics
         if (registered.compareAndSet(false, true)) {
             FaultToleranceMetrics.super.boundTo(context, policy); // trigger registration if needed
         }
-        return new MethodFaultToleranceMetrics(registry, canonicalMethodName,
+        return new MethodFaultToleranceMetrics(registry, vendorRegistry, canonicalMethodName,
                 policy.isFallbackPresent() ? FallbackUsage.notApplied : FallbackUsage.notDefined,
                 registered, countersByMetricID, histogramsByMetricID);
     }
@@ -118,14 +126,23 @@ public final class MethodFaultToleranceMetrics implements FaultToleranceMetrics
 
     @Override
     public void register(MetricType type, String metric, String[]... tagsPermutations) {
+        register(registry, type, metric, tagsPermutations);
+    }
+
+    @Override
+    public void registerVendor(MetricType type, String metric, String[]... tagsPermutations) {
+        register(vendorRegistry, type, metric, tagsPermutations);
+    }
+
+    private void register(MetricRegistry target, MetricType type, String metric, String[]... tagsPermutations) {
         if (type == MetricType.COUNTER) {
             registerPermutations(tagsPermutations, tags ->
                 countersByMetricID.computeIfAbsent(withMethodTag(metric, tags),
-                    key -> registry.counter(key)));
+                    key -> target.counter(key)));
         } else if (type == MetricType.HISTOGRAM) {
             registerPermutations(tagsPermutations, tags ->
                 histogramsByMetricID.computeIfAbsent(withMethodTag(metric, tags),
-                    key -> registry.histogram(withUnit(key, NANOSECONDS), key.getTagsAsArray())));
+                    key -> target.histogram(withUnit(key, NANOSECONDS), key.getTagsAsArray())));
         } else {
             throw new UnsupportedOperationException("Only counter and histogram are supported but got: " + type);
         }
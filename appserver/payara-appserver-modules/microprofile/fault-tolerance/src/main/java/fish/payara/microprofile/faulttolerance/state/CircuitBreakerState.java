@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2017-2018] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -39,14 +39,22 @@
  */
 package fish.payara.microprofile.faulttolerance.state;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Class that represents the state of a CircuitBreaker.
+ * <p>
+ * The state is lock-free as every guarded invocation passes through it. The outcomes of the closed circuit are kept
+ * in a ring of bits (a set bit is a failure) packed into longs that are updated by CAS, while the number of failures
+ * within the ring is maintained along with the bits so that checking the failure threshold does not need to scan the
+ * ring. State transitions swap an immutable {@link StateTime} by CAS so that out of a number of threads attempting
+ * the same transition only one succeeds.
+ *
  * @author Andrew Pielage
  * @author Jan Bernitt (2.0)
  */
@@ -58,21 +66,20 @@ public class CircuitBreakerState {
         OPEN, CLOSED, HALF_OPEN
     }
 
+    private final int requestVolumeThreshold;
     private final int failureThreshold;
     private final AtomicInteger halfOpenSuccessfulResultsCounter = new AtomicInteger(0);
-    private final Map<CircuitState, StateTime> allStateTimes = new ConcurrentHashMap<>(CircuitState.values().length);
-    private volatile StateTime currentStateTime;
-    private final boolean[] failureBuffer;
-    private int failureIndex = 0;
-    private long outcomeUpdates = 0L;
+    private final AtomicLongArray nanosByState = new AtomicLongArray(CircuitState.values().length);
+    private final AtomicReference<StateTime> currentStateTime;
+    private final AtomicLongArray failureBits;
+    private final AtomicInteger failures = new AtomicInteger(0);
+    private final AtomicLong outcomeUpdates = new AtomicLong(0L);
 
     public CircuitBreakerState(int requestVolumeThreshold, double failureRatio) {
-        this.failureBuffer = new boolean[Math.max(0, requestVolumeThreshold)];
+        this.requestVolumeThreshold = Math.max(0, requestVolumeThreshold);
+        this.failureBits = new AtomicLongArray((this.requestVolumeThreshold + 63) / 64);
         this.failureThreshold = (int) Math.round(requestVolumeThreshold * failureRatio);
-        for(CircuitState state : CircuitState.values()) {
-            this.allStateTimes.put(state, new StateTime(state));
-        }
-        this.currentStateTime = this.allStateTimes.get(CircuitState.CLOSED);
+        this.currentStateTime = new AtomicReference<>(new StateTime(CircuitState.CLOSED, System.nanoTime()));
     }
 
     /**
@@ -80,7 +87,7 @@ public class CircuitBreakerState {
      * @return The current circuit state
      */
     public CircuitState getCircuitState() {
-        return this.currentStateTime.state();
+        return this.currentStateTime.get().state();
     }
 
     /**
@@ -88,48 +95,85 @@ public class CircuitBreakerState {
      * @param circuitState The state to set the CircuitBreaker to.
      */
     public void setCircuitState(CircuitState circuitState) {
-        this.currentStateTime.update();
-        if (!this.currentStateTime.is(circuitState)) {
-            StateTime nextStateTime = allStateTimes.get(circuitState);
-            nextStateTime.reset();
-            this.currentStateTime = nextStateTime;
+        StateTime current = currentStateTime.get();
+        while (!current.is(circuitState) && transition(current.state(), circuitState) < 0L) {
+            current = currentStateTime.get();
         }
     }
 
+    /**
+     * Changes the state from the given to the given target state if the circuit is currently in the given state.
+     * When several threads attempt the same transition concurrently only one of them succeeds.
+     *
+     * @param from The state the circuit is expected to be in
+     * @param to The state to change to
+     * @return The amount of nanos the circuit has been in the state it left, or -1 if the circuit was not in the
+     *         expected state (anymore) and therefore was not changed by this call
+     */
+    public long transition(CircuitState from, CircuitState to) {
+        StateTime current = currentStateTime.get();
+        if (from == to || !current.is(from)) {
+            return -1L;
+        }
+        long now = System.nanoTime();
+        if (!currentStateTime.compareAndSet(current, new StateTime(to, now))) {
+            return -1L;
+        }
+        long nanos = current.nanosUntil(now);
+        nanosByState.addAndGet(from.ordinal(), nanos);
+        if (to == CircuitState.OPEN) {
+            resetHalfOpenSuccessfulResultCounter();
+        } else if (to == CircuitState.CLOSED) {
+            resetHalfOpenSuccessfulResultCounter();
+            resetResults();
+        }
+        return nanos;
+    }
+
     /**
      * Records a success or failure result to the CircuitBreaker.
      * @param success True for a success, false for a failure
      */
-    public synchronized void recordClosedOutcome(boolean success) {
-        failureBuffer[failureIndex] = !success;
-        failureIndex = (failureIndex + 1) % failureBuffer.length;
-        outcomeUpdates++;
+    public void recordClosedOutcome(boolean success) {
+        if (requestVolumeThreshold == 0) {
+            return;
+        }
+        int index = (int) (outcomeUpdates.getAndIncrement() % requestVolumeThreshold);
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long bits;
+        long newBits;
+        do {
+            bits = failureBits.get(word);
+            newBits = success ? bits & ~mask : bits | mask;
+            if (newBits == bits) {
+                return; // same outcome as the one overwritten
+            }
+        } while (!failureBits.compareAndSet(word, bits, newBits));
+        failures.addAndGet(success ? -1 : 1);
     }
 
-    public synchronized boolean isClosedOutcomeSuccessOnly() {
-        if (failureBuffer.length == 0 || outcomeUpdates < failureBuffer.length) {
+    public boolean isClosedOutcomeSuccessOnly() {
+        if (requestVolumeThreshold == 0 || outcomeUpdates.get() < requestVolumeThreshold) {
             return false;
         }
-        for (boolean failure : failureBuffer) {
-            if (failure)
-                return false;
-        }
-        return true;
+        return failures.get() == 0;
     }
 
     /**
      * Clears the results queue.
      */
-    public synchronized void resetResults() {
-        failureIndex = 0;
-        outcomeUpdates = 0L;
+    public void resetResults() {
+        outcomeUpdates.set(0L);
     }
 
     /**
      * Increments the successful results counter for the half open state.
+     *
+     * @return The number of consecutive successful results including this one.
      */
-    public void incrementHalfOpenSuccessfulResultCounter() {
-        this.halfOpenSuccessfulResultsCounter.incrementAndGet();
+    public int incrementHalfOpenSuccessfulResultCounter() {
+        return this.halfOpenSuccessfulResultsCounter.incrementAndGet();
     }
 
     /**
@@ -150,32 +194,27 @@ public class CircuitBreakerState {
     /**
      * Checks to see if the CircuitBreaker is over the given failure threshold.
      */
-    public synchronized boolean isOverFailureThreshold() {
+    public boolean isOverFailureThreshold() {
         // Only check if the queue is full
-        if (outcomeUpdates < failureBuffer.length) {
+        if (outcomeUpdates.get() < requestVolumeThreshold) {
             logger.log(Level.FINE, "CircuitBreaker results queue isn't full yet.");
             return false;
         }
-        int failures = 0;
-        for (boolean failure : failureBuffer) {
-            if (failure) {
-                failures++;
-                if (failures >= failureThreshold) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        int failureCount = failures.get();
+        return failureCount > 0 && failureCount >= failureThreshold;
     }
 
     /**
-     * Updates if the current state equals the provided and returns the amount of nanos.
+     * Returns the amount of nanos the circuit has been in the provided state in total, including the time in the
+     * current state if the circuit is currently in the provided state.
      * @return The amount of nanos.
      */
     public long updateAndGet(CircuitState circuitState) {
-        return this.currentStateTime.is(circuitState)
-                ? this.currentStateTime.update()
-                : this.allStateTimes.get(circuitState).nanos();
+        StateTime current = currentStateTime.get();
+        long nanos = nanosByState.get(circuitState.ordinal());
+        return current.is(circuitState)
+                ? nanos + current.nanosUntil(System.nanoTime())
+                : nanos;
     }
 
     public long nanosOpen() {
@@ -192,13 +231,10 @@ public class CircuitBreakerState {
 
     public void close() {
         setCircuitState(CircuitState.CLOSED);
-        resetHalfOpenSuccessfulResultCounter();
-        resetResults();
     }
 
     public void open() {
         setCircuitState(CircuitState.OPEN);
-        resetHalfOpenSuccessfulResultCounter();
     }
 
     public void halfOpen() {
@@ -207,11 +243,7 @@ public class CircuitBreakerState {
     }
 
     public boolean halfOpenSuccessfulClosedCircuit(int successThreshold) {
-        incrementHalfOpenSuccessfulResultCounter();
-        if (getHalfOpenSuccessfulResultCounter() == successThreshold) {
-            close();
-            return true;
-        }
-        return false;
+        return incrementHalfOpenSuccessfulResultCounter() == successThreshold
+                && transition(CircuitState.HALF_OPEN, CircuitState.CLOSED) >= 0L;
     }
 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2018] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -40,26 +40,28 @@
 package fish.payara.microprofile.faulttolerance.state;
 
 import java.io.Serializable;
-import java.time.ZonedDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Represents the state its time amount and since when this is in charge.
+ * Represents the state a circuit is in and since when this state is in charge.
+ * <p>
+ * Instances are immutable so that a state transition is a single reference swap.
+ *
  * @author Sven Diedrichsen
  */
 class StateTime implements Serializable {
 
-    private static final long serialVersionUID = 1;
+    private static final long serialVersionUID = 2;
 
     private final CircuitBreakerState.CircuitState state;
-    private ZonedDateTime since;
-    private final AtomicLong nanos;
+    private final long since;
 
-    StateTime(CircuitBreakerState.CircuitState state) {
+    /**
+     * @param state The state.
+     * @param since The {@link System#nanoTime()} the state was entered.
+     */
+    StateTime(CircuitBreakerState.CircuitState state, long since) {
         this.state = state;
-        this.since = ZonedDateTime.now();
-        this.nanos = new AtomicLong(0);
+        this.since = since;
     }
 
     /**
@@ -78,35 +80,17 @@ class StateTime implements Serializable {
      * @return State equals.
      */
     boolean is(CircuitBreakerState.CircuitState state) {
-        return this.state.equals(state);
-    }
-
-    /**
-     * The current sum of nanos.
-     *
-     * @return Sum of nanos.
-     */
-    long nanos() {
-        return nanos.get();
+        return this.state == state;
     }
 
     /**
-     * Updates the sum of nanos.
+     * The amount of nanos the state has been in charge until the provided point in time.
      *
-     * @return The updates sum of nanos
-     */
-    long update() {
-        ZonedDateTime now = ZonedDateTime.now();
-        long result = this.nanos.addAndGet(ChronoUnit.NANOS.between(this.since, now));
-        this.since = now;
-        return result;
-    }
-
-    /**
-     * Sets the time for the state to now.
+     * @param now The {@link System#nanoTime()} to compute the duration for.
+     * @return Nanos since the state was entered.
      */
-    void reset() {
-        this.since = ZonedDateTime.now();
+    long nanosUntil(long now) {
+        return Math.max(0L, now - since);
     }
 
 }
@@ -61,14 +61,17 @@ import fish.payara.microprofile.metrics.impl.MetricRegistryImpl;
 abstract class AbstractMetricTest extends AbstractRecordingTest {
 
     MetricRegistry registry;
+    MetricRegistry vendorRegistry;
 
     @Override
     protected FaultToleranceServiceStub createService() {
         registry = new MetricRegistryImpl(Type.BASE);
+        vendorRegistry = new MetricRegistryImpl(Type.VENDOR);
         return new FaultToleranceServiceStub() {
             @Override
             protected FaultToleranceMethodContext stubMethodContext(StubContext ctx) {
-                FaultToleranceMetrics metrics = new MethodFaultToleranceMetrics(registry, FaultToleranceUtils.getCanonicalMethodName(ctx.context));
+                FaultToleranceMetrics metrics = new MethodFaultToleranceMetrics(registry, vendorRegistry,
+                        FaultToleranceUtils.getCanonicalMethodName(ctx.context));
                 return new FaultToleranceMethodContextStub(ctx, state, concurrentExecutions, waitingQueuePopulation) {
 
                     @Override
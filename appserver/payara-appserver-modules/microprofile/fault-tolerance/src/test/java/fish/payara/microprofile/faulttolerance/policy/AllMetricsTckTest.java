@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -174,11 +174,40 @@ public class AllMetricsTckTest extends AbstractMetricTest {
         return bodyWaitThenReturnSuccess(waiter);
     }
 
+    /**
+     * Scenario does not exist in TCK, the metrics not defined by the specification are registered in the vendor scope
+     */
+    @Test
+    public void testVendorMetricRegistrations() throws Exception {
+        Future<?> res = (Future<?>) callMethodDirectly(null);
+        assertNoExceptionsThrown();
+        assertEquals("Success", res.get());
+
+        String methodName = "fish.payara.microprofile.faulttolerance.policy.AllMetricsTckTest.testVendorMetricRegistrations_Method";
+        SortedMap<MetricID, Metric> metrics = vendorRegistry.getMetrics(
+                (metricID, metric) -> methodName.equals(metricID.getTags().get("method")));
+        assertEquals(4, metrics.size());
+        assertHasMetric(vendorRegistry, Histogram.class, "ft.asynchronous.waitingDuration[method=%s]", methodName);
+        assertHasMetric(vendorRegistry, Histogram.class, "ft.circuitbreaker.transitionDuration[method=%s,state=open]", methodName);
+        assertHasMetric(vendorRegistry, Histogram.class, "ft.circuitbreaker.transitionDuration[method=%s,state=halfOpen]", methodName);
+        assertHasMetric(vendorRegistry, Histogram.class, "ft.circuitbreaker.transitionDuration[method=%s,state=closed]", methodName);
+    }
+
+    @CircuitBreaker(failureRatio = 1.0, requestVolumeThreshold = 20)
+    @Asynchronous
+    public Future<String> testVendorMetricRegistrations_Method(CompletableFuture<Void> waiter) throws Exception {
+        return bodyWaitThenReturnSuccess(waiter);
+    }
+
     public Future<String> doFallback(CompletableFuture<Void> waiter) throws Exception {
         return bodyWaitThenReturnSuccess(waiter);
     }
 
     private void assertHasMetric(Class<? extends Metric> type, String metric, Object...args) {
+        assertHasMetric(registry, type, metric, args);
+    }
+
+    private static void assertHasMetric(MetricRegistry registry, Class<? extends Metric> type, String metric, Object...args) {
         if (args.length > 0) {
             metric = String.format(metric, args);
         }
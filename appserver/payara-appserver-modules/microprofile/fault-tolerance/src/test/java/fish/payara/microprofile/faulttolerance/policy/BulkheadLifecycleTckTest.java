@@ -35,6 +35,7 @@ public class BulkheadLifecycleTckTest extends AbstractRecordingTest {
 
     static final AtomicInteger barrier = new AtomicInteger();
     MetricRegistry registry;
+    MetricRegistry vendorRegistry;
 
     static void inService(CompletableFuture<Void> waiter) throws InterruptedException, ExecutionException {
         barrier.incrementAndGet();
@@ -49,10 +50,12 @@ public class BulkheadLifecycleTckTest extends AbstractRecordingTest {
         final Map<Object, AtomicInteger> waitingQueuePopulationByMethodId = new ConcurrentHashMap<>();
 
         registry = new MetricRegistryImpl(Type.BASE);
+        vendorRegistry = new MetricRegistryImpl(Type.VENDOR);
         return new FaultToleranceServiceStub() {
             @Override
             protected FaultToleranceMethodContext stubMethodContext(StubContext ctx) {
-                FaultToleranceMetrics metrics = new MethodFaultToleranceMetrics(registry, FaultToleranceUtils.getCanonicalMethodName(ctx.context));
+                FaultToleranceMetrics metrics = new MethodFaultToleranceMetrics(registry, vendorRegistry,
+                        FaultToleranceUtils.getCanonicalMethodName(ctx.context));
                 return new FaultToleranceMethodContextStub(ctx, state,
                         concurrentExecutionByMethodId.computeIfAbsent(ctx.key, key -> new AtomicReference<>()),
                         waitingQueuePopulationByMethodId.computeIfAbsent(ctx.key, key -> new AtomicInteger())) {
@@ -0,0 +1,157 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.faulttolerance.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the admission, queueing and dispatch of the {@link MethodExecutor}.
+ */
+public class MethodExecutorTest {
+
+    private final ExecutorService shared = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdown() {
+        shared.shutdownNow();
+    }
+
+    @Test
+    public void concurrencyIsLimitedAndQueueIsBounded() throws Exception {
+        MethodExecutor executor = new MethodExecutor(shared, 2, 3);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    blocker.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            }, nanos -> {}, ex -> fail("Should not be rejected"));
+        }
+        try {
+            executor.execute(() -> {}, nanos -> {}, ex -> {});
+            fail("Sixth execution should be rejected");
+        } catch (RejectedExecutionException ex) {
+            // expected
+        }
+        waitFor(() -> executor.getRunning() == 2);
+        assertEquals(3, executor.getQueued());
+        blocker.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+        waitFor(() -> executor.getRunning() == 0);
+        assertEquals(0, executor.getQueued());
+    }
+
+    @Test
+    public void waitingDurationIsReported() throws Exception {
+        MethodExecutor executor = new MethodExecutor(shared, 1, 10);
+        CountDownLatch done = new CountDownLatch(10);
+        List<Long> durations = new ArrayList<>();
+        AtomicLong total = new AtomicLong();
+        for (int i = 0; i < 10; i++) {
+            executor.execute(done::countDown, nanos -> {
+                synchronized (durations) {
+                    durations.add(nanos);
+                }
+                total.addAndGet(nanos);
+            }, ex -> fail("Should not be rejected"));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        waitFor(() -> executor.getRunning() == 0);
+        assertEquals(10, durations.size());
+        assertTrue(total.get() >= 10);
+    }
+
+    @Test
+    public void withoutLimitTasksAreRunDirectly() throws Exception {
+        MethodExecutor executor = new MethodExecutor(shared, 0, 0);
+        CountDownLatch done = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            executor.execute(done::countDown, nanos -> {}, ex -> fail("Should not be rejected"));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.getQueued());
+    }
+
+    @Test
+    public void rejectionOfSharedExecutorIsReportedForQueuedExecution() {
+        MethodExecutor executor = new MethodExecutor(task -> {
+            throw new RejectedExecutionException("full");
+        }, 1, 1);
+        AtomicInteger rejected = new AtomicInteger();
+        executor.execute(() -> {}, nanos -> {}, ex -> rejected.incrementAndGet());
+        assertEquals(1, rejected.get());
+        assertEquals(0, executor.getRunning());
+        assertEquals(0, executor.getQueued());
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2018] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -39,6 +39,9 @@
  */
 package fish.payara.microprofile.faulttolerance.state;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -74,4 +77,91 @@ public class CircuitBreakerStateTest {
         assertEquals("Unexpected nanos for unused state.", 0, state.updateAndGet(CircuitBreakerState.CircuitState.HALF_OPEN));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testFailureThresholdOnlyCheckedWhenRingIsFull() {
+        CircuitBreakerState state = new CircuitBreakerState(4, 0.5d);
+        state.recordClosedOutcome(false);
+        state.recordClosedOutcome(false);
+        state.recordClosedOutcome(true);
+        assertFalse("Ring not full yet.", state.isOverFailureThreshold());
+        state.recordClosedOutcome(true);
+        assertTrue("2 out of 4 failed.", state.isOverFailureThreshold());
+        state.recordClosedOutcome(true); // overwrites first failure
+        assertFalse("1 out of 4 failed.", state.isOverFailureThreshold());
+        state.recordClosedOutcome(true);
+        state.recordClosedOutcome(true);
+        state.recordClosedOutcome(true);
+        assertTrue("All 4 succeeded.", state.isClosedOutcomeSuccessOnly());
+    }
+
+    @Test
+    public void testRingSpanningMultipleWords() {
+        CircuitBreakerState state = new CircuitBreakerState(100, 0.1d);
+        for (int i = 0; i < 100; i++) {
+            state.recordClosedOutcome(i % 20 != 0);
+        }
+        assertFalse("5 out of 100 failed.", state.isOverFailureThreshold());
+        for (int i = 0; i < 100; i++) {
+            state.recordClosedOutcome(i % 10 != 0);
+        }
+        assertTrue("10 out of 100 failed.", state.isOverFailureThreshold());
+    }
+
+    @Test
+    public void testResetResultsRequiresFullRingAgain() {
+        CircuitBreakerState state = new CircuitBreakerState(2, 0.5d);
+        state.recordClosedOutcome(false);
+        state.recordClosedOutcome(false);
+        assertTrue(state.isOverFailureThreshold());
+        state.resetResults();
+        assertFalse(state.isOverFailureThreshold());
+    }
+
+    @Test
+    public void testTransitionOnlyFromExpectedState() throws Exception {
+        CircuitBreakerState state = new CircuitBreakerState(1, 0.5d);
+        assertEquals(-1L, state.transition(CircuitBreakerState.CircuitState.OPEN, CircuitBreakerState.CircuitState.HALF_OPEN));
+        Thread.sleep(1);
+        assertTrue(state.transition(CircuitBreakerState.CircuitState.CLOSED, CircuitBreakerState.CircuitState.OPEN) > 0);
+        assertEquals(CircuitBreakerState.CircuitState.OPEN, state.getCircuitState());
+        assertEquals(-1L, state.transition(CircuitBreakerState.CircuitState.CLOSED, CircuitBreakerState.CircuitState.OPEN));
+    }
+
+    @Test
+    public void testConcurrentTransitionSucceedsOnce() throws Exception {
+        CircuitBreakerState state = new CircuitBreakerState(1, 0.5d);
+        AtomicInteger successful = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                if (state.transition(CircuitBreakerState.CircuitState.CLOSED, CircuitBreakerState.CircuitState.OPEN) >= 0) {
+                    successful.incrementAndGet();
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, successful.get());
+    }
+
+    @Test
+    public void testHalfOpenSuccessThresholdCloses() {
+        CircuitBreakerState state = new CircuitBreakerState(1, 0.5d);
+        state.open();
+        state.halfOpen();
+        assertFalse(state.halfOpenSuccessfulClosedCircuit(2));
+        assertTrue(state.halfOpenSuccessfulClosedCircuit(2));
+        assertEquals(CircuitBreakerState.CircuitState.CLOSED, state.getCircuitState());
+        assertEquals(0, state.getHalfOpenSuccessfulResultCounter());
+    }
+
+}
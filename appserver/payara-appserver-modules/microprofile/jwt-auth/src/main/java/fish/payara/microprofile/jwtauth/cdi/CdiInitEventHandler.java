@@ -95,7 +95,12 @@ public class CdiInitEventHandler {
 
     public static void installAuthenticationMechanism(AfterBeanDiscovery afterBeanDiscovery) {
 
-        afterBeanDiscovery.addBean(new CdiProducer<IdentityStore>()
+        afterBeanDiscovery.addBean(new CdiProducer<IdentityStore>() {
+                    @Override
+                    public void destroy(IdentityStore instance, CreationalContext<IdentityStore> creationalContext) {
+                        ((SignedJWTIdentityStore) instance).destroy();
+                    }
+                }
                 .scope(ApplicationScoped.class)
                 .beanClass(IdentityStore.class)
                 .types(Object.class, IdentityStore.class, SignedJWTIdentityStore.class)
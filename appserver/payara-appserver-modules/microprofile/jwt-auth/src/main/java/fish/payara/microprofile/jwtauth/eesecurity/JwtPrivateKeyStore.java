@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017-2021 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Private License Version 2 only ("GPL") or the Common Development
@@ -59,6 +59,7 @@ import static org.eclipse.microprofile.jwt.config.Names.DECRYPTOR_KEY_LOCATION;
 public class JwtPrivateKeyStore {
 
     private final Config config;
+    private final KeyLoadingCache keyCache;
     private final Supplier<Optional<String>> cacheSupplier;
     private final Duration defaultCacheTTL;
     private String keyLocation = "/privateKey.pem";
@@ -69,7 +70,8 @@ public class JwtPrivateKeyStore {
     public JwtPrivateKeyStore(Duration defaultCacheTTL) {
         this.config = ConfigProvider.getConfig();
         this.defaultCacheTTL = defaultCacheTTL;
-        this.cacheSupplier = new KeyLoadingCache(this::readRawPrivateKey)::get;
+        this.keyCache = new KeyLoadingCache(this::readRawPrivateKey);
+        this.cacheSupplier = keyCache::get;
     }
 
     /**
@@ -97,6 +99,23 @@ public class JwtPrivateKeyStore {
                 .orElseThrow(() -> new IllegalStateException("No PrivateKey found"));
     }
 
+    /**
+     * Refreshes the private key if its cache TTL expired and returns its version.
+     *
+     * @return a number that changes whenever the loaded private key changes
+     */
+    public long getKeyVersion() {
+        cacheSupplier.get();
+        return keyCache.getVersion();
+    }
+
+    /**
+     * Stops reloading the private key in the background.
+     */
+    public void close() {
+        keyCache.close();
+    }
+
     private PrivateKey createPrivateKey(String key, String keyId) {
         try {
             return createPrivateKeyFromPem(key);
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -52,12 +52,17 @@ import java.security.spec.RSAPublicKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.time.Duration;
 import java.util.Base64;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 import javax.enterprise.inject.spi.DeploymentException;
 import javax.json.JsonArray;
 import javax.json.JsonObject;
+import javax.json.JsonValue;
 import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.ConfigProvider;
 import static org.eclipse.microprofile.jwt.config.Names.VERIFIER_PUBLIC_KEY;
@@ -71,17 +76,17 @@ public class JwtPublicKeyStore {
     
         
     private final Config config;
+    private final KeyLoadingCache keyCache;
     private final Supplier<Optional<String>> cacheSupplier;
     private final Duration defaultCacheTTL;
     private String keyLocation = "/publicKey.pem";
+    private volatile KeyIndex keyIndex;
     
     /**
      * @param defaultCacheTTL Public key cache TTL 
      */
     public JwtPublicKeyStore(Duration defaultCacheTTL) {
-        this.config = ConfigProvider.getConfig();
-        this.defaultCacheTTL = defaultCacheTTL;
-        this.cacheSupplier = new KeyLoadingCache(this::readRawPublicKey)::get;
+        this(defaultCacheTTL, Optional.empty());
     }
 
     /**
@@ -89,8 +94,21 @@ public class JwtPublicKeyStore {
      * @param keyLocation location of the public key
      */
     public JwtPublicKeyStore(Duration defaultCacheTTL, Optional<String> keyLocation) {
-        this(defaultCacheTTL);
+        this(defaultCacheTTL, Duration.ZERO, keyLocation);
+    }
+
+    /**
+     * @param defaultCacheTTL Public key cache TTL
+     * @param staleCacheTTL how long past its TTL the public key may still be
+     * used while it is reloaded in the background
+     * @param keyLocation location of the public key
+     */
+    public JwtPublicKeyStore(Duration defaultCacheTTL, Duration staleCacheTTL, Optional<String> keyLocation) {
+        this.config = ConfigProvider.getConfig();
+        this.defaultCacheTTL = defaultCacheTTL;
         this.keyLocation = keyLocation.orElse(this.keyLocation);
+        this.keyCache = new KeyLoadingCache(this::readRawPublicKey, staleCacheTTL);
+        this.cacheSupplier = keyCache::get;
     }
 
     /**
@@ -100,9 +118,32 @@ public class JwtPublicKeyStore {
      * @throws IllegalStateException if no public key was found
      */
     public PublicKey getPublicKey(String keyID) {
-        return cacheSupplier.get()
-            .map(key -> createPublicKey(key, keyID))
+        String rawKey = cacheSupplier.get()
             .orElseThrow(() -> new IllegalStateException("No PublicKey found"));
+        KeyIndex index = keyIndex;
+        if (index == null || !index.rawKey.equals(rawKey)) {
+            // the key (set) changed, keys parsed from the previous one no longer apply
+            index = new KeyIndex(rawKey);
+            keyIndex = index;
+        }
+        return index.getPublicKey(keyID);
+    }
+
+    /**
+     * Refreshes the public key if its cache TTL expired and returns its version.
+     *
+     * @return a number that changes whenever the loaded public key changes
+     */
+    public long getKeyVersion() {
+        cacheSupplier.get();
+        return keyCache.getVersion();
+    }
+
+    /**
+     * Stops reloading the public key in the background.
+     */
+    public void close() {
+        keyCache.close();
     }
     
     private CacheableString readRawPublicKey() {
@@ -196,4 +237,54 @@ public class JwtPublicKeyStore {
             throw new DeploymentException("Could not determine key type - JWKS kty field does not equal RSA or EC");
         }
     }
+
+    /**
+     * Public keys parsed from one version of the raw key, so that a PEM key or
+     * JWKS is only parsed once per key rather than once per token. Only key IDs
+     * present in the JWKS are indexed, as a PEM key or a single JWK is used
+     * whatever key ID the token names.
+     */
+    private final class KeyIndex {
+        private final String rawKey;
+        private final Set<String> keyIDs;
+        private final ConcurrentMap<String, PublicKey> keysById = new ConcurrentHashMap<>();
+        private volatile PublicKey defaultKey;
+
+        private KeyIndex(String rawKey) {
+            this.rawKey = rawKey;
+            this.keyIDs = readKeyIDs(rawKey);
+        }
+
+        private PublicKey getPublicKey(String keyID) {
+            if (keyID != null && keyIDs != null) {
+                if (!keyIDs.contains(keyID)) {
+                    return createPublicKey(rawKey, keyID);
+                }
+                return keysById.computeIfAbsent(keyID, id -> createPublicKey(rawKey, id));
+            }
+            PublicKey key = defaultKey;
+            if (key == null) {
+                key = createPublicKey(rawKey, keyID);
+                defaultKey = key;
+            }
+            return key;
+        }
+    }
+
+    private static Set<String> readKeyIDs(String rawKey) {
+        try {
+            JsonArray keys = JwtKeyStoreUtils.parseJwks(rawKey).getJsonArray("keys");
+            if (keys == null) {
+                return null;
+            }
+            Set<String> keyIDs = new HashSet<>();
+            for (JsonValue key : keys) {
+                keyIDs.add(key.asJsonObject().getString("kid", null));
+            }
+            return keyIDs;
+        } catch (Exception ex) {
+            // not a JWKS
+            return null;
+        }
+    }
 }
@@ -0,0 +1,179 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.jwtauth.eesecurity;
+
+import fish.payara.microprofile.jwtauth.jwt.JsonWebTokenImpl;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of JWTs which have already been successfully verified.
+ * <p>
+ * Tokens are keyed by the SHA-256 hash of their serialised form, so the cache
+ * does not keep the raw bearer tokens as keys. An entry is only returned as
+ * long as the token has not expired and the keys it was verified with have
+ * not changed since, otherwise it is dropped and the token has to be verified
+ * again.
+ * <p>
+ * When the cache is full, expired entries are removed first; if that does not
+ * free up any space, arbitrary entries are evicted.
+ */
+public class JwtTokenCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxSize maximum number of verified tokens to keep
+     */
+    public JwtTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param token the serialised token
+     * @param keyVersion the current version of the keys used to verify tokens
+     * @return the previously verified token, or null if the token is unknown,
+     * has expired or was verified with keys that changed since
+     */
+    public JsonWebTokenImpl get(String token, long keyVersion) {
+        String hash = hash(token);
+        Entry entry = entries.get(hash);
+        if (entry != null) {
+            if (entry.keyVersion == keyVersion && !entry.isExpired(currentTimeSeconds())) {
+                hits.increment();
+                return entry.jwt;
+            }
+            entries.remove(hash, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Adds a successfully verified token to the cache.
+     *
+     * @param token the serialised token
+     * @param keyVersion the version of the keys the token was verified with
+     * @param jwt the verified token
+     */
+    public void put(String token, long keyVersion, JsonWebTokenImpl jwt) {
+        Long expirationTime = jwt.getClaim("exp");
+        if (expirationTime == null) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(hash(token), new Entry(jwt, expirationTime, keyVersion));
+    }
+
+    private void evict() {
+        long now = currentTimeSeconds();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() >= maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the ratio of lookups which found a verified token, between 0 and 1
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0d : (double) hitCount / total;
+    }
+
+    private static long currentTimeSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static final class Entry {
+        private final JsonWebTokenImpl jwt;
+        private final long expirationTime;
+        private final long keyVersion;
+
+        private Entry(JsonWebTokenImpl jwt, long expirationTime, long keyVersion) {
+            this.jwt = jwt;
+            this.expirationTime = expirationTime;
+            this.keyVersion = keyVersion;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expirationTime;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017-2021 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -37,43 +37,178 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-
 package fish.payara.microprofile.jwtauth.eesecurity;
 
+import static java.util.logging.Level.WARNING;
+
 import java.time.Duration;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
+import java.util.logging.Logger;
 
+/**
+ * Caches a key for the TTL given by its source.
+ * <p>
+ * Once most of the TTL has passed the key is reloaded in the background while
+ * the current key keeps being served. Past the TTL the current key is still
+ * served for the stale TTL, as long as the background reload is pending or
+ * failing. Only when no key was loaded yet, or the stale TTL is exceeded as
+ * well, does the calling thread load the key itself.
+ * <p>
+ * Background reloads run on a thread of the cache, as loading a key may block
+ * on a remote JWKS endpoint. The thread is only kept while reloading, and is
+ * stopped for good by {@link #close()}.
+ */
 public class KeyLoadingCache {
 
-    private final Supplier<CacheableString> keySupplier;
-    private Duration ttl;
-    private long lastUpdated;
-    private Optional<String> key;
+    private static final Logger LOGGER = Logger.getLogger(KeyLoadingCache.class.getName());
 
+    /**
+     * Fraction of the TTL after which a background reload is started.
+     */
+    private static final double REFRESH_AHEAD_FACTOR = 0.8;
+
+    /**
+     * Delay before the next background reload after a failed one.
+     */
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+    private final Supplier<CacheableString> keySupplier;
+    private final Duration staleTTL;
+    private final Executor executor;
+    private final long retryDelayMillis;
+    private final ClassLoader classLoader;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Entry entry;
+    private volatile long retryAfter;
 
     public KeyLoadingCache(Supplier<CacheableString> keySupplier) {
-        this.ttl = Duration.ZERO;
+        this(keySupplier, Duration.ZERO);
+    }
+
+    /**
+     * @param keySupplier loads the key and its TTL
+     * @param staleTTL how long past its TTL a key may still be used while it
+     * is reloaded in the background
+     */
+    public KeyLoadingCache(Supplier<CacheableString> keySupplier, Duration staleTTL) {
+        this(keySupplier, staleTTL, createExecutor(), RETRY_DELAY);
+    }
+
+    KeyLoadingCache(Supplier<CacheableString> keySupplier, Duration staleTTL, Executor executor, Duration retryDelay) {
         this.keySupplier = keySupplier;
+        this.staleTTL = staleTTL;
+        this.executor = executor;
+        this.retryDelayMillis = retryDelay.toMillis();
+        // keys are looked up as resources of the application
+        this.classLoader = Thread.currentThread().getContextClassLoader();
     }
 
     public Optional<String> get() {
+        Entry current = entry;
         long now = System.currentTimeMillis();
-        if (now - lastUpdated > ttl.toMillis()) {
-            refresh();
+        if (current == null || now >= current.staleAt) {
+            return refresh().key;
+        }
+        if (now >= current.refreshAt && now >= retryAfter) {
+            refreshInBackground();
         }
+        return current.key;
+    }
 
-        return key;
+    /**
+     * @return a number that changes each time a reload loads a different key
+     * than the one previously held, so that anything derived from the old key
+     * can be recognised as stale.
+     */
+    public long getVersion() {
+        Entry current = entry;
+        return current == null ? 0 : current.version;
     }
 
-    private synchronized void refresh() {
-        long now = System.currentTimeMillis();
-        if (now - lastUpdated > ttl.toMillis()) {
-            CacheableString result = keySupplier.get();
-            key = result.getValue();
-            ttl = result.getCacheTTL();
-            lastUpdated = now;
+    private synchronized Entry refresh() {
+        Entry current = entry;
+        if (current != null && System.currentTimeMillis() < current.staleAt) {
+            // reloaded by another thread meanwhile
+            return current;
         }
+        return load();
     }
 
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                Thread thread = Thread.currentThread();
+                ClassLoader originalClassLoader = thread.getContextClassLoader();
+                thread.setContextClassLoader(classLoader);
+                try {
+                    load();
+                } catch (RuntimeException ex) {
+                    retryAfter = System.currentTimeMillis() + retryDelayMillis;
+                    LOGGER.log(WARNING, "Failed to reload key, the previously loaded key is used until it goes stale", ex);
+                } finally {
+                    thread.setContextClassLoader(originalClassLoader);
+                    refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Stops the background reloads, the key is then only reloaded by the
+     * calling threads.
+     */
+    public void close() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    private static ExecutorService createExecutor() {
+        return new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "payara-jwt-key-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private synchronized Entry load() {
+        Entry previous = entry;
+        CacheableString result = keySupplier.get();
+        long version = 0;
+        if (previous != null) {
+            version = previous.key.equals(result.getValue()) ? previous.version : previous.version + 1;
+        }
+        Entry loaded = new Entry(result.getValue(), version, System.currentTimeMillis(), result.getCacheTTL(), staleTTL);
+        entry = loaded;
+        return loaded;
+    }
+
+    private static final class Entry {
+        private final Optional<String> key;
+        private final long version;
+        private final long refreshAt;
+        private final long staleAt;
+
+        private Entry(Optional<String> key, long version, long loadedAt, Duration ttl, Duration staleTTL) {
+            this.key = Objects.requireNonNull(key);
+            this.version = version;
+            long ttlMillis = ttl.toMillis();
+            this.refreshAt = loadedAt + (long) (ttlMillis * REFRESH_AHEAD_FACTOR);
+            this.staleAt = loadedAt + ttlMillis + staleTTL.toMillis();
+        }
+    }
 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -41,10 +41,12 @@ package fish.payara.microprofile.jwtauth.eesecurity;
 
 import fish.payara.microprofile.jwtauth.jwt.JsonWebTokenImpl;
 import fish.payara.microprofile.jwtauth.jwt.JwtTokenParser;
+import fish.payara.microprofile.metrics.MetricsService;
 import java.io.IOException;
 import static java.lang.Thread.currentThread;
 import java.net.URL;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -52,6 +54,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.function.Supplier;
+import static java.util.logging.Level.FINE;
 import static java.util.logging.Level.INFO;
 import java.util.logging.Logger;
 import javax.security.enterprise.identitystore.CredentialValidationResult;
@@ -61,6 +65,10 @@ import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.ConfigProvider;
 import org.eclipse.microprofile.jwt.config.Names;
 import static org.eclipse.microprofile.jwt.config.Names.ISSUER;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import static org.glassfish.internal.api.Globals.getDefaultHabitat;
 
 /**
  * Identity store capable of asserting that a signed JWT token is valid
@@ -83,6 +91,9 @@ public class SignedJWTIdentityStore implements IdentityStore {
     private final JwtPrivateKeyStore privateKeyStore;
 
     private final boolean isEncryptionRequired;
+    private final JwtTokenCache tokenCache;
+    private final List<MetricID> tokenCacheMetrics = new ArrayList<>();
+    private MetricRegistry tokenCacheMetricRegistry;
 
     public SignedJWTIdentityStore() {
         config = ConfigProvider.getConfig();
@@ -103,27 +114,42 @@ public class SignedJWTIdentityStore implements IdentityStore {
         Optional<String> publicKeyLocation = readConfigOptional(Names.VERIFIER_PUBLIC_KEY_LOCATION, properties, config); //mp.jwt.verifyAndParseEncryptedJWT.publickey.location
         Optional<String> publicKey = readConfigOptional(Names.VERIFIER_PUBLIC_KEY, properties, config); //mp.jwt.verifyAndParseEncryptedJWT.publickey
         Optional<String> decryptKeyLocation = readConfigOptional(Names.DECRYPTOR_KEY_LOCATION, properties, config); //mp.jwt.decrypt.key.location
-        publicKeyStore = new JwtPublicKeyStore(readPublicKeyCacheTTL(properties), publicKeyLocation);
+        publicKeyStore = new JwtPublicKeyStore(readPublicKeyCacheTTL(properties), readPublicKeyStaleCacheTTL(properties), publicKeyLocation);
         privateKeyStore = new JwtPrivateKeyStore(readPublicKeyCacheTTL(properties), decryptKeyLocation);
 
         // Signing is required by default, it doesn't parse if not signed
         isEncryptionRequired = decryptKeyLocation.isPresent();
+
+        int tokenCacheSize = readTokenCacheSize(properties);
+        tokenCache = tokenCacheSize > 0 ? new JwtTokenCache(tokenCacheSize) : null;
+        if (tokenCache != null) {
+            registerTokenCacheMetrics();
+        }
     }
 
     public CredentialValidationResult validate(SignedJWTCredential signedJWTCredential) {
-        final JwtTokenParser jwtTokenParser = new JwtTokenParser(enabledNamespace, customNamespace, disableTypeVerification);
+        final String token = signedJWTCredential.getSignedJWT();
         try {
-            JsonWebTokenImpl jsonWebToken = jwtTokenParser.parse(signedJWTCredential.getSignedJWT(),
-                    isEncryptionRequired, publicKeyStore, acceptedIssuer, privateKeyStore);
-
-            // verifyAndParseEncryptedJWT audience
-            final Set<String> recipientsOfThisJWT = jsonWebToken.getAudience();
-            // find if any recipient is in the allowed audience
-            Boolean recipientInAudience = allowedAudience
-                    .map(recipient -> recipient.stream().anyMatch(a -> recipientsOfThisJWT != null && recipientsOfThisJWT.contains(a)))
-                    .orElse(true);
-            if (!recipientInAudience) {
-                throw new Exception("The intended audience " + recipientsOfThisJWT + " is not a part of allowed audience.");
+            // tokens only get cached once verified and accepted by the audience check
+            long keyVersion = tokenCache != null ? getKeyVersion() : 0;
+            JsonWebTokenImpl jsonWebToken = tokenCache != null ? tokenCache.get(token, keyVersion) : null;
+            if (jsonWebToken == null) {
+                final JwtTokenParser jwtTokenParser = new JwtTokenParser(enabledNamespace, customNamespace, disableTypeVerification);
+                jsonWebToken = jwtTokenParser.parse(token,
+                        isEncryptionRequired, publicKeyStore, acceptedIssuer, privateKeyStore);
+
+                // verifyAndParseEncryptedJWT audience
+                final Set<String> recipientsOfThisJWT = jsonWebToken.getAudience();
+                // find if any recipient is in the allowed audience
+                Boolean recipientInAudience = allowedAudience
+                        .map(recipient -> recipient.stream().anyMatch(a -> recipientsOfThisJWT != null && recipientsOfThisJWT.contains(a)))
+                        .orElse(true);
+                if (!recipientInAudience) {
+                    throw new Exception("The intended audience " + recipientsOfThisJWT + " is not a part of allowed audience.");
+                }
+                if (tokenCache != null) {
+                    tokenCache.put(token, keyVersion, jsonWebToken);
+                }
             }
 
             Set<String> groups = new HashSet<>();
@@ -179,6 +205,80 @@ public class SignedJWTIdentityStore implements IdentityStore {
         		.orElseGet( () -> Duration.ofMinutes(5));
     }
     
+    private Duration readPublicKeyStaleCacheTTL(Optional<Properties> properties) {
+        return properties
+                .map(props -> props.getProperty("publicKey.cache.staleTTL"))
+                .map(Long::valueOf)
+                .map(Duration::ofMillis)
+                .orElseGet(() -> Duration.ofMinutes(1));
+    }
+
+    private int readTokenCacheSize(Optional<Properties> properties) {
+        return properties
+                .map(props -> props.getProperty("token.cache.size"))
+                .map(Integer::valueOf)
+                .orElse(1000);
+    }
+
+    /**
+     * Combines the versions of the keys tokens are verified with, so cached
+     * tokens are verified again once any of the keys changed.
+     */
+    private long getKeyVersion() {
+        long keyVersion = publicKeyStore.getKeyVersion();
+        if (isEncryptionRequired) {
+            keyVersion = keyVersion << 32 ^ privateKeyStore.getKeyVersion();
+        }
+        return keyVersion;
+    }
+
+    /**
+     * Registers the token cache metrics in the vendor registry, tagged with the
+     * name of the application, as every application has its own identity store.
+     */
+    private void registerTokenCacheMetrics() {
+        try {
+            MetricsService metricsService = getDefaultHabitat().getService(MetricsService.class);
+            MetricsService.MetricsContext metricsContext = metricsService == null ? null : metricsService.getContext(true);
+            if (metricsContext == null) {
+                return;
+            }
+            Tag[] tags = metricsContext.isServerContext()
+                    ? new Tag[0]
+                    : new Tag[] { new Tag("app", metricsContext.getName()) };
+            tokenCacheMetricRegistry = metricsContext.getVendorRegistry();
+            registerTokenCacheGauge(new MetricID("jwt.tokenCache.hits", tags), tokenCache::getHitCount);
+            registerTokenCacheGauge(new MetricID("jwt.tokenCache.misses", tags), tokenCache::getMissCount);
+            registerTokenCacheGauge(new MetricID("jwt.tokenCache.hitRate", tags), tokenCache::getHitRate);
+            registerTokenCacheGauge(new MetricID("jwt.tokenCache.size", tags), tokenCache::getSize);
+        } catch (Exception e) {
+            LOGGER.log(FINE, "Unable to register JWT token cache metrics", e);
+        }
+    }
+
+    private <T extends Number> void registerTokenCacheGauge(MetricID metricID, Supplier<T> value) {
+        tokenCacheMetricRegistry.gauge(metricID, value);
+        tokenCacheMetrics.add(metricID);
+    }
+
+    /**
+     * Stops reloading the keys in the background and removes the token cache
+     * metrics, so that they don't keep the cache of an undeployed application.
+     */
+    public void destroy() {
+        publicKeyStore.close();
+        privateKeyStore.close();
+        if (tokenCacheMetricRegistry != null) {
+            for (MetricID metricID : tokenCacheMetrics) {
+                tokenCacheMetricRegistry.remove(metricID);
+            }
+            tokenCacheMetrics.clear();
+        }
+        if (tokenCache != null) {
+            tokenCache.clear();
+        }
+    }
+
     private Optional<String> readAudience(Optional<Properties> properties) {
         return properties.isPresent() ? Optional.ofNullable(properties.get().getProperty(Names.AUDIENCES)) : Optional.empty();
     }
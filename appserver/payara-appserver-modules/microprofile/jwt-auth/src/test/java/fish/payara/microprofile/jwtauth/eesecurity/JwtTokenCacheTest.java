@@ -0,0 +1,126 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.jwtauth.eesecurity;
+
+import fish.payara.microprofile.jwtauth.jwt.JsonWebTokenImpl;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class JwtTokenCacheTest {
+
+    private static final long KEY_VERSION = 1;
+
+    /**
+     * A token expiring the given number of seconds from now.
+     */
+    private static JsonWebTokenImpl token(long expiresIn) {
+        long expirationTime = System.currentTimeMillis() / 1000 + expiresIn;
+        return new JsonWebTokenImpl("caller", Collections.emptyMap()) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T getClaim(String claimName) {
+                return "exp".equals(claimName) ? (T) Long.valueOf(expirationTime) : null;
+            }
+        };
+    }
+
+    @Test
+    public void verifiedTokenIsReturnedUntilItExpires() {
+        JwtTokenCache cache = new JwtTokenCache(10);
+        JsonWebTokenImpl valid = token(60);
+        cache.put("valid", KEY_VERSION, valid);
+        cache.put("expired", KEY_VERSION, token(-1));
+
+        assertSame(valid, cache.get("valid", KEY_VERSION));
+        assertNull(cache.get("expired", KEY_VERSION));
+        assertNull(cache.get("unknown", KEY_VERSION));
+        assertEquals(1, cache.getSize());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1d / 3, cache.getHitRate(), 0.0001);
+    }
+
+    @Test
+    public void tokenWithoutExpirationIsNotCached() {
+        JwtTokenCache cache = new JwtTokenCache(10);
+        cache.put("token", KEY_VERSION, new JsonWebTokenImpl("caller", Collections.emptyMap()));
+
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void tokenIsVerifiedAgainOnceKeysChanged() {
+        JwtTokenCache cache = new JwtTokenCache(10);
+        cache.put("token", KEY_VERSION, token(60));
+
+        assertNull(cache.get("token", KEY_VERSION + 1));
+        assertEquals(0, cache.getSize());
+        assertNull("Dropped once the keys changed", cache.get("token", KEY_VERSION));
+    }
+
+    @Test
+    public void expiredTokensAreEvictedFirstWhenFull() {
+        JwtTokenCache cache = new JwtTokenCache(2);
+        JsonWebTokenImpl first = token(60);
+        JsonWebTokenImpl third = token(60);
+        cache.put("first", KEY_VERSION, first);
+        cache.put("second", KEY_VERSION, token(-1));
+        cache.put("third", KEY_VERSION, third);
+
+        assertEquals(2, cache.getSize());
+        assertSame(first, cache.get("first", KEY_VERSION));
+        assertSame(third, cache.get("third", KEY_VERSION));
+    }
+
+    @Test
+    public void cacheSizeIsBounded() {
+        JwtTokenCache cache = new JwtTokenCache(3);
+        for (int i = 0; i < 10; i++) {
+            cache.put("token" + i, KEY_VERSION, token(60));
+            assertEquals(Math.min(i + 1, 3), cache.getSize());
+        }
+        assertNotNull("The token added last is kept", cache.get("token9", KEY_VERSION));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.jwtauth.eesecurity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeyLoadingCacheTest {
+
+    private final List<Runnable> backgroundTasks = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+
+    private KeyLoadingCache cache(Duration ttl, Duration staleTTL, Duration retryDelay) {
+        return new KeyLoadingCache(() -> {
+            if (failing.get()) {
+                throw new IllegalStateException("Key endpoint not available");
+            }
+            return CacheableString.from("key" + loads.incrementAndGet(), ttl);
+        }, staleTTL, backgroundTasks::add, retryDelay);
+    }
+
+    private void runBackgroundTasks() {
+        List<Runnable> tasks = new ArrayList<>(backgroundTasks);
+        backgroundTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    public void keyIsReloadedInTheBackgroundAfterMostOfItsTTL() throws InterruptedException {
+        KeyLoadingCache cache = cache(Duration.ofMillis(1000), Duration.ofMinutes(1), Duration.ofSeconds(5));
+        assertEquals(Optional.of("key1"), cache.get());
+        assertEquals(Optional.of("key1"), cache.get());
+        assertTrue("No reload before 80% of the TTL", backgroundTasks.isEmpty());
+
+        Thread.sleep(850);
+        assertEquals(Optional.of("key1"), cache.get());
+        assertEquals(Optional.of("key1"), cache.get());
+        assertEquals("Only one reload at a time", 1, backgroundTasks.size());
+        assertEquals(1, loads.get());
+
+        runBackgroundTasks();
+        assertEquals(Optional.of("key2"), cache.get());
+        assertEquals(1, cache.getVersion());
+    }
+
+    @Test
+    public void staleKeyIsServedWhileReloadFails() throws InterruptedException {
+        KeyLoadingCache cache = cache(Duration.ofMillis(100), Duration.ofMinutes(1), Duration.ofSeconds(5));
+        cache.get();
+        Thread.sleep(150);
+        failing.set(true);
+
+        assertEquals(Optional.of("key1"), cache.get());
+        assertEquals(1, backgroundTasks.size());
+        runBackgroundTasks();
+        assertEquals(Optional.of("key1"), cache.get());
+        assertEquals(0, cache.getVersion());
+    }
+
+    @Test
+    public void failedReloadIsRetriedAfterTheRetryDelay() throws InterruptedException {
+        KeyLoadingCache cache = cache(Duration.ofMillis(100), Duration.ofMinutes(1), Duration.ofMillis(300));
+        cache.get();
+        Thread.sleep(150);
+        failing.set(true);
+        cache.get();
+        runBackgroundTasks();
+
+        cache.get();
+        assertTrue("No reload within the retry delay", backgroundTasks.isEmpty());
+
+        Thread.sleep(350);
+        failing.set(false);
+        assertEquals(Optional.of("key1"), cache.get());
+        assertEquals(1, backgroundTasks.size());
+        runBackgroundTasks();
+        assertEquals(Optional.of("key2"), cache.get());
+    }
+
+    @Test
+    public void keyIsLoadedByTheCallerOnceStale() throws InterruptedException {
+        KeyLoadingCache cache = cache(Duration.ofMillis(50), Duration.ofMillis(50), Duration.ofSeconds(5));
+        cache.get();
+        Thread.sleep(150);
+
+        assertEquals(Optional.of("key2"), cache.get());
+        assertTrue(backgroundTasks.isEmpty());
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2018-2019] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2018-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -82,7 +82,7 @@ import org.jvnet.hk2.annotations.Service;
 })
 public class GetMetricsConfigurationCommand implements AdminCommand {
 
-    private final String[] OUTPUT_HEADERS = {"Enabled", "Dynamic", "EndPoint", "VirtualServers", "Security Enabled", "Roles"};
+    private final String[] OUTPUT_HEADERS = {"Enabled", "Dynamic", "EndPoint", "VirtualServers", "Security Enabled", "Roles", "Reservoir Type"};
     
     @Inject
     private Target targetUtil;
@@ -110,7 +110,8 @@ public class GetMetricsConfigurationCommand implements AdminCommand {
             metricsConfiguration.getEndpoint(),
             metricsConfiguration.getVirtualServers(),
             metricsConfiguration.getSecurityEnabled(),
-            metricsConfiguration.getRoles()
+            metricsConfiguration.getRoles(),
+            metricsConfiguration.getReservoirType()
         };        
         columnFormatter.addRow(outputValues);
         
@@ -123,6 +124,7 @@ public class GetMetricsConfigurationCommand implements AdminCommand {
         extraPropertiesMap.put("virtualServers", metricsConfiguration.getVirtualServers());
         extraPropertiesMap.put("securityenabled", metricsConfiguration.getSecurityEnabled());
         extraPropertiesMap.put("roles", metricsConfiguration.getRoles());
+        extraPropertiesMap.put("reservoirType", metricsConfiguration.getReservoirType());
 
         Properties extraProperties = new Properties();
         extraProperties.put("metricsConfiguration", extraPropertiesMap);
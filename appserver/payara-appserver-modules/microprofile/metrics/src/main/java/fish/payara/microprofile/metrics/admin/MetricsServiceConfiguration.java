@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  * 
- *    Copyright (c) [2018-2019] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2022] Payara Foundation and/or its affiliates. All rights reserved.
  * 
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -54,6 +54,9 @@ import org.jvnet.hk2.config.Configured;
 @Configured(name = "microprofile-metrics-configuration")
 public interface MetricsServiceConfiguration extends ConfigBeanProxy, ConfigExtension {
 
+    String EXPONENTIALLY_DECAYING_RESERVOIR = "exponentially-decaying";
+    String STRIPED_RESERVOIR = "striped";
+
     /**
      * @return a Boolean value determining if the service is enabled or
      * disabled.
@@ -107,4 +110,13 @@ public interface MetricsServiceConfiguration extends ConfigBeanProxy, ConfigExte
     String getRoles();
     void setRoles(String value) throws PropertyVetoException;
 
+    /**
+     * @return the type of reservoir histograms and timers sample their values
+     * with, either {@value #EXPONENTIALLY_DECAYING_RESERVOIR} or
+     * {@value #STRIPED_RESERVOIR}.
+     */
+    @Attribute(defaultValue = EXPONENTIALLY_DECAYING_RESERVOIR, dataType = String.class)
+    String getReservoirType();
+    void setReservoirType(String value) throws PropertyVetoException;
+
 }
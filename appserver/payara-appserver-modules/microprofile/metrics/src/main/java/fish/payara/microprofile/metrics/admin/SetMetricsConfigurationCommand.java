@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2018-2019] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2018-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -110,6 +110,11 @@ public class SetMetricsConfigurationCommand extends SetSecureMicroprofileConfigu
     @Param(name = "virtualServers", optional = true)
     private String virtualServers;
 
+    @Param(name = "reservoirType", optional = true,
+            acceptableValues = MetricsServiceConfiguration.EXPONENTIALLY_DECAYING_RESERVOIR + ","
+                    + MetricsServiceConfiguration.STRIPED_RESERVOIR)
+    private String reservoirType;
+
     @Inject
     private Domain domain;
 
@@ -165,6 +170,9 @@ public class SetMetricsConfigurationCommand extends SetSecureMicroprofileConfigu
                 if (virtualServers != null) {
                     configProxy.setVirtualServers(virtualServers);
                 }
+                if (reservoirType != null) {
+                    configProxy.setReservoirType(reservoirType);
+                }
                 if (securityEnabled != null) {
                     configProxy.setSecurityEnabled(securityEnabled.toString());
                 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2019-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2019-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -40,8 +40,7 @@
  */
 package fish.payara.microprofile.metrics.impl;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -51,6 +50,10 @@ import org.eclipse.microprofile.metrics.Metric;
 /**
  * A metric that tracks minimum and maximum values as updated for the most recent complete minute.
  *
+ * The minute is only rolled over by the first update or read that happens after the minute ended, all other updates
+ * just read the current minute and only write when they change the minimum or maximum, so that concurrent updates do
+ * not contend unless they actually set a new extreme value.
+ *
  * @author Jan Bernitt
  */
 abstract class CompleteMinuteMinMaxTracker implements Metric {
@@ -74,39 +77,47 @@ abstract class CompleteMinuteMinMaxTracker implements Metric {
         this.completeMinute = null;
     }
 
+    private static final long MILLIS_PER_MINUTE = TimeUnit.MINUTES.toMillis(1);
+
     Long getMaxValue() {
-        currentMinMax(null);
+        currentMinMax(false, 0L);
         return completeMinute == null ? null : completeMinute.max.get();
     }
 
     Long getMinValue() {
-        currentMinMax(null);
+        currentMinMax(false, 0L);
         return completeMinute == null ? null : completeMinute.min.get();
     }
 
     void updateMaxValue(long currentValue) {
-        currentMinMax(currentValue).updateMax(currentValue);
+        currentMinMax(true, currentValue).updateMax(currentValue);
     }
 
     void updateMinValue(long currentValue) {
-        currentMinMax(currentValue).updateMin(currentValue);
+        currentMinMax(true, currentValue).updateMin(currentValue);
     }
 
     void updateValue(long currentValue) {
-        MinMax stats = currentMinMax(currentValue);
+        MinMax stats = currentMinMax(true, currentValue);
         stats.updateMin(currentValue);
         stats.updateMax(currentValue);
     }
 
     private long currentEpochMinute() {
-        return Instant.ofEpochMilli(clock.getTime()).truncatedTo(ChronoUnit.MINUTES).getEpochSecond() / 60;
+        return Math.floorDiv(clock.getTime(), MILLIS_PER_MINUTE);
     }
 
-    private MinMax currentMinMax(Long currentValue) {
+    private MinMax currentMinMax(boolean update, long currentValue) {
         long currentEpochMinute = currentEpochMinute();
+        MinMax current = currentMinute.get();
+        if (current != null && currentEpochMinute <= current.epochMinute) {
+            // still in the same minute, no need to touch the shared reference
+            discardOutdatedCompleteMinute(currentEpochMinute);
+            return current;
+        }
         MinMax possiblyOutdated = currentMinute.getAndUpdate(
                 value -> value == null || value.markIfOld(currentEpochMinute)
-                    ? currentValue == null ? null : new MinMax(currentValue, currentEpochMinute)
+                    ? update ? new MinMax(currentValue, currentEpochMinute) : null
                     : value);
         if (possiblyOutdated != null && possiblyOutdated.finished.get()) {
             // we got previous MinMax instance, that has set finished=true just before it was replaced
@@ -114,12 +125,18 @@ abstract class CompleteMinuteMinMaxTracker implements Metric {
             // if value was not updated for longer than one minute, this is still correct answer,
             // as the gauge doesn't reset by itself.
             return currentMinute.get();
-        } else if (completeMinute != null && currentEpochMinute-1L > completeMinute.epochMinute) {
-            completeMinute = null;
         }
+        discardOutdatedCompleteMinute(currentEpochMinute);
         return possiblyOutdated != null ? possiblyOutdated : currentMinute.get();
     }
 
+    private void discardOutdatedCompleteMinute(long currentEpochMinute) {
+        MinMax complete = completeMinute;
+        if (complete != null && currentEpochMinute - 1L > complete.epochMinute) {
+            completeMinute = null;
+        }
+    }
+
     /**
      * Stats captured by the gauge. Note that even if it is stored in
      * AtomicReference, the class itself may be accessed concurrently.
@@ -147,11 +164,17 @@ abstract class CompleteMinuteMinMaxTracker implements Metric {
         }
 
         void updateMin(long value) {
-            min.accumulateAndGet(value, Math::min);
+            long current = min.get();
+            while (value < current && !min.compareAndSet(current, value)) {
+                current = min.get();
+            }
         }
 
         void updateMax(long value) {
-            max.accumulateAndGet(value, Math::max);
+            long current = max.get();
+            while (value > current && !max.compareAndSet(current, value)) {
+                current = max.get();
+            }
         }
     }
 }
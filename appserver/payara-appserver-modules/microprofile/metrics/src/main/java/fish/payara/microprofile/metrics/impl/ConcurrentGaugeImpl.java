@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2019-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2019-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -72,14 +72,12 @@ public class ConcurrentGaugeImpl extends CompleteMinuteMinMaxTracker implements
      */
     @Override
     public void inc() {
-        threads.incrementAndGet();
-        updateMaxValue(threads.longValue());
+        updateMaxValue(threads.incrementAndGet());
     }
 
     @Override
     public void dec() {
-        threads.decrementAndGet();
-        updateMinValue(threads.longValue());
+        updateMinValue(threads.decrementAndGet());
     }
 
     /**
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2018-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -141,7 +141,17 @@ public class ExponentiallyWeightedMovingAverage {
      * Mark the passage of time and decay the current rate accordingly.
      */
     public void tick() {
-        final long count = uncounted.sumThenReset();
+        tick(uncounted.sumThenReset());
+    }
+
+    /**
+     * Mark the passage of time and decay the current rate accordingly, using
+     * the given number of events that occurred during the past interval
+     * instead of the values passed to {@link #update(long)}.
+     *
+     * @param count the number of events of the past interval
+     */
+    public void tick(long count) {
         final double instantRate = count / interval;
         if (initialized) {
             final double oldRate = this.rate;
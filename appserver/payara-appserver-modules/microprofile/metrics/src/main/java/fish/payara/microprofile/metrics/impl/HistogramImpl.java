@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2018] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -55,7 +55,6 @@
 
 package fish.payara.microprofile.metrics.impl;
 
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 import javax.enterprise.inject.Vetoed;
 import org.eclipse.microprofile.metrics.Histogram;
@@ -72,7 +71,7 @@ public class HistogramImpl implements Histogram {
 
     private final Reservoir reservoir;
     private final LongAdder count;
-    private final AtomicLong sum;
+    private final LongAdder sum;
 
     /**
      * Creates a new {@link HistogramImpl} using an
@@ -90,7 +89,7 @@ public class HistogramImpl implements Histogram {
     public HistogramImpl(Reservoir reservoir) {
         this.reservoir = reservoir;
         this.count = new LongAdder();
-        this.sum = new AtomicLong();
+        this.sum = new LongAdder();
     }
 
     /**
@@ -111,7 +110,7 @@ public class HistogramImpl implements Histogram {
     @Override
     public void update(long value) {
         count.increment();
-        sum.getAndAdd(value);
+        sum.add(value);
         reservoir.update(value);
     }
 
@@ -127,7 +126,7 @@ public class HistogramImpl implements Histogram {
 
     @Override
     public long getSum() {
-        return sum.get();
+        return sum.sum();
     }
 
     @Override
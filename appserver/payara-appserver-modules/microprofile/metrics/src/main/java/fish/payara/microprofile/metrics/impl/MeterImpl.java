@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2018-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -57,6 +57,7 @@ package fish.payara.microprofile.metrics.impl;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import javax.enterprise.inject.Vetoed;
 import org.eclipse.microprofile.metrics.Meter;
 
@@ -77,7 +78,12 @@ public class MeterImpl implements Meter {
     private final ExponentiallyWeightedMovingAverage m5Rate = ExponentiallyWeightedMovingAverage.fiveMinuteEWMA();
     private final ExponentiallyWeightedMovingAverage m15Rate = ExponentiallyWeightedMovingAverage.fifteenMinuteEWMA();
 
-    private final AtomicLong count = new AtomicLong();
+    private final LongAdder count = new LongAdder();
+    /**
+     * Events of the current tick interval, shared by all moving averages so
+     * that a mark only updates two striped adders
+     */
+    private final LongAdder uncounted = new LongAdder();
     private final long startTime;
     private final AtomicLong lastTick;
     private final Clock clock;
@@ -116,10 +122,8 @@ public class MeterImpl implements Meter {
     @Override
     public void mark(long n) {
         tickIfNecessary();
-        count.addAndGet(n);
-        m1Rate.update(n);
-        m5Rate.update(n);
-        m15Rate.update(n);
+        count.add(n);
+        uncounted.add(n);
     }
 
     private void tickIfNecessary() {
@@ -130,10 +134,12 @@ public class MeterImpl implements Meter {
             final long newIntervalStartTick = newTick - age % TICK_INTERVAL;
             if (lastTick.compareAndSet(oldTick, newIntervalStartTick)) {
                 final long requiredTicks = age / TICK_INTERVAL;
+                long events = uncounted.sumThenReset();
                 for (long i = 0; i < requiredTicks; i++) {
-                    m1Rate.tick();
-                    m5Rate.tick();
-                    m15Rate.tick();
+                    m1Rate.tick(events);
+                    m5Rate.tick(events);
+                    m15Rate.tick(events);
+                    events = 0;
                 }
             }
         }
@@ -141,7 +147,7 @@ public class MeterImpl implements Meter {
 
     @Override
     public long getCount() {
-        return count.get();
+        return count.sum();
     }
 
     @Override
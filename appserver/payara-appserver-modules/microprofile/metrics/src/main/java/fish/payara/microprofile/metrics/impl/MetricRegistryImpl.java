@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2018-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -115,6 +115,7 @@ public class MetricRegistryImpl implements MetricRegistry {
     private final Type type;
     private final ConcurrentMap<String, MetricFamily<?>> metricsFamiliesByName = new ConcurrentHashMap<>();
     private final Clock clock;
+    private final Supplier<Reservoir> reservoirFactory;
     private final List<MetricRegistrationListener> listeners = new ArrayList<>();
 
     public MetricRegistryImpl(Type type) {
@@ -122,8 +123,19 @@ public class MetricRegistryImpl implements MetricRegistry {
     }
 
     public MetricRegistryImpl(Type type, Clock clock) {
+        this(type, clock, ExponentiallyDecayingReservoir::new);
+    }
+
+    /**
+     * @param type the scope of the registry
+     * @param clock the clock used by the metrics of the registry
+     * @param reservoirFactory creates the {@link Reservoir} of each {@link Histogram} and {@link Timer} created by the
+     *        registry
+     */
+    public MetricRegistryImpl(Type type, Clock clock, Supplier<Reservoir> reservoirFactory) {
         this.type = type;
         this.clock = clock;
+        this.reservoirFactory = reservoirFactory;
     }
 
     @Override
@@ -648,9 +660,9 @@ public class MetricRegistryImpl implements MetricRegistry {
         case METERED:
             return new MeterImpl();
         case HISTOGRAM:
-            return new HistogramImpl();
+            return new HistogramImpl(reservoirFactory.get());
         case TIMER:
-            return new TimerImpl(clock);
+            return new TimerImpl(reservoirFactory.get(), clock);
         case SIMPLE_TIMER:
             return new SimpleTimerImpl(clock);
         case INVALID:
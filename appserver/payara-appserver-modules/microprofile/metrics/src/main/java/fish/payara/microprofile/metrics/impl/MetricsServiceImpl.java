@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2018-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -56,6 +56,7 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 import javax.annotation.PostConstruct;
@@ -148,11 +149,12 @@ public class MetricsServiceImpl implements MetricsService, ConfigListener, Monit
         private final MetricRegistryImpl application;
         private final Queue<RegisteredMetric> newlyRegistered = new ConcurrentLinkedQueue<>();
 
-        public MetricsContextImpl(String name) {
+        public MetricsContextImpl(String name, Supplier<Reservoir> reservoirFactory) {
             this.name = name;
-            this.base = new MetricRegistryImpl(BASE);
-            this.vendor = new MetricRegistryImpl(Type.VENDOR);
-            this.application = isServerContext() ? null : new MetricRegistryImpl(Type.APPLICATION);
+            Clock clock = Clock.defaultClock();
+            this.base = new MetricRegistryImpl(BASE, clock, reservoirFactory);
+            this.vendor = new MetricRegistryImpl(Type.VENDOR, clock, reservoirFactory);
+            this.application = isServerContext() ? null : new MetricRegistryImpl(Type.APPLICATION, clock, reservoirFactory);
             base.addListener(this);
             vendor.addListener(this);
             if (application != null)
@@ -214,7 +216,7 @@ public class MetricsServiceImpl implements MetricsService, ConfigListener, Monit
         if (!createIfNotExists) {
             return contextByName.get(name);
         }
-        return contextByName.computeIfAbsent(name, key -> new MetricsContextImpl(key));
+        return contextByName.computeIfAbsent(name, key -> new MetricsContextImpl(key, this::createReservoir));
     }
 
     @Override
@@ -224,7 +226,7 @@ public class MetricsServiceImpl implements MetricsService, ConfigListener, Monit
         }
         name = appKeyOf(name);
         if (MetricsContext.SERVER_CONTEXT_NAME.equals(name)) {
-            return contextByName.computeIfAbsent(name, key -> new MetricsContextImpl(key));
+            return contextByName.computeIfAbsent(name, key -> new MetricsContextImpl(key, this::createReservoir));
         }
         return contextByName.get(name);
     }
@@ -478,6 +480,20 @@ public class MetricsServiceImpl implements MetricsService, ConfigListener, Monit
         return Boolean.parseBoolean(metricsServiceConfiguration.getSecurityEnabled());
     }
 
+    /**
+     * Creates the {@link Reservoir} of a newly registered histogram or timer according to the configured reservoir
+     * type, so that a changed type applies to metrics registered from then on.
+     *
+     * @return a new reservoir
+     */
+    Reservoir createReservoir() {
+        String reservoirType = metricsServiceConfiguration == null ? null : metricsServiceConfiguration.getReservoirType();
+        if (MetricsServiceConfiguration.STRIPED_RESERVOIR.equalsIgnoreCase(reservoirType)) {
+            return new StripedReservoir();
+        }
+        return new ExponentiallyDecayingReservoir();
+    }
+
     /**
      * Adds an application to the enabled map
      *
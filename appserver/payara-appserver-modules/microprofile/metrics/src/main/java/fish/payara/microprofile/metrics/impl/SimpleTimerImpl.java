@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -41,7 +41,7 @@ package fish.payara.microprofile.metrics.impl;
 
 import java.time.Duration;
 import java.util.concurrent.Callable;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.enterprise.inject.Vetoed;
 
@@ -59,8 +59,8 @@ import org.eclipse.microprofile.metrics.SimpleTimer;
 @Vetoed
 public class SimpleTimerImpl extends CompleteMinuteMinMaxTracker implements SimpleTimer {
 
-    private final AtomicLong callCount = new AtomicLong();
-    private final AtomicLong totalDurationNanos = new AtomicLong();
+    private final LongAdder callCount = new LongAdder();
+    private final LongAdder totalDurationNanos = new LongAdder();
 
     public SimpleTimerImpl(Clock clock) {
         super(clock);
@@ -71,8 +71,8 @@ public class SimpleTimerImpl extends CompleteMinuteMinMaxTracker implements Simp
         // synchronisation note: since there is no way of synchronously reading both updated values it does not matter
         // that both updates cannot be together atomically. Each is thread-safe on its own and that is as good as it gets
         long nanos = duration.toNanos();
-        totalDurationNanos.addAndGet(nanos);
-        callCount.incrementAndGet();
+        totalDurationNanos.add(nanos);
+        callCount.increment();
         updateValue(nanos);
     }
 
@@ -103,12 +103,12 @@ public class SimpleTimerImpl extends CompleteMinuteMinMaxTracker implements Simp
 
     @Override
     public Duration getElapsedTime() {
-        return Duration.ofNanos(totalDurationNanos.get());
+        return Duration.ofNanos(totalDurationNanos.sum());
     }
 
     @Override
     public long getCount() {
-        return callCount.get();
+        return callCount.sum();
     }
 
     @Override
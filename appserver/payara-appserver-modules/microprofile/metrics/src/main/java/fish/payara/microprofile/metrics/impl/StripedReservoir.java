@@ -0,0 +1,162 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *    Copyright (c) [2022] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ *     The contents of this file are subject to the terms of either the GNU
+ *     General Public License Version 2 only ("GPL") or the Common Development
+ *     and Distribution License("CDDL") (collectively, the "License").  You
+ *     may not use this file except in compliance with the License.  You can
+ *     obtain a copy of the License at
+ *     https://github.com/payara/Payara/blob/master/LICENSE.txt
+ *     See the License for the specific
+ *     language governing permissions and limitations under the License.
+ *
+ *     When distributing the software, include this License Header Notice in each
+ *     file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ *     GPL Classpath Exception:
+ *     The Payara Foundation designates this particular file as subject to the "Classpath"
+ *     exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *     file that accompanied this code.
+ *
+ *     Modifications:
+ *     If applicable, add the following below the License Header, with the fields
+ *     enclosed by brackets [] replaced by your own identifying information:
+ *     "Portions Copyright [year] [name of copyright owner]"
+ *
+ *     Contributor(s):
+ *     If you wish your version of this file to be governed by only the CDDL or
+ *     only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *     elects to include this software in this distribution under the [CDDL or GPL
+ *     Version 2] license."  If you don't indicate a single choice of license, a
+ *     recipient has the option to distribute your version of this file under
+ *     either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *     its licensees as provided above.  However, if you add GPL Version 2 code
+ *     and therefore, elected the GPL Version 2 license, then the option applies
+ *     only if the new code is made subject to such option by the copyright
+ *     holder.
+ *
+ */
+package fish.payara.microprofile.metrics.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.eclipse.microprofile.metrics.Snapshot;
+
+/**
+ * A {@link Reservoir} keeping the most recently recorded values in primitive arrays.
+ *
+ * The reservoir is split into stripes, each being a ring buffer of {@code long}s with its own write index. A thread
+ * always records into the same stripe, so concurrent updates from different threads rarely touch the same index, and
+ * recording a value neither allocates nor takes a lock.
+ *
+ * As each stripe keeps the most recent values recorded into it, the snapshot represents a sliding window of roughly the
+ * reservoir size over the most recent values rather than an exponentially decaying sample as the
+ * {@link ExponentiallyDecayingReservoir} does. Values recorded by threads that update rarely stay in the window until
+ * their stripe wraps around.
+ */
+public class StripedReservoir implements Reservoir {
+
+    private static final int DEFAULT_SIZE = 1028;
+    private static final int MAX_STRIPES = 64;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    /**
+     * Creates a new {@link StripedReservoir} of about 1028 elements with one stripe per available processor.
+     */
+    public StripedReservoir() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates a new {@link StripedReservoir} with one stripe per available processor.
+     *
+     * @param size the number of values to keep, rounded up so that each stripe has a power of two size
+     */
+    public StripedReservoir(int size) {
+        this(size, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new {@link StripedReservoir}.
+     *
+     * @param size the number of values to keep, rounded up so that each stripe has a power of two size
+     * @param concurrency the expected number of concurrently updating threads, rounded up to a power of two
+     */
+    public StripedReservoir(int size, int concurrency) {
+        int stripeCount = powerOfTwoAtLeast(Math.min(Math.max(concurrency, 1), MAX_STRIPES));
+        int stripeSize = powerOfTwoAtLeast(Math.max((size + stripeCount - 1) / stripeCount, 1));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(stripeSize);
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void update(long value) {
+        stripes[(int) Thread.currentThread().getId() & stripeMask].update(value);
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        long[] values = new long[stripes.length * stripes[0].capacity()];
+        int length = 0;
+        for (Stripe stripe : stripes) {
+            length += stripe.copyTo(values, length);
+        }
+        return new UniformSnapshot(values, length);
+    }
+
+    private static int powerOfTwoAtLeast(int value) {
+        int highestOneBit = Integer.highestOneBit(value);
+        return highestOneBit == value ? value : highestOneBit << 1;
+    }
+
+    /**
+     * A ring buffer of the most recent values recorded by the threads mapped to it.
+     */
+    private static final class Stripe {
+
+        private final AtomicLongArray values;
+        private final AtomicLong count = new AtomicLong();
+        private final int mask;
+
+        Stripe(int capacity) {
+            this.values = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+        }
+
+        void update(long value) {
+            values.lazySet((int) (count.getAndIncrement() & mask), value);
+        }
+
+        int capacity() {
+            return values.length();
+        }
+
+        int size() {
+            return (int) Math.min(count.get(), values.length());
+        }
+
+        int copyTo(long[] target, int offset) {
+            int size = size();
+            for (int i = 0; i < size; i++) {
+                target[offset + i] = values.get(i);
+            }
+            return size;
+        }
+    }
+}
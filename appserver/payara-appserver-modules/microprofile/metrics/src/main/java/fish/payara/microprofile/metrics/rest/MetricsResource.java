@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2018-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -69,6 +69,8 @@ import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static javax.ws.rs.HttpMethod.GET;
 import static javax.ws.rs.HttpMethod.OPTIONS;
 import static javax.ws.rs.core.HttpHeaders.ACCEPT;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.VARY;
 import javax.ws.rs.core.MediaType;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
@@ -121,7 +123,9 @@ public class MetricsResource extends HttpServlet {
             if (contentType != null) {
                 response.setContentType(contentType);
                 response.setCharacterEncoding(UTF_8.name());
-                MetricsWriter outputWriter = getOutputWriter(request, response, metricsService, contentType);
+                response.addHeader(VARY, ACCEPT_ENCODING);
+                Writer writer = acceptsGzip(request) ? new GzipResponseWriter(response) : response.getWriter();
+                MetricsWriter outputWriter = getOutputWriter(request, writer, metricsService, contentType);
                 if (outputWriter != null) {
                     if (registryName != null && !registryName.isEmpty()) {
                         Type scope;
@@ -138,6 +142,9 @@ public class MetricsResource extends HttpServlet {
                     } else {
                         outputWriter.write();
                     }
+                    if (writer instanceof GzipResponseWriter) {
+                        writer.close();
+                    }
                 }
             }
         } catch (NoSuchRegistryException ex) {
@@ -149,8 +156,7 @@ public class MetricsResource extends HttpServlet {
 
     @SuppressWarnings("resource")
     private static MetricsWriter getOutputWriter(HttpServletRequest request,
-            HttpServletResponse response, MetricsService service, String contentType) throws IOException {
-        Writer writer = response.getWriter();
+            Writer writer, MetricsService service, String contentType) throws IOException {
         String method = request.getMethod();
         if (GET.equalsIgnoreCase(method)) {
             if (APPLICATION_JSON.equals(contentType)) {
@@ -171,6 +177,20 @@ public class MetricsResource extends HttpServlet {
         return null;
     }
 
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String encoding : acceptEncoding.split(",")) {
+            String[] parts = encoding.split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length == 1 || parseQValue(encoding) > 0;
+            }
+        }
+        return false;
+    }
+
     private static Tag[] getGlobalTags() {
         Config config = ConfigProvider.getConfig();
         Optional<String> globalTagsProperty = config.getOptionalValue(GLOBAL_TAGS_VARIABLE, String.class);
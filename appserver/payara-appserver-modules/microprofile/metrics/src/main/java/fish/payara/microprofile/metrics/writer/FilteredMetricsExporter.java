@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -47,7 +47,6 @@ import java.util.Set;
 
 import org.eclipse.microprofile.metrics.Metadata;
 import org.eclipse.microprofile.metrics.MetricRegistry.Type;
-import org.eclipse.microprofile.metrics.Tag;
 
 public class FilteredMetricsExporter extends OpenMetricsExporter {
 
@@ -80,8 +79,8 @@ public class FilteredMetricsExporter extends OpenMetricsExporter {
     }
     
     @Override
-    protected void appendValue(String globalName, Tag[] tags, Number value) {
-        String key = globalName + tagsToString(tags);
+    protected void appendValue(String globalName, String tags, Number value) {
+        String key = globalName + tags;
         if (metricNames.contains(key)) {
             out.append(key)
                .append('=')
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -53,9 +53,7 @@ import java.util.logging.Level;
 
 import javax.json.Json;
 import javax.json.JsonArrayBuilder;
-import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
-import javax.json.JsonWriter;
 import javax.json.stream.JsonGenerator;
 
 import org.eclipse.microprofile.metrics.ConcurrentGauge;
@@ -80,6 +78,9 @@ import org.eclipse.microprofile.metrics.MetricRegistry.Type;
  * Writes {@link Metric}s according to the MicroPrfile Metrics 2.3 standard for JSON format as defined in <a href=
  * "https://download.eclipse.org/microprofile/microprofile-metrics-2.3/microprofile-metrics-spec-2.3.pdf">microprofile-metrics-spec-2.3.pdf</a>.
  *
+ * The output is streamed to the {@link Writer} as the metrics are exported, only the metadata of a single metric is
+ * built as an object before it is written in {@link Mode#OPTIONS}.
+ *
  * @author Jan Bernitt
  * @since 5.202
  */
@@ -87,37 +88,37 @@ public class JsonExporter implements MetricExporter {
 
     public enum Mode { GET, OPTIONS }
 
+    private static final ExportCache<MetricID, String> TAG_SUFFIXES = new ExportCache<>(50000);
+
     private final MetricRegistry.Type scope;
-    private final JsonWriter out;
+    private final Output out;
     private final Mode mode;
-    private final JsonObjectBuilder documentObj;
-    private final JsonObjectBuilder scopeObj;
-    private JsonObjectBuilder groupObj;
+    private final boolean asNode;
+    private boolean scopeStarted;
+    private boolean groupStarted;
     private JsonArrayBuilder tagsArray;
     private MetricID exportedBefore;
     private Metadata exportedBeforeMetadata;
 
     public JsonExporter(Writer out, Mode mode, boolean prettyPrint) {
-        this(null, writer(out, prettyPrint), mode, Json.createObjectBuilder(), null);
+        this(null, new Output(generator(out, prettyPrint)), mode, false);
     }
 
-    private static JsonWriter writer(Writer out, boolean prettyPrint) {
-        return Json.createWriterFactory(singletonMap(JsonGenerator.PRETTY_PRINTING, prettyPrint)).createWriter(out);
+    private static JsonGenerator generator(Writer out, boolean prettyPrint) {
+        return Json.createGeneratorFactory(singletonMap(JsonGenerator.PRETTY_PRINTING, prettyPrint)).createGenerator(out);
     }
 
-    private JsonExporter(MetricRegistry.Type scope, JsonWriter out, Mode mode, JsonObjectBuilder documentObj,
-            JsonObjectBuilder scopeObj) {
+    private JsonExporter(MetricRegistry.Type scope, Output out, Mode mode, boolean asNode) {
         this.scope = scope;
         this.out = out;
         this.mode = mode;
-        this.documentObj = documentObj;
-        this.scopeObj = scopeObj;
+        this.asNode = asNode;
     }
 
     @Override
     public MetricExporter in(Type scope, boolean asNode) {
         completeScope();
-        return new JsonExporter(scope, out, mode, documentObj, asNode ? Json.createObjectBuilder() : null);
+        return new JsonExporter(scope, out, mode, asNode);
     }
 
     @Override
@@ -216,14 +217,13 @@ public class JsonExporter implements MetricExporter {
     public void exportComplete() {
         completeGroup(null, null);
         completeScope();
-        out.write(documentObj.build());
+        out.document().writeEnd().flush();
     }
 
     private void exportMetadata() {
         if (exportedBefore == null) {
             return;
         }
-        JsonObjectBuilder target = scopeObj != null ? scopeObj : documentObj;
         JsonObjectBuilder metadataObj = Json.createObjectBuilder();
         Metadata metadata = exportedBeforeMetadata;
         metadataObj.add("unit", metadata.unit().orElse(MetricUnits.NONE));
@@ -243,24 +243,34 @@ public class JsonExporter implements MetricExporter {
             metadataObj.add("tags", tagsArray.build());
             tagsArray = null;
         }
-        target.add(name, metadataObj.build());
+        target().write(name, metadataObj.build());
+    }
+
+    /**
+     * Returns the generator positioned in the object the members of this exporter are written to, starting the document
+     * and the scope object when nothing was written to them yet, so that empty scopes are omitted.
+     */
+    private JsonGenerator target() {
+        JsonGenerator generator = out.document();
+        if (asNode && !scopeStarted) {
+            generator.writeStartObject(scope.getName());
+            scopeStarted = true;
+        }
+        return generator;
     }
 
     private void completeScope() {
         completeGroup(null, null);
-        if (scopeObj != null) {
-            JsonObject obj = scopeObj.build();
-            if (obj.size() > 0) {
-                documentObj.add(scope.getName(), obj);
-            }
+        if (scopeStarted) {
+            out.generator.writeEnd();
+            scopeStarted = false;
         }
     }
 
     private void completeGroup(MetricID current, Metadata metadata) {
-        if (mode == Mode.GET && groupObj != null) {
-            JsonObjectBuilder target = scopeObj != null ? scopeObj : documentObj;
-            target.add(exportedBefore.getName(), groupObj);
-            groupObj = null;
+        if (mode == Mode.GET && groupStarted) {
+            out.generator.writeEnd();
+            groupStarted = false;
         }
         if (mode == Mode.OPTIONS) {
             if (isNameChange(current)) {
@@ -286,8 +296,9 @@ public class JsonExporter implements MetricExporter {
         if (mode == Mode.OPTIONS || isNameChange(current)) {
             completeGroup(current, metadata);
         }
-        if (mode == Mode.GET && groupObj == null) {
-            groupObj = Json.createObjectBuilder();
+        if (mode == Mode.GET && !groupStarted) {
+            target().writeStartObject(current.getName());
+            groupStarted = true;
         }
     }
 
@@ -303,27 +314,37 @@ public class JsonExporter implements MetricExporter {
         if (mode == Mode.OPTIONS) {
             return; // nothing to do, metadata written in connection with group update
         }
-        JsonObjectBuilder target = groupObj != null ? groupObj : scopeObj != null ? scopeObj : documentObj;
+        JsonGenerator target = groupStarted ? out.generator : target();
         String name = field != null ? field : metricID.getName();
-        List<Tag> tags = tagsAlphabeticallySorted(metricID);
+        String tags = TAG_SUFFIXES.get(metricID, JsonExporter::tagSuffix);
         if (!tags.isEmpty()) {
-            for (Tag tag : tags) {
-                name += ';' + tagAsString(tag);
-            }
+            name += tags;
         }
         if (value instanceof Float || value instanceof Double) {
-            target.add(name, value.doubleValue());
+            target.write(name, Json.createValue(value.doubleValue()));
         } else if (value instanceof BigDecimal) {
-            target.add(name, (BigDecimal) value);
+            target.write(name, (BigDecimal) value);
         } else if (value instanceof BigInteger) {
-            target.add(name, (BigInteger) value);
+            target.write(name, (BigInteger) value);
         } else if (value == null) {
-            target.addNull(name);
+            target.writeNull(name);
         } else {
-            target.add(name, value.longValue());
+            target.write(name, value.longValue());
         }
     }
 
+    private static String tagSuffix(MetricID metricID) {
+        List<Tag> tags = tagsAlphabeticallySorted(metricID);
+        if (tags.isEmpty()) {
+            return "";
+        }
+        StringBuilder suffix = new StringBuilder();
+        for (Tag tag : tags) {
+            suffix.append(';').append(tagAsString(tag));
+        }
+        return suffix.toString();
+    }
+
     private static String tagAsString(Tag tag) {
         return tag.getTagName() + '=' + tag.getTagValue().replace(';', '_');
     }
@@ -339,4 +360,25 @@ public class JsonExporter implements MetricExporter {
         Arrays.sort(tags, (a, b) -> a.getTagName().compareTo(b.getTagName()));
         return asList(tags);
     }
+
+    /**
+     * The state shared by the exporters of the different scopes writing to the same document.
+     */
+    private static final class Output {
+
+        final JsonGenerator generator;
+        private boolean documentStarted;
+
+        Output(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        JsonGenerator document() {
+            if (!documentStarted) {
+                generator.writeStartObject();
+                documentStarted = true;
+            }
+            return generator;
+        }
+    }
 }
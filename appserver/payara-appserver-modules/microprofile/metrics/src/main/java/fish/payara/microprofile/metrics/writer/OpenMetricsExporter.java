@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -52,6 +52,7 @@ import java.util.Set;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 import java.util.logging.Level;
+import java.util.regex.Pattern;
 
 import org.eclipse.microprofile.metrics.ConcurrentGauge;
 import org.eclipse.microprofile.metrics.Counter;
@@ -77,7 +78,7 @@ import org.eclipse.microprofile.metrics.MetricRegistry.Type;
  *
  * The <code>append</code> method code is organised so that its output is reflected in the use of
  * {@link #appendHELP(String, Metadata)}, {@link #appendTYPE(String, OpenMetricsType)} and
- * {@link #appendValue(String, Tag[], Number)} which each emit a single output line.
+ * {@link #appendValue(String, String, Number)} which each emit a single output line.
  *
  * @author Jan Bernitt
  * @since 5.202
@@ -88,6 +89,22 @@ public class OpenMetricsExporter implements MetricExporter {
         counter, gauge, summary
     }
 
+    private static final Pattern INVALID_NAME_CHARACTERS = Pattern.compile("[^a-zA-Z0-9_]+");
+    private static final Pattern COLON_UNDERSCORE = Pattern.compile(":_");
+
+    private static final int MAX_CACHED_ENTRIES = 50000;
+    private static final ExportCache<String, String> SANITIZED_NAMES = new ExportCache<>(MAX_CACHED_ENTRIES);
+    private static final ExportCache<MetricID, String[]> RENDERED_TAGS = new ExportCache<>(MAX_CACHED_ENTRIES);
+
+    private static final String[] QUANTILES = { "0.5", "0.75", "0.95", "0.98", "0.99", "0.999" };
+    private static final int PLAIN = 0;
+    private static final int P50 = 1;
+    private static final int P75 = 2;
+    private static final int P95 = 3;
+    private static final int P98 = 4;
+    private static final int P99 = 5;
+    private static final int P999 = 6;
+
     protected final Type scope;
     protected final PrintWriter out;
     protected final Set<String> typeWrittenByGlobalName;
@@ -120,22 +137,22 @@ public class OpenMetricsExporter implements MetricExporter {
         String total = globalName(metricID, "_total");
         appendTYPE(total, OpenMetricsType.counter);
         appendHELP(total, metadata);
-        appendValue(total, metricID.getTagsAsArray(), counter.getCount());
+        appendValue(total, renderedTags(metricID)[PLAIN], counter.getCount());
     }
 
     @Override
     public void export(MetricID metricID, ConcurrentGauge gauge, Metadata metadata) {
-        Tag[] tags = metricID.getTagsAsArray();
+        String[] tags = renderedTags(metricID);
         String current = globalName(metricID, "_current");
         appendTYPE(current, OpenMetricsType.gauge);
         appendHELP(current, metadata);
-        appendValue(current, tags, gauge.getCount());
+        appendValue(current, tags[PLAIN], gauge.getCount());
         String min = globalName(metricID, "_min");
         appendTYPE(min, OpenMetricsType.gauge);
-        appendValue(min, tags, gauge.getMin());
+        appendValue(min, tags[PLAIN], gauge.getMin());
         String max = globalName(metricID, "_max");
         appendTYPE(max, OpenMetricsType.gauge);
-        appendValue(max, tags, gauge.getMax());
+        appendValue(max, tags[PLAIN], gauge.getMax());
     }
 
     @Override
@@ -155,7 +172,7 @@ public class OpenMetricsExporter implements MetricExporter {
         String valueName = globalName(metricID, metadata);
         appendTYPE(valueName, OpenMetricsType.gauge);
         appendHELP(valueName, metadata);
-        appendValue(valueName, metricID.getTagsAsArray(), scaleToBaseUnit((Number) value, metadata));
+        appendValue(valueName, renderedTags(metricID)[PLAIN], scaleToBaseUnit((Number) value, metadata));
     }
 
     @Override
@@ -164,75 +181,75 @@ public class OpenMetricsExporter implements MetricExporter {
     }
 
     private void exportSampling(MetricID metricID, Sampling sampling, LongSupplier count, Supplier<Number> sum, Metadata metadata) {
-        Tag[] tags = metricID.getTagsAsArray();
+        String[] tags = renderedTags(metricID);
         Snapshot snapshot = sampling.getSnapshot();
         String mean = globalName(metricID, "_mean", metadata);
         appendTYPE(mean, OpenMetricsType.gauge);
-        appendValue(mean, tags, scaleToBaseUnit(snapshot.getMean(), metadata));
+        appendValue(mean, tags[PLAIN], scaleToBaseUnit(snapshot.getMean(), metadata));
         String max = globalName(metricID, "_max", metadata);
         appendTYPE(max, OpenMetricsType.gauge);
-        appendValue(max, tags, scaleToBaseUnit(snapshot.getMax(), metadata));
+        appendValue(max, tags[PLAIN], scaleToBaseUnit(snapshot.getMax(), metadata));
         String min = globalName(metricID, "_min", metadata);
         appendTYPE(min, OpenMetricsType.gauge);
-        appendValue(min, tags, scaleToBaseUnit(snapshot.getMin(), metadata));
+        appendValue(min, tags[PLAIN], scaleToBaseUnit(snapshot.getMin(), metadata));
         String stddev = globalName(metricID, "_stddev", metadata);
         appendTYPE(stddev, OpenMetricsType.gauge);
-        appendValue(stddev, tags, scaleToBaseUnit(snapshot.getStdDev(), metadata));
+        appendValue(stddev, tags[PLAIN], scaleToBaseUnit(snapshot.getStdDev(), metadata));
         String summary = globalName(metricID, metadata);
         appendTYPE(summary, OpenMetricsType.summary);
         appendHELP(summary, metadata);
-        appendValue(globalName(metricID, metadata, "_count"), tags, count.getAsLong());
-        appendValue(globalName(metricID, metadata, "_sum"), tags, sum.get());
-        appendValue(summary, tags("quantile", "0.5", tags), scaleToBaseUnit(snapshot.getMedian(), metadata));
-        appendValue(summary, tags("quantile", "0.75", tags), scaleToBaseUnit(snapshot.get75thPercentile(), metadata));
-        appendValue(summary, tags("quantile", "0.95", tags), scaleToBaseUnit(snapshot.get95thPercentile(), metadata));
-        appendValue(summary, tags("quantile", "0.98", tags), scaleToBaseUnit(snapshot.get98thPercentile(), metadata));
-        appendValue(summary, tags("quantile", "0.99", tags), scaleToBaseUnit(snapshot.get99thPercentile(), metadata));
-        appendValue(summary, tags("quantile", "0.999", tags), scaleToBaseUnit(snapshot.get999thPercentile(), metadata));
+        appendValue(globalName(metricID, metadata, "_count"), tags[PLAIN], count.getAsLong());
+        appendValue(globalName(metricID, metadata, "_sum"), tags[PLAIN], sum.get());
+        appendValue(summary, tags[P50], scaleToBaseUnit(snapshot.getMedian(), metadata));
+        appendValue(summary, tags[P75], scaleToBaseUnit(snapshot.get75thPercentile(), metadata));
+        appendValue(summary, tags[P95], scaleToBaseUnit(snapshot.get95thPercentile(), metadata));
+        appendValue(summary, tags[P98], scaleToBaseUnit(snapshot.get98thPercentile(), metadata));
+        appendValue(summary, tags[P99], scaleToBaseUnit(snapshot.get99thPercentile(), metadata));
+        appendValue(summary, tags[P999], scaleToBaseUnit(snapshot.get999thPercentile(), metadata));
     }
 
     @Override
     public void export(MetricID metricID, Meter meter, Metadata metadata) {
-        Tag[] tags = metricID.getTagsAsArray();
+        String[] tags = renderedTags(metricID);
         String total = globalName(metricID, "_total");
         appendTYPE(total, OpenMetricsType.counter);
         appendHELP(total, metadata);
-        appendValue(total, tags, meter.getCount());
+        appendValue(total, tags[PLAIN], meter.getCount());
         exportMetered(metricID, meter);
     }
 
     private void exportMetered(MetricID metricID, Metered metered) {
-        Tag[] tags = metricID.getTagsAsArray();
+        String[] tags = renderedTags(metricID);
         String rate = globalName(metricID, "_rate_per_second");
         appendTYPE(rate, OpenMetricsType.gauge);
-        appendValue(rate, tags, metered.getMeanRate());
+        appendValue(rate, tags[PLAIN], metered.getMeanRate());
         String oneMinRate = globalName(metricID, "_one_min_rate_per_second");
         appendTYPE(oneMinRate, OpenMetricsType.gauge);
-        appendValue(oneMinRate, tags, metered.getOneMinuteRate());
+        appendValue(oneMinRate, tags[PLAIN], metered.getOneMinuteRate());
         String fiveMinRate = globalName(metricID, "_five_min_rate_per_second");
         appendTYPE(fiveMinRate, OpenMetricsType.gauge);
-        appendValue(fiveMinRate, tags, metered.getFiveMinuteRate());
+        appendValue(fiveMinRate, tags[PLAIN], metered.getFiveMinuteRate());
         String fifteenMinRate = globalName(metricID, "_fifteen_min_rate_per_second");
         appendTYPE(fifteenMinRate, OpenMetricsType.gauge);
-        appendValue(fifteenMinRate, tags, metered.getFifteenMinuteRate());
+        appendValue(fifteenMinRate, tags[PLAIN], metered.getFifteenMinuteRate());
     }
 
     @Override
     public void export(MetricID metricID, SimpleTimer timer, Metadata metadata) {
-        Tag[] tags = metricID.getTagsAsArray();
+        String[] tags = renderedTags(metricID);
         String total = globalName(metricID, "_total");
         appendTYPE(total, OpenMetricsType.counter);
         appendHELP(total, metadata);
-        appendValue(total, tags, timer.getCount());
+        appendValue(total, tags[PLAIN], timer.getCount());
         String elapsedTime = globalName(metricID, "_elapsedTime_seconds");
         appendTYPE(elapsedTime, OpenMetricsType.gauge);
-        appendValue(elapsedTime, tags, toSeconds(timer.getElapsedTime()));
+        appendValue(elapsedTime, tags[PLAIN], toSeconds(timer.getElapsedTime()));
         String maxTime = globalName(metricID, "_maxTimeDuration_seconds");
         appendTYPE(maxTime, OpenMetricsType.gauge);
-        appendValue(maxTime, tags, toSeconds(timer.getMaxTimeDuration()));
+        appendValue(maxTime, tags[PLAIN], toSeconds(timer.getMaxTimeDuration()));
         String minTime = globalName(metricID, "_minTimeDuration_seconds");
         appendTYPE(minTime, OpenMetricsType.gauge);
-        appendValue(minTime, tags, toSeconds(timer.getMinTimeDuration()));
+        appendValue(minTime, tags[PLAIN], toSeconds(timer.getMinTimeDuration()));
     }
 
     @Override
@@ -266,16 +283,27 @@ public class OpenMetricsExporter implements MetricExporter {
     }
 
     protected void appendValue(String globalName, Tag[] tags, Number value) {
+        appendValue(globalName, tagsToString(tags), value);
+    }
+
+    /**
+     * Appends a value line.
+     *
+     * @param globalName the sanitised name of the value
+     * @param tags the rendered tags, including the curly braces, or an empty string if there are none
+     * @param value the value, or null for NaN
+     */
+    protected void appendValue(String globalName, String tags, Number value) {
         out.append(globalName);
-        out.append(tagsToString(tags));
+        out.append(tags);
         out.append(' ').append(value == null ? "NaN" : roundValue(value)).append('\n');
     }
 
-    private void appendValue(String globalName, Tag[] tags, long value) {
+    private void appendValue(String globalName, String tags, long value) {
         appendValue(globalName, tags, Long.valueOf(value));
     }
 
-    private void appendValue(String globalName, Tag[] tags, double value) {
+    private void appendValue(String globalName, String tags, double value) {
         appendValue(globalName, tags, Double.valueOf(value));
     }
 
@@ -297,19 +325,37 @@ public class OpenMetricsExporter implements MetricExporter {
         if (tags.length == 0) {
             return "";
         }
-        String result = "";
-        result += "{";
+        StringBuilder result = new StringBuilder();
+        result.append('{');
         for (int i = 0; i < tags.length; i++) {
             if (i > 0) {
-                result += ",";
+                result.append(',');
             }
-            result += sanitizeMetricName(tags[i].getTagName())
-                    + "=\""
-                    + escapeTagValue(tags[i].getTagValue())
-                    + '"';
+            result.append(sanitizeMetricName(tags[i].getTagName()))
+                    .append("=\"")
+                    .append(escapeTagValue(tags[i].getTagValue()))
+                    .append('"');
+        }
+        result.append('}');
+        return result.toString();
+    }
+
+    /**
+     * Returns the rendered tags of the given metric, at index {@link #PLAIN} the tags of the metric itself, at the
+     * following indexes the tags including the quantile label, from {@link #P50} to {@link #P999}.
+     */
+    private static String[] renderedTags(MetricID metricID) {
+        return RENDERED_TAGS.get(metricID, OpenMetricsExporter::renderTags);
+    }
+
+    private static String[] renderTags(MetricID metricID) {
+        Tag[] tags = metricID.getTagsAsArray();
+        String[] rendered = new String[QUANTILES.length + 1];
+        rendered[PLAIN] = tagsToString(tags);
+        for (int i = 0; i < QUANTILES.length; i++) {
+            rendered[i + 1] = tagsToString(tags("quantile", QUANTILES[i], tags));
         }
-        result += "}";
-        return result;
+        return rendered;
     }
 
     private String globalName(MetricID metricID, Metadata unit) {
@@ -363,9 +409,9 @@ public class OpenMetricsExporter implements MetricExporter {
 
     private String globalName(MetricID metricID, String suffix) {
         String name = metricID.getName();
-        return sanitizeMetricName(!suffix.isEmpty() && name.endsWith(suffix)
+        return SANITIZED_NAMES.get(!suffix.isEmpty() && name.endsWith(suffix)
                 ? scope.getName() + '_' + name
-                : scope.getName() + '_' + name + suffix);
+                : scope.getName() + '_' + name + suffix, OpenMetricsExporter::sanitizeMetricName);
     }
 
     private static CharSequence escapeTagValue(String name) {
@@ -388,9 +434,9 @@ public class OpenMetricsExporter implements MetricExporter {
         //Translation rules :
         //All characters not in the range a-z A-Z or 0-9 are translated to underscore (_)
         //Double underscore is translated to single underscore
-        String out = name.replaceAll("[^a-zA-Z0-9_]+", "_");
+        String out = INVALID_NAME_CHARACTERS.matcher(name).replaceAll("_");
         //Colon-underscore (:_) is translated to single colon
-        return out.replaceAll(":_", ":");
+        return COLON_UNDERSCORE.matcher(out).replaceAll(":");
     }
 
     private static Tag[] tags(String name, String value, Tag[] rest) {
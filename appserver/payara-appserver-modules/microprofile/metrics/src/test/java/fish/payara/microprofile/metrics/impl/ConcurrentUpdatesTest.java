@@ -0,0 +1,138 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *    Copyright (c) [2022] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ *     The contents of this file are subject to the terms of either the GNU
+ *     General Public License Version 2 only ("GPL") or the Common Development
+ *     and Distribution License("CDDL") (collectively, the "License").  You
+ *     may not use this file except in compliance with the License.  You can
+ *     obtain a copy of the License at
+ *     https://github.com/payara/Payara/blob/master/LICENSE.txt
+ *     See the License for the specific
+ *     language governing permissions and limitations under the License.
+ *
+ *     When distributing the software, include this License Header Notice in each
+ *     file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ *     GPL Classpath Exception:
+ *     The Payara Foundation designates this particular file as subject to the "Classpath"
+ *     exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *     file that accompanied this code.
+ *
+ *     Modifications:
+ *     If applicable, add the following below the License Header, with the fields
+ *     enclosed by brackets [] replaced by your own identifying information:
+ *     "Portions Copyright [year] [name of copyright owner]"
+ *
+ *     Contributor(s):
+ *     If you wish your version of this file to be governed by only the CDDL or
+ *     only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *     elects to include this software in this distribution under the [CDDL or GPL
+ *     Version 2] license."  If you don't indicate a single choice of license, a
+ *     recipient has the option to distribute your version of this file under
+ *     either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *     its licensees as provided above.  However, if you add GPL Version 2 code
+ *     and therefore, elected the GPL Version 2 license, then the option applies
+ *     only if the new code is made subject to such option by the copyright
+ *     holder.
+ *
+ */
+package fish.payara.microprofile.metrics.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests that the metrics updated from many threads concurrently do not lose updates.
+ */
+public class ConcurrentUpdatesTest implements Clock {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 10000;
+
+    private long tick;
+
+    @Test
+    public void counterCountsAllIncrements() throws InterruptedException {
+        CounterImpl counter = new CounterImpl();
+        runConcurrently(counter::inc);
+        assertEquals(THREADS * UPDATES_PER_THREAD, counter.getCount());
+    }
+
+    @Test
+    public void meterCountsAllMarks() throws InterruptedException {
+        MeterImpl meter = new MeterImpl();
+        runConcurrently(meter::mark);
+        assertEquals(THREADS * UPDATES_PER_THREAD, meter.getCount());
+    }
+
+    @Test
+    public void meterRatesUseEventsOfPastInterval() {
+        MeterImpl meter = new MeterImpl(this);
+        meter.mark(50);
+        tick += TimeUnit.SECONDS.toNanos(6);
+        assertEquals(10d, meter.getOneMinuteRate(), 0.0001d);
+        assertEquals(10d, meter.getFiveMinuteRate(), 0.0001d);
+        assertEquals(10d, meter.getFifteenMinuteRate(), 0.0001d);
+    }
+
+    @Test
+    public void simpleTimerCountsAllUpdates() throws InterruptedException {
+        SimpleTimerImpl timer = new SimpleTimerImpl(Clock.defaultClock());
+        runConcurrently(() -> timer.update(Duration.ofNanos(3)));
+        assertEquals(THREADS * UPDATES_PER_THREAD, timer.getCount());
+        assertEquals(3L * THREADS * UPDATES_PER_THREAD, timer.getElapsedTime().toNanos());
+    }
+
+    @Test
+    public void histogramSumsAllUpdates() throws InterruptedException {
+        HistogramImpl histogram = new HistogramImpl(new StripedReservoir());
+        runConcurrently(() -> histogram.update(2L));
+        assertEquals(THREADS * UPDATES_PER_THREAD, histogram.getCount());
+        assertEquals(2L * THREADS * UPDATES_PER_THREAD, histogram.getSum());
+    }
+
+    @Test
+    public void concurrentGaugeReturnsToZero() throws InterruptedException {
+        ConcurrentGaugeImpl gauge = new ConcurrentGaugeImpl();
+        runConcurrently(() -> {
+            gauge.inc();
+            gauge.dec();
+        });
+        assertEquals(0, gauge.getCount());
+    }
+
+    private static void runConcurrently(Runnable update) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < UPDATES_PER_THREAD; j++) {
+                    update.run();
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @Override
+    public long getTick() {
+        return tick;
+    }
+}
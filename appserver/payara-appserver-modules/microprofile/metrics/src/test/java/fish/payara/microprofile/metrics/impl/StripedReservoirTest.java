@@ -0,0 +1,126 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *    Copyright (c) [2022] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ *     The contents of this file are subject to the terms of either the GNU
+ *     General Public License Version 2 only ("GPL") or the Common Development
+ *     and Distribution License("CDDL") (collectively, the "License").  You
+ *     may not use this file except in compliance with the License.  You can
+ *     obtain a copy of the License at
+ *     https://github.com/payara/Payara/blob/master/LICENSE.txt
+ *     See the License for the specific
+ *     language governing permissions and limitations under the License.
+ *
+ *     When distributing the software, include this License Header Notice in each
+ *     file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ *     GPL Classpath Exception:
+ *     The Payara Foundation designates this particular file as subject to the "Classpath"
+ *     exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *     file that accompanied this code.
+ *
+ *     Modifications:
+ *     If applicable, add the following below the License Header, with the fields
+ *     enclosed by brackets [] replaced by your own identifying information:
+ *     "Portions Copyright [year] [name of copyright owner]"
+ *
+ *     Contributor(s):
+ *     If you wish your version of this file to be governed by only the CDDL or
+ *     only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *     elects to include this software in this distribution under the [CDDL or GPL
+ *     Version 2] license."  If you don't indicate a single choice of license, a
+ *     recipient has the option to distribute your version of this file under
+ *     either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *     its licensees as provided above.  However, if you add GPL Version 2 code
+ *     and therefore, elected the GPL Version 2 license, then the option applies
+ *     only if the new code is made subject to such option by the copyright
+ *     holder.
+ *
+ */
+package fish.payara.microprofile.metrics.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+import org.junit.Test;
+
+/**
+ * Tests the {@link StripedReservoir} and the {@link UniformSnapshot} it creates.
+ */
+public class StripedReservoirTest {
+
+    @Test
+    public void emptyReservoirHasEmptySnapshot() {
+        StripedReservoir reservoir = new StripedReservoir(16, 1);
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertEquals(0, reservoir.size());
+        assertEquals(0, snapshot.size());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0d, snapshot.getMedian(), 0d);
+    }
+
+    @Test
+    public void snapshotContainsRecordedValues() {
+        StripedReservoir reservoir = new StripedReservoir(16, 1);
+        for (long value = 1; value <= 10; value++) {
+            reservoir.update(value);
+        }
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertEquals(10, reservoir.size());
+        assertEquals(10, snapshot.size());
+        assertEquals(1, snapshot.getMin());
+        assertEquals(10, snapshot.getMax());
+        assertEquals(5.5d, snapshot.getMean(), 0.0001d);
+        assertEquals(5.5d, snapshot.getMedian(), 0.0001d);
+        assertEquals(10d, snapshot.get99thPercentile(), 0.0001d);
+    }
+
+    @Test
+    public void oldestValuesAreOverwrittenWhenFull() {
+        StripedReservoir reservoir = new StripedReservoir(8, 1);
+        for (long value = 1; value <= 20; value++) {
+            reservoir.update(value);
+        }
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertEquals(8, reservoir.size());
+        assertEquals(13, snapshot.getMin());
+        assertEquals(20, snapshot.getMax());
+    }
+
+    @Test
+    public void concurrentUpdatesAreAllRecordedWithinCapacity() throws InterruptedException {
+        StripedReservoir reservoir = new StripedReservoir(4096, 4);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 200; j++) {
+                    reservoir.update(42);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertEquals(800, snapshot.size());
+        assertEquals(42, snapshot.getMin());
+        assertEquals(42, snapshot.getMax());
+    }
+
+    @Test
+    public void histogramUsesGivenReservoir() {
+        HistogramImpl histogram = new HistogramImpl(new StripedReservoir(64, 2));
+        histogram.update(3);
+        histogram.update(7);
+        assertEquals(2, histogram.getCount());
+        assertEquals(10, histogram.getSum());
+        assertTrue(histogram.getSnapshot() instanceof UniformSnapshot);
+        assertEquals(7, histogram.getSnapshot().getMax());
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2022] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.openapi.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+import org.glassfish.api.deployment.archive.ReadableArchive;
+
+/**
+ * Keeps the last document built for each application together with a
+ * checksum of everything it was built from, so that redeploying an unchanged
+ * archive reuses the document instead of scanning the application again.
+ * Entries outlive the deployment of their application for that purpose, but
+ * only the entries of the {@value #MAX_UNDEPLOYED} most recently undeployed
+ * applications are kept.
+ */
+final class ArchiveDocumentCache {
+
+    static final int MAX_UNDEPLOYED = 10;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Applications undeployed while their entry is kept, least recently
+     * undeployed first.
+     */
+    private final LinkedHashSet<String> undeployed = new LinkedHashSet<>();
+
+    /**
+     * @param applicationId the application
+     * @param checksum the checksum of the inputs of the document
+     * @return the document built for the application from the same inputs, or
+     * null if there is none
+     */
+    OpenAPI get(String applicationId, String checksum) {
+        Entry entry = entries.get(applicationId);
+        return entry != null && entry.checksum.equals(checksum) ? entry.document : null;
+    }
+
+    void put(String applicationId, String checksum, OpenAPI document) {
+        synchronized (undeployed) {
+            undeployed.remove(applicationId);
+        }
+        entries.put(applicationId, new Entry(checksum, document));
+    }
+
+    /**
+     * Marks the application as undeployed. Its entry is kept for a
+     * redeployment, evicting the entry of the least recently undeployed
+     * application when too many are kept.
+     *
+     * @param applicationId the application
+     */
+    void undeployed(String applicationId) {
+        synchronized (undeployed) {
+            if (!entries.containsKey(applicationId)) {
+                return;
+            }
+            undeployed.remove(applicationId);
+            undeployed.add(applicationId);
+            Iterator<String> eldest = undeployed.iterator();
+            while (undeployed.size() > MAX_UNDEPLOYED) {
+                entries.remove(eldest.next());
+                eldest.remove();
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Computes a checksum over the names and contents of all entries of an
+     * archive and any other inputs of the document.
+     *
+     * @param archive the application archive
+     * @param inputs further inputs of the document, compared by their string
+     * form
+     * @return the checksum
+     * @throws IOException if the archive could not be read
+     */
+    static String checksum(ReadableArchive archive, Object... inputs) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported", ex);
+        }
+        for (Object input : inputs) {
+            digest.update(String.valueOf(input).getBytes(UTF_8));
+            digest.update((byte) 0);
+        }
+        // the order of entries is not guaranteed to be the same for the same archive
+        List<String> names = new ArrayList<>(Collections.list(archive.entries()));
+        Collections.sort(names);
+        byte[] buffer = new byte[8192];
+        for (String name : names) {
+            digest.update(name.getBytes(UTF_8));
+            digest.update((byte) 0);
+            try (InputStream in = archive.getEntry(name)) {
+                if (in != null) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+            }
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private static final class Entry {
+        private final String checksum;
+        private final OpenAPI document;
+
+        private Entry(String checksum, OpenAPI document) {
+            this.checksum = checksum;
+            this.document = document;
+        }
+    }
+}
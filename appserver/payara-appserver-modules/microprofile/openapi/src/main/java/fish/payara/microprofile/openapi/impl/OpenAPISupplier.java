@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2020-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -88,18 +88,20 @@ public class OpenAPISupplier implements Supplier<OpenAPI> {
     private final String contextRoot;
     private final ReadableArchive archive;
     private final ClassLoader classLoader;
+    private final ArchiveDocumentCache documentCache;
 
     private volatile OpenAPI document;
 
     private boolean enabled;
 
     public OpenAPISupplier(String applicationId, String contextRoot,
-            ReadableArchive archive, ClassLoader classLoader) {
+            ReadableArchive archive, ClassLoader classLoader, ArchiveDocumentCache documentCache) {
         this.config = new OpenApiConfiguration(classLoader);
         this.applicationId = applicationId;
         this.contextRoot = contextRoot;
         this.archive = archive;
         this.classLoader = classLoader;
+        this.documentCache = documentCache;
         this.enabled = true;
     }
 
@@ -117,6 +119,19 @@ public class OpenAPISupplier implements Supplier<OpenAPI> {
         }
 
         try {
+            final List<URL> baseURLs = getServerURL(contextRoot);
+            // model readers and filters may build the document from more than what is in the archive
+            final String checksum = config.getModelReader() == null && config.getFilter() == null
+                    ? ArchiveDocumentCache.checksum(archive, contextRoot, baseURLs, config.getProperties())
+                    : null;
+            if (checksum != null) {
+                OpenAPI cachedDocument = documentCache.get(applicationId, checksum);
+                if (cachedDocument != null) {
+                    this.document = cachedDocument;
+                    return cachedDocument;
+                }
+            }
+
             final Parser parser = Globals.get(ApplicationLifecycle.class).getDeployableParser(
                     archive,
                     true,
@@ -128,7 +143,6 @@ public class OpenAPISupplier implements Supplier<OpenAPI> {
 
             OpenAPI doc = new OpenAPIImpl();
             try {
-                final List<URL> baseURLs = getServerURL(contextRoot);
                 doc = new ConfigPropertyProcessor().process(doc, config);
                 doc = new ModelReaderProcessor().process(doc, config);
                 doc = new FileProcessor(classLoader).process(doc, config);
@@ -146,6 +160,9 @@ public class OpenAPISupplier implements Supplier<OpenAPI> {
             } finally {
                 this.document = doc;
             }
+            if (checksum != null) {
+                documentCache.put(applicationId, checksum, doc);
+            }
 
             return this.document;
         } catch (Exception ex) {
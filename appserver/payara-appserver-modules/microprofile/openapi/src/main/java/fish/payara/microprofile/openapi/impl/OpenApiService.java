@@ -43,6 +43,7 @@ import java.io.IOException;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Singleton;
@@ -67,9 +68,18 @@ public class OpenApiService {
     private boolean withCorsHeaders;
 
     private volatile OpenAPI cachedResult;
+    private volatile RenderedDocument renderedResult;
+
+    /**
+     * Incremented on every change to the documents, so that a merge racing
+     * with a deployment is not cached.
+     */
+    private final AtomicLong modifications = new AtomicLong();
 
     private Map<String, OpenAPISupplier> documents;
 
+    private final ArchiveDocumentCache documentCache = new ArchiveDocumentCache();
+
     public OpenApiService() {
         this.documents = new ConcurrentHashMap<>();
     }
@@ -111,23 +121,24 @@ public class OpenApiService {
         final String contextRoot = descriptor.getContextRoot();
         final ReadableArchive archive = ctx.getSource();
         final ClassLoader classLoader = ctx.getClassLoader();
-        documents.put(applicationId, new OpenAPISupplier(applicationId, contextRoot, archive, classLoader));
-        cachedResult = null;
+        documents.put(applicationId, new OpenAPISupplier(applicationId, contextRoot, archive, classLoader, documentCache));
+        invalidate();
     }
 
     public void deregisterApp(String applicationId) {
         documents.remove(applicationId);
-        cachedResult = null;
+        documentCache.undeployed(applicationId);
+        invalidate();
     }
 
     public void resumeApp(String applicationId) {
         documents.get(applicationId).setEnabled(true);
-        cachedResult = null;
+        invalidate();
     }
 
     public void suspendApp(String applicationId) {
         documents.get(applicationId).setEnabled(false);
-        cachedResult = null;
+        invalidate();
     }
 
     /**
@@ -136,13 +147,22 @@ public class OpenApiService {
      * @throws OpenAPIBuildException if creating the document failed.
      * @throws java.io.IOException if source archive not accessible
      */
-    public synchronized OpenAPI getDocument() throws OpenAPIBuildException, IOException, CloneNotSupportedException {
+    public OpenAPI getDocument() throws OpenAPIBuildException, IOException, CloneNotSupportedException {
+        OpenAPI result = cachedResult;
+        if (result != null) {
+            return result;
+        }
+        return mergeDocuments();
+    }
+
+    private synchronized OpenAPI mergeDocuments() throws OpenAPIBuildException, IOException, CloneNotSupportedException {
         if (documents.isEmpty()) {
             return null;
         }
         if (cachedResult != null) {
             return cachedResult;
         }
+        long modificationsBefore = modifications.get();
         OpenAPI result = null;
         Iterator<OpenAPISupplier> iterator = documents.values().iterator();
         do {
@@ -154,10 +174,37 @@ public class OpenApiService {
             }
         } while (iterator.hasNext());
 
-        this.cachedResult = result;
+        if (modifications.get() == modificationsBefore) {
+            this.cachedResult = result;
+        }
         return result;
     }
 
+    /**
+     * @return the serialised forms of the document returned by
+     * {@link #getDocument()}, or null if there is no document
+     * @throws OpenAPIBuildException if creating the document failed.
+     * @throws java.io.IOException if source archive not accessible
+     */
+    public RenderedDocument getRenderedDocument() throws OpenAPIBuildException, IOException, CloneNotSupportedException {
+        OpenAPI document = getDocument();
+        if (document == null) {
+            return null;
+        }
+        RenderedDocument rendered = renderedResult;
+        if (rendered == null || !rendered.isRenderingOf(document)) {
+            rendered = new RenderedDocument(document);
+            renderedResult = rendered;
+        }
+        return rendered;
+    }
+
+    private void invalidate() {
+        modifications.incrementAndGet();
+        cachedResult = null;
+        renderedResult = null;
+    }
+
     public static final OpenApiService getInstance() {
         return Globals.getStaticHabitat().getService(OpenApiService.class);
     }
@@ -0,0 +1,168 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2022] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.openapi.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fish.payara.microprofile.openapi.impl.rest.app.provider.ObjectMapperFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+
+/**
+ * The serialised forms of an OpenAPI document.
+ * <p>
+ * Each format is rendered once, when first requested, and then served as is
+ * until the document changes, so that polling the OpenAPI endpoint does not
+ * serialise the model over and over again.
+ */
+public final class RenderedDocument {
+
+    public enum Format {
+        JSON(ObjectMapperFactory.createJson()),
+        YAML(ObjectMapperFactory.createYaml());
+
+        private final ObjectMapper mapper;
+
+        Format(ObjectMapper mapper) {
+            this.mapper = mapper;
+        }
+    }
+
+    private final OpenAPI document;
+    private final Rendering[] renderings = new Rendering[Format.values().length];
+
+    RenderedDocument(OpenAPI document) {
+        this.document = document;
+    }
+
+    /**
+     * @param document an OpenAPI document
+     * @return true if this is the rendering of the given document instance
+     */
+    boolean isRenderingOf(OpenAPI document) {
+        return this.document == document;
+    }
+
+    /**
+     * @param format the format to render the document in
+     * @return the document rendered in the given format
+     * @throws IOException if the document could not be serialised
+     */
+    public Rendering get(Format format) throws IOException {
+        // racing threads may both render the document, which yields the same result
+        Rendering rendering = renderings[format.ordinal()];
+        if (rendering == null) {
+            rendering = new Rendering(format.mapper.writeValueAsBytes(document));
+            renderings[format.ordinal()] = rendering;
+        }
+        return rendering;
+    }
+
+    /**
+     * The document serialised in one format.
+     */
+    public static final class Rendering {
+
+        private final byte[] content;
+        private final String entityTag;
+        private volatile byte[] gzippedContent;
+
+        Rendering(byte[] content) {
+            this.content = content;
+            this.entityTag = digest(content);
+        }
+
+        /**
+         * @return the serialised document, must not be modified
+         */
+        public byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * @return the serialised document compressed with gzip, must not be
+         * modified
+         */
+        public byte[] getGzippedContent() {
+            byte[] gzipped = gzippedContent;
+            if (gzipped == null) {
+                gzipped = gzip(content);
+                gzippedContent = gzipped;
+            }
+            return gzipped;
+        }
+
+        /**
+         * @return an entity tag derived from the content, so that it is the
+         * same for the same document on every instance
+         */
+        public String getEntityTag() {
+            return entityTag;
+        }
+
+        private static byte[] gzip(byte[] content) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                gzip.write(content);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return bytes.toByteArray();
+        }
+
+        private static String digest(byte[] content) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+                StringBuilder tag = new StringBuilder(32);
+                for (int i = 0; i < 16; i++) {
+                    tag.append(Character.forDigit((hash[i] >> 4) & 0xF, 16))
+                            .append(Character.forDigit(hash[i] & 0xF, 16));
+                }
+                return tag.toString();
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("SHA-256 is not supported", ex);
+            }
+        }
+    }
+}
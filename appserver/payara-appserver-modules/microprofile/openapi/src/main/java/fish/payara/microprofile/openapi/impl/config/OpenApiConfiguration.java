@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2018] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2018-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -49,6 +49,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -76,6 +77,7 @@ public class OpenApiConfiguration {
     private static final String PATH_PREFIX_KEY = "mp.openapi.servers.path.";
     private static final String OPERATION_PREFIX_KEY = "mp.openapi.servers.operation.";
     private static final String SCHEMA_DEFINITIONS_PREFIX_KEY = "mp.openapi.schema.";
+    private static final String OPENAPI_PREFIX_KEY = "mp.openapi.";
 
     private Class<? extends OASModelReader> modelReader;
     private Class<? extends OASFilter> filter;
@@ -89,6 +91,7 @@ public class OpenApiConfiguration {
     private Map<String, Set<String>> pathServerMap = new HashMap<>();
     private Map<String, Set<String>> operationServerMap = new HashMap<>();
     private Map<String, SchemaImpl> schemaMap = new HashMap<>();
+    private final Map<String, String> properties = new TreeMap<>();
 
     public OpenApiConfiguration(ClassLoader applicationClassLoader) {
         // Find the correct configuration instance
@@ -111,6 +114,9 @@ public class OpenApiConfiguration {
             parsePathServer(propertyName, config);
             parseOperationServer(propertyName, config);
             parseSchema(propertyName, config);
+            if (propertyName.startsWith(OPENAPI_PREFIX_KEY)) {
+                properties.put(propertyName, config.getOptionalValue(propertyName, String.class).orElse(""));
+            }
         }
     }
 
@@ -198,6 +204,13 @@ public class OpenApiConfiguration {
         return schemaMap;
     }
 
+    /**
+     * @return the raw values of all OpenAPI properties, sorted by name.
+     */
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
     private void parseModelReader(String propertyName, Config config) {
         if (propertyName.equals(MODEL_READER_KEY)) {
             this.modelReader = parseClass(propertyName, config, "Model Reader", OASModelReader.class);
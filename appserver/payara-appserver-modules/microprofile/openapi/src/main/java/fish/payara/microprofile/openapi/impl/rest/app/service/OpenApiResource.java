@@ -41,6 +41,9 @@ package fish.payara.microprofile.openapi.impl.rest.app.service;
 
 import fish.payara.microprofile.openapi.api.OpenAPIBuildException;
 import fish.payara.microprofile.openapi.impl.OpenApiService;
+import fish.payara.microprofile.openapi.impl.RenderedDocument;
+import fish.payara.microprofile.openapi.impl.RenderedDocument.Format;
+import fish.payara.microprofile.openapi.impl.RenderedDocument.Rendering;
 import fish.payara.microprofile.openapi.impl.model.OpenAPIImpl;
 import fish.payara.microprofile.openapi.impl.processor.BaseProcessor;
 
@@ -49,6 +52,7 @@ import java.io.IOException;
 import static java.util.logging.Level.WARNING;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -56,8 +60,17 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.VARY;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 import org.eclipse.microprofile.openapi.models.OpenAPI;
@@ -67,9 +80,14 @@ public class OpenApiResource {
 
     private static final Logger LOGGER = Logger.getLogger(OpenApiResource.class.getName());
 
+    private static final MediaType APPLICATION_YAML_TYPE = MediaType.valueOf(APPLICATION_YAML);
+
+    private static final String VARY_HEADERS = ACCEPT + ", " + ACCEPT_ENCODING;
+
     @GET
     @Produces({ APPLICATION_YAML, APPLICATION_JSON })
-    public Response getResponse(@Context HttpServletRequest request, @Context HttpServletResponse response) throws IOException {
+    public Response getResponse(@Context HttpServletRequest request, @Context HttpServletResponse response,
+            @Context HttpHeaders headers, @Context Request jaxrsRequest) throws IOException {
         OpenApiService openApiService = OpenApiService.getInstance();
 
         // If the server is disabled, throw an error
@@ -78,10 +96,10 @@ public class OpenApiResource {
             return Response.status(FORBIDDEN).build();
         }
 
-        // Get the OpenAPI document
-        OpenAPI document = null;
+        // Get the OpenAPI document, rendered once per deployed set of applications
+        RenderedDocument document = null;
         try {
-            document = openApiService.getDocument();
+            document = openApiService.getRenderedDocument();
         } catch (OpenAPIBuildException | IOException | CloneNotSupportedException ex) {
             LOGGER.log(WARNING, "OpenAPI document creation failed: " + ex.getMessage(), ex);
         }
@@ -93,7 +111,56 @@ public class OpenApiResource {
             return Response.status(Status.NOT_FOUND).entity(result).build();
         }
 
-        // Return the document
-        return Response.ok(document).build();
+        // Return the document, or nothing if the client has it already
+        MediaType mediaType = selectMediaType(headers.getAcceptableMediaTypes());
+        Rendering rendering = document.get(APPLICATION_JSON_TYPE.equals(mediaType) ? Format.JSON : Format.YAML);
+        boolean gzip = acceptsGzip(request.getHeader(ACCEPT_ENCODING));
+        EntityTag entityTag = new EntityTag(gzip ? rendering.getEntityTag() + "-gzip" : rendering.getEntityTag());
+        ResponseBuilder notModified = jaxrsRequest.evaluatePreconditions(entityTag);
+        if (notModified != null) {
+            return notModified.header(VARY, VARY_HEADERS).build();
+        }
+        ResponseBuilder builder = Response.ok(gzip ? rendering.getGzippedContent() : rendering.getContent(), mediaType)
+                .tag(entityTag)
+                .header(VARY, VARY_HEADERS);
+        if (gzip) {
+            builder.encoding("gzip");
+        }
+        return builder.build();
+    }
+
+    /**
+     * Picks the format with the same preference as the {@link Produces}
+     * annotation, so YAML unless JSON is explicitly preferred.
+     */
+    private static MediaType selectMediaType(List<MediaType> acceptableMediaTypes) {
+        for (MediaType acceptable : acceptableMediaTypes) {
+            if (acceptable.isCompatible(APPLICATION_YAML_TYPE)) {
+                return APPLICATION_YAML_TYPE;
+            }
+            if (acceptable.isCompatible(APPLICATION_JSON_TYPE)) {
+                return APPLICATION_JSON_TYPE;
+            }
+        }
+        return APPLICATION_YAML_TYPE;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            if ("gzip".equalsIgnoreCase(parameters[0].trim())) {
+                for (int i = 1; i < parameters.length; i++) {
+                    // q=0 marks the coding as not acceptable
+                    if (parameters[i].trim().matches("q\\s*=\\s*0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
     }
 }
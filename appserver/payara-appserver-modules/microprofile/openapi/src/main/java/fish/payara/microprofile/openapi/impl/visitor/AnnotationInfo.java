@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2019-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2019-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -241,6 +241,35 @@ public final class AnnotationInfo {
         return false;
     }
 
+    /**
+     * Checks the type as a whole, used to skip types which carry none of the annotations of interest.
+     * 
+     * @param annotationTypes annotation types to check
+     * @return true in case any of the given annotations is present at this type or at any field, method or method
+     *         parameter defined or inherited by it
+     */
+    public boolean hasAnyAnnotation(Collection<Class<? extends Annotation>> annotationTypes) {
+        for (Class<? extends Annotation> annotationType : annotationTypes) {
+            String annotationName = annotationType.getName();
+            if (typeAnnotations.containsKey(annotationName)
+                    || isPresentIn(annotationName, fieldAnnotations)
+                    || isPresentIn(annotationName, methodAnnotations)
+                    || isPresentIn(annotationName, methodParameterAnnotations)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPresentIn(String annotationName, Map<String, Map<String, AnnotationModel>> annotationsByMember) {
+        for (Map<String, AnnotationModel> annotations : annotationsByMember.values()) {
+            if (annotations.containsKey(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Counts the annotation on a {@link Parameter} including those present on same parameter of an overridden method
      * should the method be overridden.
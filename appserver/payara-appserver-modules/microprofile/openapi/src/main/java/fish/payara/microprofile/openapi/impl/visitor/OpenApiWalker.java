@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2018-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2018-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -44,9 +44,11 @@ import fish.payara.microprofile.openapi.api.visitor.ApiVisitor.VisitorFunction;
 import fish.payara.microprofile.openapi.api.visitor.ApiWalker;
 import fish.payara.microprofile.openapi.impl.model.media.SchemaImpl;
 import java.lang.annotation.Annotation;
+import static java.util.stream.Collectors.toList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
@@ -119,10 +121,17 @@ public class OpenApiWalker<E extends AnnotatedElement> implements ApiWalker {
 
     @Override
     public void accept(ApiVisitor visitor) {
-        for (Type type : allowedTypes) {
-            if (type instanceof ClassModel) {
-                processAnnotation((ClassModel) type, visitor);
-            }
+        Set<Class<? extends Annotation>> visitedAnnotations = getAnnotationVisitor(visitor).keySet();
+        // Resolving the annotations of a class is independent of any other class so it is done in parallel, which
+        // also sorts out the classes without any annotation of interest. As visiting updates the shared model the
+        // remaining classes are visited one by one in order of their names to keep the resulting document stable.
+        List<ClassModel> annotatedClasses = allowedTypes.parallelStream()
+                .filter(ClassModel.class::isInstance)
+                .map(ClassModel.class::cast)
+                .filter(type -> context.getAnnotationInfo(type).hasAnyAnnotation(visitedAnnotations))
+                .collect(toList());
+        for (ClassModel type : annotatedClasses) {
+            processAnnotation(type, visitor);
         }
         addSchemasToPaths();
     }
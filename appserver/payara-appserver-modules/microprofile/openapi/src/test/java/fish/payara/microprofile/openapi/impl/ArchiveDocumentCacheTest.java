@@ -0,0 +1,108 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2022] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.openapi.impl;
+
+import fish.payara.microprofile.openapi.impl.model.OpenAPIImpl;
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * Checks which documents are kept by {@link ArchiveDocumentCache}.
+ */
+public class ArchiveDocumentCacheTest {
+
+    private final ArchiveDocumentCache cache = new ArchiveDocumentCache();
+
+    @Test
+    public void documentIsOnlyReusedForSameChecksum() {
+        OpenAPI document = new OpenAPIImpl();
+        cache.put("app", "checksum", document);
+        assertSame(document, cache.get("app", "checksum"));
+        assertNull(cache.get("app", "other"));
+        assertNull(cache.get("other", "checksum"));
+    }
+
+    @Test
+    public void documentIsKeptForRedeployment() {
+        OpenAPI document = new OpenAPIImpl();
+        cache.put("app", "checksum", document);
+        cache.undeployed("app");
+        assertSame(document, cache.get("app", "checksum"));
+    }
+
+    @Test
+    public void onlyMostRecentlyUndeployedDocumentsAreKept() {
+        int apps = ArchiveDocumentCache.MAX_UNDEPLOYED + 5;
+        for (int i = 0; i < apps; i++) {
+            cache.put("app" + i, "checksum", new OpenAPIImpl());
+        }
+        for (int i = 0; i < apps; i++) {
+            cache.undeployed("app" + i);
+        }
+        assertEquals(ArchiveDocumentCache.MAX_UNDEPLOYED, cache.size());
+        assertNull(cache.get("app0", "checksum"));
+        assertNull(cache.get("app4", "checksum"));
+        assertNotNull(cache.get("app5", "checksum"));
+        assertNotNull(cache.get("app" + (apps - 1), "checksum"));
+    }
+
+    @Test
+    public void redeployedApplicationIsNoLongerEvicted() {
+        cache.put("redeployed", "checksum", new OpenAPIImpl());
+        cache.undeployed("redeployed");
+        OpenAPI document = new OpenAPIImpl();
+        cache.put("redeployed", "checksum", document);
+        for (int i = 0; i < ArchiveDocumentCache.MAX_UNDEPLOYED + 1; i++) {
+            cache.put("app" + i, "checksum", new OpenAPIImpl());
+            cache.undeployed("app" + i);
+        }
+        assertSame(document, cache.get("redeployed", "checksum"));
+    }
+
+    @Test
+    public void undeployingUnknownApplicationKeepsNothing() {
+        cache.undeployed("unknown");
+        assertEquals(0, cache.size());
+    }
+}
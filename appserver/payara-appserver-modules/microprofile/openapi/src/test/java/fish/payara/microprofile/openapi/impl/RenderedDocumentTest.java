@@ -0,0 +1,114 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) [2022] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.openapi.impl;
+
+import fish.payara.microprofile.openapi.impl.RenderedDocument.Format;
+import fish.payara.microprofile.openapi.impl.RenderedDocument.Rendering;
+import fish.payara.microprofile.openapi.impl.model.OpenAPIImpl;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import static org.eclipse.microprofile.openapi.OASFactory.createInfo;
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Checks the serialised forms kept by {@link RenderedDocument}.
+ */
+public class RenderedDocumentTest {
+
+    @Test
+    public void renderingIsOnlyDoneOncePerFormat() throws IOException {
+        RenderedDocument document = new RenderedDocument(createDocument("1.0"));
+        Rendering json = document.get(Format.JSON);
+        assertSame(json, document.get(Format.JSON));
+        assertNotEquals(json.getEntityTag(), document.get(Format.YAML).getEntityTag());
+        assertTrue(new String(json.getContent(), "UTF-8").contains("\"version\":\"1.0\""));
+    }
+
+    @Test
+    public void entityTagDependsOnContentOnly() throws IOException {
+        String tag = new RenderedDocument(createDocument("1.0")).get(Format.JSON).getEntityTag();
+        assertEquals(tag, new RenderedDocument(createDocument("1.0")).get(Format.JSON).getEntityTag());
+        assertNotEquals(tag, new RenderedDocument(createDocument("2.0")).get(Format.JSON).getEntityTag());
+    }
+
+    @Test
+    public void gzippedContentDecompressesToContent() throws IOException {
+        Rendering yaml = new RenderedDocument(createDocument("1.0")).get(Format.YAML);
+        assertSame(yaml.getGzippedContent(), yaml.getGzippedContent());
+        assertArrayEquals(yaml.getContent(), gunzip(yaml.getGzippedContent()));
+    }
+
+    @Test
+    public void renderingIsBoundToDocumentInstance() {
+        OpenAPI model = createDocument("1.0");
+        RenderedDocument document = new RenderedDocument(model);
+        assertTrue(document.isRenderingOf(model));
+        assertFalse(document.isRenderingOf(createDocument("1.0")));
+    }
+
+    private static OpenAPI createDocument(String version) {
+        OpenAPI document = new OpenAPIImpl();
+        document.setOpenapi("3.0.0");
+        document.setInfo(createInfo().title("title").version(version));
+        return document;
+    }
+
+    private static byte[] gunzip(byte[] gzipped) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -149,6 +149,33 @@ public class ClusteredStore implements EventListener, MonitoringDataSource {
         return result;
     }
 
+    /**
+     * Stores several values in Hazelcast with a single operation
+     * @param storeName The name of the store to put the values into.
+     * This will be created if it does not already exist.
+     * @param values the key/value pairs to store
+     * @return true if the operation succeeded, false otherwise
+     */
+    public boolean setAll(String storeName, Map<? extends Serializable, ? extends Serializable> values) {
+        boolean result = false;
+        if (isEnabled()) {
+            try (Context ctx = ctxUtil.empty().pushContext()) {
+                Map<Serializable, Serializable> toStore = new HashMap<>(values);
+                if (hzCore.isDatagridEncryptionEnabled()) {
+                    for (Map.Entry<Serializable, Serializable> entry : toStore.entrySet()) {
+                        if (entry.getValue() != null) {
+                            entry.setValue(new PayaraHazelcastEncryptedValueHolder(HazelcastSymmetricEncryptor.encode(
+                                    HazelcastSymmetricEncryptor.objectToByteArray(entry.getValue()))));
+                        }
+                    }
+                }
+                hzCore.getInstance().getMap(storeName).putAll(toStore);
+                result = true;
+            }
+        }
+        return result;
+    }
+
     /**
      * Removes a key/value pair of a Hazelcast store.
      * The store will be created if it does not already exist.
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -74,6 +74,7 @@ import fish.payara.nucleus.microprofile.config.source.ModuleConfigSource;
 import fish.payara.nucleus.microprofile.config.source.ServerConfigSource;
 import fish.payara.nucleus.microprofile.config.source.extension.ExtensionConfigSource;
 import fish.payara.nucleus.microprofile.config.source.extension.ExtensionConfigSourceService;
+import fish.payara.nucleus.microprofile.config.spi.ConfigProviderResolverImpl;
 import fish.payara.nucleus.microprofile.config.spi.MicroprofileConfigConfiguration;
 
 /**
@@ -113,6 +114,9 @@ public class DeleteConfigProperty implements AdminCommand {
     @Inject
     private ExtensionConfigSourceService extensionService;
 
+    @Inject
+    private ConfigProviderResolverImpl configProvider;
+
     @Override
     public void execute(AdminCommandContext context) {
         try {
@@ -183,6 +187,7 @@ public class DeleteConfigProperty implements AdminCommand {
                     for (ExtensionConfigSource extension : extensionSources) {
                         if (extension.getName().equals(sourceName)) {
                             extension.deleteValue(propertyName);
+                            configProvider.propertyChanged(propertyName);
                         }
                     }
                 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2020-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -71,13 +71,16 @@ import fish.payara.nucleus.microprofile.config.spi.MicroprofileConfigConfigurati
     @RestEndpoint(configBean = MicroprofileConfigConfiguration.class,
             opType = RestEndpoint.OpType.POST, // must be POST as it is doing an update
             path = "set-config-cache",
-            description = "Sets the cache duration for values in the MP Config")
+            description = "Sets the cache duration or invalidation for values in the MP Config")
 })
 public class SetConfigCacheDuration implements AdminCommand {
 
     @Min(0)
-    @Param(alias = "duration")
-    int durationInSeconds;
+    @Param(alias = "duration", optional = true)
+    Integer durationInSeconds;
+
+    @Param(optional = true)
+    Boolean invalidation;
 
     @Param(optional = true, defaultValue = "server") // if no target is specified it will be the DAS
     String target;
@@ -89,12 +92,19 @@ public class SetConfigCacheDuration implements AdminCommand {
     public void execute(AdminCommandContext context) {
         Config configVal = targetUtil.getConfig(target);
         MicroprofileConfigConfiguration serviceConfig = configVal.getExtensionByType(MicroprofileConfigConfiguration.class);
-        if (serviceConfig != null) {
+        if (durationInSeconds == null && invalidation == null) {
+            context.getActionReport().failure(Logger.getLogger(SetConfigCacheDuration.class.getName()), "Either duration or invalidation has to be given");
+        } else if (serviceConfig != null) {
             try {
                 ConfigSupport.apply(new SingleConfigCode<MicroprofileConfigConfiguration>() {
                     @Override
                     public Object run(MicroprofileConfigConfiguration config) {
-                        config.setCacheDurationSeconds(Integer.toString(durationInSeconds));
+                        if (durationInSeconds != null) {
+                            config.setCacheDurationSeconds(Integer.toString(durationInSeconds));
+                        }
+                        if (invalidation != null) {
+                            config.setCacheInvalidationEnabled(invalidation.toString());
+                        }
                         return null;
                     }
                 }, serviceConfig);
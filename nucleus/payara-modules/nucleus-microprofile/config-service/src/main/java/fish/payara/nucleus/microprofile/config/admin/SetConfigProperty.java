@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -74,6 +74,7 @@ import fish.payara.nucleus.microprofile.config.source.ModuleConfigSource;
 import fish.payara.nucleus.microprofile.config.source.ServerConfigSource;
 import fish.payara.nucleus.microprofile.config.source.extension.ExtensionConfigSource;
 import fish.payara.nucleus.microprofile.config.source.extension.ExtensionConfigSourceService;
+import fish.payara.nucleus.microprofile.config.spi.ConfigProviderResolverImpl;
 import fish.payara.nucleus.microprofile.config.spi.MicroprofileConfigConfiguration;
 
 /**
@@ -116,6 +117,9 @@ public class SetConfigProperty implements AdminCommand {
     @Inject
     private ExtensionConfigSourceService extensionService;
 
+    @Inject
+    private ConfigProviderResolverImpl configProvider;
+
     @Override
     public void execute(AdminCommandContext context) {
 
@@ -190,6 +194,8 @@ public class SetConfigProperty implements AdminCommand {
                         if (extension.getName().equals(sourceName)) {
                             if (!extension.setValue(propertyName, propertyValue)) {
                                 context.getActionReport().failure(Logger.getLogger(SetConfigProperty.class.getName()), "Failed to set the Microprofile Config Value. See the server log for details");
+                            } else {
+                                configProvider.propertyChanged(propertyName);
                             }
                         }
                     }
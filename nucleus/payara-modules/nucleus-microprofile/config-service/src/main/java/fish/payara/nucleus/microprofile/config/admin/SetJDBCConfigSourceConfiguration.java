@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2020-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -89,6 +89,9 @@ public class SetJDBCConfigSourceConfiguration implements AdminCommand {
     @Param
     private String valueColumnName;
 
+    @Param(optional = true)
+    private Integer pollIntervalSeconds;
+
     @Inject
     private Target targetUtil;
 
@@ -123,6 +126,9 @@ public class SetJDBCConfigSourceConfiguration implements AdminCommand {
                 if (valueColumnName != null) {
                     configProxy.setValueColumnName(valueColumnName);
                 }
+                if (pollIntervalSeconds != null) {
+                    configProxy.setPollIntervalSeconds(pollIntervalSeconds.toString());
+                }
                 actionReport.setActionExitCode(ActionReport.ExitCode.SUCCESS);
                 return configProxy;
             }, jdbcConfigSourceConfiguration);
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -97,6 +97,11 @@ public class ApplicationConfigSource extends PayaraConfigSource {
         return result;
     }
 
+    @Override
+    public boolean isPublishingChanges() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "Application";
@@ -130,6 +135,7 @@ public class ApplicationConfigSource extends PayaraConfigSource {
 
             }
             result = true;
+            propertyChanged(propertyName);
         }
         return result;
     }
@@ -142,6 +148,7 @@ public class ApplicationConfigSource extends PayaraConfigSource {
                 if ((PROPERTY_PREFIX + propertyName).equals(object.getName())) {
                     ConfigSupport.deleteChild((ConfigBean) ConfigBean.unwrap(app), (ConfigBean) ConfigBean.unwrap(object));
                     result = true;
+                    propertyChanged(propertyName);
                 }
             }
         }
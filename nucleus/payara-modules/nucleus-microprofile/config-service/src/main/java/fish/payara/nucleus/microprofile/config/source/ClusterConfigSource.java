@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -39,6 +39,8 @@
  */
 package fish.payara.nucleus.microprofile.config.source;
 
+import fish.payara.nucleus.eventbus.ClusterMessage;
+import fish.payara.nucleus.eventbus.EventBus;
 import fish.payara.nucleus.store.ClusteredStore;
 import java.io.Serializable;
 import java.util.HashMap;
@@ -53,10 +55,13 @@ import org.glassfish.internal.api.Globals;
 public class ClusterConfigSource extends PayaraConfigSource {
     
     public final static String CLUSTERED_CONFIG_STORE = "payara.microprofile.config";
+    public final static String CLUSTERED_CONFIG_CHANGE_TOPIC = "payara.microprofile.config.change";
     private final ClusteredStore clusterStore;
+    private final EventBus eventBus;
 
     public ClusterConfigSource() {
         clusterStore = Globals.getDefaultHabitat().getService(ClusteredStore.class);
+        eventBus = Globals.getDefaultHabitat().getService(EventBus.class);
     }
     
     @Override
@@ -83,6 +88,11 @@ public class ClusterConfigSource extends PayaraConfigSource {
         return (String) clusterStore.get(CLUSTERED_CONFIG_STORE, propertyName);
     }
 
+    @Override
+    public boolean isPublishingChanges() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "Cluster";
@@ -90,10 +100,24 @@ public class ClusterConfigSource extends PayaraConfigSource {
 
     public void setValue(String propertyName, String propertyValue) {
         clusterStore.set(CLUSTERED_CONFIG_STORE, propertyName, propertyValue);
+        clusterPropertyChanged(propertyName);
     }
 
     public void deleteValue(String propertyName) {
         clusterStore.remove(CLUSTERED_CONFIG_STORE, propertyName);
+        clusterPropertyChanged(propertyName);
+    }
+
+    /**
+     * Invalidates the property on this member right away and publishes the
+     * change to all members of the cluster, as any of them may have the
+     * previous value cached.
+     */
+    private void clusterPropertyChanged(String propertyName) {
+        propertyChanged(propertyName);
+        if (eventBus != null) {
+            eventBus.publish(CLUSTERED_CONFIG_CHANGE_TOPIC, new ClusterMessage<>(propertyName));
+        }
     }
     
 }
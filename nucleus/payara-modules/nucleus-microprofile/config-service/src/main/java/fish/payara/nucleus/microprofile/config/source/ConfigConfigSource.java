@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -96,6 +96,11 @@ public class ConfigConfigSource extends PayaraConfigSource {
         return result;
     }
 
+    @Override
+    public boolean isPublishingChanges() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "ServerConfig";
@@ -128,6 +133,7 @@ public class ConfigConfigSource extends PayaraConfigSource {
 
             }
             success = true;
+            propertyChanged(propertyName);
         }
         return success;
     }
@@ -140,6 +146,7 @@ public class ConfigConfigSource extends PayaraConfigSource {
                 if ((PROPERTY_PREFIX + propertyName).equals(object.getName())) {
                     ConfigSupport.deleteChild((ConfigBean) ConfigBean.unwrap(config), (ConfigBean) ConfigBean.unwrap(object));
                     result = true;
+                    propertyChanged(propertyName);
                 }
             }
         }
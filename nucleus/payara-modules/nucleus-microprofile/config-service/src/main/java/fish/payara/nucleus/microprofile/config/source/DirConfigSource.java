@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -274,6 +274,11 @@ public class DirConfigSource extends PayaraConfigSource implements ConfigSource
         return result == null ? null : result.propertyValue;
     }
 
+    @Override
+    public boolean isPublishingChanges() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "Directory";
@@ -323,7 +328,11 @@ public class DirConfigSource extends PayaraConfigSource implements ConfigSource
             // When this property is not already present, check how to solve the conflict.
             // This property file will be skipped if the file we already have is deeper in the file tree...
             if (isLongestMatchForPath(property, path)) {
-                properties.put(property, readPropertyFromPath(path, mainAtts, this.directory));
+                DirProperty added = readPropertyFromPath(path, mainAtts, this.directory);
+                DirProperty replaced = properties.put(property, added);
+                if (replaced == null || !added.propertyValue.equals(replaced.propertyValue)) {
+                    propertyChanged(property);
+                }
                 return true;
             }
         }
@@ -340,6 +349,7 @@ public class DirConfigSource extends PayaraConfigSource implements ConfigSource
         // -> deleting a file more specific than in map shouldn't occur (it had to slip through longest match check then).
         if (path.equals(properties.get(property).path)) {
             properties.remove(property);
+            propertyChanged(property);
         }
     }
     
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -82,6 +82,11 @@ public class DomainConfigSource extends PayaraConfigSource {
         return domainConfiguration.getPropertyValue(PROPERTY_PREFIX + propertyName);
     }
 
+    @Override
+    public boolean isPublishingChanges() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "Domain";
@@ -109,12 +114,14 @@ public class DomainConfigSource extends PayaraConfigSource {
                 }
             }, p);
         }
+        propertyChanged(propertyName);
     }
 
     public void deleteValue(String propertyName) throws TransactionFailure {
         for (Property object : domainConfiguration.getProperty()) {
             if ((PROPERTY_PREFIX + propertyName).equals(object.getName())) {
                 ConfigSupport.deleteChild((ConfigBean) ConfigBean.unwrap(domainConfiguration), (ConfigBean) ConfigBean.unwrap(object));
+                propertyChanged(propertyName);
             }
         }
     }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2020-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2020-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -53,13 +53,18 @@ public class JDBCConfigSource extends PayaraConfigSource {
     private static final Logger LOGGER = Logger.getLogger(JDBCConfigSource.class.getName());
 
     private final JDBCConfigSourceConfiguration config;
+    private final JDBCConfigSourceSnapshot snapshot;
 
     public JDBCConfigSource() {
         this.config = Globals.getDefaultHabitat().getService(JDBCConfigSourceConfiguration.class);
+        this.snapshot = Globals.getDefaultHabitat().getService(JDBCConfigSourceSnapshot.class);
     }
 
     @Override
     public Map<String, String> getProperties() {
+        if (isSnapshotEnabled()) {
+            return snapshot.getValues();
+        }
         JDBCConfigSourceHelper helper = getHelper();
         if (helper == null) {
             return null;
@@ -86,6 +91,9 @@ public class JDBCConfigSource extends PayaraConfigSource {
 
     @Override
     public String getValue(String propertyName) {
+        if (isSnapshotEnabled()) {
+            return snapshot.getValues().get(propertyName);
+        }
         JDBCConfigSourceHelper helper = getHelper();
         if (helper == null) {
             return null;
@@ -101,11 +109,20 @@ public class JDBCConfigSource extends PayaraConfigSource {
         }
     }
 
+    @Override
+    public boolean isPublishingChanges() {
+        return isSnapshotEnabled();
+    }
+
     @Override
     public String getName() {
         return "JDBC";
     }
 
+    private boolean isSnapshotEnabled() {
+        return config != null && snapshot != null && snapshot.isEnabled();
+    }
+
     private JDBCConfigSourceHelper getHelper() {
         if (config != null) {
             return new JDBCConfigSourceHelper(config);
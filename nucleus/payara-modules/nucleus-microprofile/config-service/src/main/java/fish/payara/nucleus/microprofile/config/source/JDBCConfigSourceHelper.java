@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2020-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -112,17 +112,33 @@ public class JDBCConfigSourceHelper implements Closeable {
     }
 
     public synchronized Map<String, String> getAllConfigValues() {
-        Map<String, String> result = new HashMap<>();
         if (selectAll != null) {
             try {
-                ResultSet resultSet = selectAll.executeQuery();
-                while (resultSet.next()) {
-                    result.put(resultSet.getString(1), resultSet.getString(2));
-                }
+                return loadAllConfigValues();
             } catch (SQLException ex) {
                 LOGGER.log(Level.WARNING, "Error in config source SQL execution", ex);
             }
         }
+        return new HashMap<>();
+    }
+
+    /**
+     * Reads the whole config table with a single query.
+     *
+     * @return all values of the table by key
+     * @throws SQLException when the table could not be read, including when no connection could be obtained, so that
+     *                      a failure is not mistaken for an empty table
+     */
+    synchronized Map<String, String> loadAllConfigValues() throws SQLException {
+        if (selectAll == null) {
+            throw new SQLException("No connection to the config source data source");
+        }
+        Map<String, String> result = new HashMap<>();
+        try (ResultSet resultSet = selectAll.executeQuery()) {
+            while (resultSet.next()) {
+                result.put(resultSet.getString(1), resultSet.getString(2));
+            }
+        }
         return result;
     }
 
@@ -0,0 +1,237 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.microprofile.config.source;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.glassfish.hk2.api.ServiceLocator;
+import org.jvnet.hk2.annotations.Service;
+
+import fish.payara.nucleus.microprofile.config.spi.ConfigProviderResolverImpl;
+import fish.payara.nucleus.microprofile.config.spi.JDBCConfigSourceConfiguration;
+
+/**
+ * In-memory copy of the table backing the {@link JDBCConfigSource}, shared by all the configs using that source.
+ * <p>
+ * The whole table is read with a single query when the first value is requested, and read again in the background
+ * every {@link JDBCConfigSourceConfiguration#getPollIntervalSeconds()} seconds. Keys that were added, changed or
+ * removed by a reload are published to the {@link ConfigProviderResolverImpl} so that cached config values get
+ * resolved again. A failed reload keeps the previous copy.
+ */
+@Service
+public class JDBCConfigSourceSnapshot {
+
+    private static final Logger LOGGER = Logger.getLogger(JDBCConfigSourceSnapshot.class.getName());
+
+    @Inject
+    private ServiceLocator locator;
+
+    @Inject
+    private ConfigProviderResolverImpl configService;
+
+    private JDBCConfigSourceConfiguration configuration;
+
+    private volatile Map<String, String> values;
+
+    private ScheduledFuture<?> reload;
+
+    private boolean destroyed;
+
+    public JDBCConfigSourceSnapshot() {
+    }
+
+    // Used for testing only with explicit dependency injection
+    JDBCConfigSourceSnapshot(ConfigProviderResolverImpl configService) {
+        this.configService = configService;
+    }
+
+    @PostConstruct
+    void initialize() {
+        configuration = locator.getService(JDBCConfigSourceConfiguration.class);
+    }
+
+    @PreDestroy
+    synchronized void destroy() {
+        destroyed = true;
+        if (reload != null) {
+            reload.cancel(false);
+            reload = null;
+        }
+        values = null;
+    }
+
+    /**
+     * @return true if the JDBC config source is configured to be served from memory, false if the table should be
+     * queried on every lookup
+     */
+    public boolean isEnabled() {
+        return getPollIntervalSeconds() > 0;
+    }
+
+    /**
+     * Returns the current copy of the config table, loading it first if this has not been done yet. Until the table
+     * could be read once, every call tries to load it again.
+     *
+     * @return an unmodifiable map of all values of the table by key, empty if the table could not be read
+     */
+    public Map<String, String> getValues() {
+        Map<String, String> current = values;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (values == null && !destroyed) {
+                values = load();
+                scheduleReload();
+            }
+            current = values;
+        }
+        return current == null ? emptyMap() : current;
+    }
+
+    private int getPollIntervalSeconds() {
+        if (configuration == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(configuration.getPollIntervalSeconds());
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private synchronized void scheduleReload() {
+        int pollIntervalSeconds = getPollIntervalSeconds();
+        if (destroyed || pollIntervalSeconds <= 0) {
+            // polling got disabled, the source queries the table directly again
+            reload = null;
+            values = null;
+            return;
+        }
+        if (reload == null || reload.isDone()) {
+            reload = configService.getExecutor().schedule(this::reload, pollIntervalSeconds, SECONDS);
+        }
+    }
+
+    private void reload() {
+        try {
+            Map<String, String> loaded = load();
+            if (loaded != null) {
+                update(loaded);
+            }
+        } finally {
+            synchronized (this) {
+                reload = null;
+                scheduleReload();
+            }
+        }
+    }
+
+    /**
+     * Replaces the copy of the table and publishes the keys whose values differ from the previous copy.
+     *
+     * @param loaded the values just read from the table
+     */
+    void update(Map<String, String> loaded) {
+        Map<String, String> previous;
+        synchronized (this) {
+            if (destroyed) {
+                return;
+            }
+            previous = values;
+            values = loaded;
+        }
+        // keys looked up while the table could not be read were cached as missing
+        for (String key : getChangedKeys(previous == null ? emptyMap() : previous, loaded)) {
+            configService.propertyChanged(key);
+        }
+    }
+
+    private Map<String, String> load() {
+        if (configuration == null) {
+            return null;
+        }
+        JDBCConfigSourceHelper helper = new JDBCConfigSourceHelper(configuration);
+        try {
+            return unmodifiableMap(helper.loadAllConfigValues());
+        } catch (SQLException ex) {
+            LOGGER.log(Level.WARNING, "Error loading the JDBC config source table, keeping the previous values", ex);
+            return null;
+        } finally {
+            try {
+                helper.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Error closing JDBC connection", e);
+            }
+        }
+    }
+
+    static Set<String> getChangedKeys(Map<String, String> previous, Map<String, String> current) {
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, String> entry : current.entrySet()) {
+            String key = entry.getKey();
+            if (!previous.containsKey(key) || !Objects.equals(entry.getValue(), previous.get(key))) {
+                changed.add(key);
+            }
+        }
+        for (String key : previous.keySet()) {
+            if (!current.containsKey(key)) {
+                changed.add(key);
+            }
+        }
+        return changed;
+    }
+}
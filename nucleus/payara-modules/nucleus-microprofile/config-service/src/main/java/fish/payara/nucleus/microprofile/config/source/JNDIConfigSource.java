@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -119,6 +119,7 @@ public class JNDIConfigSource extends PayaraConfigSource {
             ResourceStatus status = customResMgr.create(domainConfiguration.getResources(), attrList, props, target);
             if (status.getStatus() == ResourceStatus.SUCCESS) {
                 result = true;
+                propertyChanged(propertyName);
             } else {
                 if (status.isAlreadyExists()) {
                     Logger.getLogger(JNDIConfigSource.class.getName()).log(Level.WARNING, "Unable to set MicroProfile JNDI Config property as it already exists please delete it using delete-config-property --source jndi --propertyname {0}", propertyName);                    
@@ -146,6 +147,7 @@ public class JNDIConfigSource extends PayaraConfigSource {
                 return null;
             }
         }, domainConfiguration.getResources());
+        propertyChanged(propertyName);
     }
 
 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2018] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -101,6 +101,11 @@ public class ModuleConfigSource extends PayaraConfigSource {
         return result;
     }
 
+    @Override
+    public boolean isPublishingChanges() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "Module";
@@ -134,6 +139,7 @@ public class ModuleConfigSource extends PayaraConfigSource {
                     }, p);
                 }
                 result = true;
+                propertyChanged(propertyName);
             }
         }
         return result;
@@ -148,6 +154,7 @@ public class ModuleConfigSource extends PayaraConfigSource {
                 if ((PROPERTY_PREFIX + propertyName).equals(object.getName())) {
                     ConfigSupport.deleteChild((ConfigBean) ConfigBean.unwrap(m), (ConfigBean) ConfigBean.unwrap(object));
                     result = true;
+                    propertyChanged(propertyName);
                 }
             }
         }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -76,6 +76,27 @@ public abstract class PayaraConfigSource implements ConfigSource {
     public Set<String> getPropertyNames() {
         return getProperties().keySet();
     }
+
+    /**
+     * Whether every change of a property of this source is published using {@link #propertyChanged(String)}, so that
+     * configs can hold its values until a change is published instead of resolving them again periodically.
+     *
+     * @return true if changes are published, false if values can change without a change being published
+     */
+    public boolean isPublishingChanges() {
+        return false;
+    }
+
+    /**
+     * Publishes a change of a property of this source, so that configs using it resolve the value again.
+     *
+     * @param propertyName name of the property that was added, changed or removed
+     */
+    protected void propertyChanged(String propertyName) {
+        if (configService != null) {
+            configService.propertyChanged(propertyName);
+        }
+    }
     
     /**
      * Should only be used for test purposes
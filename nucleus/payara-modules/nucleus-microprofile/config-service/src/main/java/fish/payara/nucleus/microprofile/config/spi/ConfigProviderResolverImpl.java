@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -66,6 +66,10 @@ import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import fish.payara.nucleus.eventbus.ClusterMessage;
+import fish.payara.nucleus.eventbus.EventBus;
+import fish.payara.nucleus.eventbus.MessageReceiver;
+import fish.payara.nucleus.events.HazelcastEvents;
 import fish.payara.nucleus.executorservice.PayaraExecutorService;
 import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.spi.ConfigBuilder;
@@ -168,6 +172,13 @@ public class ConfigProviderResolverImpl extends ConfigProviderResolver implement
     @Inject
     private Events events;
 
+    // Publishes changes of the cluster config source to all members
+    @Inject
+    @Optional
+    private EventBus eventBus;
+
+    private final MessageReceiver<String> clusterPropertyChangeReceiver = this::clusterPropertyChanged;
+
     /**
      * Logs constructor as finest - may be useful to watch sequence of operations.
      */
@@ -191,6 +202,18 @@ public class ConfigProviderResolverImpl extends ConfigProviderResolver implement
         if (events != null) {
             events.register(this);
         }
+        registerClusterPropertyChangeReceiver();
+    }
+
+    private void registerClusterPropertyChangeReceiver() {
+        if (eventBus != null) {
+            eventBus.addMessageReceiver(ClusterConfigSource.CLUSTERED_CONFIG_CHANGE_TOPIC,
+                    clusterPropertyChangeReceiver);
+        }
+    }
+
+    private void clusterPropertyChanged(ClusterMessage<String> message) {
+        propertyChanged(message.getPayload());
     }
 
     public MicroprofileConfigConfiguration getMPConfig() {
@@ -208,6 +231,10 @@ public class ConfigProviderResolverImpl extends ConfigProviderResolver implement
         return Integer.parseInt(getMPConfig().getCacheDurationSeconds());
     }
 
+    boolean isCacheInvalidationEnabled() {
+        return Boolean.parseBoolean(getMPConfig().getCacheInvalidationEnabled());
+    }
+
     @Override
     public Config getConfig() {
         return getConfig(Thread.currentThread().getContextClassLoader());
@@ -277,7 +304,8 @@ public class ConfigProviderResolverImpl extends ConfigProviderResolver implement
                 sources.addAll(getDefaultSources());
                 sources.addAll(extensionService.getExtensionSources());
                 converters.putAll(getDefaultConverters());
-                serverLevelConfig = new PayaraConfig(sources, converters, TimeUnit.SECONDS.toMillis(getCacheDurationSeconds()));
+                serverLevelConfig = new PayaraConfig(sources, converters, TimeUnit.SECONDS.toMillis(getCacheDurationSeconds()),
+                        isCacheInvalidationEnabled());
                 result = serverLevelConfig;
             }
         } else { // look for an application specific one
@@ -292,7 +320,8 @@ public class ConfigProviderResolverImpl extends ConfigProviderResolver implement
                 sources.addAll(getDiscoveredSources(appInfo));
                 converters.putAll(getDefaultConverters());
                 converters.putAll(getDiscoveredConverters(appInfo));
-                PayaraConfig appresult = new PayaraConfig(sources, converters, TimeUnit.SECONDS.toMillis(getCacheDurationSeconds()));
+                PayaraConfig appresult = new PayaraConfig(sources, converters, TimeUnit.SECONDS.toMillis(getCacheDurationSeconds()),
+                        isCacheInvalidationEnabled());
                 addProfileSource(appresult, appInfo.getAppClassLoader());
                 result = appresult;
                 appInfo.addTransientAppMetaData(METADATA_KEY, result);
@@ -548,8 +577,31 @@ public class ConfigProviderResolverImpl extends ConfigProviderResolver implement
         }
     }
 
+    /**
+     * Publishes a change of a property to the configs of the server and of all deployed applications, so that
+     * they resolve the value of the property again on next access.
+     *
+     * @param propertyName name of the property that was added, changed or removed
+     */
+    public void propertyChanged(String propertyName) {
+        LOG.log(Level.FINE, "Config property {0} changed", propertyName);
+        if (serverLevelConfig != null) {
+            serverLevelConfig.invalidate(propertyName);
+        }
+        for (String appName : applicationRegistry.getAllApplicationNames()) {
+            ApplicationInfo info = applicationRegistry.get(appName);
+            Config appConfig = info == null ? null : info.getTransientAppMetaData(METADATA_KEY, Config.class);
+            if (appConfig instanceof PayaraConfig) {
+                ((PayaraConfig) appConfig).invalidate(propertyName);
+            }
+        }
+    }
+
     @Override
     public void event(Event<?> event) {
+        if (event.is(HazelcastEvents.HAZELCAST_BOOTSTRAP_COMPLETE)) {
+            registerClusterPropertyChangeReceiver();
+        }
         if (event.is(EventTypes.SERVER_STARTUP)) {
             if (serverLevelConfig != null) {
                 serverLevelConfig.clearCache();
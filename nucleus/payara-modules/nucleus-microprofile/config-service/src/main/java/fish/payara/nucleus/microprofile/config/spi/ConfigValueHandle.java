@@ -0,0 +1,116 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.microprofile.config.spi;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static java.lang.System.currentTimeMillis;
+
+/**
+ * A handle to a config value that holds the value already resolved and converted, so that reading it again is a plain
+ * field access without any lookup or conversion.
+ *
+ * The value is resolved again on access after a change of its property has been published to the {@link PayaraConfig}
+ * the handle belongs to, or, unless the config uses invalidation and all its sources publish their changes, after the
+ * cache duration of the config has passed. Values that contain expressions, or that use a default value, are resolved
+ * again after any change, as they might depend on the changed property.
+ *
+ * Handles are created by {@link PayaraConfig#createValueHandle(String, Supplier)} and shared using
+ * {@link PayaraConfig#getValueHandle(Object, java.util.function.Function)}. Values are shared by all users of the
+ * handle, so mutable values, like arrays, have to be copied before they are handed out.
+ *
+ * @param <T> type of the value
+ */
+public final class ConfigValueHandle<T> implements Supplier<T> {
+
+    private static final class Snapshot<T> {
+        final T value;
+        final long changes;
+        final long invalidations;
+        final boolean dependent;
+        final long expires;
+
+        Snapshot(T value, long changes, long invalidations, boolean dependent, long expires) {
+            this.value = value;
+            this.changes = changes;
+            this.invalidations = invalidations;
+            this.dependent = dependent;
+            this.expires = expires;
+        }
+    }
+
+    private final PayaraConfig config;
+    private final String propertyName;
+    private final AtomicLong changeCount;
+    private final Supplier<T> resolver;
+    private volatile Snapshot<T> snapshot;
+
+    ConfigValueHandle(PayaraConfig config, String propertyName, Supplier<T> resolver) {
+        this.config = config;
+        this.propertyName = propertyName;
+        this.changeCount = config.getChangeCount(propertyName);
+        this.resolver = resolver;
+    }
+
+    /**
+     * @return the current value, resolving it only if it might have changed since it was last resolved
+     * @throws RuntimeException when resolving the value fails, failures are not remembered
+     */
+    @Override
+    public T get() {
+        Snapshot<T> current = snapshot;
+        if (current != null && current.changes == changeCount.get()
+                && (!current.dependent || current.invalidations == config.getInvalidationCount())
+                && (current.expires == Long.MAX_VALUE || currentTimeMillis() < current.expires)) {
+            return current.value;
+        }
+        // read before resolving so a change published meanwhile causes the value to be resolved again on next access
+        final long changes = changeCount.get();
+        final long invalidations = config.getInvalidationCount();
+        final long expires = config.isEveryChangePublished()
+                ? Long.MAX_VALUE
+                : currentTimeMillis() + config.getCacheDurationSeconds();
+        T value = resolver.get();
+        snapshot = new Snapshot<>(value, changes, invalidations, config.mightDependOnOtherProperties(propertyName),
+                expires);
+        return value;
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2020-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -62,4 +62,12 @@ public interface JDBCConfigSourceConfiguration extends ConfigBeanProxy, ConfigEx
     @Attribute(required = true)
     String getValueColumnName();
     void setValueColumnName(String valueColumName);
+
+    /**
+     * @return the number of seconds between two reloads of the in-memory copy of the config table, a value of 0 or
+     * less queries the table on every property lookup instead
+     */
+    @Attribute(defaultValue = "60", dataType = Integer.class)
+    String getPollIntervalSeconds();
+    void setPollIntervalSeconds(String pollIntervalSeconds);
 }
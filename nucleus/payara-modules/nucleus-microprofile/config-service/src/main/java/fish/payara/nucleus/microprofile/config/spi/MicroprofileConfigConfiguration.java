@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2021] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -130,6 +130,15 @@ public interface MicroprofileConfigConfiguration extends ConfigExtension {
     String getCacheDurationSeconds();
     void setCacheDurationSeconds(String cacheDurationSeconds);
 
+    /**
+     * @return true, if any MP {@link Config} caches values until a {@link ConfigSource} publishes a change of the
+     *         property instead of caching them for the cache duration. Changes made to sources that do not publish
+     *         them do not become visible in this mode.
+     */
+    @Attribute(defaultValue = "false", dataType = Boolean.class)
+    String getCacheInvalidationEnabled();
+    void setCacheInvalidationEnabled(String cacheInvalidationEnabled);
+
     @Element("*")
     List<ConfigSourceConfiguration> getConfigSourceConfigurationList();
 
@@ -41,6 +41,9 @@ package fish.payara.nucleus.microprofile.config.spi;
 
 import fish.payara.nucleus.microprofile.config.converters.ArrayConverter;
 import fish.payara.nucleus.microprofile.config.converters.AutomaticConverter;
+import fish.payara.nucleus.microprofile.config.source.EnvironmentConfigSource;
+import fish.payara.nucleus.microprofile.config.source.PayaraConfigSource;
+import fish.payara.nucleus.microprofile.config.source.PropertiesConfigSource;
 import fish.payara.nucleus.microprofile.config.util.ConfigValueType;
 import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.ConfigValue;
@@ -56,6 +59,8 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static fish.payara.nucleus.microprofile.config.spi.ConfigValueResolverImpl.getCacheKey;
@@ -69,6 +74,19 @@ import static java.lang.System.currentTimeMillis;
  * {@link #getValue(String, Class)} is called. This cache can be bypassed by constructing the {@link PayaraConfig} with
  * a TTL of zero (or negative).
  *
+ * When constructed with invalidation enabled values are cached without expiry instead. Such values are only
+ * resolved again once a {@link ConfigSource} published a change of the property, see {@link #invalidate(String)}.
+ * This only applies to values found in a source that publishes its changes, provided all sources of higher ordinal
+ * publish theirs as well, see {@link PayaraConfigSource#isPublishingChanges()}. Values that are not found, that are found in or
+ * could be overridden by a source that does not publish its changes, like system properties or password aliases, or
+ * that contain expressions while such a source is used, still expire after the cache duration.
+ * Values resolved with an explicit TTL expire in either case.
+ *
+ * Values returned by {@link #getValue(String, Class)} and {@link #getOptionalValue(String, Class)} are additionally
+ * held converted by a {@link ConfigValueHandle} per property and type, so repeated calls do not convert them again.
+ * A change of a property only makes the handles of that property, and of values containing expressions, resolve their
+ * value again.
+ *
  * @author Steve Millidge (Payara Foundation)
  * @author Jan Bernitt (caching part, ConfigValueResolver)
  */
@@ -81,18 +99,48 @@ public class PayaraConfig implements Config {
     private static final class CacheEntry {
         final ConfigValueImpl value;
         final long expires;
+        final String propertyName;
+        /**
+         * Whether the value might depend on other properties by the means of expressions
+         */
+        final boolean dependent;
 
-        CacheEntry(ConfigValueImpl value, long expires) {
+        CacheEntry(ConfigValueImpl value, long expires, String propertyName, boolean dependent) {
             this.value = value;
             this.expires = expires;
+            this.propertyName = propertyName;
+            this.dependent = dependent;
         }
     }
 
     private final List<ConfigSource> sources;
     private final Map<Class<?>, Converter<?>> converters;
     private final long defaultCacheDurationSeconds;
+    private final boolean invalidationEnabled;
+    /**
+     * Highest ordinal of the sources not publishing their changes, {@link Integer#MIN_VALUE} if all sources publish
+     */
+    private volatile int unpublishedOrdinal;
 
     private final Map<String, CacheEntry> cachedValuesByProperty = new ConcurrentHashMap<>();
+    /**
+     * Counts published changes, a value resolved while a change got published is not cached
+     */
+    private final AtomicLong changeCount = new AtomicLong();
+    /**
+     * Counts published changes per property once the cached values are removed, a {@link ConfigValueHandle} resolves
+     * its value again when the count of its property changed
+     */
+    private final Map<String, AtomicLong> changeCountsByProperty = new ConcurrentHashMap<>();
+    /**
+     * Counts all published changes once the cached values are removed, used by handles of values that might depend on
+     * other properties
+     */
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    private final Map<Class<?>, Map<String, ConfigValueHandle<?>>> valueHandlesByType = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Map<String, ConfigValueHandle<?>>> optionalValueHandlesByType = new ConcurrentHashMap<>();
+    private final Map<Object, ConfigValueHandle<?>> valueHandlesByKey = new ConcurrentHashMap<>();
 
     private volatile Long configuredCacheValue = null;
     private final Object configuredCacheValueLock = new Object();
@@ -100,10 +148,21 @@ public class PayaraConfig implements Config {
     private final String profile;
 
     public PayaraConfig(List<ConfigSource> sources, Map<Class<?>, Converter<?>> converters, long defaultCacheDurationSeconds) {
+        this(sources, converters, defaultCacheDurationSeconds, false);
+    }
+
+    /**
+     * @param invalidationEnabled true to cache values until a change is published using {@link #invalidate(String)}
+     *                            instead of caching them for the cache duration
+     */
+    public PayaraConfig(List<ConfigSource> sources, Map<Class<?>, Converter<?>> converters,
+            long defaultCacheDurationSeconds, boolean invalidationEnabled) {
         this.sources = sources;
         this.converters = new ConcurrentHashMap<>(converters);
         this.defaultCacheDurationSeconds = defaultCacheDurationSeconds;
+        this.invalidationEnabled = invalidationEnabled;
         Collections.sort(sources, new ConfigSourceComparator());
+        unpublishedOrdinal = getUnpublishedOrdinal(sources);
 
         profile = getConfigValue(MP_CONFIG_PROFILE_NAME_STRING).getValue();
     }
@@ -140,6 +199,19 @@ public class PayaraConfig implements Config {
         if (propertyType == ConfigValueResolver.class) {
             return (T) new ConfigValueResolverImpl(this, propertyName);
         }
+        if (!propertyType.isArray()) {
+            // arrays are mutable so they cannot be shared using a handle
+            Map<String, ConfigValueHandle<?>> handles = getHandles(valueHandlesByType, propertyType);
+            ConfigValueHandle<?> handle = handles.get(propertyName);
+            if (handle == null) {
+                handle = handles.computeIfAbsent(propertyName, name -> new ConfigValueHandle<>(this, name, () -> {
+                    T value = getValueInternal(name, propertyType);
+                    throwWhenNotExists(name, value);
+                    return value;
+                }));
+            }
+            return (T) handle.get();
+        }
         T value = getValueInternal(propertyName, propertyType);
         if (value != null && propertyType.isArray()) {
             if (Array.getLength(value) == 0) {
@@ -156,7 +228,17 @@ public class PayaraConfig implements Config {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> Optional<T> getOptionalValue(String propertyName, Class<T> propertyType) {
+        if (!propertyType.isArray()) {
+            Map<String, ConfigValueHandle<?>> handles = getHandles(optionalValueHandlesByType, propertyType);
+            ConfigValueHandle<?> handle = handles.get(propertyName);
+            if (handle == null) {
+                handle = handles.computeIfAbsent(propertyName, name -> new ConfigValueHandle<>(this, name,
+                        () -> Optional.ofNullable(getValueInternal(name, propertyType, ConfigValueType.OPTIONAL))));
+            }
+            return (Optional<T>) handle.get();
+        }
         T internalValue = getValueInternal(propertyName, propertyType, ConfigValueType.OPTIONAL);
         if (internalValue != null && propertyType.isArray()) {
             if (Array.getLength(internalValue) == 0) {
@@ -175,6 +257,67 @@ public class PayaraConfig implements Config {
         return getValueInternal(propertyName, propertyType, ConfigValueType.NORMAL);
     }
 
+    private static Map<String, ConfigValueHandle<?>> getHandles(
+            Map<Class<?>, Map<String, ConfigValueHandle<?>>> handlesByType, Class<?> propertyType) {
+        Map<String, ConfigValueHandle<?>> handles = handlesByType.get(propertyType);
+        if (handles == null) {
+            handles = handlesByType.computeIfAbsent(propertyType, type -> new ConcurrentHashMap<>());
+        }
+        return handles;
+    }
+
+    /**
+     * Returns the handle bound to the given key. The handle is only created on first access, so callers can bind a
+     * handle to something they already hold, like the member a value is injected into, and read it without resolving
+     * anything.
+     *
+     * @param key     identifies the value, all callers using the same key share the handle and must therefore resolve
+     *                the value in the same way, keys must implement {@link Object#equals(Object)}
+     * @param factory creates the handle for the key, see {@link #createValueHandle(String, Supplier)}
+     * @return the handle for the key, created using the given factory if it does not exist yet
+     */
+    @SuppressWarnings("unchecked")
+    public <K, T> ConfigValueHandle<T> getValueHandle(K key, Function<? super K, ConfigValueHandle<T>> factory) {
+        ConfigValueHandle<?> handle = valueHandlesByKey.get(key);
+        if (handle == null) {
+            handle = valueHandlesByKey.computeIfAbsent(key, k -> factory.apply((K) k));
+        }
+        return (ConfigValueHandle<T>) handle;
+    }
+
+    /**
+     * Creates a handle for a value of the given property that is resolved and converted by the given resolver. The
+     * value is only resolved again once it might have changed, see {@link ConfigValueHandle}.
+     *
+     * @param propertyName name of the property the value is resolved from
+     * @param resolver     resolves and converts the value, used on first access and after changes
+     * @return a new handle, use {@link #getValueHandle(Object, Function)} to share it
+     */
+    public <T> ConfigValueHandle<T> createValueHandle(String propertyName, Supplier<T> resolver) {
+        return new ConfigValueHandle<>(this, propertyName, resolver);
+    }
+
+    AtomicLong getChangeCount(String propertyName) {
+        AtomicLong count = changeCountsByProperty.get(propertyName);
+        if (count == null) {
+            count = changeCountsByProperty.computeIfAbsent(propertyName, name -> new AtomicLong());
+        }
+        return count;
+    }
+
+    long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * @return true if the current value of the property is not found in any source, so a default value is used that
+     *         might contain expressions, or if the value contains expressions
+     */
+    boolean mightDependOnOtherProperties(String propertyName) {
+        ConfigValue value = getValueInternal(propertyName, ConfigValue.class);
+        return value == null || value.getRawValue() == null || containsExpression(value.getRawValue());
+    }
+
     @SuppressWarnings("unchecked")
     private <T> T getValueInternal(String propertyName, Class<T> propertyType, ConfigValueType type) {
         if (propertyType == ConfigValue.class) {
@@ -217,6 +360,9 @@ public class PayaraConfig implements Config {
     }
 
     protected ConfigValueImpl getConfigValue(String propertyName, String cacheKey, Long ttl, String defaultValue, ConfigValueType type) {
+        if (ttl == null && invalidationEnabled) {
+            return getConfigValueUntilChanged(propertyName, cacheKey, defaultValue, type);
+        }
         long entryTTL = ttl != null ? ttl : getCacheDurationSeconds();
         
         if (entryTTL <= 0) {
@@ -233,10 +379,15 @@ public class PayaraConfig implements Config {
             return cacheEntry.value;
         }
         // entry not found or expired
+        final long changes = changeCount.get();
         boolean isExpansionEnabled = isExpansionEnabled(propertyName);
         // searchConfigSources can cause recursive call to getConfigValue when expansion is enabled
         ConfigValueImpl newValue = searchConfigSources(propertyName, defaultValue, isExpansionEnabled, type);
-        CacheEntry newCacheEntry = new CacheEntry(newValue, expires);
+        CacheEntry newCacheEntry = new CacheEntry(newValue, expires, propertyName,
+                isDependent(propertyName, defaultValue, newValue));
+        if (changes != changeCount.get()) {
+            return newValue;
+        }
         // put the new cache entry, if there is not a newer value from other thread
         cacheEntry = cachedValuesByProperty.compute(entryKey, (key, entry) -> {
             if (entry != null && newCacheEntry.expires < entry.expires) {
@@ -244,9 +395,96 @@ public class PayaraConfig implements Config {
             }
             return newCacheEntry;
         });
+        if (changes != changeCount.get()) {
+            cachedValuesByProperty.remove(entryKey, newCacheEntry);
+        }
         return cacheEntry.value;
     }
 
+    /**
+     * Steady state is a single lookup without any expiry check for values that are held until changed. The entry is
+     * removed by {@link #invalidate(String)} when a change to the property is published. Entries of values that could
+     * change without a change being published expire after the cache duration.
+     */
+    private ConfigValueImpl getConfigValueUntilChanged(String propertyName, String cacheKey, String defaultValue,
+            ConfigValueType type) {
+        final String entryKey = defaultValue == null ? cacheKey : cacheKey + ":" + defaultValue;
+        CacheEntry cacheEntry = cachedValuesByProperty.get(entryKey);
+        if (cacheEntry != null
+                && (cacheEntry.expires == Long.MAX_VALUE || currentTimeMillis() < cacheEntry.expires)) {
+            return cacheEntry.value;
+        }
+        final long changes = changeCount.get();
+        // searchConfigSources can cause recursive call to getConfigValue when expansion is enabled
+        ConfigValueImpl newValue = searchConfigSources(propertyName, defaultValue, isExpansionEnabled(propertyName), type);
+        // a change published while resolving might not be reflected by the value, so it must not be cached
+        if (changes != changeCount.get()) {
+            return newValue;
+        }
+        final boolean dependent = isDependent(propertyName, defaultValue, newValue);
+        final long expires = isHeldUntilChanged(newValue, dependent)
+                ? Long.MAX_VALUE
+                : currentTimeMillis() + getCacheDurationSeconds();
+        CacheEntry newCacheEntry = new CacheEntry(newValue, expires, propertyName, dependent);
+        cachedValuesByProperty.put(entryKey, newCacheEntry);
+        // the change might have been published in between the check and the put not finding the entry yet
+        if (changes != changeCount.get()) {
+            cachedValuesByProperty.remove(entryKey, newCacheEntry);
+        }
+        return newValue;
+    }
+
+    /**
+     * A value can be held until a change is published if neither the source it was found in nor any source that could
+     * override it might change it without publishing the change.
+     */
+    private boolean isHeldUntilChanged(ConfigValueImpl value, boolean dependent) {
+        final int unpublished = unpublishedOrdinal;
+        if (unpublished == Integer.MIN_VALUE) {
+            return true;
+        }
+        if (dependent || value.getSourceName() == null || value.getSourceOrdinal() <= unpublished) {
+            return false;
+        }
+        // a value found for the property without profile is overridden once any source adds the profiled property
+        return profile == null || value.getName().startsWith("%" + profile + ".");
+    }
+
+    /**
+     * @return true if all values are only resolved again once a change has been published, false if some values also
+     *         expire after the cache duration
+     */
+    boolean isEveryChangePublished() {
+        return invalidationEnabled && unpublishedOrdinal == Integer.MIN_VALUE;
+    }
+
+    private static int getUnpublishedOrdinal(List<ConfigSource> sources) {
+        int unpublished = Integer.MIN_VALUE;
+        for (ConfigSource source : sources) {
+            if (!isPublishingChanges(source)) {
+                unpublished = Math.max(unpublished, source.getOrdinal());
+            }
+        }
+        return unpublished;
+    }
+
+    private static boolean isPublishingChanges(ConfigSource source) {
+        if (source instanceof PayaraConfigSource) {
+            return ((PayaraConfigSource) source).isPublishingChanges();
+        }
+        // the environment of a running JVM and properties loaded from the application do not change
+        return source instanceof EnvironmentConfigSource || source instanceof PropertiesConfigSource;
+    }
+
+    private static boolean isDependent(String propertyName, String defaultValue, ConfigValueImpl value) {
+        return containsExpression(propertyName) || containsExpression(defaultValue)
+                || containsExpression(value.getRawValue());
+    }
+
+    private static boolean containsExpression(String value) {
+        return value != null && value.contains("${");
+    }
+
     private <T> T convertValue(ConfigValue configValue, String defaultValue,
             Optional<Converter<T>> optionalConverter) {
         final String sourceValue = configValue.getValue();
@@ -299,7 +537,52 @@ public class PayaraConfig implements Config {
     }
     
     public void clearCache() {
+        changeCount.incrementAndGet();
         cachedValuesByProperty.clear();
+        for (AtomicLong count : changeCountsByProperty.values()) {
+            count.incrementAndGet();
+        }
+        invalidationCount.incrementAndGet();
+    }
+
+    /**
+     * Removes the cached values of the given property, as well as all cached values that might depend on it by the
+     * means of expressions, so that the next lookup resolves the changed value.
+     *
+     * @param propertyName name of the changed property, may be prefixed with a profile, like
+     *                     {@code %dev.my.property}, in which case the values of the unprofiled name are removed
+     */
+    public void invalidate(String propertyName) {
+        final String name = withoutProfile(propertyName);
+        if (MP_CONFIG_EXPANSION_ENABLED_STRING.equals(name)) {
+            clearCache();
+            return;
+        }
+        changeCount.incrementAndGet();
+        cachedValuesByProperty.values().removeIf(entry -> entry.dependent || name.equals(entry.propertyName));
+        // handles must only see the change once the cached values are gone, otherwise they might resolve those again
+        AtomicLong count = changeCountsByProperty.get(name);
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        invalidationCount.incrementAndGet();
+    }
+
+    private static String withoutProfile(String propertyName) {
+        if (propertyName.startsWith("%")) {
+            int profileEnd = propertyName.indexOf('.');
+            if (profileEnd > 0) {
+                return propertyName.substring(profileEnd + 1);
+            }
+        }
+        return propertyName;
+    }
+
+    /**
+     * @return true, if values are cached until a change is published rather than for a fixed duration
+     */
+    public boolean isInvalidationEnabled() {
+        return invalidationEnabled;
     }
 
     private <E> Optional<Converter<Object>> createArrayConverter(Class<E> elementType) {
@@ -397,6 +680,7 @@ public class PayaraConfig implements Config {
     void addConfigSource(ConfigSource added) {
         sources.add(added);
         Collections.sort(sources, new ConfigSourceComparator());
+        unpublishedOrdinal = getUnpublishedOrdinal(sources);
     }
     
 }
@@ -0,0 +1,144 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.microprofile.config.source;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fish.payara.nucleus.microprofile.config.spi.ConfigProviderResolverImpl;
+
+public class JDBCConfigSourceSnapshotTest {
+
+    private ConfigProviderResolverImpl configService;
+    private JDBCConfigSourceSnapshot snapshot;
+
+    @Before
+    public void setUp() {
+        configService = mock(ConfigProviderResolverImpl.class);
+        snapshot = new JDBCConfigSourceSnapshot(configService);
+    }
+
+    @Test
+    public void unchangedTableHasNoChangedKeys() {
+        Map<String, String> values = table("a", "1", "b", "2");
+        assertTrue(JDBCConfigSourceSnapshot.getChangedKeys(values, new HashMap<>(values)).isEmpty());
+        assertTrue(JDBCConfigSourceSnapshot.getChangedKeys(emptyMap(), emptyMap()).isEmpty());
+    }
+
+    @Test
+    public void addedChangedAndRemovedKeysAreChanged() {
+        Map<String, String> previous = table("same", "1", "changed", "2", "removed", "3");
+        Map<String, String> current = table("same", "1", "changed", "20", "added", "4");
+        assertEquals(new HashSet<>(Arrays.asList("changed", "removed", "added")),
+                JDBCConfigSourceSnapshot.getChangedKeys(previous, current));
+    }
+
+    @Test
+    public void keysWithNullValuesAreCompared() {
+        assertEquals(singletonMap("a", null).keySet(),
+                JDBCConfigSourceSnapshot.getChangedKeys(emptyMap(), singletonMap("a", null)));
+        assertEquals(singletonMap("a", null).keySet(),
+                JDBCConfigSourceSnapshot.getChangedKeys(singletonMap("a", null), emptyMap()));
+        assertEquals(singletonMap("a", null).keySet(),
+                JDBCConfigSourceSnapshot.getChangedKeys(singletonMap("a", null), singletonMap("a", "1")));
+        assertTrue(JDBCConfigSourceSnapshot.getChangedKeys(singletonMap("a", null), singletonMap("a", null))
+                .isEmpty());
+    }
+
+    @Test
+    public void firstUpdatePublishesAllKeys() {
+        snapshot.update(table("a", "1", "b", "2"));
+
+        assertEquals(table("a", "1", "b", "2"), snapshot.getValues());
+        verify(configService).propertyChanged("a");
+        verify(configService).propertyChanged("b");
+    }
+
+    @Test
+    public void updatePublishesOnlyChangedKeys() {
+        snapshot.update(table("a", "1", "b", "2", "c", "3"));
+        snapshot.update(table("a", "1", "b", "20", "d", "4"));
+
+        assertEquals(table("a", "1", "b", "20", "d", "4"), snapshot.getValues());
+        verify(configService, times(1)).propertyChanged("a");
+        verify(configService, times(2)).propertyChanged("b");
+        verify(configService, times(2)).propertyChanged("c");
+        verify(configService, times(1)).propertyChanged("d");
+    }
+
+    @Test
+    public void updateAfterDestroyIsIgnored() {
+        snapshot.destroy();
+        snapshot.update(table("a", "1"));
+
+        assertTrue(snapshot.getValues().isEmpty());
+        verify(configService, never()).propertyChanged(anyString());
+    }
+
+    @Test
+    public void snapshotWithoutConfigurationIsDisabled() {
+        assertFalse(snapshot.isEnabled());
+        assertTrue(snapshot.getValues().isEmpty());
+    }
+
+    private static Map<String, String> table(String... keysAndValues) {
+        Map<String, String> table = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            table.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return table;
+    }
+}
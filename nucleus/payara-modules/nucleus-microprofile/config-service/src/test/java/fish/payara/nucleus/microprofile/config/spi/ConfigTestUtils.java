@@ -49,10 +49,22 @@ import java.util.Map;
 
 import org.eclipse.microprofile.config.spi.ConfigSource;
 
+import fish.payara.nucleus.microprofile.config.source.PayaraConfigSource;
+
 public final class ConfigTestUtils {
 
     static ConfigSource createSource(String name, int ordinal, Map<String, String> properties) {
-        ConfigSource source = mock(ConfigSource.class);
+        return stubSource(mock(ConfigSource.class), name, ordinal, properties);
+    }
+
+    static ConfigSource createPublishingSource(String name, int ordinal, Map<String, String> properties) {
+        PayaraConfigSource source = mock(PayaraConfigSource.class);
+        when(source.isPublishingChanges()).thenReturn(true);
+        return stubSource(source, name, ordinal, properties);
+    }
+
+    private static ConfigSource stubSource(ConfigSource source, String name, int ordinal,
+            Map<String, String> properties) {
         when(source.getProperties()).thenReturn(properties);
         when(source.getOrdinal()).thenReturn(ordinal);
         when(source.getName()).thenReturn(name);
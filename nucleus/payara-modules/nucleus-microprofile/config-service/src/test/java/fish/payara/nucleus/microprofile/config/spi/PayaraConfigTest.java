@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2020-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,29 +40,35 @@
 package fish.payara.nucleus.microprofile.config.spi;
 
 import static fish.payara.nucleus.microprofile.config.spi.ConfigTestUtils.assertException;
+import static fish.payara.nucleus.microprofile.config.spi.ConfigTestUtils.createPublishingSource;
 import static fish.payara.nucleus.microprofile.config.spi.ConfigTestUtils.createSource;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.lang.annotation.ElementType;
 import java.lang.reflect.Array;
 import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.ConfigValue;
 import org.eclipse.microprofile.config.spi.ConfigSource;
+import org.eclipse.microprofile.config.spi.Converter;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -77,6 +83,8 @@ public class PayaraConfigTest {
 
     private final ConfigSource source1 = createSource("S1", 100, new HashMap<>());
     private final ConfigSource source2 = createSource("S2", 200, new HashMap<>());
+    private final ConfigSource publishingSource1 = createPublishingSource("P1", 100, source1.getProperties());
+    private final ConfigSource publishingSource2 = createPublishingSource("P2", 200, source2.getProperties());
     private final Config config = new PayaraConfig(asList(source1, source2), emptyMap(), CACHE_TTL);
 
     @Before
@@ -178,6 +186,138 @@ public class PayaraConfigTest {
         assertEquals("TTL <= 0 is still changed", "changed1", config.getValue("key1", String.class));
     }
 
+    @Test
+    public void valuesAreCachedUntilInvalidated() throws InterruptedException {
+        PayaraConfig config = new PayaraConfig(asList(publishingSource1, publishingSource2), emptyMap(), CACHE_TTL, true);
+        assertEquals("value1", config.getValue("key1", String.class));
+        assertEquals(1, config.getValue("int1", Integer.class).intValue());
+        source1.getProperties().put("key1", "changed1");
+        source1.getProperties().put("int1", "3");
+        Thread.sleep(CACHE_TTL);
+        assertEquals("Cached value does not expire", "value1", config.getValue("key1", String.class));
+        config.invalidate("key1");
+        assertEquals("changed1", config.getValue("key1", String.class));
+        assertEquals("Other properties stay cached", 1, config.getValue("int1", Integer.class).intValue());
+        config.invalidate("%dev.int1");
+        assertEquals("Profiled property invalidates property", 3, config.getValue("int1", Integer.class).intValue());
+    }
+
+    @Test
+    public void valuesOfSourcesNotPublishingChangesExpireWhenInvalidationIsEnabled() throws InterruptedException {
+        PayaraConfig config = new PayaraConfig(asList(source1, publishingSource2), emptyMap(), CACHE_TTL, true);
+        assertEquals("value1", config.getValue("key1", String.class));
+        assertEquals("value2", config.getValue("key2", String.class));
+        assertFalse(config.getOptionalValue("added", String.class).isPresent());
+        source1.getProperties().put("key1", "changed1");
+        source1.getProperties().put("added", "added1");
+        source2.getProperties().put("key2", "changed2");
+        Thread.sleep(CACHE_TTL + 10);
+        assertEquals("Value of not publishing source expires", "changed1", config.getValue("key1", String.class));
+        assertEquals("Missing value expires", "added1", config.getOptionalValue("added", String.class).get());
+        assertEquals("Value of publishing source does not expire", "value2", config.getValue("key2", String.class));
+        config.invalidate("key2");
+        assertEquals("changed2", config.getValue("key2", String.class));
+    }
+
+    @Test
+    public void valuesThatCanBeOverriddenBySourcesNotPublishingChangesExpire() throws InterruptedException {
+        PayaraConfig config = new PayaraConfig(asList(publishingSource1, source2), emptyMap(), CACHE_TTL, true);
+        assertEquals("value1", config.getValue("key1", String.class));
+        source2.getProperties().put("key1", "overridden1");
+        Thread.sleep(CACHE_TTL + 10);
+        assertEquals("overridden1", config.getValue("key1", String.class));
+    }
+
+    @Test
+    public void missingValuesAreCachedUntilInvalidatedWhenAllSourcesPublishChanges() throws InterruptedException {
+        PayaraConfig config = new PayaraConfig(asList(publishingSource1, publishingSource2), emptyMap(), CACHE_TTL,
+                true);
+        assertFalse(config.getOptionalValue("added", String.class).isPresent());
+        source1.getProperties().put("added", "added1");
+        Thread.sleep(CACHE_TTL + 10);
+        assertFalse(config.getOptionalValue("added", String.class).isPresent());
+        config.invalidate("added");
+        assertEquals("added1", config.getOptionalValue("added", String.class).get());
+    }
+
+    @Test
+    public void invalidationIncludesDependentValues() {
+        PayaraConfig config = new PayaraConfig(asList(publishingSource1, publishingSource2), emptyMap(), CACHE_TTL, true);
+        source1.getProperties().put("ref", "${key2}");
+        assertEquals("value2", config.getValue("ref", String.class));
+        source2.getProperties().put("key2", "changed2");
+        config.invalidate("key2");
+        assertEquals("changed2", config.getValue("ref", String.class));
+    }
+
+    @Test
+    public void invalidationAppliesToExpiringValues() {
+        PayaraConfig config = new PayaraConfig(asList(source1, source2), emptyMap(), 60 * 1000L);
+        assertEquals("value1", config.getValue("key1", String.class));
+        source1.getProperties().put("key1", "changed1");
+        config.invalidate("key1");
+        assertEquals("changed1", config.getValue("key1", String.class));
+    }
+
+    @Test
+    public void convertedValuesAreNotConvertedAgain() {
+        AtomicInteger conversions = new AtomicInteger();
+        Map<Class<?>, Converter<?>> converters = new HashMap<>();
+        converters.put(Integer.class, (Converter<Integer>) value -> {
+            conversions.incrementAndGet();
+            return Integer.valueOf(value);
+        });
+        PayaraConfig config = new PayaraConfig(asList(publishingSource1, publishingSource2), converters, CACHE_TTL, true);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1, config.getValue("int1", Integer.class).intValue());
+        }
+        assertEquals(1, conversions.get());
+        source1.getProperties().put("int1", "3");
+        config.invalidate("int1");
+        assertEquals(3, config.getValue("int1", Integer.class).intValue());
+        assertEquals(2, conversions.get());
+    }
+
+    @Test
+    public void valueHandlesAreSharedAndRefreshedOnChange() {
+        PayaraConfig config = new PayaraConfig(asList(publishingSource1, publishingSource2), emptyMap(), CACHE_TTL, true);
+        ConfigValueHandle<String> handle = config.getValueHandle("upper:key1", key -> config.createValueHandle("key1",
+                () -> config.getValue("key1", String.class).toUpperCase()));
+        assertSame(handle, config.getValueHandle("upper:key1", key -> null));
+        assertEquals("VALUE1", handle.get());
+        source1.getProperties().put("key1", "changed1");
+        assertEquals("VALUE1", handle.get());
+        config.invalidate("key1");
+        assertEquals("CHANGED1", handle.get());
+    }
+
+    @Test
+    public void valueHandlesAreOnlyResolvedAgainOnChangesTheyMightDependOn() {
+        PayaraConfig config = new PayaraConfig(asList(publishingSource1, publishingSource2), emptyMap(), CACHE_TTL,
+                true);
+        source1.getProperties().put("ref", "${key2}");
+        AtomicInteger resolved = new AtomicInteger();
+        ConfigValueHandle<String> plain = config.createValueHandle("key1", () -> {
+            resolved.incrementAndGet();
+            return config.getValue("key1", String.class);
+        });
+        ConfigValueHandle<String> dependent = config.createValueHandle("ref", () -> config.getValue("ref", String.class));
+        assertEquals("value1", plain.get());
+        assertEquals("value2", dependent.get());
+        source2.getProperties().put("key2", "changed2");
+        config.invalidate("key2");
+        assertEquals("value1", plain.get());
+        assertEquals("Change of another property does not resolve the value again", 1, resolved.get());
+        assertEquals("Value with expression is resolved again", "changed2", dependent.get());
+        source1.getProperties().put("key1", "changed1");
+        config.invalidate("key1");
+        assertEquals("changed1", plain.get());
+        assertEquals(2, resolved.get());
+        config.clearCache();
+        plain.get();
+        assertEquals(3, resolved.get());
+    }
+
     @Test
     public void undefinedPropertyThrowsException() {
         assertException(NoSuchElementException.class, "Unable to find property with name undefined",
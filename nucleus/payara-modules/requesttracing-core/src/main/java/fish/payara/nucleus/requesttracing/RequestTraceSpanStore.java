@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -108,6 +108,14 @@ public class RequestTraceSpanStore {
         spanStore.set(new RequestTrace());
     }
 
+    /**
+     * Clears the stored request trace for it to be reused by the next request of the thread. Must only be used if the
+     * trace has not been handed out, as for traces that are below the threshold or not sampled.
+     */
+    void recycleTrace() {
+        spanStore.get().clear();
+    }
+
     /**
      * Returns the full request trace as a string
      * @return A JSON-style representation of the request trace
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2016-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2016-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -52,6 +52,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.IntSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -122,6 +123,8 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
     private static final Logger logger = Logger.getLogger(RequestTracingService.class.getCanonicalName());
 
     private static final String DURATION = "Duration";
+
+    private static final Pattern ADMIN_LISTENER_THREAD_NAME = Pattern.compile("admin-thread-pool::admin-listener\\([0-9]+\\)");
     public static final String EVENT_BUS_LISTENER_NAME = "RequestTracingEvents";
 
     private static final int SECOND = 1;
@@ -243,6 +246,7 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
             executionOptions.setHistoricTraceStoreEnabled(Boolean.parseBoolean(configuration.getHistoricTraceStoreEnabled()));
             executionOptions.setHistoricTraceStoreSize(Integer.parseInt(configuration.getHistoricTraceStoreSize()));
             executionOptions.setHistoricTraceStoreTimeout(TimeUtil.setStoreTimeLimit(configuration.getHistoricTraceStoreTimeout()));
+            executionOptions.setHistoricTraceStoreMaxBytes(Integer.parseInt(configuration.getHistoricTraceStoreMaxBytes()));
 
             bootstrapNotifierList();
         }
@@ -257,7 +261,8 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
 
             // Set up the historic request trace store if enabled
             if (executionOptions.isHistoricTraceStoreEnabled()) {
-                historicRequestTraceStore = RequestTraceStoreFactory.getStore(executionOptions.getReservoirSamplingEnabled(), true);
+                historicRequestTraceStore = RequestTraceStoreFactory.getStore(executionOptions.getReservoirSamplingEnabled(), true,
+                        executionOptions.getHistoricTraceStoreMaxBytes());
                 initStoreSize(historicRequestTraceStore, executionOptions::getHistoricTraceStoreSize, "historicRequestTraceStoreSize");
 
 
@@ -357,20 +362,28 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
      * @return a unique identifier for the request trace
      */
     public RequestTraceSpan startTrace(String traceName) {
-        return startTrace(new RequestTraceSpan(EventType.TRACE_START, traceName));
+        // Decide before creating the span, so that requests not traced do not allocate anything
+        if (!shouldStartTrace()) {
+            return null;
+        }
+        return startSampledTrace(new RequestTraceSpan(EventType.TRACE_START, traceName));
     }
 
     public RequestTraceSpan startTrace(RequestTraceSpan span) {
         if (shouldStartTrace()) {
-            span.addSpanTag("Server", server.getName());
-            span.addSpanTag("Domain", domain.getName());
-            requestEventStore.storeEvent(span);
-            return span;
+            return startSampledTrace(span);
         } else {
             return null;
         }
     }
 
+    private RequestTraceSpan startSampledTrace(RequestTraceSpan span) {
+        span.addSpanTag("Server", server.getName());
+        span.addSpanTag("Domain", domain.getName());
+        requestEventStore.storeEvent(span);
+        return span;
+    }
+
     public RequestTraceSpan startTrace(RequestTraceSpan span, long timestampMillis) {
         if (shouldStartTrace()) {
             span.addSpanTag("Server", server.getName());
@@ -440,7 +453,7 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
 
         // Check if the trace came from an admin listener. If it did, and 'applications only' is enabled, ignore the trace.
         if (executionOptions.getApplicationsOnlyEnabled() == true
-                && Thread.currentThread().getName().matches("admin-thread-pool::admin-listener\\([0-9]+\\)")) {
+                && ADMIN_LISTENER_THREAD_NAME.matcher(Thread.currentThread().getName()).matches()) {
             return false;
         }
 
@@ -480,7 +493,7 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
             // Determine whether to sample the request, if sampleRateFirstEnabled is false
             if (!executionOptions.getSampleRateFirstEnabled()) {
                 if (!sampleFilter.sample()) {
-                    requestEventStore.flushStore();
+                    requestEventStore.recycleTrace();
                     return;
                 }
             }
@@ -519,8 +532,12 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
                 .data(new RequestTracingNotificationData(requestTrace))
                 .build();
             notificationEventBus.publish(notification);
+
+            // The trace is now referenced by the stores and the notification, the thread needs a new one
+            requestEventStore.flushStore();
+        } else {
+            requestEventStore.recycleTrace();
         }
-        requestEventStore.flushStore();
     }
 
     public void addSpanLog(RequestTraceSpanLog spanLog) {
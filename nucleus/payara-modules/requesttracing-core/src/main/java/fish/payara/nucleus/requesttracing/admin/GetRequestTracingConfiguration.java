@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2016-2019] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2016-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -150,6 +150,7 @@ public class GetRequestTracingConfiguration implements AdminCommand {
                 if (StringUtils.ok(configuration.getHistoricTraceStoreTimeout())) {
                     writeVariableToActionReport(mainActionReport, "Historic Trace Store Timeout (secs)", configuration.getHistoricTraceStoreTimeout());
                 }
+                writeVariableToActionReport(mainActionReport, "Historic Trace Store Max Bytes", configuration.getHistoricTraceStoreMaxBytes());
             }
         }
 
@@ -173,6 +174,7 @@ public class GetRequestTracingConfiguration implements AdminCommand {
         mainExtraPropsMap.put("historicTraceStoreEnabled", configuration.getHistoricTraceStoreEnabled());
         mainExtraPropsMap.put("historicTraceStoreSize", configuration.getHistoricTraceStoreSize());
         mainExtraPropsMap.put("historicTraceStoreTimeout", configuration.getHistoricTraceStoreTimeout());
+        mainExtraPropsMap.put("historicTraceStoreMaxBytes", configuration.getHistoricTraceStoreMaxBytes());
         
         mainExtraProps.put("requestTracingConfiguration", mainExtraPropsMap);
         mainActionReport.setExtraProperties(mainExtraProps);
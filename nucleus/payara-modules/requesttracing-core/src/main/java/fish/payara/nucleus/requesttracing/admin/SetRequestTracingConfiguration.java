@@ -1,5 +1,5 @@
 /*
- * Copyright (c) [2016-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2016-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -174,6 +174,9 @@ public class SetRequestTracingConfiguration implements AdminCommand {
     @Param(name = "historicTraceStoreTimeout", optional = true)
     private String historicTraceStoreTimeout;
 
+    @Param(name = "historicTraceStoreMaxBytes", optional = true)
+    private Integer historicTraceStoreMaxBytes;
+
     @Param(name = "enableNotifiers", alias = "enable-notifiers", optional = true)
     private List<String> enableNotifiers;
 
@@ -259,6 +262,10 @@ public class SetRequestTracingConfiguration implements AdminCommand {
                             warn = !historicTraceStoreTimeout.equals(proxy.getHistoricTraceStoreTimeout());
                             proxy.setHistoricTraceStoreTimeout(historicTraceStoreTimeout);
                         }
+                        if (historicTraceStoreMaxBytes != null) {
+                            warn = !historicTraceStoreMaxBytes.toString().equals(proxy.getHistoricTraceStoreMaxBytes());
+                            proxy.setHistoricTraceStoreMaxBytes(historicTraceStoreMaxBytes.toString());
+                        }
 
                         List<String> notifiers = proxy.getNotifierList();
                         if (enableNotifiers != null) {
@@ -402,6 +409,11 @@ public class SetRequestTracingConfiguration implements AdminCommand {
             actionReport.appendMessage(strings.getLocalString("requesttracing.configure.historictrace.timeout.success",
                     "Request Tracing Historic Trace Store Timeout is set to {0}.", historicTraceStoreTimeout) + "\n");
         }
+        if (historicTraceStoreMaxBytes != null) {
+            service.getExecutionOptions().setHistoricTraceStoreMaxBytes(historicTraceStoreMaxBytes);
+            actionReport.appendMessage(strings.getLocalString("requesttracing.configure.historictrace.maxbytes.success",
+                    "Request Tracing Historic Trace Store Max Bytes is set to {0}.", historicTraceStoreMaxBytes) + "\n");
+        }
 
         Set<String> notifiers = service.getExecutionOptions().getEnabledNotifiers();
         if (enableNotifiers != null) {
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2017 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -135,6 +135,14 @@ public interface RequestTracingServiceConfiguration extends ConfigExtension {
     String getHistoricTraceStoreTimeout();
     void setHistoricTraceStoreTimeout(String value) throws PropertyVetoException;
 
+    /**
+     * @return the number of bytes of off-heap memory the historic traces are stored in, 0 to keep them on heap
+     */
+    @Attribute(defaultValue = "0", dataType = Integer.class)
+    @Min(value = 0, message = "Historic trace store max bytes must be greater than or equal to 0")
+    String getHistoricTraceStoreMaxBytes();
+    void setHistoricTraceStoreMaxBytes(String value) throws PropertyVetoException;
+
     @Element("notifier")
     List<String> getNotifierList();
 
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -77,6 +77,7 @@ public class RequestTracingExecutionOptions {
     private Integer historicTraceStoreSize = 20;
     // Default timeout value **NOT** taken from RequestTracingServiceConfiguration, but from TimeUtil.setStoreTimeLimit
     private Long historicTraceStoreTimeout = 0L;
+    private Integer historicTraceStoreMaxBytes = 0;
 
     private final Set<String> enabledNotifiers = new LinkedHashSet<>();
 
@@ -243,6 +244,14 @@ public class RequestTracingExecutionOptions {
     public void setHistoricTraceStoreTimeout(Long historicTraceStoreTimeout) {
         this.historicTraceStoreTimeout = historicTraceStoreTimeout;
     }
+
+    public Integer getHistoricTraceStoreMaxBytes() {
+        return historicTraceStoreMaxBytes;
+    }
+
+    public void setHistoricTraceStoreMaxBytes(Integer historicTraceStoreMaxBytes) {
+        this.historicTraceStoreMaxBytes = historicTraceStoreMaxBytes;
+    }
     
     /**
      * Gets the notifier options configured with request tracing
@@ -283,6 +292,7 @@ public class RequestTracingExecutionOptions {
                 + ", historicTraceStoreEnabled=" + historicTraceStoreEnabled
                 + " ,historicTraceStoreSize=" + historicTraceStoreSize
                 + ", historicTraceStoreTimeout=" + historicTraceStoreTimeout
+                + ", historicTraceStoreMaxBytes=" + historicTraceStoreMaxBytes
                 + "}";
     }
 }
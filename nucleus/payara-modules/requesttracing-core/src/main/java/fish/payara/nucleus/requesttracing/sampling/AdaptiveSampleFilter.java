@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -43,6 +43,8 @@ import java.time.Clock;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -70,6 +72,12 @@ public class AdaptiveSampleFilter extends SampleFilter {
      */
     private volatile Queue<Long> sampleTimes;
 
+    /**
+     * The number of entries in {@link AdaptiveSampleFilter#sampleTimes sampleTimes}, as the size of the queue is not
+     * known without counting its entries.
+     */
+    private final AtomicInteger sampleTimesCount;
+
     /**
      * Determines whether to allow the sample rate to change.
      * Starts disabled, but is enabled when the sample rate is accurate enough.
@@ -100,6 +108,7 @@ public class AdaptiveSampleFilter extends SampleFilter {
         this.targetCount = targetCount;
         this.targetTimeInMillis = TimeUnit.MILLISECONDS.convert(targetTimeValue, targetTimeUnit);
         this.sampleTimes = new ConcurrentLinkedQueue<>();
+        this.sampleTimesCount = new AtomicInteger();
         this.sampleRate = sampleRate;
         this.allowSampleRateChanging = false;
         this.clock = Clock.systemUTC();
@@ -112,12 +121,14 @@ public class AdaptiveSampleFilter extends SampleFilter {
         // Regardless of whether it's being sampled, record the time it occurred and add it to the list.
         long occurringTime = clock.millis();
         sampleTimes.add(occurringTime);
+        sampleTimesCount.incrementAndGet();
 
         // Remove times that happened more than the target time ago
         long timeWindowStartMillis = occurringTime - targetTimeInMillis;
         synchronized (sampleTimes) {
-            for(Long samplePeek = sampleTimes.peek(); samplePeek < timeWindowStartMillis || samplePeek == null; samplePeek = sampleTimes.peek()) {
+            for(Long samplePeek = sampleTimes.peek(); samplePeek != null && samplePeek < timeWindowStartMillis; samplePeek = sampleTimes.peek()) {
                 sampleTimes.poll();
+                sampleTimesCount.decrementAndGet();
 
                 // Once the time window has passed, allow the sample rate to start changing.
                 allowSampleRateChanging = true;
@@ -126,11 +137,14 @@ public class AdaptiveSampleFilter extends SampleFilter {
         }
 
         // Only make predictions with more than 3 data entries
-        if (sampleTimes.size() > 3) {
-            double requiredSampleRate = Math.min(1.0, Math.max(0.0, (double)targetCount / sampleTimes.size()));
+        int sampleTimesSize = sampleTimesCount.get();
+        if (sampleTimesSize > 3) {
+            double requiredSampleRate = Math.min(1.0, Math.max(0.0, (double)targetCount / sampleTimesSize));
 
             if (allowSampleRateChanging) {
-                LOGGER.finest(String.format("The sample rate was changed from %4.1f to %4.1f, as in the last time period %d requests were received.", sampleRate, requiredSampleRate, sampleTimes.size()));
+                if (LOGGER.isLoggable(Level.FINEST)) {
+                    LOGGER.finest(String.format("The sample rate was changed from %4.1f to %4.1f, as in the last time period %d requests were received.", sampleRate, requiredSampleRate, sampleTimesSize));
+                }
                 sampleRate = requiredSampleRate;
             }
         }
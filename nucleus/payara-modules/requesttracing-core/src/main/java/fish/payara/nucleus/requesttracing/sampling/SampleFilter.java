@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -39,7 +39,8 @@
  */
 package fish.payara.nucleus.requesttracing.sampling;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -53,7 +54,6 @@ public class SampleFilter {
      * The rate at which to sample requests.
      */
     protected double sampleRate;
-    private volatile Random random;
 
     /**
      * Initialises the sample filter.
@@ -61,7 +61,6 @@ public class SampleFilter {
      * @param sampleRate the rate, between 0 and 1, at which to sample requests.
      */
     public SampleFilter(double sampleRate) {
-        this.random = new Random();
         this.sampleRate = sampleRate;
     }
 
@@ -79,12 +78,15 @@ public class SampleFilter {
      * @return true if the request should be sampled, or false otherwise.
      */
     public boolean sample() {
-        double randomDouble = random.nextDouble();
+        // a random per thread, as this is called for every request
+        double randomDouble = ThreadLocalRandom.current().nextDouble();
         boolean sample = randomDouble < sampleRate;
-        if (sample) {
-            LOGGER.finest(String.format("Request was traced as sample rate was: %4.1f and the random float was: %4.1f", sampleRate, randomDouble));
-        } else {
-            LOGGER.finest(String.format("Request wasn't traced as sample rate was: %4.1f but the random float was: %4.1f", sampleRate, randomDouble));
+        if (LOGGER.isLoggable(Level.FINEST)) {
+            if (sample) {
+                LOGGER.finest(String.format("Request was traced as sample rate was: %4.1f and the random float was: %4.1f", sampleRate, randomDouble));
+            } else {
+                LOGGER.finest(String.format("Request wasn't traced as sample rate was: %4.1f but the random float was: %4.1f", sampleRate, randomDouble));
+            }
         }
         return sample;
     }
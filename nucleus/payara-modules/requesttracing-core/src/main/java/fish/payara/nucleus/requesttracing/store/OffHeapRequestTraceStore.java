@@ -0,0 +1,533 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.requesttracing.store;
+
+import fish.payara.notification.requesttracing.RequestTrace;
+import fish.payara.notification.requesttracing.RequestTraceSpan;
+import fish.payara.notification.requesttracing.RequestTraceSpanLog;
+import fish.payara.nucleus.requesttracing.store.strategy.TraceStorageStrategy;
+import fish.payara.nucleus.requesttracing.store.strategy.TraceStorageStrategy.StoredTrace;
+import io.opentracing.tag.Tag;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A store of {@link RequestTrace} objects.
+ * Stores the traces locally in a compressed binary form in a direct (off-heap) ring buffer of a fixed number of
+ * bytes, so that a large store does not add to the heap.
+ * <p>
+ * Only a small summary of each trace is kept on heap, which the {@link TraceStorageStrategy} uses to choose the
+ * trace to remove once the store holds more than the maximum number of traces. Traces are decoded when they are
+ * listed, removed traces are dropped without being decoded. When the buffer is full the oldest traces are overwritten, independent of the number of traces stored.
+ */
+public class OffHeapRequestTraceStore implements RequestTraceStoreInterface {
+
+    private static final Logger LOGGER = Logger.getLogger(OffHeapRequestTraceStore.class.getName());
+
+    private final ByteBuffer buffer;
+    /**
+     * The stored traces in the order they were written to the buffer, the first being the oldest.
+     */
+    private final Set<Slot> slots = new LinkedHashSet<>();
+    private int writePosition;
+    private IntSupplier maxStoreSize;
+
+    private final TraceStorageStrategy strategy;
+
+    OffHeapRequestTraceStore(TraceStorageStrategy strategy, int maxBytes) {
+        this.buffer = ByteBuffer.allocateDirect(maxBytes);
+        this.maxStoreSize = () -> 0;
+        this.strategy = strategy;
+    }
+
+    @Override
+    public RequestTrace addTrace(RequestTrace trace) {
+        return addTrace(trace, null);
+    }
+
+    /**
+     * Adds a request trace to the store, removing the specified trace if present and necessary. Removed traces are
+     * dropped without being decoded.
+     *
+     * @return the trace removed to keep to the maximum number of traces or else the last of the traces overwritten
+     * to make room in the buffer, as a trace decoded on first use; null if no trace was removed
+     */
+    @Override
+    public RequestTrace addTrace(RequestTrace trace, RequestTrace traceToRemove) {
+        byte[] encoded = encode(trace);
+        if (encoded == null || encoded.length > buffer.capacity()) {
+            return null;
+        }
+        synchronized (this) {
+            Slot overwritten = makeRoom(encoded.length);
+            // copy before the buffer is written, no decoding under the lock
+            RequestTrace removed = overwritten == null ? null : new RemovedTrace(overwritten, copy(overwritten));
+            Slot added = write(trace, encoded);
+            int maxSize = maxStoreSize.getAsInt();
+            if (slots.size() <= maxSize) {
+                return removed;
+            }
+            Slot slotToRemove = traceToRemove == null ? null : findSlot(traceToRemove.getTraceId());
+            if (slotToRemove == null) {
+                slotToRemove = strategy.getStoredTraceForRemoval(slots, maxSize);
+            }
+            slots.remove(slotToRemove);
+            return slotToRemove == added ? trace : new RemovedTrace(slotToRemove, copy(slotToRemove));
+        }
+    }
+
+    /**
+     * Removes the oldest traces occupying the next length bytes of the buffer, continuing at the start of the buffer
+     * if the remaining bytes are too few. The bytes of the last trace removed are left in the buffer until the next
+     * write.
+     *
+     * @return the last trace removed, or null if no trace had to be removed
+     */
+    private Slot makeRoom(int length) {
+        Slot overwritten = null;
+        if (writePosition + length > buffer.capacity()) {
+            overwritten = evict(writePosition, buffer.capacity(), overwritten);
+            writePosition = 0;
+        }
+        return evict(writePosition, writePosition + length, overwritten);
+    }
+
+    private Slot evict(int start, int end, Slot overwritten) {
+        Iterator<Slot> iter = slots.iterator();
+        while (iter.hasNext()) {
+            Slot oldest = iter.next();
+            if (oldest.offset < start || oldest.offset >= end) {
+                break;
+            }
+            overwritten = oldest;
+            iter.remove();
+        }
+        return overwritten;
+    }
+
+    private Slot write(RequestTrace trace, byte[] encoded) {
+        Slot slot = new Slot(trace, writePosition, encoded.length);
+        buffer.position(writePosition);
+        buffer.put(encoded);
+        writePosition += encoded.length;
+        slots.add(slot);
+        return slot;
+    }
+
+    private Slot findSlot(UUID traceId) {
+        for (Slot slot : slots) {
+            if (slot.traceId.equals(traceId)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a view of the traces in the store. The traces are decoded one by one while iterating the view.
+     * Removing traces from the view removes them from the store.
+     */
+    @Override
+    public Collection<RequestTrace> getTraces() {
+        List<Slot> current;
+        synchronized (this) {
+            current = new ArrayList<>(slots);
+        }
+        return new AbstractCollection<RequestTrace>() {
+
+            @Override
+            public Iterator<RequestTrace> iterator() {
+                return new TraceIterator(current.iterator());
+            }
+
+            @Override
+            public int size() {
+                return current.size();
+            }
+        };
+    }
+
+    @Override
+    public Collection<RequestTrace> getTraces(int limit) {
+        List<RequestTrace> traces = new ArrayList<>();
+        Iterator<RequestTrace> iter = getTraces().iterator();
+        while (iter.hasNext() && traces.size() < limit) {
+            traces.add(iter.next());
+        }
+        return traces;
+    }
+
+    @Override
+    public synchronized void setSize(IntSupplier maxSize) {
+        int currentMaxSize = maxSize.getAsInt();
+        while (slots.size() > currentMaxSize) {
+            slots.remove(strategy.getStoredTraceForRemoval(slots, currentMaxSize));
+        }
+        this.maxStoreSize = maxSize;
+    }
+
+    @Override
+    public int getStoreSize() {
+        return maxStoreSize.getAsInt();
+    }
+
+    @Override
+    public synchronized Collection<RequestTrace> emptyStore() {
+        Collection<RequestTrace> traces = new ArrayList<>(slots.size());
+        for (Slot slot : slots) {
+            RequestTrace trace = read(slot);
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        slots.clear();
+        writePosition = 0;
+        return traces;
+    }
+
+    /**
+     * @return the decoded trace, or null if the trace has been removed from the store in the meantime
+     */
+    private RequestTrace read(Slot slot) {
+        byte[] encoded;
+        synchronized (this) {
+            if (!slots.contains(slot)) {
+                return null;
+            }
+            encoded = copy(slot);
+        }
+        return decode(encoded);
+    }
+
+    private byte[] copy(Slot slot) {
+        byte[] encoded = new byte[slot.length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(slot.offset);
+        view.get(encoded);
+        return encoded;
+    }
+
+    private static byte[] encode(RequestTrace trace) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (ObjectOutputStream out = new TraceOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            out.writeObject(trace);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Unable to store request trace " + trace.getTraceId(), ex);
+            return null;
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static RequestTrace decode(byte[] encoded) {
+        Inflater inflater = new Inflater();
+        try (ObjectInputStream in = new TraceInputStream(new InflaterInputStream(new ByteArrayInputStream(encoded), inflater))) {
+            return (RequestTrace) in.readObject();
+        } catch (IOException | ClassNotFoundException ex) {
+            LOGGER.log(Level.WARNING, "Unable to read stored request trace", ex);
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * On heap summary of a trace stored in the buffer.
+     */
+    private static final class Slot implements StoredTrace {
+
+        final UUID traceId;
+        final long elapsedTime;
+        final Instant startTime;
+        final int offset;
+        final int length;
+
+        Slot(RequestTrace trace, int offset, int length) {
+            this.traceId = trace.getTraceId();
+            this.elapsedTime = trace.getElapsedTime();
+            this.startTime = trace.getStartTime();
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public long getElapsedTime() {
+            return elapsedTime;
+        }
+
+        @Override
+        public Instant getStartTime() {
+            return startTime;
+        }
+    }
+
+    /**
+     * A trace removed from the store, decoded when first used beyond its id, start and elapsed time.
+     */
+    private static final class RemovedTrace extends RequestTrace {
+
+        private final UUID traceId;
+        private final long elapsedTime;
+        private final Instant startTime;
+        private byte[] encoded;
+        private RequestTrace decoded;
+
+        RemovedTrace(Slot slot, byte[] encoded) {
+            this.traceId = slot.traceId;
+            this.elapsedTime = slot.elapsedTime;
+            this.startTime = slot.startTime;
+            this.encoded = encoded;
+        }
+
+        private synchronized RequestTrace decoded() {
+            if (decoded == null) {
+                decoded = decode(encoded);
+                if (decoded == null) {
+                    decoded = new RequestTrace();
+                }
+                encoded = null;
+            }
+            return decoded;
+        }
+
+        @Override
+        public UUID getTraceId() {
+            return traceId;
+        }
+
+        @Override
+        public long getElapsedTime() {
+            return elapsedTime;
+        }
+
+        @Override
+        public Instant getStartTime() {
+            return startTime;
+        }
+
+        @Override
+        public void addEvent(RequestTraceSpan span) {
+            decoded().addEvent(span);
+        }
+
+        @Override
+        public void addEvent(RequestTraceSpan span, long timestampMillis) {
+            decoded().addEvent(span, timestampMillis);
+        }
+
+        @Override
+        public void endTrace() {
+            decoded().endTrace();
+        }
+
+        @Override
+        public void endTrace(long timestampMillis) {
+            decoded().endTrace(timestampMillis);
+        }
+
+        @Override
+        public boolean isStarted() {
+            return decoded().isStarted();
+        }
+
+        @Override
+        public LinkedList<RequestTraceSpan> getTraceSpans() {
+            return decoded().getTraceSpans();
+        }
+
+        @Override
+        public Instant getEndTime() {
+            return decoded().getEndTime();
+        }
+
+        @Override
+        public void setTraceId(UUID newID) {
+            decoded().setTraceId(newID);
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return decoded().isCompleted();
+        }
+
+        @Override
+        public void addSpanLog(RequestTraceSpanLog spanLog) {
+            decoded().addSpanLog(spanLog);
+        }
+
+        @Override
+        public void clear() {
+            decoded().clear();
+        }
+
+        @Override
+        public int compareTo(RequestTrace requestTrace) {
+            return decoded().compareTo(requestTrace);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RemovedTrace ? decoded().equals(((RemovedTrace) o).decoded()) : decoded().equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return decoded().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return decoded().toString();
+        }
+
+        private Object writeReplace() {
+            return decoded();
+        }
+    }
+
+    /**
+     * Iterates the traces of the given slots, skipping the ones that have been removed from the store since.
+     */
+    private final class TraceIterator implements Iterator<RequestTrace> {
+
+        private final Iterator<Slot> slotIterator;
+        private Slot nextSlot;
+        private RequestTrace next;
+        private Slot lastSlot;
+
+        TraceIterator(Iterator<Slot> slotIterator) {
+            this.slotIterator = slotIterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && slotIterator.hasNext()) {
+                nextSlot = slotIterator.next();
+                next = read(nextSlot);
+            }
+            return next != null;
+        }
+
+        @Override
+        public RequestTrace next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            RequestTrace trace = next;
+            lastSlot = nextSlot;
+            next = null;
+            return trace;
+        }
+
+        @Override
+        public void remove() {
+            if (lastSlot == null) {
+                throw new IllegalStateException();
+            }
+            synchronized (OffHeapRequestTraceStore.this) {
+                slots.remove(lastSlot);
+            }
+            lastSlot = null;
+        }
+    }
+
+    /**
+     * Replaces the OpenTracing {@link Tag} keys of span tags, which are not serializable, by their names.
+     */
+    private static final class TraceOutputStream extends ObjectOutputStream {
+
+        TraceOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) throws IOException {
+            return obj instanceof Tag ? ((Tag<?>) obj).getKey() : obj;
+        }
+    }
+
+    /**
+     * Resolves the classes of a trace with the class loader of the request tracing API.
+     */
+    private static final class TraceInputStream extends ObjectInputStream {
+
+        TraceInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, RequestTrace.class.getClassLoader());
+            } catch (ClassNotFoundException ex) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -68,6 +68,20 @@ public class RequestTraceStoreFactory {
      * @return a request trace store.
      */
     public static RequestTraceStoreInterface getStore(boolean reservoirSamplingEnabled, boolean historic) {
+        return getStore(reservoirSamplingEnabled, historic, 0);
+    }
+
+    /**
+     * Generates a request trace store.
+     *
+     * @param reservoirSamplingEnabled whether the store should remove items
+     * based on a reservoir sampling algorithm.
+     * @param historic whether the store is a historic store or not.
+     * @param maxBytes the size of the off-heap buffer of a local store, or 0
+     * to keep the traces of a local store on heap.
+     * @return a request trace store.
+     */
+    public static RequestTraceStoreInterface getStore(boolean reservoirSamplingEnabled, boolean historic, int maxBytes) {
 
         // Get the hazelcast store name for if it's a clustered store.
         String storeName;
@@ -98,6 +112,9 @@ public class RequestTraceStoreFactory {
         }
 
         // Otherwise get a local store
+        if (maxBytes > 0) {
+            return new OffHeapRequestTraceStore(strategy, maxBytes);
+        }
         return new LocalRequestTraceStore(strategy);
     }
 
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017-2019 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,8 +40,11 @@
 package fish.payara.nucleus.requesttracing.store.strategy;
 
 import fish.payara.notification.requesttracing.RequestTrace;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 /**
  * Strategy for finding traces that need removing from a list. Will remove the trace at the shortest traces in the given
@@ -60,17 +63,33 @@ public class LongestTraceStorageStrategy implements TraceStorageStrategy {
         if (traces == null || traces.isEmpty() || traces.size() <= maxSize) {
             return null;
         }
-        return traceToRemove != null && traces.contains(traceToRemove) ? traceToRemove : findShortestTrace(traces);
+        return traceToRemove != null && traces.contains(traceToRemove) 
+                ? traceToRemove 
+                : findShortestTrace(traces, RequestTrace::getElapsedTime, RequestTrace::getStartTime);
     }
 
-    private static RequestTrace findShortestTrace(Collection<RequestTrace> traces) {
-        Iterator<RequestTrace> iter = traces.iterator();
-        RequestTrace shortest = iter.next();
+    /**
+     * Selects the shortest of the given stored traces should their number be larger then maxSize.
+     *
+     * @see TraceStorageStrategy#getStoredTraceForRemoval(Collection, int)
+     */
+    @Override
+    public <T extends StoredTrace> T getStoredTraceForRemoval(Collection<T> traces, int maxSize) {
+        if (traces == null || traces.isEmpty() || traces.size() <= maxSize) {
+            return null;
+        }
+        return findShortestTrace(traces, StoredTrace::getElapsedTime, StoredTrace::getStartTime);
+    }
+
+    private static <T> T findShortestTrace(Collection<T> traces, ToLongFunction<T> elapsedTime,
+            Function<T, Instant> startTime) {
+        Iterator<T> iter = traces.iterator();
+        T shortest = iter.next();
         while (iter.hasNext()) {
-            RequestTrace next = iter.next();
-            if (next.getElapsedTime() < shortest.getElapsedTime() 
-                || next.getElapsedTime() == shortest.getElapsedTime() 
-                    && next.getStartTime().isBefore(shortest.getStartTime())) {
+            T next = iter.next();
+            if (elapsedTime.applyAsLong(next) < elapsedTime.applyAsLong(shortest) 
+                || elapsedTime.applyAsLong(next) == elapsedTime.applyAsLong(shortest) 
+                    && startTime.apply(next).isBefore(startTime.apply(shortest))) {
                 shortest = next;
             }
         }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2017-2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2017-2022] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -81,14 +81,28 @@ public class ReservoirTraceStorageStrategy implements TraceStorageStrategy {
                 : findRandomTrace(traces);
     }
 
+    /**
+     * Gets the stored trace that needs removing, each stored trace having the same probability of being kept or
+     * removed.
+     *
+     * @see TraceStorageStrategy#getStoredTraceForRemoval(Collection, int)
+     */
+    @Override
+    public <T extends StoredTrace> T getStoredTraceForRemoval(Collection<T> traces, int maxSize) {
+        if (traces.size() <= maxSize) {
+            return null;
+        }
+        return findRandomTrace(traces);
+    }
+
     /**
      * Since this implementation is only dealing with a special case of the Reservoir sampling scenario where there is a
      * single element more than the maximum size a selection of equal probability is simply to select any of the
      * elements at random whereby we are left with the elements to keep.
      */
-    private RequestTrace findRandomTrace(Collection<RequestTrace> traces) {
+    private <T> T findRandomTrace(Collection<T> traces) {
         int itemToReplace = random.nextInt(traces.size());
-        Iterator<RequestTrace> iter = traces.iterator();
+        Iterator<T> iter = traces.iterator();
         for (int i = 0; i < itemToReplace; i++) {
             iter.next();
         }
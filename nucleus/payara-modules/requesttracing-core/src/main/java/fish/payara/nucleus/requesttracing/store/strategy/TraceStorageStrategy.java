@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017-2019 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,6 +40,7 @@
 package fish.payara.nucleus.requesttracing.store.strategy;
 
 import fish.payara.notification.requesttracing.RequestTrace;
+import java.time.Instant;
 import java.util.Collection;
 
 /**
@@ -58,4 +59,31 @@ public interface TraceStorageStrategy {
      * @return the trace that needs removing, or null if no traces need removing.
      */
     RequestTrace getTraceForRemoval(Collection<RequestTrace> traces, int maxSize, RequestTrace traceToRemove);
+
+    /**
+     * Get the stored trace that needs removing for stores that keep traces in an encoded form and only have a
+     * {@link StoredTrace} summary of each trace at hand.
+     *
+     * @param <T>     the type of the summaries
+     * @param traces  the summaries of the stored traces.
+     * @param maxSize the maximum size of the list.
+     * @return the summary of the trace that needs removing, or null if no traces need removing.
+     */
+    <T extends StoredTrace> T getStoredTraceForRemoval(Collection<T> traces, int maxSize);
+
+    /**
+     * The properties of a stored trace a {@link TraceStorageStrategy} bases its choice on.
+     */
+    interface StoredTrace {
+
+        /**
+         * @return how long the trace took in milliseconds
+         */
+        long getElapsedTime();
+
+        /**
+         * @return when the trace started
+         */
+        Instant getStartTime();
+    }
 }
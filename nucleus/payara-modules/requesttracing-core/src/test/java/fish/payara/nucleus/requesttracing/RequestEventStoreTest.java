@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2018 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2022 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -43,6 +43,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Collections;
@@ -90,6 +91,22 @@ public class RequestEventStoreTest {
         assertEquals(0, eventStore.getTrace().getTraceSpans().size());
     }
 
+    @Test
+    public void testRecycleTrace() {
+        testStoreEvent();
+        RequestTrace trace = eventStore.getTrace();
+        eventStore.recycleTrace();
+        assertSame(trace, eventStore.getTrace());
+        assertEquals(0, trace.getTraceSpans().size());
+        assertFalse(trace.isStarted());
+        assertFalse(eventStore.isTraceInProgress());
+        assertEquals(0, eventStore.getElapsedTime());
+
+        eventStore.storeEvent(new RequestTraceSpan(EventType.TRACE_START, "Restart"));
+        assertTrue(eventStore.isTraceInProgress());
+        assertEquals(1, eventStore.getTrace().getTraceSpans().size());
+    }
+
     /**
      * Test of storeEvent method utilising multiple threads ensuring traces are separate
      */
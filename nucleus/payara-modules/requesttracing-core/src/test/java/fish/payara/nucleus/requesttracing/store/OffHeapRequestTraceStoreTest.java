@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2022 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.requesttracing.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import fish.payara.notification.requesttracing.RequestTrace;
+import fish.payara.nucleus.requesttracing.store.strategy.LongestTraceStorageStrategy;
+
+/**
+ * Tests correctness of the {@link OffHeapRequestTraceStore}.
+ */
+public class OffHeapRequestTraceStoreTest extends AbstractRequestTraceStoreTest {
+
+    public OffHeapRequestTraceStoreTest() {
+        super(new OffHeapRequestTraceStore(new LongestTraceStorageStrategy(), 64 * 1024));
+    }
+
+    @Test
+    public void storedTracesAreDecodedWhenListed() {
+        store.setSize(() -> 10);
+        RequestTrace trace = createTrace();
+        assertNull(store.addTrace(trace));
+        RequestTrace stored = store.getTraces().iterator().next();
+        assertEquals(trace.getTraceId(), stored.getTraceId());
+        assertEquals(trace.getStartTime(), stored.getStartTime());
+        assertEquals(trace.getElapsedTime(), stored.getElapsedTime());
+        assertEquals(trace.toString(), stored.toString());
+    }
+
+    @Test
+    public void shortestTraceIsRemovedAboveMaxSize() {
+        store.setSize(() -> 2);
+        RequestTrace longest = createTrace(3000000000L);
+        RequestTrace shortest = createTrace(1000000000L);
+        RequestTrace medium = createTrace(2000000000L);
+        store.addTrace(longest);
+        store.addTrace(shortest);
+        RequestTrace removed = store.addTrace(medium);
+        assertNotNull(removed);
+        assertEquals(shortest.getTraceId(), removed.getTraceId());
+        List<UUID> kept = traceIds();
+        assertTrue(kept.contains(longest.getTraceId()));
+        assertTrue(kept.contains(medium.getTraceId()));
+    }
+
+    @Test
+    public void addedTraceIsReturnedWhenItIsTheOneToRemove() {
+        store.setSize(() -> 1);
+        store.addTrace(createTrace(2000000000L));
+        RequestTrace shortest = createTrace(1000000000L);
+        assertSame(shortest, store.addTrace(shortest));
+        assertEquals(1, store.getTraces().size());
+    }
+
+    @Test
+    public void oldestTracesAreOverwrittenWhenBufferIsFull() {
+        RequestTraceStoreInterface smallStore = new OffHeapRequestTraceStore(new LongestTraceStorageStrategy(), 2048);
+        smallStore.setSize(() -> 100);
+        RequestTrace first = createTrace();
+        smallStore.addTrace(first);
+        RequestTrace last = null;
+        for (int i = 0; i < 50; i++) {
+            last = createTrace();
+            smallStore.addTrace(last);
+        }
+        int stored = smallStore.getTraces().size();
+        assertTrue(stored > 0 && stored < 51);
+        List<UUID> kept = smallStore.getTraces().stream().map(RequestTrace::getTraceId).collect(Collectors.toList());
+        assertFalse(kept.contains(first.getTraceId()));
+        assertTrue(kept.contains(last.getTraceId()));
+    }
+
+    @Test
+    public void overwrittenTraceIsDecodedOnFirstUse() {
+        RequestTraceStoreInterface smallStore = new OffHeapRequestTraceStore(new LongestTraceStorageStrategy(), 2048);
+        smallStore.setSize(() -> 100);
+        Map<UUID, RequestTrace> added = new HashMap<>();
+        RequestTrace removed = null;
+        while (removed == null) {
+            RequestTrace trace = createTrace();
+            added.put(trace.getTraceId(), trace);
+            removed = smallStore.addTrace(trace);
+        }
+        RequestTrace original = added.get(removed.getTraceId());
+        assertNotNull(original);
+        assertEquals(original.getElapsedTime(), removed.getElapsedTime());
+        assertEquals(original.toString(), removed.toString());
+        assertEquals(original.getTraceSpans().size(), removed.getTraceSpans().size());
+    }
+
+    @Test
+    public void removingTracesFromTheViewRemovesThemFromTheStore() {
+        store.setSize(() -> 10);
+        store.addTrace(createTrace());
+        store.addTrace(createTrace());
+        Iterator<RequestTrace> iter = store.getTraces().iterator();
+        iter.next();
+        iter.remove();
+        assertEquals(1, store.getTraces().size());
+    }
+
+    private List<UUID> traceIds() {
+        return store.getTraces().stream().map(RequestTrace::getTraceId).collect(Collectors.toList());
+    }
+}